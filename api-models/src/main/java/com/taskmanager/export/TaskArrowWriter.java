@@ -0,0 +1,427 @@
+package com.taskmanager.export;
+
+import com.google.flatbuffers.FlatBufferBuilder;
+import com.taskmanager.model.TaskStatus;
+import org.apache.arrow.flatbuf.Block;
+import org.apache.arrow.flatbuf.Bool;
+import org.apache.arrow.flatbuf.Buffer;
+import org.apache.arrow.flatbuf.Date;
+import org.apache.arrow.flatbuf.DateUnit;
+import org.apache.arrow.flatbuf.DictionaryBatch;
+import org.apache.arrow.flatbuf.DictionaryEncoding;
+import org.apache.arrow.flatbuf.DictionaryKind;
+import org.apache.arrow.flatbuf.Endianness;
+import org.apache.arrow.flatbuf.Field;
+import org.apache.arrow.flatbuf.FieldNode;
+import org.apache.arrow.flatbuf.Footer;
+import org.apache.arrow.flatbuf.Int;
+import org.apache.arrow.flatbuf.Message;
+import org.apache.arrow.flatbuf.MessageHeader;
+import org.apache.arrow.flatbuf.MetadataVersion;
+import org.apache.arrow.flatbuf.RecordBatch;
+import org.apache.arrow.flatbuf.Schema;
+import org.apache.arrow.flatbuf.TimeUnit;
+import org.apache.arrow.flatbuf.Timestamp;
+import org.apache.arrow.flatbuf.Type;
+import org.apache.arrow.flatbuf.Utf8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Writes tasks in the Arrow IPC file format (also read as Feather v2 by pandas, Polars and DuckDB)
+ * directly to a channel. Only the format's flatbuffer metadata classes are used; column buffers are
+ * plain little-endian {@link ByteBuffer}s, so no Arrow allocator or off-heap memory is involved.
+ * <p>
+ * Rows are buffered into one record batch ("row group") of at most {@code rowGroupSize} rows,
+ * which is written as soon as it is full, so memory is bounded by one group. Columns:
+ * {@code id int64}, {@code title utf8}, {@code description utf8}, {@code status} dictionary-encoded
+ * as {@code int8} indexes into {@code TODO, IN_PROGRESS, DONE}, {@code dueDate date32[day]},
+ * {@code externalKey utf8}, {@code archived bool} and {@code completedAt timestamp[us]} without a
+ * time zone. Not thread-safe; {@link #finish()} writes the footer but does not close the channel.
+ */
+final class TaskArrowWriter {
+
+    private static final byte[] MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+    private static final int CONTINUATION = 0xFFFFFFFF;
+    private static final long STATUS_DICTIONARY_ID = 0;
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final WritableByteChannel channel;
+    private final int rowGroupSize;
+    private final List<long[]> dictionaryBlocks = new ArrayList<>();
+    private final List<long[]> recordBatchBlocks = new ArrayList<>();
+    private long position;
+    private long rows;
+    private boolean finished;
+
+    private int groupRows;
+    private final long[] ids;
+    private final StringColumn titles;
+    private final StringColumn descriptions;
+    private final byte[] statuses;
+    private final int[] dueDays;
+    private final BitSet dueDaysValid = new BitSet();
+    private final StringColumn externalKeys;
+    private final BitSet archived = new BitSet();
+    private final long[] completedAt;
+    private final BitSet completedAtValid = new BitSet();
+
+    TaskArrowWriter(WritableByteChannel channel, int rowGroupSize) throws IOException {
+        this.channel = channel;
+        this.rowGroupSize = rowGroupSize;
+        this.ids = new long[rowGroupSize];
+        this.titles = new StringColumn(rowGroupSize);
+        this.descriptions = new StringColumn(rowGroupSize);
+        this.statuses = new byte[rowGroupSize];
+        this.dueDays = new int[rowGroupSize];
+        this.externalKeys = new StringColumn(rowGroupSize);
+        this.completedAt = new long[rowGroupSize];
+
+        ByteBuffer header = ByteBuffer.allocate(8);
+        header.put(MAGIC).flip().limit(8);
+        write(header);
+        writeSchemaMessage();
+        writeStatusDictionary();
+    }
+
+    void append(long id, String title, String description, TaskStatus status, LocalDate dueDate,
+            String externalKey, boolean isArchived, LocalDateTime completed) throws IOException {
+        int row = groupRows;
+        ids[row] = id;
+        titles.add(row, title);
+        descriptions.add(row, description);
+        statuses[row] = (byte) status.ordinal();
+        if (dueDate != null) {
+            dueDays[row] = (int) dueDate.toEpochDay();
+            dueDaysValid.set(row);
+        }
+        externalKeys.add(row, externalKey);
+        archived.set(row, isArchived);
+        if (completed != null) {
+            completedAt[row] = completed.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + completed.getNano() / 1_000;
+            completedAtValid.set(row);
+        }
+        groupRows++;
+        rows++;
+        if (groupRows == rowGroupSize) {
+            flushRowGroup();
+        }
+    }
+
+    /**
+     * Writes the buffered rows as one record batch, if there are any.
+     */
+    void flushRowGroup() throws IOException {
+        if (groupRows == 0) {
+            return;
+        }
+        int n = groupRows;
+        List<ByteBuffer> buffers = new ArrayList<>(17);
+        long[][] nodes = new long[8][];
+
+        nodes[0] = node(n, 0);
+        buffers.add(empty());
+        buffers.add(longs(ids, n));
+        nodes[1] = titles.addBuffers(buffers, n);
+        nodes[2] = descriptions.addBuffers(buffers, n);
+        nodes[3] = node(n, 0);
+        buffers.add(empty());
+        buffers.add(ByteBuffer.wrap(statuses, 0, n).slice());
+        nodes[4] = node(n, n - dueDaysValid.cardinality());
+        buffers.add(validity(dueDaysValid, n));
+        buffers.add(ints(dueDays, n));
+        nodes[5] = externalKeys.addBuffers(buffers, n);
+        nodes[6] = node(n, 0);
+        buffers.add(empty());
+        buffers.add(bitmap(archived, n));
+        nodes[7] = node(n, n - completedAtValid.cardinality());
+        buffers.add(validity(completedAtValid, n));
+        buffers.add(longs(completedAt, n));
+
+        recordBatchBlocks.add(writeRecordBatch(MessageHeader.RecordBatch, n, nodes, buffers, -1));
+
+        groupRows = 0;
+        titles.clear();
+        descriptions.clear();
+        externalKeys.clear();
+        dueDaysValid.clear();
+        archived.clear();
+        completedAtValid.clear();
+    }
+
+    /**
+     * Flushes the last row group and writes the end-of-stream marker and the file footer.
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        flushRowGroup();
+        ByteBuffer endOfStream = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        endOfStream.putInt(CONTINUATION).putInt(0).flip();
+        write(endOfStream);
+
+        FlatBufferBuilder builder = new FlatBufferBuilder(1024);
+        int schema = schema(builder);
+        int dictionaries = blocks(builder, dictionaryBlocks, true);
+        int recordBatches = blocks(builder, recordBatchBlocks, false);
+        Footer.startFooter(builder);
+        Footer.addVersion(builder, MetadataVersion.V5);
+        Footer.addSchema(builder, schema);
+        Footer.addDictionaries(builder, dictionaries);
+        Footer.addRecordBatches(builder, recordBatches);
+        builder.finish(Footer.endFooter(builder));
+        ByteBuffer footer = builder.dataBuffer();
+        int footerLength = footer.remaining();
+        write(footer);
+
+        ByteBuffer trailer = ByteBuffer.allocate(4 + MAGIC.length).order(ByteOrder.LITTLE_ENDIAN);
+        trailer.putInt(footerLength).put(MAGIC).flip();
+        write(trailer);
+        finished = true;
+    }
+
+    long getRows() {
+        return rows;
+    }
+
+    int getRowGroups() {
+        return recordBatchBlocks.size();
+    }
+
+    long getBytesWritten() {
+        return position;
+    }
+
+    private void writeSchemaMessage() throws IOException {
+        FlatBufferBuilder builder = new FlatBufferBuilder(1024);
+        int schema = schema(builder);
+        writeMessage(builder, MessageHeader.Schema, schema, List.of());
+    }
+
+    private void writeStatusDictionary() throws IOException {
+        StringColumn names = new StringColumn(STATUSES.length);
+        for (int i = 0; i < STATUSES.length; i++) {
+            names.add(i, STATUSES[i].name());
+        }
+        List<ByteBuffer> buffers = new ArrayList<>(3);
+        long[][] nodes = {names.addBuffers(buffers, STATUSES.length)};
+        dictionaryBlocks.add(writeRecordBatch(MessageHeader.DictionaryBatch, STATUSES.length, nodes, buffers,
+                STATUS_DICTIONARY_ID));
+    }
+
+    /**
+     * Writes a record batch, or a dictionary batch wrapping one when {@code dictionaryId >= 0}.
+     * Returns the footer block {@code [offset, metadataLength, bodyLength]}.
+     */
+    private long[] writeRecordBatch(byte headerType, int length, long[][] nodes, List<ByteBuffer> buffers,
+            long dictionaryId) throws IOException {
+        FlatBufferBuilder builder = new FlatBufferBuilder(1024);
+        RecordBatch.startNodesVector(builder, nodes.length);
+        for (int i = nodes.length - 1; i >= 0; i--) {
+            FieldNode.createFieldNode(builder, nodes[i][0], nodes[i][1]);
+        }
+        int nodesVector = builder.endVector();
+        long[] offsets = new long[buffers.size()];
+        long bodyLength = 0;
+        for (int i = 0; i < buffers.size(); i++) {
+            offsets[i] = bodyLength;
+            bodyLength += padded(buffers.get(i).remaining());
+        }
+        RecordBatch.startBuffersVector(builder, buffers.size());
+        for (int i = buffers.size() - 1; i >= 0; i--) {
+            Buffer.createBuffer(builder, offsets[i], buffers.get(i).remaining());
+        }
+        int buffersVector = builder.endVector();
+        int header = RecordBatch.createRecordBatch(builder, length, nodesVector, buffersVector, 0, 0);
+        if (headerType == MessageHeader.DictionaryBatch) {
+            header = DictionaryBatch.createDictionaryBatch(builder, dictionaryId, header, false);
+        }
+        return writeMessage(builder, headerType, header, buffers);
+    }
+
+    /**
+     * Writes one encapsulated message: continuation marker, metadata length, the {@code Message}
+     * flatbuffer padded to 8 bytes, then the body buffers, each padded to 8 bytes.
+     */
+    private long[] writeMessage(FlatBufferBuilder builder, byte headerType, int header, List<ByteBuffer> body)
+            throws IOException {
+        long bodyLength = 0;
+        for (ByteBuffer buffer : body) {
+            bodyLength += padded(buffer.remaining());
+        }
+        int message = Message.createMessage(builder, MetadataVersion.V5, headerType, header, bodyLength, 0);
+        builder.finish(message);
+        ByteBuffer metadata = builder.dataBuffer();
+        int metadataLength = (int) padded(8 + metadata.remaining()) - 8;
+
+        long offset = position;
+        ByteBuffer prefix = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        prefix.putInt(CONTINUATION).putInt(metadataLength).flip();
+        write(prefix);
+        int metadataPadding = metadataLength - metadata.remaining();
+        write(metadata);
+        writePadding(metadataPadding);
+        for (ByteBuffer buffer : body) {
+            int padding = (int) (padded(buffer.remaining()) - buffer.remaining());
+            write(buffer);
+            writePadding(padding);
+        }
+        return new long[] {offset, 8 + metadataLength, bodyLength};
+    }
+
+    private static int schema(FlatBufferBuilder builder) {
+        int[] fields = {
+                field(builder, "id", false, Type.Int, Int.createInt(builder, 64, true), 0),
+                field(builder, "title", false, Type.Utf8, utf8(builder), 0),
+                field(builder, "description", true, Type.Utf8, utf8(builder), 0),
+                field(builder, "status", false, Type.Utf8, utf8(builder), DictionaryEncoding.createDictionaryEncoding(
+                        builder, STATUS_DICTIONARY_ID, Int.createInt(builder, 8, true), false,
+                        DictionaryKind.DenseArray)),
+                field(builder, "dueDate", true, Type.Date, Date.createDate(builder, DateUnit.DAY), 0),
+                field(builder, "externalKey", true, Type.Utf8, utf8(builder), 0),
+                field(builder, "archived", false, Type.Bool, bool(builder), 0),
+                field(builder, "completedAt", true, Type.Timestamp,
+                        Timestamp.createTimestamp(builder, TimeUnit.MICROSECOND, 0), 0)
+        };
+        int fieldsVector = Schema.createFieldsVector(builder, fields);
+        return Schema.createSchema(builder, Endianness.Little, fieldsVector, 0, 0);
+    }
+
+    private static int field(FlatBufferBuilder builder, String name, boolean nullable, byte typeType, int type,
+            int dictionary) {
+        int nameOffset = builder.createString(name);
+        int children = Field.createChildrenVector(builder, new int[0]);
+        Field.startField(builder);
+        Field.addName(builder, nameOffset);
+        Field.addNullable(builder, nullable);
+        Field.addTypeType(builder, typeType);
+        Field.addType(builder, type);
+        if (dictionary != 0) {
+            Field.addDictionary(builder, dictionary);
+        }
+        Field.addChildren(builder, children);
+        return Field.endField(builder);
+    }
+
+    private static int utf8(FlatBufferBuilder builder) {
+        Utf8.startUtf8(builder);
+        return Utf8.endUtf8(builder);
+    }
+
+    private static int bool(FlatBufferBuilder builder) {
+        Bool.startBool(builder);
+        return Bool.endBool(builder);
+    }
+
+    private static int blocks(FlatBufferBuilder builder, List<long[]> blocks, boolean dictionaries) {
+        if (dictionaries) {
+            Footer.startDictionariesVector(builder, blocks.size());
+        } else {
+            Footer.startRecordBatchesVector(builder, blocks.size());
+        }
+        for (int i = blocks.size() - 1; i >= 0; i--) {
+            long[] block = blocks.get(i);
+            Block.createBlock(builder, block[0], (int) block[1], block[2]);
+        }
+        return builder.endVector();
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer);
+        }
+    }
+
+    private void writePadding(int bytes) throws IOException {
+        if (bytes > 0) {
+            write(ByteBuffer.allocate(bytes));
+        }
+    }
+
+    private static long padded(long length) {
+        return (length + 7) & ~7L;
+    }
+
+    private static long[] node(int length, int nullCount) {
+        return new long[] {length, nullCount};
+    }
+
+    private static ByteBuffer empty() {
+        return ByteBuffer.allocate(0);
+    }
+
+    /**
+     * A validity bitmap, or no buffer at all when every value is present.
+     */
+    private static ByteBuffer validity(BitSet valid, int n) {
+        return valid.cardinality() == n ? empty() : bitmap(valid, n);
+    }
+
+    private static ByteBuffer bitmap(BitSet bits, int n) {
+        return ByteBuffer.wrap(Arrays.copyOf(bits.toByteArray(), (n + 7) / 8));
+    }
+
+    private static ByteBuffer longs(long[] values, int n) {
+        ByteBuffer buffer = ByteBuffer.allocate(n * 8).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asLongBuffer().put(values, 0, n);
+        return buffer;
+    }
+
+    private static ByteBuffer ints(int[] values, int n) {
+        ByteBuffer buffer = ByteBuffer.allocate(n * 4).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asIntBuffer().put(values, 0, n);
+        return buffer;
+    }
+
+    /**
+     * A {@code utf8} column: validity, {@code n + 1} int32 offsets and the concatenated bytes.
+     */
+    private static final class StringColumn {
+
+        private final int[] offsets;
+        private final BitSet valid = new BitSet();
+        private byte[] data = new byte[4096];
+        private int size;
+
+        StringColumn(int capacity) {
+            offsets = new int[capacity + 1];
+        }
+
+        void add(int row, String value) {
+            if (value != null) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                if (size + bytes.length > data.length) {
+                    data = Arrays.copyOf(data, Math.max(data.length * 2, size + bytes.length));
+                }
+                System.arraycopy(bytes, 0, data, size, bytes.length);
+                size += bytes.length;
+                valid.set(row);
+            }
+            offsets[row + 1] = size;
+        }
+
+        long[] addBuffers(List<ByteBuffer> buffers, int n) {
+            buffers.add(validity(valid, n));
+            buffers.add(ints(offsets, n + 1));
+            buffers.add(ByteBuffer.wrap(data, 0, size).slice());
+            return node(n, n - valid.cardinality());
+        }
+
+        void clear() {
+            valid.clear();
+            size = 0;
+        }
+    }
+}
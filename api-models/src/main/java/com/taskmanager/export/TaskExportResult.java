@@ -0,0 +1,35 @@
+package com.taskmanager.export;
+
+/**
+ * Outcome of one snapshot export.
+ */
+public class TaskExportResult {
+
+    private final long rows;
+    private final int rowGroups;
+    private final long bytes;
+    private final long durationMillis;
+
+    public TaskExportResult(long rows, int rowGroups, long bytes, long durationMillis) {
+        this.rows = rows;
+        this.rowGroups = rowGroups;
+        this.bytes = bytes;
+        this.durationMillis = durationMillis;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public int getRowGroups() {
+        return rowGroups;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+}
@@ -1,23 +1,33 @@
 package com.taskmanager.model;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
-import jakarta.persistence.EnumType;
-import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.ColumnDefault;
+
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "tasks")
+@Table(name = "tasks",
+        uniqueConstraints = @UniqueConstraint(name = "uk_tasks_external_key", columnNames = "external_key"),
+        indexes = @Index(name = "idx_tasks_due_date_status_archived", columnList = "due_date, status, archived"))
 public class Task {
 
     public static final int TITLE_MAX_LENGTH = 100;
     public static final int DESCRIPTION_MAX_LENGTH = 500;
+    public static final int EXTERNAL_KEY_MAX_LENGTH = 64;
+    public static final int LEASE_OWNER_MAX_LENGTH = 64;
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -33,13 +43,41 @@ public class Task {
     @Column(length = DESCRIPTION_MAX_LENGTH)
     private String description;
 
-    @Enumerated(EnumType.STRING)
+    @Convert(converter = TaskStatusConverter.class)
     @Column(nullable = false)
     private TaskStatus status;
 
     @Column(name = "due_date")
     private LocalDate dueDate;
 
+    @Size(max = EXTERNAL_KEY_MAX_LENGTH, message = "External key must not exceed " + EXTERNAL_KEY_MAX_LENGTH
+            + " characters")
+    @Column(name = "external_key", length = EXTERNAL_KEY_MAX_LENGTH)
+    private String externalKey;
+
+    /**
+     * Set by the archival job on {@code DONE} tasks whose completion is older than the retention
+     * window. Archived tasks are hidden from default list and summary queries.
+     */
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean archived;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    /**
+     * The worker that claimed this task and until when its lease runs; meaningful only while the
+     * task is {@code IN_PROGRESS}. Written only by the lease statements of
+     * {@link com.taskmanager.repository.TaskRepositoryCustom}, never by entity saves, so an edit of
+     * a claimed task cannot undo a concurrent heartbeat.
+     */
+    @Column(name = "lease_owner", length = LEASE_OWNER_MAX_LENGTH, insertable = false, updatable = false)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at", insertable = false, updatable = false)
+    private LocalDateTime leaseExpiresAt;
+
     public Task() {
         this.status = TaskStatus.TODO;
     }
@@ -51,6 +89,23 @@ public class Task {
         this.dueDate = dueDate;
     }
 
+    /**
+     * Stamps the first transition to {@code DONE}; leaving {@code DONE} clears the stamp and
+     * brings an archived task back.
+     */
+    @PrePersist
+    @PreUpdate
+    void trackCompletion() {
+        if (status == TaskStatus.DONE) {
+            if (completedAt == null) {
+                completedAt = LocalDateTime.now();
+            }
+        } else {
+            completedAt = null;
+            archived = false;
+        }
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -91,4 +146,44 @@ public class Task {
     public void setDueDate(LocalDate dueDate) {
         this.dueDate = dueDate;
     }
+
+    public String getExternalKey() {
+        return externalKey;
+    }
+
+    public void setExternalKey(String externalKey) {
+        this.externalKey = externalKey;
+    }
+
+    public boolean isArchived() {
+        return archived;
+    }
+
+    public void setArchived(boolean archived) {
+        this.archived = archived;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
 }
@@ -0,0 +1,121 @@
+package com.taskmanager.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Task counts by status and by due-date window, relative to an {@code asOf} date.
+ * <p>
+ * Windows are disjoint and cover every task: {@code overdue} (due before {@code asOf}),
+ * {@code dueToday}, {@code dueThisWeek} (after today up to and including Sunday of the current
+ * ISO week), {@code later} and {@code noDueDate}.
+ */
+public class TaskStats {
+
+    public static final String OVERDUE = "overdue";
+    public static final String DUE_TODAY = "dueToday";
+    public static final String DUE_THIS_WEEK = "dueThisWeek";
+    public static final String LATER = "later";
+    public static final String NO_DUE_DATE = "noDueDate";
+
+    private LocalDate asOf;
+    private long total;
+    private Map<String, Long> byStatus;
+    private Map<String, Map<String, Long>> byDueWindow;
+
+    public TaskStats() {
+    }
+
+    public TaskStats(LocalDate asOf, long total, Map<String, Long> byStatus,
+            Map<String, Map<String, Long>> byDueWindow) {
+        this.asOf = asOf;
+        this.total = total;
+        this.byStatus = byStatus;
+        this.byDueWindow = byDueWindow;
+    }
+
+    /**
+     * Last day of the {@code dueThisWeek} window for the given date.
+     */
+    public static LocalDate endOfWeek(LocalDate asOf) {
+        return asOf.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+    }
+
+    /**
+     * Builds stats from the rows of {@code TaskRepository.countTasksByStatusAndDueWindow}:
+     * {@code [status, total, overdue, dueToday, dueThisWeek, noDueDate]}.
+     */
+    public static TaskStats fromRows(LocalDate asOf, List<Object[]> rows) {
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        Map<String, Map<String, Long>> byDueWindow = new LinkedHashMap<>();
+        for (String window : List.of(OVERDUE, DUE_TODAY, DUE_THIS_WEEK, LATER, NO_DUE_DATE)) {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            for (TaskStatus status : TaskStatus.values()) {
+                counts.put(status.name(), 0L);
+            }
+            byDueWindow.put(window, counts);
+        }
+        for (TaskStatus status : TaskStatus.values()) {
+            byStatus.put(status.name(), 0L);
+        }
+
+        long total = 0;
+        for (Object[] row : rows) {
+            String status = ((TaskStatus) row[0]).name();
+            long count = count(row[1]);
+            long overdue = count(row[2]);
+            long dueToday = count(row[3]);
+            long dueThisWeek = count(row[4]);
+            long noDueDate = count(row[5]);
+
+            byStatus.put(status, count);
+            byDueWindow.get(OVERDUE).put(status, overdue);
+            byDueWindow.get(DUE_TODAY).put(status, dueToday);
+            byDueWindow.get(DUE_THIS_WEEK).put(status, dueThisWeek);
+            byDueWindow.get(NO_DUE_DATE).put(status, noDueDate);
+            byDueWindow.get(LATER).put(status, count - overdue - dueToday - dueThisWeek - noDueDate);
+            total += count;
+        }
+        return new TaskStats(asOf, total, byStatus, byDueWindow);
+    }
+
+    private static long count(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    public LocalDate getAsOf() {
+        return asOf;
+    }
+
+    public void setAsOf(LocalDate asOf) {
+        this.asOf = asOf;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public Map<String, Long> getByStatus() {
+        return byStatus;
+    }
+
+    public void setByStatus(Map<String, Long> byStatus) {
+        this.byStatus = byStatus;
+    }
+
+    public Map<String, Map<String, Long>> getByDueWindow() {
+        return byDueWindow;
+    }
+
+    public void setByDueWindow(Map<String, Map<String, Long>> byDueWindow) {
+        this.byDueWindow = byDueWindow;
+    }
+}
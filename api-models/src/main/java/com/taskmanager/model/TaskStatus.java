@@ -1,7 +1,30 @@
 package com.taskmanager.model;
 
+/**
+ * Stored as a {@code smallint} code (see {@link TaskStatusConverter}). Codes are part of the schema:
+ * never renumber them, and give new statuses new codes.
+ */
 public enum TaskStatus {
-    TODO,
-    IN_PROGRESS,
-    DONE
+    TODO(0),
+    IN_PROGRESS(1),
+    DONE(2);
+
+    private static final TaskStatus[] BY_CODE = {TODO, IN_PROGRESS, DONE};
+
+    private final short code;
+
+    TaskStatus(int code) {
+        this.code = (short) code;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    public static TaskStatus fromCode(int code) {
+        if (code < 0 || code >= BY_CODE.length) {
+            throw new IllegalArgumentException("Unknown task status code " + code);
+        }
+        return BY_CODE[code];
+    }
 }
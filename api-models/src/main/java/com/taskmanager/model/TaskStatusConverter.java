@@ -0,0 +1,22 @@
+package com.taskmanager.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Maps {@link TaskStatus} to its 2-byte code instead of the enum name, which keeps the
+ * {@code status} column and the {@code (due_date, status)} index entries fixed-width and small.
+ */
+@Converter
+public class TaskStatusConverter implements AttributeConverter<TaskStatus, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(TaskStatus status) {
+        return status != null ? status.getCode() : null;
+    }
+
+    @Override
+    public TaskStatus convertToEntityAttribute(Short code) {
+        return code != null ? TaskStatus.fromCode(code) : null;
+    }
+}
@@ -0,0 +1,36 @@
+package com.taskmanager.repository;
+
+/**
+ * Outcome of one keyset chunk of a bulk operation. The next chunk starts after {@link #getLastId()};
+ * when fewer rows than the chunk limit were selected the scan is complete.
+ */
+public class ChunkResult {
+
+    private final int selected;
+    private final int affected;
+    private final long lastId;
+    private final boolean last;
+
+    public ChunkResult(int selected, int affected, long lastId, boolean last) {
+        this.selected = selected;
+        this.affected = affected;
+        this.lastId = lastId;
+        this.last = last;
+    }
+
+    public int getSelected() {
+        return selected;
+    }
+
+    public int getAffected() {
+        return affected;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+
+    public boolean isLast() {
+        return last;
+    }
+}
@@ -0,0 +1,229 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.Task;
+import org.springframework.beans.BeanUtils;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.data.support.ExampleMatcherAccessor;
+import org.springframework.util.ReflectionUtils;
+
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Query-by-example for the task stores that hold {@link Task} objects instead of rows (the
+ * in-memory and sharded repositories). Probes match as Spring Data JPA would match them in SQL:
+ * every readable property of the probe that is set and not ignored must match (or any of them,
+ * for {@link ExampleMatcher#matchingAny()}), strings follow the matcher's {@link
+ * ExampleMatcher.StringMatcher} and case rules, and null properties are skipped unless the
+ * matcher includes nulls. {@code REGEX}, which JPA rejects, is supported here.
+ */
+public final class TaskExamples {
+
+    private static final ProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+
+    private TaskExamples() {
+    }
+
+    /**
+     * The tasks among {@code tasks} that match {@code example}, in their original order.
+     */
+    public static <S extends Task> List<S> filter(Collection<Task> tasks, Example<S> example) {
+        Predicate<Task> matcher = matcher(example);
+        Class<S> probeType = example.getProbeType();
+        List<S> matches = new ArrayList<>();
+        for (Task task : tasks) {
+            if (matcher.test(task)) {
+                matches.add(probeType.cast(task));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Predicate form of {@code example}; only tasks of the probe's type can match.
+     */
+    public static <S extends Task> Predicate<Task> matcher(Example<S> example) {
+        ExampleMatcherAccessor accessor = new ExampleMatcherAccessor(example.getMatcher());
+        Class<S> probeType = example.getProbeType();
+        List<Predicate<Task>> conditions = new ArrayList<>();
+        for (PropertyDescriptor property : BeanUtils.getPropertyDescriptors(probeType)) {
+            String path = property.getName();
+            if (property.getReadMethod() == null || property.getWriteMethod() == null
+                    || accessor.isIgnoredPath(path)) {
+                continue;
+            }
+            Object probeValue = ReflectionUtils.invokeMethod(property.getReadMethod(), example.getProbe());
+            Optional<Object> expected = accessor.getValueTransformerForPath(path).apply(Optional.ofNullable(probeValue));
+            if (expected.isEmpty() && accessor.getNullHandler() == ExampleMatcher.NullHandler.IGNORE) {
+                continue;
+            }
+            Predicate<Object> value = expected.isEmpty() ? Objects::isNull : valueMatcher(expected.get(),
+                    accessor.getStringMatcherForPath(path), accessor.isIgnoreCaseForPath(path));
+            conditions.add(task -> value.test(ReflectionUtils.invokeMethod(property.getReadMethod(), task)));
+        }
+        boolean all = example.getMatcher().isAllMatching();
+        return task -> probeType.isInstance(task) && (conditions.isEmpty() || (all
+                ? conditions.stream().allMatch(condition -> condition.test(task))
+                : conditions.stream().anyMatch(condition -> condition.test(task))));
+    }
+
+    /**
+     * The only element of {@code matches}, as {@code findOne(Example)} returns it.
+     *
+     * @throws IncorrectResultSizeDataAccessException if there is more than one
+     */
+    public static <T> Optional<T> one(List<T> matches) {
+        if (matches.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, matches.size());
+        }
+        return matches.stream().findFirst();
+    }
+
+    /**
+     * The page of {@code rows} (already sorted by the pageable's sort) that {@code pageable} selects.
+     */
+    public static <T> Page<T> page(List<T> rows, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(rows);
+        }
+        int from = (int) Math.min(pageable.getOffset(), rows.size());
+        int to = Math.min(from + pageable.getPageSize(), rows.size());
+        return new PageImpl<>(new ArrayList<>(rows.subList(from, to)), pageable, rows.size());
+    }
+
+    /**
+     * A fluent query over the tasks {@code find} returns for a given sort, for {@code findBy(Example, ...)}.
+     * Results are projected through Spring Data's projection proxies when {@code as} names an
+     * interface; {@code project} is only a fetch hint and has no effect, since tasks are always whole.
+     */
+    public static <S extends Task> FluentQuery.FetchableFluentQuery<S> fluentQuery(Function<Sort, List<S>> find) {
+        return new ListQuery<>(find, Sort.unsorted(), 0, Function.identity());
+    }
+
+    private static Predicate<Object> valueMatcher(Object expected, ExampleMatcher.StringMatcher stringMatcher,
+            boolean ignoreCase) {
+        if (!(expected instanceof String text)) {
+            return expected::equals;
+        }
+        if (stringMatcher == ExampleMatcher.StringMatcher.REGEX) {
+            Pattern pattern = Pattern.compile(text, ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+            return actual -> actual instanceof String string && pattern.matcher(string).matches();
+        }
+        String wanted = ignoreCase ? text.toLowerCase(Locale.ROOT) : text;
+        return actual -> {
+            if (!(actual instanceof String string)) {
+                return false;
+            }
+            String candidate = ignoreCase ? string.toLowerCase(Locale.ROOT) : string;
+            return switch (stringMatcher) {
+                case DEFAULT, EXACT -> candidate.equals(wanted);
+                case STARTING -> candidate.startsWith(wanted);
+                case ENDING -> candidate.endsWith(wanted);
+                case CONTAINING -> candidate.contains(wanted);
+                case REGEX -> throw new IllegalStateException("REGEX is matched by pattern");
+            };
+        };
+    }
+
+    private static final class ListQuery<S, R> implements FluentQuery.FetchableFluentQuery<R> {
+
+        private final Function<Sort, List<S>> find;
+        private final Sort sort;
+        private final int limit;
+        private final Function<? super S, ? extends R> mapping;
+
+        private ListQuery(Function<Sort, List<S>> find, Sort sort, int limit, Function<? super S, ? extends R> mapping) {
+            this.find = find;
+            this.sort = sort;
+            this.limit = limit;
+            this.mapping = mapping;
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<R> sortBy(Sort sort) {
+            return new ListQuery<>(find, this.sort.and(sort), limit, mapping);
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<R> limit(int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("Limit must not be negative");
+            }
+            return new ListQuery<>(find, sort, limit, mapping);
+        }
+
+        @Override
+        public <N> FluentQuery.FetchableFluentQuery<N> as(Class<N> resultType) {
+            if (!resultType.isInterface() && !resultType.isAssignableFrom(Task.class)) {
+                throw new IllegalArgumentException("Tasks can only be projected onto interfaces, not "
+                        + resultType.getName());
+            }
+            return new ListQuery<>(find, sort, limit, row -> resultType.isInstance(row)
+                    ? resultType.cast(row) : PROJECTIONS.createProjection(resultType, row));
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<R> project(Collection<String> properties) {
+            return this;
+        }
+
+        @Override
+        public R oneValue() {
+            return TaskExamples.one(fetch(sort, limit)).orElse(null);
+        }
+
+        @Override
+        public R firstValue() {
+            return fetch(sort, 1).stream().findFirst().orElse(null);
+        }
+
+        @Override
+        public List<R> all() {
+            return fetch(sort, limit);
+        }
+
+        @Override
+        public Page<R> page(Pageable pageable) {
+            return TaskExamples.page(fetch(pageable.getSortOr(sort), 0), pageable);
+        }
+
+        @Override
+        public Stream<R> stream() {
+            return all().stream();
+        }
+
+        @Override
+        public long count() {
+            return find.apply(Sort.unsorted()).size();
+        }
+
+        @Override
+        public boolean exists() {
+            return !find.apply(Sort.unsorted()).isEmpty();
+        }
+
+        private List<R> fetch(Sort sort, int limit) {
+            List<S> rows = find.apply(sort);
+            Stream<S> selected = limit > 0 ? rows.stream().limit(limit) : rows.stream();
+            return selected.<R>map(mapping).toList();
+        }
+    }
+}
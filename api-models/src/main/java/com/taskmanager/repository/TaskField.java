@@ -0,0 +1,47 @@
+package com.taskmanager.repository;
+
+import java.util.Locale;
+
+/**
+ * Task attributes that can be selected by projected queries, with their JSON names and columns.
+ */
+public enum TaskField {
+
+    ID("id", "id"),
+    TITLE("title", "title"),
+    DESCRIPTION("description", "description"),
+    STATUS("status", "status"),
+    DUE_DATE("dueDate", "due_date"),
+    EXTERNAL_KEY("externalKey", "external_key"),
+    ARCHIVED("archived", "archived"),
+    COMPLETED_AT("completedAt", "completed_at");
+
+    private final String fieldName;
+    private final String column;
+
+    TaskField(String fieldName, String column) {
+        this.fieldName = fieldName;
+        this.column = column;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Looks a field up by its JSON name, ignoring case. Returns {@code null} for unknown names.
+     */
+    public static TaskField fromFieldName(String name) {
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        for (TaskField field : values()) {
+            if (field.fieldName.toLowerCase(Locale.ROOT).equals(normalized)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
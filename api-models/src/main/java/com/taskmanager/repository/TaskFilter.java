@@ -0,0 +1,90 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.TaskStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Predicate for set-based task operations. Unset fields do not constrain; due-date bounds are
+ * inclusive and {@code titleContains} matches case-insensitively. Archived tasks are excluded
+ * unless {@code includeArchived} is set.
+ */
+public class TaskFilter {
+
+    private TaskStatus status;
+    private TaskStatus excludedStatus;
+    private LocalDate dueFrom;
+    private LocalDate dueTo;
+    private String titleContains;
+    private boolean includeArchived;
+
+    /**
+     * True when no field narrows the selection, i.e. the filter would match every task.
+     */
+    public boolean isUnrestricted() {
+        return status == null && excludedStatus == null && dueFrom == null && dueTo == null
+                && (titleContains == null || titleContains.isEmpty());
+    }
+
+    /**
+     * Copy of this filter that additionally skips tasks already in {@code status}.
+     */
+    public TaskFilter excludingStatus(TaskStatus status) {
+        TaskFilter copy = new TaskFilter();
+        copy.status = this.status;
+        copy.excludedStatus = status;
+        copy.dueFrom = this.dueFrom;
+        copy.dueTo = this.dueTo;
+        copy.titleContains = this.titleContains;
+        copy.includeArchived = this.includeArchived;
+        return copy;
+    }
+
+    public TaskStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(TaskStatus status) {
+        this.status = status;
+    }
+
+    public TaskStatus getExcludedStatus() {
+        return excludedStatus;
+    }
+
+    public void setExcludedStatus(TaskStatus excludedStatus) {
+        this.excludedStatus = excludedStatus;
+    }
+
+    public LocalDate getDueFrom() {
+        return dueFrom;
+    }
+
+    public void setDueFrom(LocalDate dueFrom) {
+        this.dueFrom = dueFrom;
+    }
+
+    public LocalDate getDueTo() {
+        return dueTo;
+    }
+
+    public void setDueTo(LocalDate dueTo) {
+        this.dueTo = dueTo;
+    }
+
+    public String getTitleContains() {
+        return titleContains;
+    }
+
+    public void setTitleContains(String titleContains) {
+        this.titleContains = titleContains;
+    }
+
+    public boolean isIncludeArchived() {
+        return includeArchived;
+    }
+
+    public void setIncludeArchived(boolean includeArchived) {
+        this.includeArchived = includeArchived;
+    }
+}
@@ -1,15 +1,49 @@
 package com.taskmanager.repository;
 
 import com.taskmanager.model.Task;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
-public interface TaskRepository extends JpaRepository<Task, Long> {
+public interface TaskRepository extends JpaRepository<Task, Long>, TaskRepositoryCustom {
+
+    /**
+     * Hot tasks only; on a partitioned {@code tasks} table this is pruned to the non-archived partition.
+     */
+    List<Task> findByArchivedFalse();
+
+    /**
+     * Newest hot tasks first; walks the primary key index backwards and stops after one page.
+     */
+    List<Task> findByArchivedFalseOrderByIdDesc(Pageable pageable);
 
     @Query("SELECT t.status, COUNT(t) FROM Task t GROUP BY t.status")
     List<Object[]> countTasksByStatus();
+
+    /**
+     * Per-status totals and due-date window counts in one aggregate pass. Only {@code status},
+     * {@code due_date} and {@code archived} are read, so the {@code idx_tasks_due_date_status_archived}
+     * index covers the query. Archived tasks are counted only when {@code includeArchived} is true;
+     * the equality form of the filter lets PostgreSQL prune the archive partition otherwise.
+     * Rows are {@code [status, total, overdue, dueToday, dueThisWeek, noDueDate]}; see
+     * {@link com.taskmanager.model.TaskStats#fromRows}.
+     */
+    @Query("""
+            SELECT t.status,
+                   COUNT(t),
+                   SUM(CASE WHEN t.dueDate < :today THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN t.dueDate = :today THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN t.dueDate > :today AND t.dueDate <= :endOfWeek THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN t.dueDate IS NULL THEN 1 ELSE 0 END)
+            FROM Task t
+            WHERE t.archived = false OR t.archived = :includeArchived
+            GROUP BY t.status""")
+    List<Object[]> countTasksByStatusAndDueWindow(@Param("today") LocalDate today,
+            @Param("endOfWeek") LocalDate endOfWeek, @Param("includeArchived") boolean includeArchived);
 }
@@ -0,0 +1,121 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Set-based operations on {@code tasks} that are issued as plain SQL rather than through
+ * the JPA persistence context.
+ */
+public interface TaskRepositoryCustom {
+
+    /**
+     * Merges {@code tasks} by {@link Task#getExternalKey()}: unknown keys are inserted, known keys
+     * are updated only when a column actually differs. Every task must carry a non-null external
+     * key and keys must be unique within the call. An archived task matching a key is brought back
+     * only when a column differs; otherwise it stays archived and counts as unchanged, so replaying
+     * a call changes nothing. New rows are inserted under the tasks' own ids if every task carries
+     * one, and under generated ids otherwise.
+     */
+    UpsertResult upsertByExternalKey(List<Task> tasks);
+
+    /**
+     * Inserts {@code tasks} as new, non-archived rows with one multi-row {@code INSERT} per 500 tasks;
+     * generated ids are not read back. If every task carries an id, rows are inserted under those
+     * ids. {@code DONE} tasks are stamped as completed now. An external key that is already taken,
+     * by a hot or an archived task, fails the call with a {@code DuplicateKeyException}, so callers
+     * run it in a transaction to keep it all-or-nothing. Returns the number of rows inserted.
+     */
+    int insertAll(List<Task> tasks);
+
+    /**
+     * Archives up to {@code limit} {@code DONE} tasks completed before {@code completedBefore} in
+     * one short statement. Rows locked by other transactions are skipped rather than waited for.
+     * {@code DONE} tasks without a completion stamp, completed before stamps were kept, are stamped
+     * with the current time instead (up to {@code limit} per call), so they age out from now on.
+     * Returns the number of tasks archived.
+     */
+    int archiveCompleted(LocalDateTime completedBefore, int limit);
+
+    /**
+     * Claims up to {@code limit} {@code TODO} tasks for {@code owner}, earliest due first (tasks
+     * without a due date last), moving them to {@code IN_PROGRESS} with a lease until
+     * {@code leaseUntil}. Rows locked by concurrent claims are skipped rather than waited for, so
+     * concurrent callers get disjoint tasks without queueing on each other. Returns the claimed ids.
+     */
+    List<Long> claim(String owner, LocalDateTime leaseUntil, int limit);
+
+    /**
+     * Extends the lease of task {@code id} to {@code leaseUntil} if {@code owner} holds it, that is
+     * the task is still {@code IN_PROGRESS} under its claim. Returns whether it did.
+     */
+    boolean renewLease(Long id, String owner, LocalDateTime leaseUntil);
+
+    /**
+     * Ends {@code owner}'s lease on task {@code id} and sets {@code status}: {@code TODO} hands the
+     * task back, {@code DONE} completes it. Returns whether {@code owner} held the lease.
+     */
+    boolean releaseLease(Long id, String owner, TaskStatus status);
+
+    /**
+     * Ends any lease on task {@code id}, whoever holds it, without changing its status. Entity
+     * saves never write the lease columns, so callers that change a task's status through one call
+     * this too. Returns whether the task had a lease.
+     */
+    boolean clearLease(Long id);
+
+    /**
+     * Returns up to {@code limit} {@code IN_PROGRESS} tasks whose lease ran out before {@code now}
+     * to {@code TODO}, skipping locked rows like {@link #archiveCompleted}. Returns the number of
+     * tasks reclaimed.
+     */
+    int reclaimExpiredLeases(LocalDateTime now, int limit);
+
+    /**
+     * Number of tasks matching {@code filter}.
+     */
+    long countByFilter(TaskFilter filter);
+
+    /**
+     * Sets {@code status} on the next chunk of at most {@code limit} matching tasks with
+     * {@code id > afterId}, in id order. The filter is re-checked by the update itself, so rows
+     * changed concurrently between selection and update are left alone. Completion stamps and the
+     * archived flag follow the same rules as entity updates; tasks whose status changes lose their
+     * lease.
+     */
+    ChunkResult updateStatusByFilter(TaskFilter filter, TaskStatus status, long afterId, int limit);
+
+    /**
+     * Deletes the next chunk of at most {@code limit} matching tasks with {@code id > afterId}.
+     */
+    ChunkResult deleteByFilter(TaskFilter filter, long afterId, int limit);
+
+    /**
+     * Sets {@code status} on the given tasks, in one statement per 1000 ids, with the same
+     * completion and archive rules as entity updates; tasks whose status changes lose their lease.
+     * Unknown ids are ignored. Returns the number
+     * of rows updated.
+     */
+    int updateStatusByIds(TaskStatus status, Collection<Long> ids);
+
+    /**
+     * Deletes the given tasks in one statement per 1000 ids without loading them. Unknown ids are
+     * ignored. Returns the number of rows deleted.
+     */
+    int deleteByIds(Collection<Long> ids);
+
+    /**
+     * Streams up to {@code limit} matching tasks with {@code id > afterId} in id order, reading only
+     * the columns of {@code fields} ({@code id} is always included). Each row is a map from
+     * {@link TaskField#getFieldName()} to its value; no entities are loaded. The stream holds a
+     * connection until it is closed.
+     */
+    Stream<Map<String, Object>> streamByFilter(TaskFilter filter, Set<TaskField> fields, long afterId, int limit);
+}
@@ -0,0 +1,542 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
+
+/**
+ * The plain-SQL half of {@link TaskRepository}. Also used on its own by the sharded store, once
+ * per shard database.
+ */
+public class TaskRepositoryCustomImpl implements TaskRepositoryCustom {
+
+    static final int UPSERT_BATCH_SIZE = 500;
+    static final int ID_BATCH_SIZE = 1000;
+
+    /** {@code status} holds {@link TaskStatus#getCode()}; see {@code TaskStatusConverter}. */
+    private static final short TODO = TaskStatus.TODO.getCode();
+    private static final short IN_PROGRESS = TaskStatus.IN_PROGRESS.getCode();
+    private static final short DONE = TaskStatus.DONE.getCode();
+
+    private static final String INSERT_COLUMNS = "INSERT INTO tasks"
+            + " (external_key, title, description, status, due_date, completed_at)";
+
+    private static final String INSERT_COLUMNS_WITH_ID = "INSERT INTO tasks"
+            + " (id, external_key, title, description, status, due_date, completed_at)";
+
+    private static final String SELECT_ARCHIVED_BY_KEY = "SELECT external_key, title, description, status, due_date"
+            + " FROM tasks WHERE archived = TRUE AND external_key IN (";
+
+    private static final String UNARCHIVE_BY_KEY = "UPDATE tasks SET archived = FALSE"
+            + " WHERE archived = TRUE AND external_key IN (";
+
+    /**
+     * Targets the constraint by name: it is {@code (external_key)} on a plain table and
+     * {@code (external_key, archived)} once {@code db/postgres/partition-tasks.sql} has been applied.
+     */
+    private static final String POSTGRES_UPSERT_SUFFIX = " ON CONFLICT ON CONSTRAINT uk_tasks_external_key DO UPDATE"
+            + " SET title = EXCLUDED.title, description = EXCLUDED.description,"
+            + " status = EXCLUDED.status, due_date = EXCLUDED.due_date,"
+            + " completed_at = CASE WHEN EXCLUDED.status = " + DONE
+            + " THEN COALESCE(tasks.completed_at, EXCLUDED.completed_at) END"
+            + " WHERE (tasks.title, tasks.description, tasks.status, tasks.due_date)"
+            + " IS DISTINCT FROM (EXCLUDED.title, EXCLUDED.description, EXCLUDED.status, EXCLUDED.due_date)"
+            + " RETURNING (xmax = 0) AS inserted";
+
+    private static final String PORTABLE_UPDATE_CHANGED = "UPDATE tasks"
+            + " SET title = ?, description = ?, status = ?, due_date = ?,"
+            + " completed_at = CASE WHEN ? = " + DONE + " THEN COALESCE(completed_at, ?) END"
+            + " WHERE external_key = ? AND (title IS DISTINCT FROM ? OR description IS DISTINCT FROM ?"
+            + " OR status IS DISTINCT FROM ? OR due_date IS DISTINCT FROM ?)";
+
+    private static final String PORTABLE_INSERT_NEW = INSERT_COLUMNS
+            + " VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String PORTABLE_INSERT_NEW_WITH_ID = INSERT_COLUMNS_WITH_ID
+            + " VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String STAMP_UNDATED_COMPLETED = "UPDATE tasks SET completed_at = ? WHERE id IN ("
+            + "SELECT id FROM tasks WHERE archived = FALSE AND status = " + DONE + " AND completed_at IS NULL"
+            + " ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)";
+
+    private static final String ARCHIVE_COMPLETED = "UPDATE tasks SET archived = TRUE WHERE id IN ("
+            + "SELECT id FROM tasks WHERE archived = FALSE AND status = " + DONE + " AND completed_at < ?"
+            + " ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)";
+
+    /**
+     * Next claimable tasks by due date. On PostgreSQL, {@code db/postgres/task-leases.sql} adds a
+     * partial index in this order, so the scan stops after the rows it locks.
+     */
+    private static final String SELECT_CLAIMABLE = "SELECT id FROM tasks WHERE status = " + TODO
+            + " AND archived = FALSE ORDER BY due_date NULLS LAST, id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String CLAIM_SET = "UPDATE tasks SET status = " + IN_PROGRESS
+            + ", lease_owner = ?, lease_expires_at = ?";
+
+    private static final String POSTGRES_CLAIM = CLAIM_SET + " WHERE id IN (" + SELECT_CLAIMABLE + ") RETURNING id";
+
+    private static final String PORTABLE_CLAIM_ONE = CLAIM_SET + " WHERE id = ? AND status = " + TODO;
+
+    private static final String RENEW_LEASE = "UPDATE tasks SET lease_expires_at = ?"
+            + " WHERE id = ? AND status = " + IN_PROGRESS + " AND lease_owner = ?";
+
+    private static final String RELEASE_LEASE = "UPDATE tasks SET status = ?,"
+            + " completed_at = CASE WHEN ? = " + DONE + " THEN COALESCE(completed_at, ?) END,"
+            + " lease_owner = NULL, lease_expires_at = NULL"
+            + " WHERE id = ? AND status = " + IN_PROGRESS + " AND lease_owner = ?";
+
+    private static final String CLEAR_LEASE = "UPDATE tasks SET lease_owner = NULL, lease_expires_at = NULL"
+            + " WHERE id = ? AND lease_owner IS NOT NULL";
+
+    private static final String RECLAIM_EXPIRED = "UPDATE tasks SET status = " + TODO
+            + ", lease_owner = NULL, lease_expires_at = NULL WHERE id IN ("
+            + "SELECT id FROM tasks WHERE status = " + IN_PROGRESS + " AND lease_expires_at < ?"
+            + " AND archived = FALSE ORDER BY lease_expires_at LIMIT ? FOR UPDATE SKIP LOCKED)";
+
+    /**
+     * A status change ends any lease, so a sweep cannot take back a task that someone has since
+     * set to {@code IN_PROGRESS} by hand and the former holder can no longer renew or release it.
+     * The lease columns are assigned from the row's old status.
+     */
+    private static final String UPDATE_STATUS = "UPDATE tasks SET"
+            + " lease_owner = CASE WHEN status = ? THEN lease_owner END,"
+            + " lease_expires_at = CASE WHEN status = ? THEN lease_expires_at END,"
+            + " status = ?,"
+            + " completed_at = CASE WHEN ? = " + DONE + " THEN COALESCE(completed_at, ?) END,"
+            + " archived = CASE WHEN ? = " + DONE + " THEN archived ELSE FALSE END";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    public TaskRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public UpsertResult upsertByExternalKey(List<Task> tasks) {
+        UpsertResult result = new UpsertResult(0, 0, 0);
+        boolean withIds = carryIds(tasks);
+        for (int from = 0; from < tasks.size(); from += UPSERT_BATCH_SIZE) {
+            List<Task> batch = tasks.subList(from, Math.min(tasks.size(), from + UPSERT_BATCH_SIZE));
+            List<Task> merged = unarchiveChanged(batch);
+            result = result.plus(new UpsertResult(0, 0, batch.size() - merged.size()));
+            if (!merged.isEmpty()) {
+                result = result.plus(isPostgres() ? upsertPostgres(merged, withIds) : upsertPortable(merged, withIds));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int insertAll(List<Task> tasks) {
+        int inserted = 0;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        boolean withIds = carryIds(tasks);
+        for (int from = 0; from < tasks.size(); from += UPSERT_BATCH_SIZE) {
+            List<Task> batch = tasks.subList(from, Math.min(tasks.size(), from + UPSERT_BATCH_SIZE));
+            List<Object> args = new ArrayList<>(batch.size() * 7);
+            StringBuilder sql = insertValues(batch, withIds, now, args);
+            inserted += jdbcTemplate.update(sql.toString(), args.toArray());
+        }
+        return inserted;
+    }
+
+    @Override
+    public int archiveCompleted(LocalDateTime completedBefore, int limit) {
+        jdbcTemplate.update(STAMP_UNDATED_COMPLETED, Timestamp.valueOf(LocalDateTime.now()), limit);
+        return jdbcTemplate.update(ARCHIVE_COMPLETED, Timestamp.valueOf(completedBefore), limit);
+    }
+
+    @Override
+    public List<Long> claim(String owner, LocalDateTime leaseUntil, int limit) {
+        Timestamp until = Timestamp.valueOf(leaseUntil);
+        if (isPostgres()) {
+            return jdbcTemplate.queryForList(POSTGRES_CLAIM, Long.class, owner, until, limit);
+        }
+        // Without UPDATE ... RETURNING the locked rows are updated one by one; the status check
+        // keeps a row that another caller claimed in between from being claimed twice.
+        List<Long> candidates = jdbcTemplate.queryForList(SELECT_CLAIMABLE, Long.class, limit);
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        int[] counts = jdbcTemplate.batchUpdate(PORTABLE_CLAIM_ONE, candidates, candidates.size(), (ps, id) -> {
+            ps.setString(1, owner);
+            ps.setTimestamp(2, until);
+            ps.setLong(3, id);
+        })[0];
+        List<Long> claimed = new ArrayList<>(candidates.size());
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                claimed.add(candidates.get(i));
+            }
+        }
+        return claimed;
+    }
+
+    @Override
+    public boolean renewLease(Long id, String owner, LocalDateTime leaseUntil) {
+        return jdbcTemplate.update(RENEW_LEASE, Timestamp.valueOf(leaseUntil), id, owner) > 0;
+    }
+
+    @Override
+    public boolean releaseLease(Long id, String owner, TaskStatus status) {
+        return jdbcTemplate.update(RELEASE_LEASE, status.getCode(), status.getCode(),
+                Timestamp.valueOf(LocalDateTime.now()), id, owner) > 0;
+    }
+
+    @Override
+    public boolean clearLease(Long id) {
+        return jdbcTemplate.update(CLEAR_LEASE, id) > 0;
+    }
+
+    @Override
+    public int reclaimExpiredLeases(LocalDateTime now, int limit) {
+        return jdbcTemplate.update(RECLAIM_EXPIRED, Timestamp.valueOf(now), limit);
+    }
+
+    @Override
+    public long countByFilter(TaskFilter filter) {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM tasks WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        appendFilter(sql, args, filter);
+        Long count = jdbcTemplate.queryForObject(sql.toString(), Long.class, args.toArray());
+        return count != null ? count : 0L;
+    }
+
+    @Override
+    public ChunkResult updateStatusByFilter(TaskFilter filter, TaskStatus status, long afterId, int limit) {
+        List<Long> ids = selectChunk(filter, afterId, limit);
+        if (ids.isEmpty()) {
+            return new ChunkResult(0, 0, afterId, true);
+        }
+        StringBuilder sql = new StringBuilder(UPDATE_STATUS);
+        List<Object> args = new ArrayList<>();
+        addStatusArgs(args, status, Timestamp.valueOf(LocalDateTime.now()));
+        appendIdsAndFilter(sql, args, ids, filter);
+        int affected = jdbcTemplate.update(sql.toString(), args.toArray());
+        return new ChunkResult(ids.size(), affected, ids.get(ids.size() - 1), ids.size() < limit);
+    }
+
+    @Override
+    public ChunkResult deleteByFilter(TaskFilter filter, long afterId, int limit) {
+        List<Long> ids = selectChunk(filter, afterId, limit);
+        if (ids.isEmpty()) {
+            return new ChunkResult(0, 0, afterId, true);
+        }
+        StringBuilder sql = new StringBuilder("DELETE FROM tasks");
+        List<Object> args = new ArrayList<>();
+        appendIdsAndFilter(sql, args, ids, filter);
+        int affected = jdbcTemplate.update(sql.toString(), args.toArray());
+        return new ChunkResult(ids.size(), affected, ids.get(ids.size() - 1), ids.size() < limit);
+    }
+
+    @Override
+    public int updateStatusByIds(TaskStatus status, Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int updated = 0;
+        for (int from = 0; from < all.size(); from += ID_BATCH_SIZE) {
+            List<Long> batch = all.subList(from, Math.min(all.size(), from + ID_BATCH_SIZE));
+            StringBuilder sql = new StringBuilder(UPDATE_STATUS).append(" WHERE id IN (");
+            List<Object> args = new ArrayList<>(batch.size() + 6);
+            addStatusArgs(args, status, now);
+            for (int i = 0; i < batch.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(')');
+            args.addAll(batch);
+            updated += jdbcTemplate.update(sql.toString(), args.toArray());
+        }
+        return updated;
+    }
+
+    @Override
+    public int deleteByIds(Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        int deleted = 0;
+        for (int from = 0; from < all.size(); from += ID_BATCH_SIZE) {
+            List<Long> batch = all.subList(from, Math.min(all.size(), from + ID_BATCH_SIZE));
+            StringJoiner placeholders = new StringJoiner(", ", "DELETE FROM tasks WHERE id IN (", ")");
+            batch.forEach(id -> placeholders.add("?"));
+            deleted += jdbcTemplate.update(placeholders.toString(), batch.toArray());
+        }
+        return deleted;
+    }
+
+    @Override
+    public Stream<Map<String, Object>> streamByFilter(TaskFilter filter, Set<TaskField> fields, long afterId,
+            int limit) {
+        EnumSet<TaskField> selected = EnumSet.of(TaskField.ID);
+        selected.addAll(fields);
+        StringJoiner columns = new StringJoiner(", ");
+        selected.forEach(field -> columns.add(field.getColumn()));
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(columns).append(" FROM tasks WHERE id > ?");
+        List<Object> args = new ArrayList<>();
+        args.add(afterId);
+        appendFilter(sql, args, filter);
+        sql.append(" ORDER BY id LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.queryForStream(sql.toString(), (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (TaskField field : selected) {
+                row.put(field.getFieldName(), readField(rs, field));
+            }
+            return row;
+        }, args.toArray());
+    }
+
+    private static Object readField(ResultSet rs, TaskField field) throws SQLException {
+        return switch (field) {
+            case ID -> rs.getLong(field.getColumn());
+            case STATUS -> TaskStatus.fromCode(rs.getShort(field.getColumn()));
+            case DUE_DATE -> rs.getObject(field.getColumn(), LocalDate.class);
+            case ARCHIVED -> rs.getBoolean(field.getColumn());
+            case COMPLETED_AT -> rs.getObject(field.getColumn(), LocalDateTime.class);
+            default -> rs.getString(field.getColumn());
+        };
+    }
+
+    private List<Long> selectChunk(TaskFilter filter, long afterId, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT id FROM tasks WHERE id > ?");
+        List<Object> args = new ArrayList<>();
+        args.add(afterId);
+        appendFilter(sql, args, filter);
+        sql.append(" ORDER BY id LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.queryForList(sql.toString(), Long.class, args.toArray());
+    }
+
+    /**
+     * The parameters of {@link #UPDATE_STATUS}, in order.
+     */
+    private static void addStatusArgs(List<Object> args, TaskStatus status, Timestamp now) {
+        short code = status.getCode();
+        args.add(code);
+        args.add(code);
+        args.add(code);
+        args.add(code);
+        args.add(now);
+        args.add(code);
+    }
+
+    private static void appendIdsAndFilter(StringBuilder sql, List<Object> args, List<Long> ids, TaskFilter filter) {
+        sql.append(" WHERE id IN (");
+        for (int i = 0; i < ids.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(')');
+        args.addAll(ids);
+        appendFilter(sql, args, filter);
+    }
+
+    private static void appendFilter(StringBuilder sql, List<Object> args, TaskFilter filter) {
+        if (!filter.isIncludeArchived()) {
+            sql.append(" AND archived = FALSE");
+        }
+        if (filter.getStatus() != null) {
+            sql.append(" AND status = ?");
+            args.add(filter.getStatus().getCode());
+        }
+        if (filter.getExcludedStatus() != null) {
+            sql.append(" AND status <> ?");
+            args.add(filter.getExcludedStatus().getCode());
+        }
+        if (filter.getDueFrom() != null) {
+            sql.append(" AND due_date >= ?");
+            args.add(Date.valueOf(filter.getDueFrom()));
+        }
+        if (filter.getDueTo() != null) {
+            sql.append(" AND due_date <= ?");
+            args.add(Date.valueOf(filter.getDueTo()));
+        }
+        if (filter.getTitleContains() != null && !filter.getTitleContains().isEmpty()) {
+            sql.append(" AND LOWER(title) LIKE ? ESCAPE '\\'");
+            args.add("%" + escapeLike(filter.getTitleContains().toLowerCase(Locale.ROOT)) + "%");
+        }
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Brings back the archived tasks of {@code batch} whose columns differ, with one {@code UPDATE},
+     * and returns the tasks left to merge. Archived tasks that are unchanged stay archived and are
+     * left out.
+     */
+    private List<Task> unarchiveChanged(List<Task> batch) {
+        Map<String, Task> byKey = new HashMap<>();
+        batch.forEach(task -> byKey.put(task.getExternalKey(), task));
+        List<Object> archived = new ArrayList<>();
+        Set<String> unchanged = new HashSet<>();
+        jdbcTemplate.query(inList(SELECT_ARCHIVED_BY_KEY, byKey.size()), rs -> {
+            String key = rs.getString("external_key");
+            Task task = byKey.get(key);
+            if (Objects.equals(task.getTitle(), rs.getString("title"))
+                    && Objects.equals(task.getDescription(), rs.getString("description"))
+                    && task.getStatus().getCode() == rs.getShort("status")
+                    && Objects.equals(task.getDueDate(), rs.getObject("due_date", LocalDate.class))) {
+                unchanged.add(key);
+            } else {
+                archived.add(key);
+            }
+        }, byKey.keySet().toArray());
+        if (!archived.isEmpty()) {
+            jdbcTemplate.update(inList(UNARCHIVE_BY_KEY, archived.size()), archived.toArray());
+        }
+        return unchanged.isEmpty() ? batch
+                : batch.stream().filter(task -> !unchanged.contains(task.getExternalKey())).toList();
+    }
+
+    private static String inList(String prefix, int size) {
+        StringJoiner placeholders = new StringJoiner(", ", prefix, ")");
+        for (int i = 0; i < size; i++) {
+            placeholders.add("?");
+        }
+        return placeholders.toString();
+    }
+
+    /**
+     * One multi-row {@code INSERT ... ON CONFLICT DO UPDATE} per batch. Rows whose columns are
+     * unchanged are filtered by the {@code WHERE} clause and therefore not returned; {@code xmax = 0}
+     * distinguishes freshly inserted rows from updated ones.
+     */
+    private UpsertResult upsertPostgres(List<Task> batch, boolean withIds) {
+        List<Object> args = new ArrayList<>(batch.size() * 7);
+        StringBuilder sql = insertValues(batch, withIds, Timestamp.valueOf(LocalDateTime.now()), args);
+        sql.append(POSTGRES_UPSERT_SUFFIX);
+
+        List<Boolean> affected = jdbcTemplate.queryForList(sql.toString(), Boolean.class, args.toArray());
+        int inserted = (int) affected.stream().filter(Boolean.TRUE::equals).count();
+        int updated = affected.size() - inserted;
+        return new UpsertResult(inserted, updated, batch.size() - affected.size());
+    }
+
+    /**
+     * Fallback for databases without {@code ON CONFLICT DO UPDATE} (H2 in tests): a batched
+     * conditional update followed by a batched {@code ON CONFLICT DO NOTHING} insert.
+     */
+    private UpsertResult upsertPortable(List<Task> batch, boolean withIds) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[] updateCounts = jdbcTemplate.batchUpdate(PORTABLE_UPDATE_CHANGED, batch, batch.size(), (ps, task) -> {
+            short status = task.getStatus().getCode();
+            Date dueDate = toSqlDate(task);
+            ps.setString(1, task.getTitle());
+            ps.setString(2, task.getDescription());
+            ps.setShort(3, status);
+            ps.setDate(4, dueDate);
+            ps.setShort(5, status);
+            ps.setTimestamp(6, now);
+            ps.setString(7, task.getExternalKey());
+            ps.setString(8, task.getTitle());
+            ps.setString(9, task.getDescription());
+            ps.setShort(10, status);
+            ps.setDate(11, dueDate);
+        })[0];
+        int[] insertCounts = jdbcTemplate.batchUpdate(withIds ? PORTABLE_INSERT_NEW_WITH_ID : PORTABLE_INSERT_NEW,
+                batch, batch.size(), (ps, task) -> {
+                    int column = 1;
+                    if (withIds) {
+                        ps.setLong(column++, task.getId());
+                    }
+                    ps.setString(column++, task.getExternalKey());
+                    ps.setString(column++, task.getTitle());
+                    ps.setString(column++, task.getDescription());
+                    ps.setShort(column++, task.getStatus().getCode());
+                    ps.setDate(column++, toSqlDate(task));
+                    ps.setTimestamp(column, completedAt(task, now));
+                })[0];
+
+        int updated = sum(updateCounts);
+        int inserted = sum(insertCounts);
+        return new UpsertResult(inserted, updated, batch.size() - updated - inserted);
+    }
+
+    /**
+     * One multi-row {@code INSERT ... VALUES} for {@code batch}, with the values appended to {@code args}.
+     */
+    private static StringBuilder insertValues(List<Task> batch, boolean withIds, Timestamp now, List<Object> args) {
+        StringBuilder sql = new StringBuilder(withIds ? INSERT_COLUMNS_WITH_ID : INSERT_COLUMNS).append(" VALUES ");
+        String row = withIds ? "(?, ?, ?, ?, ?, ?, ?)" : "(?, ?, ?, ?, ?, ?)";
+        for (int i = 0; i < batch.size(); i++) {
+            sql.append(i == 0 ? row : ", " + row);
+            Task task = batch.get(i);
+            if (withIds) {
+                args.add(task.getId());
+            }
+            args.add(task.getExternalKey());
+            args.add(task.getTitle());
+            args.add(task.getDescription());
+            args.add(task.getStatus().getCode());
+            args.add(toSqlDate(task));
+            args.add(completedAt(task, now));
+        }
+        return sql;
+    }
+
+    /**
+     * New rows keep the ids of the given tasks only when every task has one; the sharded store
+     * assigns them up front. Otherwise the database generates them.
+     */
+    private static boolean carryIds(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return false;
+        }
+        for (Task task : tasks) {
+            if (task.getId() == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            result = product != null && product.toLowerCase(Locale.ROOT).contains("postgres");
+            postgres = result;
+        }
+        return result;
+    }
+
+    private static Date toSqlDate(Task task) {
+        return task.getDueDate() != null ? Date.valueOf(task.getDueDate()) : null;
+    }
+
+    private static Timestamp completedAt(Task task, Timestamp now) {
+        return task.getStatus() == TaskStatus.DONE ? now : null;
+    }
+
+    private static int sum(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            total += Math.max(count, 0);
+        }
+        return total;
+    }
+}
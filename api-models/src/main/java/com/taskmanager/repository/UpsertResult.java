@@ -0,0 +1,30 @@
+package com.taskmanager.repository;
+
+public class UpsertResult {
+
+    private final int inserted;
+    private final int updated;
+    private final int unchanged;
+
+    public UpsertResult(int inserted, int updated, int unchanged) {
+        this.inserted = inserted;
+        this.updated = updated;
+        this.unchanged = unchanged;
+    }
+
+    public UpsertResult plus(UpsertResult other) {
+        return new UpsertResult(inserted + other.inserted, updated + other.updated, unchanged + other.unchanged);
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+}
@@ -0,0 +1,27 @@
+package com.taskmanager.repository.memory;
+
+import com.taskmanager.repository.TaskRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.nio.file.Path;
+
+/**
+ * Replaces the JPA {@link TaskRepository} with {@link InMemoryTaskRepository} under the
+ * {@code memory} profile. Applications using the profile must also switch off the DataSource and
+ * JPA auto-configuration (see their {@code application-memory.properties}).
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("memory")
+public class InMemoryRepositoryConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public InMemoryTaskRepository taskRepository(
+            @Value("${app.tasks.memory.dir:data/tasks}") String directory,
+            @Value("${app.tasks.memory.fsync:false}") boolean fsync,
+            @Value("${app.tasks.memory.snapshot-after-bytes:67108864}") long snapshotAfterBytes) {
+        return new InMemoryTaskRepository(Path.of(directory), fsync, snapshotAfterBytes);
+    }
+}
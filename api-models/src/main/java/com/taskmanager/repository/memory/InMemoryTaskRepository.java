@@ -0,0 +1,1066 @@
+package com.taskmanager.repository.memory;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.ChunkResult;
+import com.taskmanager.repository.TaskExamples;
+import com.taskmanager.repository.TaskField;
+import com.taskmanager.repository.TaskFilter;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.UpsertResult;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * {@link TaskRepository} kept entirely in memory in a columnar {@link TaskTable}, made durable by a
+ * {@link TaskWriteAheadLog}. Enabled by the {@code memory} profile (see
+ * {@link InMemoryRepositoryConfiguration}) for single-node deployments that do not need PostgreSQL.
+ * <p>
+ * Every write is appended to the log before it is applied, under one write lock; reads share a
+ * read lock and return detached copies, so callers can modify returned tasks freely. Each method
+ * call checks all of its arguments before its first write, so a rejected call changes nothing, but
+ * there are no multi-call transactions: {@code @Transactional} has no effect on this repository.
+ * Entity rules are applied as the JPA repository would: completion stamps follow {@link Task}'s
+ * lifecycle callbacks and duplicate external keys or missing titles are rejected with
+ * {@link DataIntegrityViolationException}. Query-by-example scans every task.
+ */
+public class InMemoryTaskRepository implements TaskRepository, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryTaskRepository.class);
+
+    private final TaskTable table = new TaskTable(1024);
+    private final TaskWriteAheadLog wal;
+    private final long snapshotAfterBytes;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+
+    /**
+     * Opens (or creates) the store in {@code directory}, replaying its snapshot and log. A snapshot
+     * is taken whenever the current log exceeds {@code snapshotAfterBytes}.
+     */
+    public InMemoryTaskRepository(Path directory, boolean fsync, long snapshotAfterBytes) {
+        try {
+            this.wal = TaskWriteAheadLog.open(directory, fsync, table);
+        } catch (IOException ex) {
+            throw new DataAccessResourceFailureException("Cannot open task store in " + directory, ex);
+        }
+        this.snapshotAfterBytes = Math.max(1 << 20, Math.min(snapshotAfterBytes, 1L << 30));
+    }
+
+    // Writes
+
+    @Override
+    public <S extends Task> S save(S entity) {
+        writeLock.lock();
+        try {
+            store(entity);
+            commit();
+        } finally {
+            unlockAfterWrite();
+        }
+        return entity;
+    }
+
+    @Override
+    public <S extends Task> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(saved::add);
+        writeLock.lock();
+        try {
+            // Checked before the first write so that the call is all-or-nothing, like insertAll
+            Map<String, Long> keys = new HashMap<>();
+            for (S entity : saved) {
+                checkStore(entity);
+                String key = entity.getExternalKey();
+                if (key != null) {
+                    Long id = entity.getId() != null && table.contains(entity.getId()) ? entity.getId() : null;
+                    if (keys.containsKey(key) && (id == null || !id.equals(keys.get(key)))) {
+                        throw duplicateKey(key);
+                    }
+                    keys.put(key, id);
+                }
+            }
+            for (S entity : saved) {
+                apply(entity);
+            }
+            commit();
+        } finally {
+            unlockAfterWrite();
+        }
+        return saved;
+    }
+
+    @Override
+    public <S extends Task> S saveAndFlush(S entity) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends Task> List<S> saveAllAndFlush(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+
+    @Override
+    public void flush() {
+        // Writes are logged as they happen
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        Objects.requireNonNull(id, "id must not be null");
+        writeLock.lock();
+        try {
+            remove(id);
+            commit();
+        } finally {
+            unlockAfterWrite();
+        }
+    }
+
+    @Override
+    public void delete(Task entity) {
+        Objects.requireNonNull(entity, "entity must not be null");
+        if (entity.getId() != null) {
+            deleteById(entity.getId());
+        }
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        List<Long> all = new ArrayList<>();
+        for (Long id : ids) {
+            all.add(Objects.requireNonNull(id, "id must not be null"));
+        }
+        writeLock.lock();
+        try {
+            for (Long id : all) {
+                remove(id);
+            }
+            commit();
+        } finally {
+            unlockAfterWrite();
+        }
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Task> entities) {
+        List<Long> ids = new ArrayList<>();
+        for (Task entity : entities) {
+            if (entity.getId() != null) {
+                ids.add(entity.getId());
+            }
+        }
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAll() {
+        writeLock.lock();
+        try {
+            logChange(wal::appendClear);
+            table.clear();
+            commit();
+        } finally {
+            unlockAfterWrite();
+        }
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<Task> entities) {
+        deleteAll(entities);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    @Override
+    public UpsertResult upsertByExternalKey(List<Task> tasks) {
+        Set<String> keys = new HashSet<>();
+        for (Task task : tasks) {
+            if (task.getExternalKey() == null || !keys.add(task.getExternalKey())) {
+                throw new DataIntegrityViolationException("Upserted tasks need distinct, non-null external keys");
+            }
+            validate(task);
+        }
+        int inserted = 0;
+        int updated = 0;
+        LocalDateTime now = LocalDateTime.now();
+        writeLock.lock();
+        try {
+            for (Task task : tasks) {
+                int slot = table.slotOfExternalKey(task.getExternalKey());
+                if (slot == LongIntHashMap.MISSING) {
+                    write(newRow(task, now));
+                    inserted++;
+                    continue;
+                }
+                Task row = table.read(slot);
+                boolean changed = !Objects.equals(row.getTitle(), task.getTitle())
+                        || !Objects.equals(row.getDescription(), task.getDescription())
+                        || row.getStatus() != task.getStatus()
+                        || !Objects.equals(row.getDueDate(), task.getDueDate());
+                if (!changed) {
+                    continue;
+                }
+                row.setArchived(false);
+                row.setTitle(task.getTitle());
+                row.setDescription(task.getDescription());
+                row.setStatus(task.getStatus());
+                row.setDueDate(task.getDueDate());
+                row.setCompletedAt(task.getStatus() == TaskStatus.DONE
+                        ? Objects.requireNonNullElse(row.getCompletedAt(), now) : null);
+                updated++;
+                write(row);
+            }
+            commit();
+        } finally {
+            unlockAfterWrite();
+        }
+        return new UpsertResult(inserted, updated, tasks.size() - inserted - updated);
+    }
+
+    @Override
+    public int insertAll(List<Task> tasks) {
+        Set<String> keys = new HashSet<>();
+        for (Task task : tasks) {
+            validate(task);
+            if (task.getExternalKey() != null && !keys.add(task.getExternalKey())) {
+                throw duplicateKey(task.getExternalKey());
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        writeLock.lock();
+        try {
+            // Checked before the first write so that the call is all-or-nothing, like the JDBC batch
+            for (String key : keys) {
+                if (table.slotOfExternalKey(key) != LongIntHashMap.MISSING) {
+                    throw duplicateKey(key);
+                }
+            }
+            for (Task task : tasks) {
+                write(newRow(task, now));
+            }
+            commit();
+        } finally {
+            unlockAfterWrite();
+        }
+        return tasks.size();
+    }
+
+    @Override
+    public int archiveCompleted(LocalDateTime completedBefore, int limit) {
+        writeLock.lock();
+        try {
+            BitSet candidates = (BitSet) table.withStatus(TaskStatus.DONE).clone();
+            candidates.andNot(table.archivedSlots());
+            List<Integer> slots = new ArrayList<>();
+            List<Integer> undated = new ArrayList<>();
+            table.scan(0, slot -> {
+                if (candidates.get(slot)) {
+                    LocalDateTime completedAt = table.completedAtAt(slot);
+                    if (completedAt == null) {
+                        if (undated.size() < limit) {
+                            undated.add(slot);
+                        }
+                    } else if (completedAt.isBefore(completedBefore)) {
+                        slots.add(slot);
+                    }
+                }
+                return slots.size() < limit;
+            });
+            LocalDateTime now = LocalDateTime.now();
+            for (int slot : undated) {
+                Task row = table.read(slot);
+                row.setCompletedAt(now);
+                write(row);
+            }
+            for (int slot : slots) {
+                Task row = table.read(slot);
+                row.setArchived(true);
+                write(row);
+            }
+            commit();
+            return slots.size();
+        } finally {
+            unlockAfterWrite();
+        }
+    }
+
+    /**
+     * Runs under the write lock, so concurrent claims are serialized and never see each other's
+     * tasks; there are no row locks to skip.
+     */
+    @Override
+    public List<Long> claim(String owner, LocalDateTime leaseUntil, int limit) {
+        writeLock.lock();
+        try {
+            BitSet candidates = (BitSet) table.withStatus(TaskStatus.TODO).clone();
+            candidates.andNot(table.archivedSlots());
+            List<Integer> slots = new ArrayList<>();
+            if (limit > 0) {
+                table.scanByDueDate(candidates, slot -> {
+                    slots.add(slot);
+                    return slots.size() < limit;
+                });
+            }
+            List<Long> claimed = new ArrayList<>(slots.size());
+            for (int slot : slots) {
+                Task row = table.read(slot);
+                row.setStatus(TaskStatus.IN_PROGRESS);
+                row.setLeaseOwner(owner);
+                row.setLeaseExpiresAt(leaseUntil);
+                write(row);
+                claimed.add(row.getId());
+            }
+            commit();
+            return claimed;
+        } finally {
+            unlockAfterWrite();
+        }
+    }
+
+    @Override
+    public boolean renewLease(Long id, String owner, LocalDateTime leaseUntil) {
+        writeLock.lock();
+        try {
+            int slot = leasedSlot(id, owner);
+            if (slot == LongIntHashMap.MISSING) {
+                return false;
+            }
+            Task row = table.read(slot);
+            row.setLeaseExpiresAt(leaseUntil);
+            write(row);
+            commit();
+            return true;
+        } finally {
+            unlockAfterWrite();
+        }
+    }
+
+    @Override
+    public boolean releaseLease(Long id, String owner, TaskStatus status) {
+        writeLock.lock();
+        try {
+            int slot = leasedSlot(id, owner);
+            if (slot == LongIntHashMap.MISSING) {
+                return false;
+            }
+            Task row = withStatus(table.read(slot), status, LocalDateTime.now());
+            row.setLeaseOwner(null);
+            row.setLeaseExpiresAt(null);
+            write(row);
+            commit();
+            return true;
+        } finally {
+            unlockAfterWrite();
+        }
+    }
+
+    @Override
+    public boolean clearLease(Long id) {
+        writeLock.lock();
+        try {
+            int slot = id != null ? table.slotOf(id) : LongIntHashMap.MISSING;
+            if (slot == LongIntHashMap.MISSING || table.leaseOwnerAt(slot) == null) {
+                return false;
+            }
+            Task row = table.read(slot);
+            row.setLeaseOwner(null);
+            row.setLeaseExpiresAt(null);
+            write(row);
+            commit();
+            return true;
+        } finally {
+            unlockAfterWrite();
+        }
+    }
+
+    @Override
+    public int reclaimExpiredLeases(LocalDateTime now, int limit) {
+        writeLock.lock();
+        try {
+            BitSet candidates = table.withStatus(TaskStatus.IN_PROGRESS);
+            List<Integer> slots = new ArrayList<>();
+            table.scan(0, slot -> {
+                if (candidates.get(slot) && !table.archivedAt(slot)) {
+                    LocalDateTime expiresAt = table.leaseExpiresAtAt(slot);
+                    if (expiresAt != null && expiresAt.isBefore(now)) {
+                        slots.add(slot);
+                    }
+                }
+                return slots.size() < limit;
+            });
+            for (int slot : slots) {
+                Task row = table.read(slot);
+                row.setStatus(TaskStatus.TODO);
+                row.setLeaseOwner(null);
+                row.setLeaseExpiresAt(null);
+                write(row);
+            }
+            commit();
+            return slots.size();
+        } finally {
+            unlockAfterWrite();
+        }
+    }
+
+    @Override
+    public ChunkResult updateStatusByFilter(TaskFilter filter, TaskStatus status, long afterId, int limit) {
+        writeLock.lock();
+        try {
+            List<Integer> slots = selectChunk(filter, afterId, limit);
+            if (slots.isEmpty()) {
+                return new ChunkResult(0, 0, afterId, true);
+            }
+            LocalDateTime now = LocalDateTime.now();
+            long lastId = table.idAt(slots.get(slots.size() - 1));
+            for (int slot : slots) {
+                write(withStatus(table.read(slot), status, now));
+            }
+            commit();
+            return new ChunkResult(slots.size(), slots.size(), lastId, slots.size() < limit);
+        } finally {
+            unlockAfterWrite();
+        }
+    }
+
+    @Override
+    public ChunkResult deleteByFilter(TaskFilter filter, long afterId, int limit) {
+        writeLock.lock();
+        try {
+            List<Integer> slots = selectChunk(filter, afterId, limit);
+            if (slots.isEmpty()) {
+                return new ChunkResult(0, 0, afterId, true);
+            }
+            List<Long> ids = new ArrayList<>(slots.size());
+            slots.forEach(slot -> ids.add(table.idAt(slot)));
+            ids.forEach(this::remove);
+            commit();
+            return new ChunkResult(ids.size(), ids.size(), ids.get(ids.size() - 1), ids.size() < limit);
+        } finally {
+            unlockAfterWrite();
+        }
+    }
+
+    @Override
+    public int updateStatusByIds(TaskStatus status, Collection<Long> ids) {
+        LocalDateTime now = LocalDateTime.now();
+        int updated = 0;
+        writeLock.lock();
+        try {
+            for (Long id : ids) {
+                int slot = id != null ? table.slotOf(id) : LongIntHashMap.MISSING;
+                if (slot != LongIntHashMap.MISSING) {
+                    write(withStatus(table.read(slot), status, now));
+                    updated++;
+                }
+            }
+            commit();
+        } finally {
+            unlockAfterWrite();
+        }
+        return updated;
+    }
+
+    @Override
+    public int deleteByIds(Collection<Long> ids) {
+        int deleted = 0;
+        writeLock.lock();
+        try {
+            for (Long id : ids) {
+                if (remove(id)) {
+                    deleted++;
+                }
+            }
+            commit();
+        } finally {
+            unlockAfterWrite();
+        }
+        return deleted;
+    }
+
+    // Reads
+
+    @Override
+    public Optional<Task> findById(Long id) {
+        Objects.requireNonNull(id, "id must not be null");
+        readLock.lock();
+        try {
+            int slot = table.slotOf(id);
+            return slot == LongIntHashMap.MISSING ? Optional.empty() : Optional.of(table.read(slot));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        Objects.requireNonNull(id, "id must not be null");
+        readLock.lock();
+        try {
+            return table.contains(id);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public Task getReferenceById(Long id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException("Task " + id + " not found"));
+    }
+
+    @Override
+    @Deprecated
+    public Task getOne(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    @Deprecated
+    public Task getById(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public List<Task> findAll() {
+        return collect(allTasks(), 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Task> findAllById(Iterable<Long> ids) {
+        List<Task> tasks = new ArrayList<>();
+        readLock.lock();
+        try {
+            for (Long id : ids) {
+                int slot = table.slotOf(id);
+                if (slot != LongIntHashMap.MISSING) {
+                    tasks.add(table.read(slot));
+                }
+            }
+        } finally {
+            readLock.unlock();
+        }
+        return tasks;
+    }
+
+    @Override
+    public List<Task> findAll(Sort sort) {
+        List<Task> tasks = findAll();
+        if (sort.isSorted()) {
+            tasks.sort(comparator(sort));
+        }
+        return tasks;
+    }
+
+    @Override
+    public Page<Task> findAll(Pageable pageable) {
+        List<Task> tasks = findAll(pageable.getSort());
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(tasks);
+        }
+        int from = (int) Math.min(pageable.getOffset(), tasks.size());
+        int to = Math.min(from + pageable.getPageSize(), tasks.size());
+        return new PageImpl<>(new ArrayList<>(tasks.subList(from, to)), pageable, tasks.size());
+    }
+
+    @Override
+    public long count() {
+        readLock.lock();
+        try {
+            return table.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> findByArchivedFalse() {
+        return collect(new TaskFilter(), 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Task> findByArchivedFalseOrderByIdDesc(Pageable pageable) {
+        long skip = pageable.isPaged() ? pageable.getOffset() : 0;
+        int size = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        List<Task> tasks = new ArrayList<>(Math.min(size, 1024));
+        readLock.lock();
+        try {
+            long[] skipped = {0};
+            table.scanDescending(slot -> {
+                if (!table.archivedAt(slot) && skipped[0]++ >= skip) {
+                    tasks.add(table.read(slot));
+                }
+                return tasks.size() < size;
+            });
+        } finally {
+            readLock.unlock();
+        }
+        return tasks;
+    }
+
+    /**
+     * Per-status counts straight from the status bitsets.
+     */
+    @Override
+    public List<Object[]> countTasksByStatus() {
+        readLock.lock();
+        try {
+            List<Object[]> rows = new ArrayList<>();
+            for (TaskStatus status : TaskStatus.values()) {
+                int count = table.withStatus(status).cardinality();
+                if (count > 0) {
+                    rows.add(new Object[] {status, (long) count});
+                }
+            }
+            return rows;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Same rows as the JPQL aggregate, computed by intersecting the status bitsets with due-date
+     * range bitsets; no row is visited.
+     */
+    @Override
+    public List<Object[]> countTasksByStatusAndDueWindow(LocalDate today, LocalDate endOfWeek,
+            boolean includeArchived) {
+        readLock.lock();
+        try {
+            BitSet overdue = table.dueBetween(null, today.minusDays(1));
+            BitSet dueToday = table.dueBetween(today, today);
+            BitSet dueThisWeek = table.dueBetween(today.plusDays(1), endOfWeek);
+            List<Object[]> rows = new ArrayList<>();
+            for (TaskStatus status : TaskStatus.values()) {
+                BitSet slots = (BitSet) table.withStatus(status).clone();
+                if (!includeArchived) {
+                    slots.andNot(table.archivedSlots());
+                }
+                long total = slots.cardinality();
+                if (total == 0) {
+                    continue;
+                }
+                rows.add(new Object[] {status, total, intersect(slots, overdue), intersect(slots, dueToday),
+                        intersect(slots, dueThisWeek), intersect(slots, table.withoutDueDate())});
+            }
+            return rows;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public long countByFilter(TaskFilter filter) {
+        readLock.lock();
+        try {
+            BitSet candidates = table.candidates(filter);
+            if (filter.getTitleContains() == null || filter.getTitleContains().isEmpty()) {
+                return candidates.cardinality();
+            }
+            long count = 0;
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                if (table.matchesTitle(slot, filter)) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * The page is materialized under the read lock and returned as a stream over it; unlike the
+     * JDBC version it holds no resources, but it should still be closed by callers that share code
+     * with the database repository.
+     */
+    @Override
+    public Stream<Map<String, Object>> streamByFilter(TaskFilter filter, Set<TaskField> fields, long afterId,
+            int limit) {
+        EnumSet<TaskField> selected = EnumSet.of(TaskField.ID);
+        selected.addAll(fields);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        readLock.lock();
+        try {
+            for (int slot : selectChunk(filter, afterId, limit)) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (TaskField field : selected) {
+                    row.put(field.getFieldName(), readField(slot, field));
+                }
+                rows.add(row);
+            }
+        } finally {
+            readLock.unlock();
+        }
+        return rows.stream();
+    }
+
+    // Query by example
+
+    /**
+     * Probes are matched against every task in memory (see {@link TaskExamples}); no index is used.
+     */
+    @Override
+    public <S extends Task> List<S> findAll(Example<S> example, Sort sort) {
+        return TaskExamples.filter(findAll(sort), example);
+    }
+
+    @Override
+    public <S extends Task> List<S> findAll(Example<S> example) {
+        return findAll(example, Sort.unsorted());
+    }
+
+    @Override
+    public <S extends Task> Page<S> findAll(Example<S> example, Pageable pageable) {
+        return TaskExamples.page(findAll(example, pageable.getSort()), pageable);
+    }
+
+    @Override
+    public <S extends Task> Optional<S> findOne(Example<S> example) {
+        return TaskExamples.one(findAll(example));
+    }
+
+    @Override
+    public <S extends Task> long count(Example<S> example) {
+        return findAll(example).size();
+    }
+
+    @Override
+    public <S extends Task> boolean exists(Example<S> example) {
+        return !findAll(example).isEmpty();
+    }
+
+    @Override
+    public <S extends Task, R> R findBy(Example<S> example,
+            Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        return queryFunction.apply(TaskExamples.fluentQuery(sort -> findAll(example, sort)));
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            wal.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Visible for tests
+    void checkpoint() {
+        writeLock.lock();
+        snapshotLocked();
+    }
+
+    // Visible for tests
+    long walGeneration() {
+        readLock.lock();
+        try {
+            return wal.generation();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void store(Task entity) {
+        checkStore(entity);
+        apply(entity);
+    }
+
+    /**
+     * Rejects {@code entity} if it is invalid or its external key belongs to another task.
+     */
+    private void checkStore(Task entity) {
+        validate(entity);
+        if (entity.getExternalKey() != null) {
+            int owner = table.slotOfExternalKey(entity.getExternalKey());
+            if (owner != LongIntHashMap.MISSING && owner != slotOf(entity)) {
+                throw duplicateKey(entity.getExternalKey());
+            }
+        }
+    }
+
+    /**
+     * Writes {@code entity}, which {@link #checkStore} has accepted.
+     */
+    private void apply(Task entity) {
+        Long id = entity.getId();
+        int existing = slotOf(entity);
+        // Same rules as Task#trackCompletion
+        if (entity.getStatus() == TaskStatus.DONE) {
+            if (entity.getCompletedAt() == null) {
+                entity.setCompletedAt(LocalDateTime.now());
+            }
+        } else {
+            entity.setCompletedAt(null);
+            entity.setArchived(false);
+        }
+        Task row = copyOf(entity);
+        // Like a merge of a detached entity with an unknown id, an unknown id is inserted under a new one
+        row.setId(existing != LongIntHashMap.MISSING ? id : table.allocateId());
+        // The lease is not written by entity saves, as in the JPA mapping
+        row.setLeaseOwner(existing != LongIntHashMap.MISSING ? table.leaseOwnerAt(existing) : null);
+        row.setLeaseExpiresAt(existing != LongIntHashMap.MISSING ? table.leaseExpiresAtAt(existing) : null);
+        write(row);
+        entity.setId(row.getId());
+    }
+
+    private int slotOf(Task entity) {
+        return entity.getId() != null ? table.slotOf(entity.getId()) : LongIntHashMap.MISSING;
+    }
+
+    private boolean remove(Long id) {
+        if (id == null || !table.contains(id)) {
+            return false;
+        }
+        logChange(() -> wal.appendDelete(id));
+        table.remove(id);
+        return true;
+    }
+
+    private void write(Task row) {
+        logChange(() -> wal.appendPut(row));
+        table.put(row);
+    }
+
+    private static void logChange(Runnable append) {
+        try {
+            append.run();
+        } catch (RuntimeException ex) {
+            throw failure("Cannot append to task log", ex);
+        }
+    }
+
+    private void commit() {
+        wal.sync();
+    }
+
+    /**
+     * Releases the write lock, taking a snapshot first if the log has grown past its threshold.
+     */
+    private void unlockAfterWrite() {
+        if (wal.size() < snapshotAfterBytes) {
+            writeLock.unlock();
+            return;
+        }
+        snapshotLocked();
+    }
+
+    /**
+     * Rotates the log under the write lock, then downgrades to the read lock while the snapshot is
+     * written, so reads continue and writes wait. Releases the lock.
+     */
+    private void snapshotLocked() {
+        long covered;
+        try {
+            covered = wal.rotate();
+        } catch (IOException | RuntimeException ex) {
+            writeLock.unlock();
+            throw failure("Cannot rotate task log", ex);
+        }
+        readLock.lock();
+        writeLock.unlock();
+        try {
+            long started = System.nanoTime();
+            wal.writeSnapshot(covered, table);
+            log.info("Task snapshot of {} rows written in {} ms", table.size(),
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | RuntimeException ex) {
+            // The previous snapshot and all logs since are still in place
+            log.warn("Cannot write task snapshot: {}", ex.getMessage());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private int leasedSlot(Long id, String owner) {
+        int slot = id != null ? table.slotOf(id) : LongIntHashMap.MISSING;
+        if (slot == LongIntHashMap.MISSING || table.statusAt(slot) != TaskStatus.IN_PROGRESS
+                || !Objects.equals(table.leaseOwnerAt(slot), owner)) {
+            return LongIntHashMap.MISSING;
+        }
+        return slot;
+    }
+
+    private List<Integer> selectChunk(TaskFilter filter, long afterId, int limit) {
+        BitSet candidates = table.candidates(filter);
+        List<Integer> slots = new ArrayList<>(Math.min(limit, 1024));
+        if (limit <= 0) {
+            return slots;
+        }
+        table.scan(afterId, slot -> {
+            if (candidates.get(slot) && table.matchesTitle(slot, filter)) {
+                slots.add(slot);
+            }
+            return slots.size() < limit;
+        });
+        return slots;
+    }
+
+    private List<Task> collect(TaskFilter filter, long afterId, int limit) {
+        readLock.lock();
+        try {
+            List<Integer> slots = selectChunk(filter, afterId, limit);
+            List<Task> tasks = new ArrayList<>(slots.size());
+            slots.forEach(slot -> tasks.add(table.read(slot)));
+            return tasks;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private Object readField(int slot, TaskField field) {
+        return switch (field) {
+            case ID -> table.idAt(slot);
+            case TITLE -> table.titleAt(slot);
+            case DESCRIPTION -> table.descriptionAt(slot);
+            case STATUS -> table.statusAt(slot);
+            case DUE_DATE -> table.dueDateAt(slot);
+            case EXTERNAL_KEY -> table.externalKeyAt(slot);
+            case ARCHIVED -> table.archivedAt(slot);
+            case COMPLETED_AT -> table.completedAtAt(slot);
+        };
+    }
+
+    private static TaskFilter allTasks() {
+        TaskFilter filter = new TaskFilter();
+        filter.setIncludeArchived(true);
+        return filter;
+    }
+
+    private static Task withStatus(Task row, TaskStatus status, LocalDateTime now) {
+        if (row.getStatus() != status) {
+            row.setLeaseOwner(null);
+            row.setLeaseExpiresAt(null);
+        }
+        row.setStatus(status);
+        if (status == TaskStatus.DONE) {
+            row.setCompletedAt(Objects.requireNonNullElse(row.getCompletedAt(), now));
+        } else {
+            row.setCompletedAt(null);
+            row.setArchived(false);
+        }
+        return row;
+    }
+
+    private static void validate(Task task) {
+        if (task.getTitle() == null || task.getStatus() == null) {
+            throw new DataIntegrityViolationException("Task title and status must not be null");
+        }
+        if (task.getTitle().length() > Task.TITLE_MAX_LENGTH
+                || (task.getDescription() != null && task.getDescription().length() > Task.DESCRIPTION_MAX_LENGTH)
+                || (task.getExternalKey() != null && task.getExternalKey().length() > Task.EXTERNAL_KEY_MAX_LENGTH)) {
+            throw new DataIntegrityViolationException("Task value too long for its column");
+        }
+    }
+
+    private Task newRow(Task task, LocalDateTime now) {
+        Task row = copyOf(task);
+        row.setId(table.allocateId());
+        row.setArchived(false);
+        row.setCompletedAt(task.getStatus() == TaskStatus.DONE ? now : null);
+        row.setLeaseOwner(null);
+        row.setLeaseExpiresAt(null);
+        return row;
+    }
+
+    private static Task copyOf(Task task) {
+        Task copy = new Task(task.getTitle(), task.getDescription(), task.getStatus(), task.getDueDate());
+        copy.setId(task.getId());
+        copy.setExternalKey(task.getExternalKey());
+        copy.setArchived(task.isArchived());
+        copy.setCompletedAt(task.getCompletedAt());
+        copy.setLeaseOwner(task.getLeaseOwner());
+        copy.setLeaseExpiresAt(task.getLeaseExpiresAt());
+        return copy;
+    }
+
+    private static long intersect(BitSet a, BitSet b) {
+        BitSet both = (BitSet) a.clone();
+        both.and(b);
+        return both.cardinality();
+    }
+
+    private static Comparator<Task> comparator(Sort sort) {
+        Comparator<Task> result = null;
+        for (Sort.Order order : sort) {
+            Function<Task, Comparable<?>> key = sortKey(order.getProperty());
+            boolean nullsFirst = order.getNullHandling() == Sort.NullHandling.NULLS_FIRST
+                    || (order.getNullHandling() == Sort.NullHandling.NATIVE && order.isDescending());
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Comparator<Comparable> natural = order.isAscending()
+                    ? Comparator.naturalOrder() : Comparator.reverseOrder();
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Comparator<Task> next = Comparator.comparing((Function) key,
+                    nullsFirst ? Comparator.nullsFirst(natural) : Comparator.nullsLast(natural));
+            result = result == null ? next : result.thenComparing(next);
+        }
+        return result;
+    }
+
+    private static Function<Task, Comparable<?>> sortKey(String property) {
+        return switch (property) {
+            case "id" -> Task::getId;
+            case "title" -> Task::getTitle;
+            case "description" -> Task::getDescription;
+            case "status" -> Task::getStatus;
+            case "dueDate" -> Task::getDueDate;
+            case "externalKey" -> Task::getExternalKey;
+            case "archived" -> Task::isArchived;
+            case "completedAt" -> Task::getCompletedAt;
+            default -> throw new IllegalArgumentException("Cannot sort tasks by '" + property + "'");
+        };
+    }
+
+    private static DuplicateKeyException duplicateKey(String externalKey) {
+        return new DuplicateKeyException(
+                "Duplicate external key '" + externalKey + "' (uk_tasks_external_key)");
+    }
+
+    private static DataAccessResourceFailureException failure(String message, Exception ex) {
+        return new DataAccessResourceFailureException(message,
+                ex instanceof UncheckedIOException unchecked ? unchecked.getCause() : ex);
+    }
+}
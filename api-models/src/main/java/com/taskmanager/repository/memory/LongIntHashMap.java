@@ -0,0 +1,115 @@
+package com.taskmanager.repository.memory;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing {@code long -> int} map with linear probing, used for the id to row slot lookup
+ * so that neither keys nor values are boxed. Keys must not be {@link #FREE}; values are returned as
+ * {@link #MISSING} when absent. Not thread-safe; {@link TaskTable} guards it.
+ */
+final class LongIntHashMap {
+
+    static final int MISSING = -1;
+
+    private static final long FREE = 0L;
+    private static final long REMOVED = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int used;
+
+    LongIntHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2) - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                return values[i];
+            }
+            if (k == FREE) {
+                return MISSING;
+            }
+        }
+    }
+
+    void put(long key, int value) {
+        if (key == FREE || key == REMOVED) {
+            throw new IllegalArgumentException("Reserved key " + key);
+        }
+        if ((used + 1) * 4L > keys.length * 3L) {
+            rehash(size * 2 >= keys.length / 2 ? keys.length * 2 : keys.length);
+        }
+        int mask = keys.length - 1;
+        int tombstone = -1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                values[i] = value;
+                return;
+            }
+            if (k == REMOVED && tombstone < 0) {
+                tombstone = i;
+            } else if (k == FREE) {
+                int slot = tombstone >= 0 ? tombstone : i;
+                if (slot == i) {
+                    used++;
+                }
+                keys[slot] = key;
+                values[slot] = value;
+                size++;
+                return;
+            }
+        }
+    }
+
+    int remove(long key) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                int value = values[i];
+                keys[i] = REMOVED;
+                size--;
+                return value;
+            }
+            if (k == FREE) {
+                return MISSING;
+            }
+        }
+    }
+
+    void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+        used = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        size = 0;
+        used = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE && oldKeys[i] != REMOVED) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,467 @@
+package com.taskmanager.repository.memory;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.TaskFilter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Columnar row store behind {@link InMemoryTaskRepository}. Each column is a primitive (or string)
+ * array indexed by row slot; freed slots are reused. Secondary indexes are bitsets over slots:
+ * one per status, one per due date (ordered by day, so date ranges are a sub-map union) plus
+ * archived and no-due-date sets, and a hash index on the external key.
+ * <p>
+ * Ids are kept in ascending order in a separate array so keyset scans ({@code id > ?}) walk rows in
+ * id order without sorting. Not thread-safe; the repository guards it with a read/write lock.
+ */
+final class TaskTable {
+
+    static final int NO_DATE = Integer.MIN_VALUE;
+    static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private long[] ids;
+    private String[] titles;
+    private String[] descriptions;
+    private byte[] statuses;
+    private int[] dueDays;
+    private String[] externalKeys;
+    private long[] completedAt;
+    private String[] leaseOwners;
+    private long[] leaseExpiresAt;
+    private int slotCount;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    private final LongIntHashMap slotById;
+    private final BitSet live = new BitSet();
+    private final BitSet archived = new BitSet();
+    private final BitSet[] byStatus = new BitSet[STATUSES.length];
+    private final NavigableMap<Integer, BitSet> byDueDay = new TreeMap<>();
+    private final BitSet noDueDate = new BitSet();
+    private final Map<String, Integer> byExternalKey = new HashMap<>();
+
+    private long[] idOrder;
+    private int idOrderSize;
+    private int deadInOrder;
+    private long nextId = 1;
+
+    TaskTable(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        ids = new long[capacity];
+        titles = new String[capacity];
+        descriptions = new String[capacity];
+        statuses = new byte[capacity];
+        dueDays = new int[capacity];
+        externalKeys = new String[capacity];
+        completedAt = new long[capacity];
+        leaseOwners = new String[capacity];
+        leaseExpiresAt = new long[capacity];
+        idOrder = new long[capacity];
+        slotById = new LongIntHashMap(capacity);
+        for (int i = 0; i < byStatus.length; i++) {
+            byStatus[i] = new BitSet();
+        }
+    }
+
+    int size() {
+        return slotById.size();
+    }
+
+    long nextId() {
+        return nextId;
+    }
+
+    void advanceNextId(long candidate) {
+        nextId = Math.max(nextId, candidate);
+    }
+
+    long allocateId() {
+        return nextId++;
+    }
+
+    boolean contains(long id) {
+        return slotById.get(id) != LongIntHashMap.MISSING;
+    }
+
+    int slotOf(long id) {
+        return slotById.get(id);
+    }
+
+    int slotOfExternalKey(String externalKey) {
+        Integer slot = byExternalKey.get(externalKey);
+        return slot != null ? slot : LongIntHashMap.MISSING;
+    }
+
+    long idAt(int slot) {
+        return ids[slot];
+    }
+
+    String titleAt(int slot) {
+        return titles[slot];
+    }
+
+    String descriptionAt(int slot) {
+        return descriptions[slot];
+    }
+
+    TaskStatus statusAt(int slot) {
+        return STATUSES[statuses[slot]];
+    }
+
+    LocalDate dueDateAt(int slot) {
+        return dueDays[slot] == NO_DATE ? null : LocalDate.ofEpochDay(dueDays[slot]);
+    }
+
+    String externalKeyAt(int slot) {
+        return externalKeys[slot];
+    }
+
+    boolean archivedAt(int slot) {
+        return archived.get(slot);
+    }
+
+    LocalDateTime completedAtAt(int slot) {
+        return decodeTime(completedAt[slot]);
+    }
+
+    String leaseOwnerAt(int slot) {
+        return leaseOwners[slot];
+    }
+
+    LocalDateTime leaseExpiresAtAt(int slot) {
+        return decodeTime(leaseExpiresAt[slot]);
+    }
+
+    Task read(int slot) {
+        Task task = new Task(titles[slot], descriptions[slot], statusAt(slot), dueDateAt(slot));
+        task.setId(ids[slot]);
+        task.setExternalKey(externalKeys[slot]);
+        task.setArchived(archived.get(slot));
+        task.setCompletedAt(completedAtAt(slot));
+        task.setLeaseOwner(leaseOwners[slot]);
+        task.setLeaseExpiresAt(leaseExpiresAtAt(slot));
+        return task;
+    }
+
+    /**
+     * Inserts or replaces the row for {@code task.getId()}, which must be set.
+     */
+    void put(Task task) {
+        long id = task.getId();
+        int slot = slotById.get(id);
+        if (slot == LongIntHashMap.MISSING) {
+            slot = allocateSlot();
+            slotById.put(id, slot);
+            appendToIdOrder(id);
+            live.set(slot);
+            ids[slot] = id;
+        } else {
+            unindex(slot);
+        }
+        titles[slot] = task.getTitle();
+        descriptions[slot] = task.getDescription();
+        statuses[slot] = (byte) task.getStatus().ordinal();
+        dueDays[slot] = task.getDueDate() != null ? (int) task.getDueDate().toEpochDay() : NO_DATE;
+        externalKeys[slot] = task.getExternalKey();
+        completedAt[slot] = encodeTime(task.getCompletedAt());
+        leaseOwners[slot] = task.getLeaseOwner();
+        leaseExpiresAt[slot] = encodeTime(task.getLeaseExpiresAt());
+        archived.set(slot, task.isArchived());
+        index(slot);
+        advanceNextId(id + 1);
+    }
+
+    boolean remove(long id) {
+        int slot = slotById.remove(id);
+        if (slot == LongIntHashMap.MISSING) {
+            return false;
+        }
+        unindex(slot);
+        live.clear(slot);
+        archived.clear(slot);
+        titles[slot] = null;
+        descriptions[slot] = null;
+        externalKeys[slot] = null;
+        leaseOwners[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        if (++deadInOrder > 1024 && deadInOrder > idOrderSize / 2) {
+            compactIdOrder();
+        }
+        return true;
+    }
+
+    void clear() {
+        slotById.clear();
+        live.clear();
+        archived.clear();
+        for (BitSet status : byStatus) {
+            status.clear();
+        }
+        byDueDay.clear();
+        noDueDate.clear();
+        byExternalKey.clear();
+        Arrays.fill(titles, 0, slotCount, null);
+        Arrays.fill(descriptions, 0, slotCount, null);
+        Arrays.fill(externalKeys, 0, slotCount, null);
+        Arrays.fill(leaseOwners, 0, slotCount, null);
+        slotCount = 0;
+        freeCount = 0;
+        idOrderSize = 0;
+        deadInOrder = 0;
+    }
+
+    /**
+     * Visits live rows with {@code id > afterId} in ascending id order until the visitor returns false.
+     */
+    void scan(long afterId, SlotVisitor visitor) {
+        int from = firstIndexAfter(afterId);
+        for (int i = from; i < idOrderSize; i++) {
+            int slot = slotById.get(idOrder[i]);
+            if (slot != LongIntHashMap.MISSING && !visitor.visit(slot)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Visits live rows in descending id order until the visitor returns false.
+     */
+    void scanDescending(SlotVisitor visitor) {
+        for (int i = idOrderSize - 1; i >= 0; i--) {
+            int slot = slotById.get(idOrder[i]);
+            if (slot != LongIntHashMap.MISSING && !visitor.visit(slot)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Visits {@code candidates} earliest due first, then those without a due date, each group in
+     * ascending id order, until the visitor returns false.
+     */
+    void scanByDueDate(BitSet candidates, SlotVisitor visitor) {
+        for (BitSet day : byDueDay.values()) {
+            BitSet due = (BitSet) day.clone();
+            due.and(candidates);
+            if (due.isEmpty()) {
+                continue;
+            }
+            int[] slots = due.stream().boxed()
+                    .sorted((a, b) -> Long.compare(ids[a], ids[b]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            for (int slot : slots) {
+                if (!visitor.visit(slot)) {
+                    return;
+                }
+            }
+        }
+        scan(0, slot -> !noDueDate.get(slot) || !candidates.get(slot) || visitor.visit(slot));
+    }
+
+    void forEachRow(Consumer<Task> consumer) {
+        scan(0, slot -> {
+            consumer.accept(read(slot));
+            return true;
+        });
+    }
+
+    /**
+     * Slots satisfying every indexed condition of {@code filter}; {@code titleContains} is not
+     * indexed and must be checked per row with {@link #matchesTitle}.
+     */
+    BitSet candidates(TaskFilter filter) {
+        BitSet result;
+        if (filter.getStatus() != null) {
+            result = (BitSet) byStatus[filter.getStatus().ordinal()].clone();
+        } else {
+            result = (BitSet) live.clone();
+        }
+        if (filter.getExcludedStatus() != null) {
+            result.andNot(byStatus[filter.getExcludedStatus().ordinal()]);
+        }
+        if (!filter.isIncludeArchived()) {
+            result.andNot(archived);
+        }
+        if (filter.getDueFrom() != null || filter.getDueTo() != null) {
+            result.and(dueBetween(filter.getDueFrom(), filter.getDueTo()));
+        }
+        return result;
+    }
+
+    boolean matchesTitle(int slot, TaskFilter filter) {
+        String needle = filter.getTitleContains();
+        if (needle == null || needle.isEmpty()) {
+            return true;
+        }
+        String title = titles[slot];
+        return title != null && title.toLowerCase(Locale.ROOT).contains(needle.toLowerCase(Locale.ROOT));
+    }
+
+    boolean matches(int slot, TaskFilter filter) {
+        return live.get(slot) && candidates(filter).get(slot) && matchesTitle(slot, filter);
+    }
+
+    BitSet withStatus(TaskStatus status) {
+        return byStatus[status.ordinal()];
+    }
+
+    BitSet archivedSlots() {
+        return archived;
+    }
+
+    BitSet withoutDueDate() {
+        return noDueDate;
+    }
+
+    /**
+     * Slots due within {@code [from, to]}; a null bound is open. Tasks without a due date never match.
+     */
+    BitSet dueBetween(LocalDate from, LocalDate to) {
+        NavigableMap<Integer, BitSet> range = byDueDay;
+        if (from != null && to != null) {
+            if (from.isAfter(to)) {
+                return new BitSet();
+            }
+            range = byDueDay.subMap((int) from.toEpochDay(), true, (int) to.toEpochDay(), true);
+        } else if (from != null) {
+            range = byDueDay.tailMap((int) from.toEpochDay(), true);
+        } else if (to != null) {
+            range = byDueDay.headMap((int) to.toEpochDay(), true);
+        }
+        BitSet result = new BitSet();
+        range.values().forEach(result::or);
+        return result;
+    }
+
+    private void index(int slot) {
+        byStatus[statuses[slot]].set(slot);
+        if (dueDays[slot] == NO_DATE) {
+            noDueDate.set(slot);
+        } else {
+            byDueDay.computeIfAbsent(dueDays[slot], day -> new BitSet()).set(slot);
+        }
+        if (externalKeys[slot] != null) {
+            byExternalKey.put(externalKeys[slot], slot);
+        }
+    }
+
+    private void unindex(int slot) {
+        byStatus[statuses[slot]].clear(slot);
+        if (dueDays[slot] == NO_DATE) {
+            noDueDate.clear(slot);
+        } else {
+            BitSet day = byDueDay.get(dueDays[slot]);
+            day.clear(slot);
+            if (day.isEmpty()) {
+                byDueDay.remove(dueDays[slot]);
+            }
+        }
+        if (externalKeys[slot] != null) {
+            byExternalKey.remove(externalKeys[slot], slot);
+        }
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            titles = Arrays.copyOf(titles, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            dueDays = Arrays.copyOf(dueDays, capacity);
+            externalKeys = Arrays.copyOf(externalKeys, capacity);
+            completedAt = Arrays.copyOf(completedAt, capacity);
+            leaseOwners = Arrays.copyOf(leaseOwners, capacity);
+            leaseExpiresAt = Arrays.copyOf(leaseExpiresAt, capacity);
+        }
+        return slotCount++;
+    }
+
+    /**
+     * Ids are allocated in ascending order, so this is an append except when a log replays an id
+     * below the current maximum.
+     */
+    private void appendToIdOrder(long id) {
+        if (idOrderSize == idOrder.length) {
+            idOrder = Arrays.copyOf(idOrder, idOrderSize * 2);
+        }
+        if (idOrderSize == 0 || idOrder[idOrderSize - 1] < id) {
+            idOrder[idOrderSize++] = id;
+            return;
+        }
+        int at = firstIndexAfter(id);
+        if (at > 0 && idOrder[at - 1] == id) {
+            // A stale entry of a removed id is live again
+            deadInOrder--;
+            return;
+        }
+        System.arraycopy(idOrder, at, idOrder, at + 1, idOrderSize - at);
+        idOrder[at] = id;
+        idOrderSize++;
+    }
+
+    private int firstIndexAfter(long afterId) {
+        int low = 0;
+        int high = idOrderSize;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (idOrder[mid] <= afterId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void compactIdOrder() {
+        int kept = 0;
+        for (int i = 0; i < idOrderSize; i++) {
+            if (slotById.get(idOrder[i]) != LongIntHashMap.MISSING) {
+                idOrder[kept++] = idOrder[i];
+            }
+        }
+        idOrderSize = kept;
+        deadInOrder = 0;
+    }
+
+    static long encodeTime(LocalDateTime time) {
+        if (time == null) {
+            return NO_TIME;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime decodeTime(long micros) {
+        if (micros == NO_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    @FunctionalInterface
+    interface SlotVisitor {
+        boolean visit(int slot);
+    }
+}
@@ -0,0 +1,449 @@
+package com.taskmanager.repository.memory;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of row changes for {@link InMemoryTaskRepository}, written through a memory-mapped
+ * file, plus periodic snapshots of the whole table.
+ * <p>
+ * Layout of the data directory:
+ * <ul>
+ *   <li>{@code tasks-<generation>.wal}: an 8-byte header followed by records
+ *       {@code [int length][int crc32][payload]}. The file is pre-extended with zeros, so a zero length
+ *       marks the end. The length is written last, and a torn or corrupt tail fails its checksum and
+ *       is dropped on recovery.</li>
+ *   <li>{@code tasks.snapshot}: header, the WAL generation it covers up to, the next id and every
+ *       row as a put record. It is written to a temporary file and atomically renamed.</li>
+ * </ul>
+ * A checkpoint first switches appends to a new generation and then writes the snapshot, so a crash
+ * at any point leaves either the old snapshot with all later logs or the new one. Recovery loads
+ * the snapshot and replays logs from its generation onward.
+ */
+final class TaskWriteAheadLog implements Closeable {
+
+    static final String SNAPSHOT_FILE = "tasks.snapshot";
+
+    private static final Logger log = LoggerFactory.getLogger(TaskWriteAheadLog.class);
+
+    private static final int WAL_MAGIC = 0x54574c31;
+    private static final int SNAPSHOT_MAGIC = 0x54534e31;
+    private static final int FORMAT_VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 8;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int INITIAL_MAP_BYTES = 1 << 20;
+    private static final int MAX_MAP_BYTES = Integer.MAX_VALUE - 8;
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+    private static final byte OP_CLEAR = 3;
+
+    private final Path directory;
+    private final boolean fsync;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer scratch = ByteBuffer.allocate(1024);
+
+    private long generation;
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private int position;
+    private int syncedPosition;
+
+    private TaskWriteAheadLog(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Opens the log in {@code directory}, creating it if needed, and restores its contents into the
+     * empty {@code table}.
+     */
+    static TaskWriteAheadLog open(Path directory, boolean fsync, TaskTable table) throws IOException {
+        Files.createDirectories(directory);
+        TaskWriteAheadLog wal = new TaskWriteAheadLog(directory, fsync);
+        wal.recover(table);
+        return wal;
+    }
+
+    /**
+     * Bytes appended to the current generation since the last checkpoint.
+     */
+    int size() {
+        return position;
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    void appendPut(Task task) {
+        scratch.clear();
+        scratch.put(OP_PUT);
+        encodeRow(task);
+        append();
+    }
+
+    void appendDelete(long id) {
+        scratch.clear();
+        ensureScratch(9);
+        scratch.put(OP_DELETE).putLong(id);
+        append();
+    }
+
+    void appendClear() {
+        scratch.clear();
+        scratch.put(OP_CLEAR);
+        append();
+    }
+
+    /**
+     * Forces appended records to disk when the log was opened with {@code fsync}; otherwise they
+     * reach disk when the OS writes back the mapped pages, which survives a process crash but not
+     * a power loss.
+     */
+    void sync() {
+        if (fsync && position > syncedPosition) {
+            map.force(syncedPosition, position - syncedPosition);
+            syncedPosition = position;
+        }
+    }
+
+    /**
+     * Switches appends to the next generation. Call {@link #writeSnapshot} afterwards with the
+     * table state at the moment of the switch.
+     */
+    long rotate() throws IOException {
+        sync();
+        long next = generation + 1;
+        closeCurrent();
+        createGeneration(next);
+        return next;
+    }
+
+    /**
+     * Writes a snapshot covering every log before {@code coveredGeneration} and deletes those logs.
+     */
+    void writeSnapshot(long coveredGeneration, TaskTable table) throws IOException {
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+                DataOutputStream data = new DataOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(out), 1 << 16))) {
+            data.writeInt(SNAPSHOT_MAGIC);
+            data.writeInt(FORMAT_VERSION);
+            data.writeLong(coveredGeneration);
+            data.writeLong(table.nextId());
+            data.writeInt(table.size());
+            CRC32 snapshotCrc = new CRC32();
+            try {
+                table.forEachRow(task -> writeSnapshotRow(data, snapshotCrc, task));
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            data.flush();
+            out.force(true);
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        for (long stale : generations()) {
+            if (stale < coveredGeneration) {
+                Files.deleteIfExists(walPath(stale));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            sync();
+            closeCurrent();
+        }
+    }
+
+    private void writeSnapshotRow(DataOutputStream data, CRC32 snapshotCrc, Task task) {
+        scratch.clear();
+        scratch.put(OP_PUT);
+        encodeRow(task);
+        try {
+            snapshotCrc.reset();
+            snapshotCrc.update(scratch.array(), 0, scratch.position());
+            data.writeInt(scratch.position());
+            data.writeInt((int) snapshotCrc.getValue());
+            data.write(scratch.array(), 0, scratch.position());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void recover(TaskTable table) throws IOException {
+        long start = 0;
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            start = loadSnapshot(snapshot, table);
+        }
+        List<Long> generations = generations();
+        long last = start;
+        int replayed = 0;
+        for (long candidate : generations) {
+            if (candidate < start) {
+                Files.deleteIfExists(walPath(candidate));
+            } else {
+                if (channel != null) {
+                    closeCurrent();
+                }
+                replayed += replay(candidate, table);
+                last = candidate;
+            }
+        }
+        if (channel == null) {
+            createGeneration(last);
+        }
+        log.info("Recovered {} tasks from {} (snapshot generation {}, {} log records replayed)",
+                table.size(), directory, start, replayed);
+    }
+
+    private long loadSnapshot(Path snapshot, TaskTable table) throws IOException {
+        try (DataInputStream data = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16))) {
+            if (data.readInt() != SNAPSHOT_MAGIC || data.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a task snapshot: " + snapshot);
+            }
+            long coveredGeneration = data.readLong();
+            long nextId = data.readLong();
+            int rows = data.readInt();
+            byte[] payload = new byte[1024];
+            for (int i = 0; i < rows; i++) {
+                int length = data.readInt();
+                int checksum = data.readInt();
+                if (length > payload.length) {
+                    payload = new byte[length];
+                }
+                data.readFully(payload, 0, length);
+                if (checksum(payload, length) != checksum) {
+                    throw new IOException("Corrupt task snapshot row " + i + " in " + snapshot);
+                }
+                apply(ByteBuffer.wrap(payload, 0, length), table);
+            }
+            table.advanceNextId(nextId);
+            return coveredGeneration;
+        } catch (EOFException ex) {
+            throw new IOException("Truncated task snapshot: " + snapshot, ex);
+        }
+    }
+
+    /**
+     * Replays one log file, leaving it mapped with the write position after its last valid record.
+     */
+    private int replay(long candidate, TaskTable table) throws IOException {
+        openGeneration(candidate);
+        if (map.capacity() < FILE_HEADER_BYTES || map.getInt(0) != WAL_MAGIC || map.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Not a task log: " + walPath(candidate));
+        }
+        int records = 0;
+        int offset = FILE_HEADER_BYTES;
+        byte[] payload = new byte[1024];
+        while (offset + RECORD_HEADER_BYTES <= map.capacity()) {
+            int length = map.getInt(offset);
+            if (length <= 0 || length > map.capacity() - offset - RECORD_HEADER_BYTES) {
+                break;
+            }
+            if (length > payload.length) {
+                payload = new byte[length];
+            }
+            map.get(offset + RECORD_HEADER_BYTES, payload, 0, length);
+            if (checksum(payload, length) != map.getInt(offset + 4)) {
+                break;
+            }
+            apply(ByteBuffer.wrap(payload, 0, length), table);
+            offset += RECORD_HEADER_BYTES + length;
+            records++;
+        }
+        // Anything after the last valid record is a torn write; clear it so that later appends
+        // cannot be followed by stale bytes that happen to look like a record.
+        for (int i = offset; i < map.capacity(); i++) {
+            if (map.get(i) != 0) {
+                map.put(i, (byte) 0);
+            }
+        }
+        if (offset < map.capacity() && records > 0) {
+            log.debug("Task log {} ends after {} records at offset {}", walPath(candidate), records, offset);
+        }
+        position = offset;
+        syncedPosition = offset;
+        return records;
+    }
+
+    private static void apply(ByteBuffer record, TaskTable table) {
+        byte op = record.get();
+        switch (op) {
+            case OP_PUT -> table.put(decodeRow(record));
+            case OP_DELETE -> table.remove(record.getLong());
+            case OP_CLEAR -> table.clear();
+            default -> throw new IllegalStateException("Unknown task log operation " + op);
+        }
+    }
+
+    private void append() {
+        scratch.flip();
+        int length = scratch.remaining();
+        int checksum = checksum(scratch.array(), length);
+        ensureCapacity(RECORD_HEADER_BYTES + length);
+        map.putInt(position + 4, checksum);
+        map.put(position + RECORD_HEADER_BYTES, scratch.array(), 0, length);
+        map.putInt(position, length);
+        position += RECORD_HEADER_BYTES + length;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if ((long) position + bytes <= map.capacity()) {
+            return;
+        }
+        long required = (long) position + bytes;
+        if (required > MAX_MAP_BYTES) {
+            throw new IllegalStateException("Task log generation " + generation + " exceeds 2 GB; lower "
+                    + "app.tasks.memory.snapshot-after-bytes");
+        }
+        long capacity = Math.min(MAX_MAP_BYTES, Math.max(required, (long) map.capacity() * 2));
+        try {
+            sync();
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void createGeneration(long next) throws IOException {
+        openGeneration(next);
+        map.putInt(0, WAL_MAGIC);
+        map.putInt(4, FORMAT_VERSION);
+        map.force();
+        position = FILE_HEADER_BYTES;
+        syncedPosition = FILE_HEADER_BYTES;
+    }
+
+    private void openGeneration(long next) throws IOException {
+        channel = FileChannel.open(walPath(next), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), INITIAL_MAP_BYTES);
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(size, MAX_MAP_BYTES));
+        generation = next;
+    }
+
+    private void closeCurrent() throws IOException {
+        map = null;
+        channel.close();
+        channel = null;
+    }
+
+    private List<Long> generations() throws IOException {
+        List<Long> result = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith("tasks-") && name.endsWith(".wal"))
+                    .forEach(name -> result.add(Long.parseLong(name.substring(6, name.length() - 4))));
+        }
+        result.sort(null);
+        return result;
+    }
+
+    private Path walPath(long walGeneration) {
+        return directory.resolve(String.format("tasks-%019d.wal", walGeneration));
+    }
+
+    private int checksum(byte[] bytes, int length) {
+        crc.reset();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+
+    private void encodeRow(Task task) {
+        putString(task.getTitle());
+        putString(task.getDescription());
+        putString(task.getExternalKey());
+        ensureScratch(8 + 1 + 4 + 1 + 8);
+        scratch.putLong(task.getId());
+        scratch.put((byte) task.getStatus().getCode());
+        scratch.putInt(task.getDueDate() != null ? (int) task.getDueDate().toEpochDay() : TaskTable.NO_DATE);
+        scratch.put((byte) (task.isArchived() ? 1 : 0));
+        scratch.putLong(TaskTable.encodeTime(task.getCompletedAt()));
+        putString(task.getLeaseOwner());
+        ensureScratch(8);
+        scratch.putLong(TaskTable.encodeTime(task.getLeaseExpiresAt()));
+    }
+
+    private static Task decodeRow(ByteBuffer record) {
+        String title = getString(record);
+        String description = getString(record);
+        String externalKey = getString(record);
+        long id = record.getLong();
+        TaskStatus status = TaskStatus.fromCode(record.get());
+        int dueDay = record.getInt();
+        Task task = new Task(title, description, status, dueDay == TaskTable.NO_DATE ? null : LocalDate.ofEpochDay(dueDay));
+        task.setId(id);
+        task.setExternalKey(externalKey);
+        task.setArchived(record.get() != 0);
+        task.setCompletedAt(TaskTable.decodeTime(record.getLong()));
+        // Rows written before task leases end here
+        if (record.hasRemaining()) {
+            task.setLeaseOwner(getString(record));
+            task.setLeaseExpiresAt(TaskTable.decodeTime(record.getLong()));
+        }
+        return task;
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            ensureScratch(4);
+            scratch.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureScratch(4 + bytes.length);
+        scratch.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(record.array(), record.arrayOffset() + record.position(), length,
+                StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return value;
+    }
+
+    private void ensureScratch(int bytes) {
+        if (scratch.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(scratch.capacity() * 2, scratch.position() + bytes));
+            scratch.flip();
+            larger.put(scratch);
+            scratch = larger;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.taskmanager.repository.resilience;
+
+import com.taskmanager.support.WorkloadClass;
+
+import java.sql.SQLTransientException;
+
+/**
+ * Thrown by {@link ConnectionBulkhead} when a workload class could not get a connection within its
+ * wait limit because its share of the pool, or the whole pool, stayed in use. The database itself
+ * is fine, so the circuit breaker does not count it; callers should retry later.
+ */
+public class BulkheadFullException extends SQLTransientException {
+
+    /** PostgreSQL's too_many_connections, the nearest standard state. */
+    private static final String SQL_STATE = "53300";
+
+    private final WorkloadClass workload;
+
+    public BulkheadFullException(String pool, WorkloadClass workload, long waitedMillis) {
+        super("No '" + pool + "' connection for " + workload.tag() + " work after " + waitedMillis + " ms", SQL_STATE);
+        this.workload = workload;
+    }
+
+    public WorkloadClass getWorkload() {
+        return workload;
+    }
+
+    /**
+     * Whether {@code error} or one of its causes is a bulkhead rejection. Checked along the cause
+     * chain because JPA and JDBC paths wrap connection failures differently.
+     */
+    public static boolean causedBy(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BulkheadFullException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
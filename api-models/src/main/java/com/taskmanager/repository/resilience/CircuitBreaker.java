@@ -0,0 +1,156 @@
+package com.taskmanager.repository.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Consecutive-failure circuit breaker. After {@code failureThreshold} calls in a row fail with an
+ * error {@code isFailure} accepts (timeouts, lost connections), the circuit opens and calls fail
+ * immediately with {@link CircuitOpenException} for {@code openMillis}. The first call after that
+ * is let through as a probe while others keep failing fast: success closes the circuit, failure
+ * opens it for another period. Errors the predicate rejects (constraint violations, missing rows)
+ * mean the database answered, so they count as success.
+ * <p>
+ * The closed-state path is one volatile read of the state and, after a success, one of the failure
+ * counter; state changes are rare and synchronized.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Predicate<Throwable> isFailure;
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private Thread probe;
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis, Predicate<Throwable> isFailure) {
+        this(name, failureThreshold, openMillis, isFailure, System::nanoTime);
+    }
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis, Predicate<Throwable> isFailure,
+            LongSupplier nanoClock) {
+        if (failureThreshold < 1 || openMillis < 1) {
+            throw new IllegalArgumentException("Circuit breaker requires failure-threshold >= 1 and open-ms >= 1");
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.isFailure = isFailure;
+        this.nanoClock = nanoClock;
+    }
+
+    public <T> T execute(Supplier<T> call) {
+        acquirePermission();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error ex) {
+            onError(ex);
+            throw ex;
+        }
+        onSuccess();
+        return result;
+    }
+
+    /**
+     * Throws {@link CircuitOpenException} unless a call may go ahead now. Every permitted call must
+     * be followed by {@link #onSuccess()} or {@link #onError(Throwable)} on the same thread.
+     */
+    public void acquirePermission() {
+        if (state == State.CLOSED) {
+            return;
+        }
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                return;
+            }
+            if (state == State.HALF_OPEN && probe == Thread.currentThread()) {
+                return;
+            }
+            long now = nanoClock.getAsLong();
+            long elapsed = now - openedAt;
+            // A probe that never reported back is replaced after another open period
+            if (elapsed >= openNanos) {
+                state = State.HALF_OPEN;
+                probe = Thread.currentThread();
+                openedAt = now;
+                log.info("Circuit '{}' half-open, probing", name);
+                return;
+            }
+            throw new CircuitOpenException(name, Math.max(1, TimeUnit.NANOSECONDS.toMillis(openNanos - elapsed)));
+        }
+    }
+
+    public void onSuccess() {
+        if (state == State.CLOSED) {
+            if (consecutiveFailures.get() != 0) {
+                consecutiveFailures.set(0);
+            }
+            return;
+        }
+        synchronized (this) {
+            if (state == State.HALF_OPEN && probe == Thread.currentThread()) {
+                close();
+            }
+        }
+    }
+
+    public void onError(Throwable error) {
+        if (!isFailure.test(error)) {
+            onSuccess();
+            return;
+        }
+        if (state == State.CLOSED) {
+            if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+                synchronized (this) {
+                    if (state == State.CLOSED) {
+                        open(error);
+                    }
+                }
+            }
+            return;
+        }
+        synchronized (this) {
+            if (state == State.HALF_OPEN && probe == Thread.currentThread()) {
+                open(error);
+            }
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    private void open(Throwable cause) {
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+        probe = null;
+        log.warn("Circuit '{}' opened for {} ms after {} consecutive failures: {}", name,
+                TimeUnit.NANOSECONDS.toMillis(openNanos), Math.max(1, consecutiveFailures.get()), cause.toString());
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        probe = null;
+        consecutiveFailures.set(0);
+        log.info("Circuit '{}' closed", name);
+    }
+}
@@ -0,0 +1,22 @@
+package com.taskmanager.repository.resilience;
+
+import org.springframework.dao.TransientDataAccessResourceException;
+
+/**
+ * Thrown instead of calling the database while the {@link CircuitBreaker} is open. It is a
+ * transient {@link org.springframework.dao.DataAccessException}, so callers that already retry
+ * database errors (such as the write-behind buffer) treat it like one.
+ */
+public class CircuitOpenException extends TransientDataAccessResourceException {
+
+    private final long retryAfterMillis;
+
+    public CircuitOpenException(String name, long retryAfterMillis) {
+        super("Circuit '" + name + "' is open; retry in " + retryAfterMillis + " ms");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,327 @@
+package com.taskmanager.repository.resilience;
+
+import com.taskmanager.support.Deadline;
+import com.taskmanager.support.WorkloadClass;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Partitions a connection pool between {@link WorkloadClass workload classes}. Every connection
+ * taken through {@link #wrap(DataSource)} holds a permit of the current class until it is closed.
+ * There are as many permits as the pool has connections, and each class may hold at most its share
+ * of them, so with the default shares bulk writes and analytics can each use a quarter of the pool
+ * and interactive requests always find the rest.
+ * <p>
+ * A caller that finds its class at its limit, or the pool fully in use, waits in its class's queue.
+ * Released permits go to the waiters of the highest-priority class that is under its limit, in
+ * arrival order within a class. Interactive classes wait at most the interactive wait (by default
+ * the pool's connection timeout) and background classes the longer background wait, both capped by
+ * the thread's {@link Deadline}; then the caller gets a {@link BulkheadFullException}.
+ * <p>
+ * Registered as a {@link MeterBinder}, it reports per class the permits in use, the limit, their
+ * ratio ({@code db.bulkhead.saturation}), the number of waiters, the wait time and rejections.
+ */
+public class ConnectionBulkhead implements MeterBinder {
+
+    private static final WorkloadClass[] CLASSES = WorkloadClass.values();
+
+    private final String name;
+    private final int capacity;
+    private final int[] limits = new int[CLASSES.length];
+    private final long interactiveWaitNanos;
+    private final long backgroundWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Waiter>[] queues;
+    private final int[] inUse = new int[CLASSES.length];
+    private int totalInUse;
+
+    private final LongAdder[] acquired = new LongAdder[CLASSES.length];
+    private final LongAdder[] waitNanos = new LongAdder[CLASSES.length];
+    private final LongAdder[] rejected = new LongAdder[CLASSES.length];
+
+    @SuppressWarnings("unchecked")
+    public ConnectionBulkhead(String name, int capacity, Map<WorkloadClass, Double> shares,
+            long interactiveWaitMillis, long backgroundWaitMillis) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Bulkhead '" + name + "' needs at least one connection");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.interactiveWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, interactiveWaitMillis));
+        this.backgroundWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, backgroundWaitMillis));
+        this.queues = new ArrayDeque[CLASSES.length];
+        for (WorkloadClass workload : CLASSES) {
+            double share = shares.getOrDefault(workload, 1.0);
+            if (!(share > 0 && share <= 1)) {
+                throw new IllegalArgumentException("Share of " + workload.tag() + " work must be in (0, 1]: " + share);
+            }
+            int index = workload.ordinal();
+            limits[index] = Math.max(1, (int) Math.floor(share * capacity));
+            queues[index] = new ArrayDeque<>();
+            acquired[index] = new LongAdder();
+            waitNanos[index] = new LongAdder();
+            rejected[index] = new LongAdder();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DataSource wrap(DataSource target) {
+        return new DelegatingDataSource(target) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                WorkloadClass workload = acquire();
+                try {
+                    return released(super.getConnection(), workload);
+                } catch (SQLException | RuntimeException ex) {
+                    release(workload);
+                    throw ex;
+                }
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                WorkloadClass workload = acquire();
+                try {
+                    return released(super.getConnection(username, password), workload);
+                } catch (SQLException | RuntimeException ex) {
+                    release(workload);
+                    throw ex;
+                }
+            }
+        };
+    }
+
+    /**
+     * Takes a permit for the thread's current workload class, waiting if necessary, and returns
+     * that class.
+     */
+    WorkloadClass acquire() throws SQLException {
+        WorkloadClass workload = WorkloadClass.current();
+        int index = workload.ordinal();
+        long started = System.nanoTime();
+        long timeoutNanos = workload.isBackground() ? backgroundWaitNanos : interactiveWaitNanos;
+        Deadline deadline = Deadline.current();
+        if (deadline != null) {
+            timeoutNanos = Math.min(timeoutNanos, deadline.remainingNanos());
+        }
+
+        lock.lock();
+        try {
+            if (canGrant(index)) {
+                grant(index);
+            } else {
+                await(workload, timeoutNanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+        acquired[index].increment();
+        waitNanos[index].add(System.nanoTime() - started);
+        return workload;
+    }
+
+    void release(WorkloadClass workload) {
+        lock.lock();
+        try {
+            releaseLocked(workload.ordinal());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit(WorkloadClass workload) {
+        return limits[workload.ordinal()];
+    }
+
+    public int getInUse(WorkloadClass workload) {
+        lock.lock();
+        try {
+            return inUse[workload.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting(WorkloadClass workload) {
+        lock.lock();
+        try {
+            return queues[workload.ordinal()].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejected(WorkloadClass workload) {
+        return rejected[workload.ordinal()].sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (WorkloadClass workload : CLASSES) {
+            int index = workload.ordinal();
+            Tags tags = Tags.of("pool", name, "workload", workload.tag());
+            Gauge.builder("db.bulkhead.in_use", this, bulkhead -> bulkhead.getInUse(workload))
+                    .description("Connections held by the workload class")
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("db.bulkhead.limit", this, bulkhead -> bulkhead.getLimit(workload))
+                    .description("Most connections the workload class may hold")
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("db.bulkhead.saturation", this,
+                            bulkhead -> (double) bulkhead.getInUse(workload) / bulkhead.getLimit(workload))
+                    .description("Connections held by the workload class as a fraction of its limit")
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("db.bulkhead.waiting", this, bulkhead -> bulkhead.getWaiting(workload))
+                    .description("Callers of the workload class waiting for a connection")
+                    .tags(tags)
+                    .register(registry);
+            FunctionTimer.builder("db.bulkhead.wait", this, bulkhead -> bulkhead.acquired[index].sum(),
+                            bulkhead -> bulkhead.waitNanos[index].sum(), TimeUnit.NANOSECONDS)
+                    .description("Time the workload class waited for connections")
+                    .tags(tags)
+                    .register(registry);
+            FunctionCounter.builder("db.bulkhead.rejected", this, bulkhead -> bulkhead.getRejected(workload))
+                    .description("Connection requests of the workload class that gave up waiting")
+                    .tags(tags)
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionBulkhead[" + name + "]";
+    }
+
+    private void await(WorkloadClass workload, long timeoutNanos) throws SQLException {
+        int index = workload.ordinal();
+        Waiter waiter = new Waiter(lock.newCondition());
+        queues[index].add(waiter);
+        long remaining = timeoutNanos;
+        try {
+            while (!waiter.granted) {
+                if (remaining <= 0) {
+                    queues[index].remove(waiter);
+                    rejected[index].increment();
+                    throw new BulkheadFullException(name, workload, TimeUnit.NANOSECONDS.toMillis(timeoutNanos));
+                }
+                remaining = waiter.ready.awaitNanos(remaining);
+            }
+        } catch (InterruptedException ex) {
+            if (waiter.granted) {
+                releaseLocked(index);
+            } else {
+                queues[index].remove(waiter);
+            }
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a '" + name + "' connection", ex);
+        }
+    }
+
+    private boolean canGrant(int index) {
+        return totalInUse < capacity && inUse[index] < limits[index];
+    }
+
+    private void grant(int index) {
+        inUse[index]++;
+        totalInUse++;
+    }
+
+    /**
+     * Returns a permit and hands free permits to waiters, highest-priority class first.
+     */
+    private void releaseLocked(int index) {
+        inUse[index]--;
+        totalInUse--;
+        for (int next = 0; next < queues.length && totalInUse < capacity; next++) {
+            ArrayDeque<Waiter> queue = queues[next];
+            while (!queue.isEmpty() && canGrant(next)) {
+                Waiter waiter = queue.poll();
+                grant(next);
+                waiter.granted = true;
+                waiter.ready.signal();
+            }
+        }
+    }
+
+    /**
+     * Returns the permit when the connection is closed, once. Its statements report it as their
+     * connection, because some callers release that one ({@code JdbcTemplate#queryForStream} does);
+     * unless the connection is bound to a transaction, releasing closes it.
+     */
+    private Connection released(Connection connection, WorkloadClass workload) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("equals") && args[0] == proxy) {
+                        // Spring matches a statement's connection to the transaction's through the wrappers
+                        return true;
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(connection, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    } finally {
+                        if (method.getName().equals("close") && closed.compareAndSet(false, true)) {
+                            release(workload);
+                        }
+                    }
+                    if (result instanceof Statement statement && method.getReturnType().isInterface()
+                            && Statement.class.isAssignableFrom(method.getReturnType())) {
+                        return ownedBy(statement, method.getReturnType(), (Connection) proxy);
+                    }
+                    return result;
+                });
+    }
+
+    private static Object ownedBy(Statement statement, Class<?> type, Connection connection) {
+        return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getConnection" -> connection;
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> {
+                        try {
+                            yield method.invoke(statement, args);
+                        } catch (InvocationTargetException ex) {
+                            throw ex.getCause();
+                        }
+                    }
+                });
+    }
+
+    private static final class Waiter {
+
+        private final Condition ready;
+        private boolean granted;
+
+        private Waiter(Condition ready) {
+            this.ready = ready;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.taskmanager.repository.resilience;
+
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.support.WorkloadClass;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Map;
+
+/**
+ * Bounds how long a stalled database can hold a caller. The application's DataSource is wrapped
+ * in a {@link StatementTimeoutDataSource}, and the {@link TaskRepository} in a
+ * {@link CircuitBreaker} that opens after consecutive timeouts or connection failures, so that
+ * while PostgreSQL is unhealthy requests fail fast instead of queuing for pool connections.
+ * Inside the timeouts a {@link ConnectionBulkhead} splits the pool between workload classes, so
+ * bulk writes and analytics cannot take the connections interactive requests need (disabled with
+ * {@code app.db.bulkhead.enabled=false}). With {@code app.db.fault-injection.enabled=true} a
+ * {@link JdbcFaultInjector} sits between these and the pool. Not active under the {@code memory}
+ * profile, which has no database.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!memory")
+public class DatabaseResilienceConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.db.fault-injection.enabled", havingValue = "true")
+    public JdbcFaultInjector jdbcFaultInjector() {
+        return new JdbcFaultInjector();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.db.bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+    public ConnectionBulkhead connectionBulkhead(
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+            @Value("${app.db.bulkhead.interactive-read-share:1.0}") double interactiveReadShare,
+            @Value("${app.db.bulkhead.interactive-write-share:1.0}") double interactiveWriteShare,
+            @Value("${app.db.bulkhead.analytics-share:0.25}") double analyticsShare,
+            @Value("${app.db.bulkhead.bulk-share:0.25}") double bulkShare,
+            @Value("${spring.datasource.hikari.connection-timeout:30000}") long interactiveWaitMillis,
+            @Value("${app.db.bulkhead.background-wait-ms:60000}") long backgroundWaitMillis) {
+        return new ConnectionBulkhead("database", poolSize, Map.of(
+                WorkloadClass.INTERACTIVE_READ, interactiveReadShare,
+                WorkloadClass.INTERACTIVE_WRITE, interactiveWriteShare,
+                WorkloadClass.ANALYTICS, analyticsShare,
+                WorkloadClass.BULK, bulkShare), interactiveWaitMillis, backgroundWaitMillis);
+    }
+
+    @Bean
+    public static BeanPostProcessor databaseResiliencePostProcessor(
+            @Value("${app.db.timeout.read-ms:5000}") long readTimeoutMillis,
+            @Value("${app.db.timeout.write-ms:10000}") long writeTimeoutMillis,
+            @Value("${app.db.timeout.bulk-ms:300000}") long bulkTimeoutMillis,
+            @Value("${app.db.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${app.db.circuit-breaker.open-ms:10000}") long openMillis,
+            ObjectProvider<JdbcFaultInjector> faultInjector,
+            ObjectProvider<ConnectionBulkhead> bulkhead) {
+        CircuitBreaker breaker = new CircuitBreaker("database", failureThreshold, openMillis,
+                DatabaseResilienceConfiguration::isDatabaseUnavailable);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof StatementTimeoutDataSource)) {
+                    JdbcFaultInjector injector = faultInjector.getIfAvailable();
+                    DataSource target = injector != null ? injector.wrap(dataSource) : dataSource;
+                    ConnectionBulkhead partitions = bulkhead.getIfAvailable();
+                    if (partitions != null) {
+                        target = partitions.wrap(target);
+                    }
+                    return new StatementTimeoutDataSource(target, readTimeoutMillis, writeTimeoutMillis,
+                            bulkTimeoutMillis);
+                }
+                if (bean instanceof TaskRepository) {
+                    return withCircuitBreaker(bean, breaker);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Errors that say the database did not answer, as opposed to answering with an error. Checked
+     * along the cause chain because JPA and JDBC paths wrap them differently. A full bulkhead is
+     * this application's own queue, not the database, and does not count.
+     */
+    static boolean isDatabaseUnavailable(Throwable error) {
+        if (BulkheadFullException.causedBy(error)) {
+            return false;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof QueryTimeoutException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof SQLTimeoutException
+                    || cause instanceof SQLTransientConnectionException) {
+                return true;
+            }
+            if (cause instanceof SQLException sql && sql.getSQLState() != null
+                    && (sql.getSQLState().startsWith("08") || sql.getSQLState().equals("57014")
+                            || sql.getSQLState().startsWith("57P"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Object withCircuitBreaker(Object repository, CircuitBreaker breaker) {
+        ProxyFactory factory = new ProxyFactory();
+        factory.setTarget(repository);
+        factory.setInterfaces(TaskRepository.class);
+        factory.addAdvice((MethodInterceptor) invocation -> {
+            if (AopUtils.isToStringMethod(invocation.getMethod())
+                    || AopUtils.isEqualsMethod(invocation.getMethod())
+                    || AopUtils.isHashCodeMethod(invocation.getMethod())) {
+                return invocation.proceed();
+            }
+            breaker.acquirePermission();
+            Object result;
+            try {
+                result = invocation.proceed();
+            } catch (Throwable ex) {
+                breaker.onError(ex);
+                throw ex;
+            }
+            breaker.onSuccess();
+            return result;
+        });
+        return factory.getProxy(TaskRepository.class.getClassLoader());
+    }
+}
@@ -0,0 +1,166 @@
+package com.taskmanager.repository.resilience;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+/**
+ * Local fault injection for the JDBC layer, for tests and for trying out timeouts and the circuit
+ * breaker against a healthy database. Enabled with {@code app.db.fault-injection.enabled=true},
+ * which wraps the application's DataSource; rules are then added at runtime and match statements
+ * by a regular expression over their SQL (case-insensitive, anywhere in the statement).
+ * <p>
+ * A delayed statement behaves like a slow query: it sleeps before executing, and if the sleep
+ * would outlast the statement's query timeout it ends at the timeout with the same
+ * {@link SQLTimeoutException} (SQLSTATE 57014) PostgreSQL reports for a cancelled statement.
+ * A failing statement throws a connection error (SQLSTATE 08006) without reaching the database.
+ */
+public class JdbcFaultInjector {
+
+    private static final String QUERY_CANCELED = "57014";
+    private static final String CONNECTION_FAILURE = "08006";
+
+    private final List<Rule> rules = new CopyOnWriteArrayList<>();
+    private volatile boolean connectionsFailing;
+
+    /**
+     * Statements matching {@code sqlRegex} take {@code delay} longer.
+     */
+    public void delay(String sqlRegex, Duration delay) {
+        rules.add(new Rule(Pattern.compile(sqlRegex, Pattern.CASE_INSENSITIVE), delay.toMillis(), false));
+    }
+
+    /**
+     * Statements matching {@code sqlRegex} fail as if the connection had been lost.
+     */
+    public void fail(String sqlRegex) {
+        rules.add(new Rule(Pattern.compile(sqlRegex, Pattern.CASE_INSENSITIVE), 0, true));
+    }
+
+    /**
+     * While set, acquiring a connection fails as if the database were unreachable.
+     */
+    public void failConnections(boolean failing) {
+        this.connectionsFailing = failing;
+    }
+
+    public void reset() {
+        rules.clear();
+        connectionsFailing = false;
+    }
+
+    public DataSource wrap(DataSource target) {
+        return new DelegatingDataSource(target) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                checkConnection();
+                return faulty(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                checkConnection();
+                return faulty(super.getConnection(username, password));
+            }
+        };
+    }
+
+    private void checkConnection() throws SQLException {
+        if (connectionsFailing) {
+            throw new SQLTransientConnectionException("Connection refused (injected)", CONNECTION_FAILURE);
+        }
+    }
+
+    private Connection faulty(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement statement) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                        return faulty(statement, sql);
+                    }
+                    return result;
+                });
+    }
+
+    private Statement faulty(Statement statement, String preparedSql) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        return (Statement) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("execute")) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String text
+                                ? text
+                                : preparedSql;
+                        beforeExecute(sql, statement.getQueryTimeout());
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private void beforeExecute(String sql, int queryTimeoutSeconds) throws SQLException {
+        if (sql == null) {
+            return;
+        }
+        for (Rule rule : rules) {
+            if (!rule.pattern.matcher(sql).find()) {
+                continue;
+            }
+            if (rule.fail) {
+                throw new SQLTransientConnectionException("An I/O error occurred while sending to the backend "
+                        + "(injected)", CONNECTION_FAILURE);
+            }
+            long timeoutMillis = queryTimeoutSeconds * 1000L;
+            boolean timesOut = queryTimeoutSeconds > 0 && rule.delayMillis >= timeoutMillis;
+            sleep(timesOut ? timeoutMillis : rule.delayMillis);
+            if (timesOut) {
+                throw new SQLTimeoutException("canceling statement due to statement timeout (injected)",
+                        QUERY_CANCELED);
+            }
+        }
+    }
+
+    private static void sleep(long millis) throws SQLException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLTimeoutException("Interrupted during injected delay", QUERY_CANCELED, ex);
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static final class Rule {
+        private final Pattern pattern;
+        private final long delayMillis;
+        private final boolean fail;
+
+        private Rule(Pattern pattern, long delayMillis, boolean fail) {
+            this.pattern = pattern;
+            this.delayMillis = delayMillis;
+            this.fail = fail;
+        }
+    }
+}
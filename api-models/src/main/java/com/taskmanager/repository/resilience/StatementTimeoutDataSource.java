@@ -0,0 +1,106 @@
+package com.taskmanager.repository.resilience;
+
+import com.taskmanager.support.Deadline;
+import com.taskmanager.support.Scope;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gives every JDBC statement a query timeout by query class: {@code SELECT}s get the read timeout,
+ * other statements the write timeout, and statements issued inside {@link #bulk()} (exports, bulk
+ * tools) the bulk timeout. When the thread has a {@link Deadline}, the timeout is capped at the
+ * time left, and a statement is not sent at all once the deadline has passed.
+ * <p>
+ * JDBC query timeouts have a resolution of one second; timeouts are rounded up. Statements whose
+ * caller sets its own timeout afterwards (Spring transaction timeouts) keep that one.
+ */
+public class StatementTimeoutDataSource extends DelegatingDataSource {
+
+    private static final ThreadLocal<Boolean> BULK = new ThreadLocal<>();
+
+    private final int readSeconds;
+    private final int writeSeconds;
+    private final int bulkSeconds;
+
+    public StatementTimeoutDataSource(DataSource target, long readMillis, long writeMillis, long bulkMillis) {
+        super(target);
+        this.readSeconds = toSeconds(readMillis);
+        this.writeSeconds = toSeconds(writeMillis);
+        this.bulkSeconds = toSeconds(bulkMillis);
+    }
+
+    /**
+     * Statements on this thread use the bulk timeout until the scope is closed.
+     */
+    public static Scope bulk() {
+        Boolean previous = BULK.get();
+        BULK.set(Boolean.TRUE);
+        return () -> {
+            if (previous != null) {
+                BULK.set(previous);
+            } else {
+                BULK.remove();
+            }
+        };
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return withTimeouts(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return withTimeouts(super.getConnection(username, password));
+    }
+
+    private Connection withTimeouts(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(connection, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                    if (result instanceof Statement statement) {
+                        applyTimeout(statement, args != null && args.length > 0 && args[0] instanceof String sql
+                                ? sql
+                                : null);
+                    }
+                    return result;
+                });
+    }
+
+    private void applyTimeout(Statement statement, String sql) throws SQLException {
+        int seconds = Boolean.TRUE.equals(BULK.get()) ? bulkSeconds : isRead(sql) ? readSeconds : writeSeconds;
+        Deadline deadline = Deadline.current();
+        if (deadline != null) {
+            deadline.check("database statement");
+            int remaining = Math.max(1, toSeconds(deadline.remainingMillis()));
+            seconds = seconds == 0 ? remaining : Math.min(seconds, remaining);
+        }
+        if (seconds > 0) {
+            statement.setQueryTimeout(seconds);
+        }
+    }
+
+    /**
+     * Plain statements are created before their SQL is known and count as writes.
+     */
+    private static boolean isRead(String sql) {
+        return sql != null && sql.stripLeading().toLowerCase(Locale.ROOT).startsWith("select");
+    }
+
+    private static int toSeconds(long millis) {
+        return millis <= 0 ? 0 : (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(millis + 999));
+    }
+}
@@ -0,0 +1,109 @@
+package com.taskmanager.repository.shard;
+
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.resilience.ConnectionBulkhead;
+import com.taskmanager.support.WorkloadClass;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the JPA {@link TaskRepository} with {@link ShardedTaskRepository} under the
+ * {@code sharded} profile, with one connection pool per database in {@code app.tasks.shards.urls}.
+ * The first database also holds the id sequence, so it must stay first when the list changes.
+ * Applications using the profile must also switch off the DataSource and JPA auto-configuration
+ * (see their {@code application-sharded.properties}).
+ * <p>
+ * With {@code app.tasks.shards.rebalance=true} the store is rebalanced at start-up, before it is
+ * used, moving rows after shards were added and emptying the databases in
+ * {@code app.tasks.shards.drain-urls}.
+ * <p>
+ * Each shard's pool is split between workload classes by its own {@link ConnectionBulkhead}, with
+ * the shares of the single-database setup ({@code app.db.bulkhead.*}).
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("sharded")
+public class ShardedRepositoryConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedRepositoryConfiguration.class);
+
+    @Bean(destroyMethod = "close")
+    public ShardedTaskRepository taskRepository(
+            @Value("${app.tasks.shards.urls}") List<String> urls,
+            @Value("${app.tasks.shards.username:}") String username,
+            @Value("${app.tasks.shards.password:}") String password,
+            @Value("${app.tasks.shards.pool-size:10}") int poolSize,
+            @Value("${app.tasks.shards.create-schema:true}") boolean createSchema,
+            @Value("${app.tasks.shards.rebalance:false}") boolean rebalance,
+            @Value("${app.tasks.shards.drain-urls:}") List<String> drainUrls,
+            @Value("${app.tasks.shards.rebalance-batch-size:1000}") int rebalanceBatchSize,
+            @Value("${spring.datasource.hikari.connection-timeout:30000}") long connectionTimeoutMillis,
+            @Value("${app.db.bulkhead.enabled:true}") boolean bulkheadEnabled,
+            @Value("${app.db.bulkhead.interactive-read-share:1.0}") double interactiveReadShare,
+            @Value("${app.db.bulkhead.interactive-write-share:1.0}") double interactiveWriteShare,
+            @Value("${app.db.bulkhead.analytics-share:0.25}") double analyticsShare,
+            @Value("${app.db.bulkhead.bulk-share:0.25}") double bulkShare,
+            @Value("${app.db.bulkhead.background-wait-ms:60000}") long backgroundWaitMillis,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        Map<WorkloadClass, Double> shares = Map.of(
+                WorkloadClass.INTERACTIVE_READ, interactiveReadShare,
+                WorkloadClass.INTERACTIVE_WRITE, interactiveWriteShare,
+                WorkloadClass.ANALYTICS, analyticsShare,
+                WorkloadClass.BULK, bulkShare);
+        List<TaskShard> shards = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            DataSource dataSource = pool("task-shard-" + i, urls.get(i), username, password, poolSize,
+                    connectionTimeoutMillis);
+            if (bulkheadEnabled) {
+                ConnectionBulkhead bulkhead = new ConnectionBulkhead("shard-" + i, Math.max(1, poolSize), shares,
+                        connectionTimeoutMillis, backgroundWaitMillis);
+                meterRegistry.ifAvailable(bulkhead::bindTo);
+                dataSource = bulkhead.wrap(dataSource);
+            }
+            TaskShard shard = new TaskShard("shard-" + i, dataSource);
+            if (createSchema) {
+                shard.createSchema();
+            }
+            shards.add(shard);
+        }
+        ShardedTaskRepository repository = new ShardedTaskRepository(shards);
+        log.info("Task store sharded over {} databases", shards.size());
+        if (rebalance) {
+            List<TaskShard> drained = new ArrayList<>();
+            for (int i = 0; i < drainUrls.size(); i++) {
+                drained.add(new TaskShard("drained-" + i, pool("task-drain-" + i, drainUrls.get(i), username,
+                        password, 2, connectionTimeoutMillis)));
+            }
+            try {
+                long moved = new TaskShardRebalancer(repository, rebalanceBatchSize).rebalance(drained);
+                log.info("Rebalance moved {} tasks", moved);
+            } finally {
+                drained.forEach(TaskShard::close);
+            }
+        }
+        return repository;
+    }
+
+    private static HikariDataSource pool(String name, String url, String username, String password, int size,
+            long connectionTimeoutMillis) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl(url.trim());
+        pool.setUsername(username);
+        pool.setPassword(password);
+        pool.setMaximumPoolSize(Math.max(1, size));
+        pool.setConnectionTimeout(connectionTimeoutMillis);
+        return pool;
+    }
+}
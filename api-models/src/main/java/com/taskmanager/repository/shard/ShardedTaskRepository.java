@@ -0,0 +1,734 @@
+package com.taskmanager.repository.shard;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.ChunkResult;
+import com.taskmanager.repository.TaskExamples;
+import com.taskmanager.repository.TaskField;
+import com.taskmanager.repository.TaskFilter;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.UpsertResult;
+import com.taskmanager.support.Deadline;
+import com.taskmanager.support.Scope;
+import com.taskmanager.support.WorkloadClass;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.io.Closeable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * {@link TaskRepository} spread over several databases by task id. Enabled by the {@code sharded}
+ * profile (see {@link ShardedRepositoryConfiguration}).
+ * <p>
+ * Calls about one task go to the shard its id routes to (see {@link TaskShardRouter}). Lists,
+ * pages, counts and the keyset scans of the bulk operations query every shard in parallel and
+ * merge the results: pages by fetching {@code offset + size} rows from each shard, aggregates by
+ * adding them up. Ids are handed out in blocks from {@code task_id_seq} on the first shard and
+ * combined with the bucket of the new task, so they are unique across shards and processes.
+ * <p>
+ * Each shard runs a call in its own local transaction; there are no transactions spanning shards,
+ * so {@code @Transactional} has no effect here and a write that spans shards can fail on one after
+ * another has committed. External keys are unique across shards: new keyed tasks are placed in
+ * their key's bucket, and every keyed write also checks the other shards, which may still hold
+ * keys of tasks backfilled under older ids. Query-by-example reads every shard in full.
+ * <p>
+ * Shard calls run on a separate thread pool per {@link WorkloadClass}, so a bulk call waiting for
+ * shard connections does not hold up the interactive calls queued behind it.
+ */
+public class ShardedTaskRepository implements TaskRepository, Closeable {
+
+    static final int ID_BLOCK_SIZE = 1000;
+
+    private final List<TaskShard> shards;
+    private final TaskShardRouter router;
+    private final Map<WorkloadClass, ExecutorService> executors = new EnumMap<>(WorkloadClass.class);
+
+    private long nextSequence;
+    private long sequenceLimit;
+
+    public ShardedTaskRepository(List<TaskShard> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        this.router = new TaskShardRouter(shards.size());
+        for (WorkloadClass workload : WorkloadClass.values()) {
+            AtomicInteger threads = new AtomicInteger();
+            executors.put(workload, Executors.newFixedThreadPool(shards.size(), runnable -> {
+                Thread thread = new Thread(runnable, "task-shard-" + workload.tag() + "-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+        reserveIdsAbove(scatter(TaskShard::maxId).stream().mapToLong(Long::longValue).max().orElse(0));
+    }
+
+    public List<TaskShard> getShards() {
+        return shards;
+    }
+
+    public TaskShardRouter getRouter() {
+        return router;
+    }
+
+    // Writes
+
+    @Override
+    public <S extends Task> S save(S entity) {
+        trackCompletion(entity);
+        Long id = entity.getId();
+        if (entity.getExternalKey() != null) {
+            Long owner = locateKeys(List.of(entity.getExternalKey())).get(entity.getExternalKey());
+            if (owner != null && !owner.equals(id)) {
+                throw duplicateKey(entity.getExternalKey());
+            }
+        }
+        // Like a merge of a detached entity, an unknown id is inserted under a new one
+        if (id != null && shardOf(id).update(entity)) {
+            return entity;
+        }
+        entity.setId(allocateId(entity));
+        shardOf(entity.getId()).insert(entity);
+        return entity;
+    }
+
+    @Override
+    public <S extends Task> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        for (S entity : entities) {
+            saved.add(save(entity));
+        }
+        return saved;
+    }
+
+    @Override
+    public <S extends Task> S saveAndFlush(S entity) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends Task> List<S> saveAllAndFlush(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+
+    @Override
+    public void flush() {
+        // Every call is written through
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        Objects.requireNonNull(id, "id must not be null");
+        shardOf(id).deleteByIds(List.of(id));
+    }
+
+    @Override
+    public void delete(Task entity) {
+        Objects.requireNonNull(entity, "entity must not be null");
+        if (entity.getId() != null) {
+            deleteById(entity.getId());
+        }
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        byShard(ids).forEach((shard, shardIds) -> shards.get(shard).deleteByIds(shardIds));
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Task> entities) {
+        List<Long> ids = new ArrayList<>();
+        for (Task entity : entities) {
+            if (entity.getId() != null) {
+                ids.add(entity.getId());
+            }
+        }
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAll() {
+        scatter(TaskShard::deleteAll);
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<Task> entities) {
+        deleteAll(entities);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    /**
+     * Each task goes to the shard that holds its key, or for a new key to the shard of the key's
+     * bucket, where it gets a new id.
+     */
+    @Override
+    public UpsertResult upsertByExternalKey(List<Task> tasks) {
+        Set<String> keys = new HashSet<>();
+        for (Task task : tasks) {
+            if (task.getExternalKey() == null || !keys.add(task.getExternalKey())) {
+                throw new DataIntegrityViolationException("Upserted tasks need distinct, non-null external keys");
+            }
+        }
+        Map<String, Long> existing = locateKeys(keys);
+        Map<Integer, List<Task>> byShard = new LinkedHashMap<>();
+        for (Task task : tasks) {
+            Task row = copyOf(task);
+            Long id = existing.get(task.getExternalKey());
+            row.setId(id != null ? id : allocateId(task));
+            byShard.computeIfAbsent(router.shardOfId(row.getId()), shard -> new ArrayList<>()).add(row);
+        }
+        UpsertResult result = new UpsertResult(0, 0, 0);
+        for (UpsertResult shardResult : scatter(byShard, TaskShard::upsertByExternalKey)) {
+            result = result.plus(shardResult);
+        }
+        return result;
+    }
+
+    /**
+     * All-or-nothing as far as duplicate keys go, which are checked on every shard before the
+     * first write; a failure while writing can leave the shards written so far committed.
+     */
+    @Override
+    public int insertAll(List<Task> tasks) {
+        Set<String> keys = new HashSet<>();
+        for (Task task : tasks) {
+            if (task.getExternalKey() != null && !keys.add(task.getExternalKey())) {
+                throw duplicateKey(task.getExternalKey());
+            }
+        }
+        if (!keys.isEmpty()) {
+            locateKeys(keys).keySet().stream().findFirst().ifPresent(key -> {
+                throw duplicateKey(key);
+            });
+        }
+        Map<Integer, List<Task>> byShard = new LinkedHashMap<>();
+        for (Task task : tasks) {
+            Task row = copyOf(task);
+            row.setId(allocateId(task));
+            byShard.computeIfAbsent(router.shardOfId(row.getId()), shard -> new ArrayList<>()).add(row);
+        }
+        return scatter(byShard, TaskShard::insertAll).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    @Override
+    public int archiveCompleted(LocalDateTime completedBefore, int limit) {
+        int archived = 0;
+        for (TaskShard shard : shards) {
+            if (archived >= limit) {
+                break;
+            }
+            archived += shard.archiveCompleted(completedBefore, limit - archived);
+        }
+        return archived;
+    }
+
+    /**
+     * Claims from one shard after another until {@code limit} tasks are claimed, starting at a
+     * random shard so that concurrent callers lock rows in different databases. Tasks are
+     * earliest due first within each shard; ids spread due dates evenly over the shards, so the
+     * result is close to the global order.
+     */
+    @Override
+    public List<Long> claim(String owner, LocalDateTime leaseUntil, int limit) {
+        List<Long> claimed = new ArrayList<>();
+        int first = ThreadLocalRandom.current().nextInt(shards.size());
+        for (int i = 0; i < shards.size() && claimed.size() < limit; i++) {
+            TaskShard shard = shards.get((first + i) % shards.size());
+            claimed.addAll(shard.claim(owner, leaseUntil, limit - claimed.size()));
+        }
+        return claimed;
+    }
+
+    @Override
+    public boolean renewLease(Long id, String owner, LocalDateTime leaseUntil) {
+        return shardOf(id).renewLease(id, owner, leaseUntil);
+    }
+
+    @Override
+    public boolean releaseLease(Long id, String owner, TaskStatus status) {
+        return shardOf(id).releaseLease(id, owner, status);
+    }
+
+    @Override
+    public boolean clearLease(Long id) {
+        return shardOf(id).clearLease(id);
+    }
+
+    @Override
+    public int reclaimExpiredLeases(LocalDateTime now, int limit) {
+        int reclaimed = 0;
+        for (TaskShard shard : shards) {
+            if (reclaimed >= limit) {
+                break;
+            }
+            reclaimed += shard.reclaimExpiredLeases(now, limit - reclaimed);
+        }
+        return reclaimed;
+    }
+
+    /**
+     * The chunk is the first {@code limit} matching ids across all shards. Each shard then updates
+     * its share of them with the same keyset query, so the filter is re-checked there as usual.
+     */
+    @Override
+    public ChunkResult updateStatusByFilter(TaskFilter filter, TaskStatus status, long afterId, int limit) {
+        return applyToChunk(filter, afterId, limit,
+                (shard, shardLimit) -> shard.updateStatusByFilter(filter, status, afterId, shardLimit));
+    }
+
+    @Override
+    public ChunkResult deleteByFilter(TaskFilter filter, long afterId, int limit) {
+        return applyToChunk(filter, afterId, limit,
+                (shard, shardLimit) -> shard.deleteByFilter(filter, afterId, shardLimit));
+    }
+
+    @Override
+    public int updateStatusByIds(TaskStatus status, Collection<Long> ids) {
+        return scatter(byShard(ids), (shard, shardIds) -> shard.updateStatusByIds(status, shardIds)).stream()
+                .mapToInt(Integer::intValue).sum();
+    }
+
+    @Override
+    public int deleteByIds(Collection<Long> ids) {
+        return scatter(byShard(ids), TaskShard::deleteByIds).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    // Reads
+
+    @Override
+    public Optional<Task> findById(Long id) {
+        Objects.requireNonNull(id, "id must not be null");
+        return shardOf(id).findByIds(List.of(id)).stream().findFirst();
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public Task getReferenceById(Long id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException("Task " + id + " not found"));
+    }
+
+    @Override
+    @Deprecated
+    public Task getOne(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    @Deprecated
+    public Task getById(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public List<Task> findAll() {
+        return mergeById(scatter(shard -> shard.findAll(true)));
+    }
+
+    @Override
+    public List<Task> findAllById(Iterable<Long> ids) {
+        return mergeById(scatter(byShard(ids), TaskShard::findByIds));
+    }
+
+    @Override
+    public List<Task> findAll(Sort sort) {
+        if (sort.isUnsorted()) {
+            return findAll();
+        }
+        return merge(scatter(shard -> shard.findAll(sort, Integer.MAX_VALUE)), comparator(sort), 0,
+                Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Page<Task> findAll(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(findAll(pageable.getSort()));
+        }
+        int offset = Math.toIntExact(pageable.getOffset());
+        int fetch = offset + pageable.getPageSize();
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by("id");
+        List<Task> page = merge(scatter(shard -> shard.findAll(sort, fetch)), comparator(sort), offset,
+                pageable.getPageSize());
+        return new PageImpl<>(page, pageable, count());
+    }
+
+    @Override
+    public long count() {
+        return scatter(TaskShard::count).stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Override
+    public List<Task> findByArchivedFalse() {
+        return mergeById(scatter(shard -> shard.findAll(false)));
+    }
+
+    @Override
+    public List<Task> findByArchivedFalseOrderByIdDesc(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            List<Task> tasks = findByArchivedFalse();
+            tasks.sort(Comparator.comparing(Task::getId).reversed());
+            return tasks;
+        }
+        int offset = Math.toIntExact(pageable.getOffset());
+        return merge(scatter(shard -> shard.findNewestActive(offset + pageable.getPageSize())),
+                Comparator.comparing(Task::getId).reversed(), offset, pageable.getPageSize());
+    }
+
+    @Override
+    public List<Object[]> countTasksByStatus() {
+        return sumByStatus(scatter(TaskShard::countTasksByStatus));
+    }
+
+    @Override
+    public List<Object[]> countTasksByStatusAndDueWindow(LocalDate today, LocalDate endOfWeek,
+            boolean includeArchived) {
+        return sumByStatus(scatter(shard -> shard.countTasksByStatusAndDueWindow(today, endOfWeek, includeArchived)));
+    }
+
+    @Override
+    public long countByFilter(TaskFilter filter) {
+        return scatter(shard -> shard.countByFilter(filter)).stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Reads up to {@code limit} rows from every shard and keeps the {@code limit} lowest ids, so a
+     * page holds at most {@code shards * limit} rows in memory while it is merged.
+     */
+    @Override
+    public Stream<Map<String, Object>> streamByFilter(TaskFilter filter, Set<TaskField> fields, long afterId,
+            int limit) {
+        List<List<Map<String, Object>>> pages = scatter(shard -> {
+            try (Stream<Map<String, Object>> rows = shard.streamByFilter(filter, fields, afterId, limit)) {
+                return rows.toList();
+            }
+        });
+        Comparator<Map<String, Object>> byId = Comparator.comparingLong(row -> (Long) row.get(TaskField.ID.getFieldName()));
+        return merge(pages, byId, 0, limit).stream();
+    }
+
+    // Query by example
+
+    /**
+     * Shards have no query-by-example of their own: every shard's tasks are read and the probe is
+     * matched against them here (see {@link TaskExamples}). Meant for small stores and tests; use
+     * {@link TaskFilter} queries for anything large.
+     */
+    @Override
+    public <S extends Task> List<S> findAll(Example<S> example, Sort sort) {
+        return TaskExamples.filter(findAll(sort), example);
+    }
+
+    @Override
+    public <S extends Task> List<S> findAll(Example<S> example) {
+        return findAll(example, Sort.unsorted());
+    }
+
+    @Override
+    public <S extends Task> Page<S> findAll(Example<S> example, Pageable pageable) {
+        return TaskExamples.page(findAll(example, pageable.getSort()), pageable);
+    }
+
+    @Override
+    public <S extends Task> Optional<S> findOne(Example<S> example) {
+        return TaskExamples.one(findAll(example));
+    }
+
+    @Override
+    public <S extends Task> long count(Example<S> example) {
+        return findAll(example).size();
+    }
+
+    @Override
+    public <S extends Task> boolean exists(Example<S> example) {
+        return !findAll(example).isEmpty();
+    }
+
+    @Override
+    public <S extends Task, R> R findBy(Example<S> example,
+            Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        return queryFunction.apply(TaskExamples.fluentQuery(sort -> findAll(example, sort)));
+    }
+
+    @Override
+    public void close() {
+        executors.values().forEach(ExecutorService::shutdownNow);
+        shards.forEach(TaskShard::close);
+    }
+
+    /**
+     * Makes sure ids handed out from now on are above {@code maxId}, e.g. after rows with older ids
+     * were backfilled.
+     */
+    synchronized void reserveIdsAbove(long maxId) {
+        long minimumBlock = (maxId >>> TaskShardRouter.BUCKET_BITS) / ID_BLOCK_SIZE + 1;
+        shards.get(0).advanceIdBlocks(minimumBlock);
+        nextSequence = sequenceLimit;
+    }
+
+    /**
+     * A new id in the bucket of the task's external key, or in a random bucket for tasks without one.
+     */
+    private long allocateId(Task task) {
+        int bucket = task.getExternalKey() != null
+                ? TaskShardRouter.bucketOfKey(task.getExternalKey())
+                : ThreadLocalRandom.current().nextInt(TaskShardRouter.BUCKETS);
+        return TaskShardRouter.idOf(nextSequence(), bucket);
+    }
+
+    private synchronized long nextSequence() {
+        if (nextSequence == sequenceLimit) {
+            nextSequence = shards.get(0).nextIdBlock() * ID_BLOCK_SIZE;
+            sequenceLimit = nextSequence + ID_BLOCK_SIZE;
+        }
+        return nextSequence++;
+    }
+
+    private Map<String, Long> locateKeys(Collection<String> keys) {
+        Map<String, Long> ids = new HashMap<>();
+        scatter(shard -> shard.findIdsByExternalKeys(keys)).forEach(ids::putAll);
+        return ids;
+    }
+
+    private ChunkResult applyToChunk(TaskFilter filter, long afterId, int limit,
+            ShardCall<Integer, ChunkResult> operation) {
+        List<Map<String, Object>> chunk = streamByFilter(filter, Set.of(), afterId, limit).toList();
+        if (chunk.isEmpty()) {
+            return new ChunkResult(0, 0, afterId, true);
+        }
+        Map<Integer, Integer> perShard = new LinkedHashMap<>();
+        for (Map<String, Object> row : chunk) {
+            perShard.merge(router.shardOfId((Long) row.get(TaskField.ID.getFieldName())), 1, Integer::sum);
+        }
+        int affected = 0;
+        for (ChunkResult result : scatter(perShard, operation)) {
+            affected += result.getAffected();
+        }
+        long lastId = (Long) chunk.get(chunk.size() - 1).get(TaskField.ID.getFieldName());
+        return new ChunkResult(chunk.size(), affected, lastId, chunk.size() < limit);
+    }
+
+    private TaskShard shardOf(long id) {
+        return shards.get(router.shardOfId(id));
+    }
+
+    private Map<Integer, List<Long>> byShard(Iterable<? extends Long> ids) {
+        Map<Integer, List<Long>> byShard = new LinkedHashMap<>();
+        for (Long id : ids) {
+            if (id != null) {
+                byShard.computeIfAbsent(router.shardOfId(id), shard -> new ArrayList<>()).add(id);
+            }
+        }
+        return byShard;
+    }
+
+    /**
+     * Runs {@code call} on every shard in parallel and returns the results in shard order.
+     */
+    private <T> List<T> scatter(Function<TaskShard, T> call) {
+        Map<Integer, Void> all = new LinkedHashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            all.put(shard, null);
+        }
+        return scatter(all, (shard, ignored) -> call.apply(shard));
+    }
+
+    /**
+     * Runs {@code call} with each shard's argument in parallel, for the shards in {@code arguments}.
+     * The caller's deadline and workload class apply on the worker threads as well.
+     */
+    private <A, T> List<T> scatter(Map<Integer, A> arguments, ShardCall<A, T> call) {
+        if (arguments.size() == 1) {
+            Map.Entry<Integer, A> only = arguments.entrySet().iterator().next();
+            return List.of(call.apply(shards.get(only.getKey()), only.getValue()));
+        }
+        Deadline deadline = Deadline.current();
+        WorkloadClass workload = WorkloadClass.current();
+        ExecutorService executor = executors.get(workload);
+        List<Future<T>> futures = new ArrayList<>(arguments.size());
+        arguments.forEach((shard, argument) -> futures.add(executor.submit(() -> {
+            try (Scope classScope = workload.open()) {
+                if (deadline == null) {
+                    return call.apply(shards.get(shard), argument);
+                }
+                try (Scope scope = Deadline.open(deadline)) {
+                    return call.apply(shards.get(shard), argument);
+                }
+            }
+        })));
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException ex) {
+            futures.forEach(future -> future.cancel(true));
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new DataAccessResourceFailureException("Shard call failed", ex.getCause());
+        } catch (InterruptedException ex) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new DataAccessResourceFailureException("Interrupted while waiting for shards", ex);
+        }
+        return results;
+    }
+
+    private static <T> List<T> merge(List<List<T>> pages, Comparator<? super T> order, int offset, int size) {
+        List<T> all = new ArrayList<>();
+        pages.forEach(all::addAll);
+        all.sort(order);
+        int from = Math.min(offset, all.size());
+        int to = (int) Math.min((long) from + size, all.size());
+        return new ArrayList<>(all.subList(from, to));
+    }
+
+    private static List<Task> mergeById(List<List<Task>> pages) {
+        return merge(pages, Comparator.comparing(Task::getId), 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Adds up per-status rows of the form {@code [status, count, count...]} from every shard.
+     */
+    private static List<Object[]> sumByStatus(List<List<Object[]>> shardRows) {
+        Map<TaskStatus, long[]> sums = new LinkedHashMap<>();
+        for (List<Object[]> rows : shardRows) {
+            for (Object[] row : rows) {
+                long[] sum = sums.computeIfAbsent((TaskStatus) row[0], status -> new long[row.length - 1]);
+                for (int i = 1; i < row.length; i++) {
+                    sum[i - 1] += row[i] != null ? ((Number) row[i]).longValue() : 0L;
+                }
+            }
+        }
+        List<Object[]> merged = new ArrayList<>(sums.size());
+        sums.forEach((status, sum) -> {
+            Object[] row = new Object[sum.length + 1];
+            row[0] = status;
+            for (int i = 0; i < sum.length; i++) {
+                row[i + 1] = sum[i];
+            }
+            merged.add(row);
+        });
+        return merged;
+    }
+
+    /**
+     * Same null placement as {@link TaskShard#findAll(Sort, int)} asks the databases for: nulls
+     * last ascending and first descending unless the order says otherwise, as in PostgreSQL.
+     */
+    static boolean nullsFirst(Sort.Order order) {
+        return order.getNullHandling() == Sort.NullHandling.NULLS_FIRST
+                || (order.getNullHandling() == Sort.NullHandling.NATIVE && order.isDescending());
+    }
+
+    private static Comparator<Task> comparator(Sort sort) {
+        Comparator<Task> result = null;
+        for (Sort.Order order : sort) {
+            Function<Task, Comparable<?>> key = sortKey(order.getProperty());
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Comparator<Comparable> natural = order.isAscending()
+                    ? Comparator.naturalOrder() : Comparator.reverseOrder();
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Comparator<Task> next = Comparator.comparing((Function) key,
+                    nullsFirst(order) ? Comparator.nullsFirst(natural) : Comparator.nullsLast(natural));
+            result = result == null ? next : result.thenComparing(next);
+        }
+        Comparator<Task> byId = Comparator.comparing(Task::getId);
+        return result == null ? byId : result.thenComparing(byId);
+    }
+
+    private static Function<Task, Comparable<?>> sortKey(String property) {
+        TaskField field = TaskField.fromFieldName(property);
+        if (field == null) {
+            throw new IllegalArgumentException("Cannot sort tasks by '" + property + "'");
+        }
+        return switch (field) {
+            case ID -> Task::getId;
+            case TITLE -> Task::getTitle;
+            case DESCRIPTION -> Task::getDescription;
+            case STATUS -> Task::getStatus;
+            case DUE_DATE -> Task::getDueDate;
+            case EXTERNAL_KEY -> Task::getExternalKey;
+            case ARCHIVED -> Task::isArchived;
+            case COMPLETED_AT -> Task::getCompletedAt;
+        };
+    }
+
+    /**
+     * Same rules as {@code Task#trackCompletion}, which JPA would run before the write.
+     */
+    private static void trackCompletion(Task task) {
+        if (task.getStatus() == TaskStatus.DONE) {
+            if (task.getCompletedAt() == null) {
+                task.setCompletedAt(LocalDateTime.now());
+            }
+        } else {
+            task.setCompletedAt(null);
+            task.setArchived(false);
+        }
+    }
+
+    private static Task copyOf(Task task) {
+        Task copy = new Task(task.getTitle(), task.getDescription(), task.getStatus(), task.getDueDate());
+        copy.setId(task.getId());
+        copy.setExternalKey(task.getExternalKey());
+        copy.setArchived(task.isArchived());
+        copy.setCompletedAt(task.getCompletedAt());
+        return copy;
+    }
+
+    private static DuplicateKeyException duplicateKey(String externalKey) {
+        return new DuplicateKeyException(
+                "Duplicate external key '" + externalKey + "' (uk_tasks_external_key)");
+    }
+
+    @FunctionalInterface
+    private interface ShardCall<A, T> {
+        T apply(TaskShard shard, A argument);
+    }
+}
@@ -0,0 +1,422 @@
+package com.taskmanager.repository.shard;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.ChunkResult;
+import com.taskmanager.repository.TaskField;
+import com.taskmanager.repository.TaskFilter;
+import com.taskmanager.repository.TaskRepositoryCustom;
+import com.taskmanager.repository.TaskRepositoryCustomImpl;
+import com.taskmanager.repository.UpsertResult;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
+
+/**
+ * One database of the sharded task store. Row-level reads and writes are plain JDBC here; the
+ * set-based operations delegate to {@link TaskRepositoryCustomImpl}, the same SQL the JPA repository
+ * runs. Calls that issue several statements run in one local transaction on this database.
+ */
+public class TaskShard implements TaskRepositoryCustom, Closeable {
+
+    private static final String COLUMNS = "id, title, description, status, due_date, external_key, archived,"
+            + " completed_at";
+
+    /**
+     * {@link #COLUMNS} plus the lease, which entity saves leave alone as the JPA mapping does.
+     */
+    private static final String ROW_COLUMNS = COLUMNS + ", lease_owner, lease_expires_at";
+
+    private static final String INSERT = "INSERT INTO tasks (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_ROW = "INSERT INTO tasks (" + ROW_COLUMNS + ")"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE = "UPDATE tasks SET title = ?, description = ?, status = ?, due_date = ?,"
+            + " external_key = ?, archived = ?, completed_at = ? WHERE id = ?";
+
+    /**
+     * Same shape as the JPA entity's table, except that ids are always assigned by the application.
+     */
+    private static final List<String> SCHEMA = List.of(
+            "CREATE TABLE IF NOT EXISTS tasks ("
+                    + "id BIGINT NOT NULL PRIMARY KEY,"
+                    + " completed_at TIMESTAMP(6),"
+                    + " lease_expires_at TIMESTAMP(6),"
+                    + " due_date DATE,"
+                    + " status SMALLINT NOT NULL CONSTRAINT ck_tasks_status CHECK (status BETWEEN 0 AND 2),"
+                    + " archived BOOLEAN DEFAULT FALSE NOT NULL,"
+                    + " title VARCHAR(" + Task.TITLE_MAX_LENGTH + ") NOT NULL,"
+                    + " description VARCHAR(" + Task.DESCRIPTION_MAX_LENGTH + "),"
+                    + " external_key VARCHAR(" + Task.EXTERNAL_KEY_MAX_LENGTH + "),"
+                    + " lease_owner VARCHAR(" + Task.LEASE_OWNER_MAX_LENGTH + "),"
+                    + " CONSTRAINT uk_tasks_external_key UNIQUE (external_key))",
+            // Shards created before task leases
+            "ALTER TABLE tasks ADD COLUMN IF NOT EXISTS lease_owner VARCHAR(" + Task.LEASE_OWNER_MAX_LENGTH + ")",
+            "ALTER TABLE tasks ADD COLUMN IF NOT EXISTS lease_expires_at TIMESTAMP(6)",
+            "CREATE INDEX IF NOT EXISTS idx_tasks_due_date_status_archived ON tasks (due_date, status, archived)",
+            // Shards created before the stats query filtered on archived
+            "DROP INDEX IF EXISTS idx_tasks_due_date_status",
+            "CREATE INDEX IF NOT EXISTS idx_tasks_lease_expires_at ON tasks (lease_expires_at)",
+            "CREATE SEQUENCE IF NOT EXISTS task_id_seq");
+
+    static final RowMapper<Task> TASK_ROW = (rs, rowNum) -> {
+        Task task = new Task(rs.getString("title"), rs.getString("description"),
+                TaskStatus.fromCode(rs.getShort("status")), rs.getObject("due_date", LocalDate.class));
+        task.setId(rs.getLong("id"));
+        task.setExternalKey(rs.getString("external_key"));
+        task.setArchived(rs.getBoolean("archived"));
+        task.setCompletedAt(rs.getObject("completed_at", LocalDateTime.class));
+        task.setLeaseOwner(rs.getString("lease_owner"));
+        task.setLeaseExpiresAt(rs.getObject("lease_expires_at", LocalDateTime.class));
+        return task;
+    };
+
+    private final String name;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskRepositoryCustomImpl sets;
+    private final TransactionTemplate transactions;
+    private volatile Boolean postgres;
+
+    /**
+     * {@code name} identifies the shard in logs; {@code dataSource} is closed with the shard if it
+     * is closeable.
+     */
+    public TaskShard(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.sets = new TaskRepositoryCustomImpl(jdbcTemplate);
+        this.transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Creates the table, its indexes and the id sequence where they are missing.
+     */
+    public void createSchema() {
+        SCHEMA.forEach(jdbcTemplate::execute);
+    }
+
+    // Ids
+
+    /**
+     * Next value of {@code task_id_seq}; only the first shard's sequence is used.
+     */
+    long nextIdBlock() {
+        Long block = jdbcTemplate.queryForObject(isPostgres() ? "SELECT nextval('task_id_seq')"
+                : "SELECT NEXT VALUE FOR task_id_seq", Long.class);
+        return block != null ? block : 0L;
+    }
+
+    /**
+     * Moves {@code task_id_seq} forward so that its next value is at least {@code minimum}.
+     */
+    void advanceIdBlocks(long minimum) {
+        if (nextIdBlock() < minimum) {
+            jdbcTemplate.execute("ALTER SEQUENCE task_id_seq RESTART WITH " + minimum);
+        }
+    }
+
+    long maxId() {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM tasks", Long.class);
+        return max != null ? max : 0L;
+    }
+
+    // Rows
+
+    void insert(Task row) {
+        jdbcTemplate.update(INSERT, row.getId(), row.getTitle(), row.getDescription(), row.getStatus().getCode(),
+                toSqlDate(row.getDueDate()), row.getExternalKey(), row.isArchived(),
+                toTimestamp(row.getCompletedAt()));
+    }
+
+    /**
+     * Returns whether a row with the task's id existed.
+     */
+    boolean update(Task row) {
+        return jdbcTemplate.update(UPDATE, row.getTitle(), row.getDescription(), row.getStatus().getCode(),
+                toSqlDate(row.getDueDate()), row.getExternalKey(), row.isArchived(),
+                toTimestamp(row.getCompletedAt()), row.getId()) > 0;
+    }
+
+    /**
+     * Replaces any rows with the same ids by {@code rows}, as they are, in one transaction.
+     */
+    void replaceAll(List<Task> rows) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        rows.forEach(row -> ids.add(row.getId()));
+        transactions.executeWithoutResult(status -> {
+            deleteByIds(ids);
+            jdbcTemplate.batchUpdate(INSERT_ROW, rows, rows.size(), (ps, row) -> {
+                ps.setLong(1, row.getId());
+                ps.setString(2, row.getTitle());
+                ps.setString(3, row.getDescription());
+                ps.setShort(4, row.getStatus().getCode());
+                ps.setDate(5, toSqlDate(row.getDueDate()));
+                ps.setString(6, row.getExternalKey());
+                ps.setBoolean(7, row.isArchived());
+                ps.setTimestamp(8, toTimestamp(row.getCompletedAt()));
+                ps.setString(9, row.getLeaseOwner());
+                ps.setTimestamp(10, toTimestamp(row.getLeaseExpiresAt()));
+            });
+        });
+    }
+
+    @Override
+    public int deleteByIds(Collection<Long> ids) {
+        int deleted = 0;
+        for (List<Long> batch : batches(ids)) {
+            deleted += jdbcTemplate.update("DELETE FROM tasks WHERE id IN (" + placeholders(batch.size()) + ")",
+                    batch.toArray());
+        }
+        return deleted;
+    }
+
+    int deleteAll() {
+        return jdbcTemplate.update("DELETE FROM tasks");
+    }
+
+    List<Task> findByIds(Collection<Long> ids) {
+        List<Task> tasks = new ArrayList<>(ids.size());
+        for (List<Long> batch : batches(ids)) {
+            tasks.addAll(jdbcTemplate.query("SELECT " + ROW_COLUMNS + " FROM tasks WHERE id IN ("
+                    + placeholders(batch.size()) + ")", TASK_ROW, batch.toArray()));
+        }
+        return tasks;
+    }
+
+    /**
+     * Ids of the tasks holding any of {@code externalKeys}, by key.
+     */
+    Map<String, Long> findIdsByExternalKeys(Collection<String> externalKeys) {
+        Map<String, Long> ids = new HashMap<>();
+        for (List<String> batch : batches(externalKeys)) {
+            jdbcTemplate.query("SELECT external_key, id FROM tasks WHERE external_key IN ("
+                    + placeholders(batch.size()) + ")",
+                    rs -> {
+                        ids.put(rs.getString(1), rs.getLong(2));
+                    }, batch.toArray());
+        }
+        return ids;
+    }
+
+    List<Task> findAll(boolean includeArchived) {
+        return jdbcTemplate.query("SELECT " + ROW_COLUMNS + " FROM tasks"
+                + (includeArchived ? "" : " WHERE archived = FALSE") + " ORDER BY id", TASK_ROW);
+    }
+
+    /**
+     * Up to {@code limit} tasks in {@code sort} order, with nulls placed the way
+     * {@link ShardedTaskRepository} merges them and the id as the last tie-breaker.
+     */
+    List<Task> findAll(Sort sort, int limit) {
+        StringJoiner orderBy = new StringJoiner(", ", " ORDER BY ", "");
+        for (Sort.Order order : sort) {
+            TaskField field = TaskField.fromFieldName(order.getProperty());
+            if (field == null) {
+                throw new IllegalArgumentException("Cannot sort tasks by '" + order.getProperty() + "'");
+            }
+            orderBy.add(field.getColumn() + (order.isAscending() ? " ASC" : " DESC")
+                    + (ShardedTaskRepository.nullsFirst(order) ? " NULLS FIRST" : " NULLS LAST"));
+        }
+        orderBy.add("id");
+        return jdbcTemplate.query("SELECT " + ROW_COLUMNS + " FROM tasks" + orderBy + " LIMIT ?", TASK_ROW, limit);
+    }
+
+    List<Task> findNewestActive(int limit) {
+        return jdbcTemplate.query("SELECT " + ROW_COLUMNS + " FROM tasks WHERE archived = FALSE ORDER BY id DESC LIMIT ?",
+                TASK_ROW, limit);
+    }
+
+    /**
+     * Up to {@code limit} tasks, archived or not, with {@code id > afterId} in id order.
+     */
+    List<Task> findAfter(long afterId, int limit) {
+        return jdbcTemplate.query("SELECT " + ROW_COLUMNS + " FROM tasks WHERE id > ? ORDER BY id LIMIT ?",
+                TASK_ROW, afterId, limit);
+    }
+
+    long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tasks", Long.class);
+        return count != null ? count : 0L;
+    }
+
+    List<Object[]> countTasksByStatus() {
+        return jdbcTemplate.query("SELECT status, COUNT(*) FROM tasks GROUP BY status",
+                (rs, rowNum) -> new Object[] {TaskStatus.fromCode(rs.getShort(1)), rs.getLong(2)});
+    }
+
+    /**
+     * The SQL form of {@code TaskRepository#countTasksByStatusAndDueWindow}, with the same rows.
+     */
+    List<Object[]> countTasksByStatusAndDueWindow(LocalDate today, LocalDate endOfWeek, boolean includeArchived) {
+        Date todayDate = Date.valueOf(today);
+        return jdbcTemplate.query("""
+                SELECT status,
+                       COUNT(*),
+                       SUM(CASE WHEN due_date < ? THEN 1 ELSE 0 END),
+                       SUM(CASE WHEN due_date = ? THEN 1 ELSE 0 END),
+                       SUM(CASE WHEN due_date > ? AND due_date <= ? THEN 1 ELSE 0 END),
+                       SUM(CASE WHEN due_date IS NULL THEN 1 ELSE 0 END)
+                FROM tasks
+                WHERE archived = FALSE OR archived = ?
+                GROUP BY status""",
+                (rs, rowNum) -> new Object[] {TaskStatus.fromCode(rs.getShort(1)), rs.getLong(2), rs.getLong(3),
+                        rs.getLong(4), rs.getLong(5), rs.getLong(6)},
+                todayDate, todayDate, todayDate, Date.valueOf(endOfWeek), includeArchived);
+    }
+
+    // Set-based operations
+
+    @Override
+    public UpsertResult upsertByExternalKey(List<Task> tasks) {
+        return transactions.execute(status -> sets.upsertByExternalKey(tasks));
+    }
+
+    @Override
+    public int insertAll(List<Task> tasks) {
+        Integer inserted = transactions.execute(status -> sets.insertAll(tasks));
+        return inserted != null ? inserted : 0;
+    }
+
+    @Override
+    public int archiveCompleted(LocalDateTime completedBefore, int limit) {
+        return sets.archiveCompleted(completedBefore, limit);
+    }
+
+    @Override
+    public List<Long> claim(String owner, LocalDateTime leaseUntil, int limit) {
+        List<Long> claimed = transactions.execute(status -> sets.claim(owner, leaseUntil, limit));
+        return claimed != null ? claimed : List.of();
+    }
+
+    @Override
+    public boolean renewLease(Long id, String owner, LocalDateTime leaseUntil) {
+        return sets.renewLease(id, owner, leaseUntil);
+    }
+
+    @Override
+    public boolean releaseLease(Long id, String owner, TaskStatus status) {
+        return sets.releaseLease(id, owner, status);
+    }
+
+    @Override
+    public boolean clearLease(Long id) {
+        return sets.clearLease(id);
+    }
+
+    @Override
+    public int reclaimExpiredLeases(LocalDateTime now, int limit) {
+        return sets.reclaimExpiredLeases(now, limit);
+    }
+
+    @Override
+    public long countByFilter(TaskFilter filter) {
+        return sets.countByFilter(filter);
+    }
+
+    @Override
+    public ChunkResult updateStatusByFilter(TaskFilter filter, TaskStatus status, long afterId, int limit) {
+        return sets.updateStatusByFilter(filter, status, afterId, limit);
+    }
+
+    @Override
+    public ChunkResult deleteByFilter(TaskFilter filter, long afterId, int limit) {
+        return sets.deleteByFilter(filter, afterId, limit);
+    }
+
+    @Override
+    public int updateStatusByIds(TaskStatus status, Collection<Long> ids) {
+        return sets.updateStatusByIds(status, ids);
+    }
+
+    @Override
+    public Stream<Map<String, Object>> streamByFilter(TaskFilter filter, Set<TaskField> fields, long afterId,
+            int limit) {
+        return sets.streamByFilter(filter, fields, afterId, limit);
+    }
+
+    /**
+     * Closes the shard's pool, also when it is wrapped (e.g. in a connection bulkhead).
+     */
+    @Override
+    public void close() {
+        DataSource pool = dataSource;
+        while (pool instanceof DelegatingDataSource delegating && delegating.getTargetDataSource() != null) {
+            pool = delegating.getTargetDataSource();
+        }
+        if (pool instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception ex) {
+                throw new IllegalStateException("Cannot close shard " + name, ex);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            result = product != null && product.toLowerCase(Locale.ROOT).contains("postgres");
+            postgres = result;
+        }
+        return result;
+    }
+
+    private static <T> List<List<T>> batches(Collection<T> values) {
+        List<T> all = new ArrayList<>(values);
+        List<List<T>> batches = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += 1000) {
+            batches.add(all.subList(from, Math.min(all.size(), from + 1000)));
+        }
+        return batches;
+    }
+
+    private static String placeholders(int count) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (int i = 0; i < count; i++) {
+            joiner.add("?");
+        }
+        return joiner.toString();
+    }
+
+    private static Date toSqlDate(LocalDate date) {
+        return date != null ? Date.valueOf(date) : null;
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime time) {
+        return time != null ? Timestamp.valueOf(time) : null;
+    }
+}
@@ -0,0 +1,94 @@
+package com.taskmanager.repository.shard;
+
+import com.taskmanager.model.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves tasks to the shard their id routes to. Used after shards were added to the store, and to
+ * backfill it from databases that are to be emptied: the former single database, or shards being
+ * removed from the end of the list.
+ * <p>
+ * Each database is scanned in id order in batches. A batch's misplaced rows are written to their
+ * target shards, replacing any copies already there, and then deleted from the source, so a run
+ * that is interrupted leaves at most one batch in two places and running it again completes it.
+ * Ids are kept; afterwards new ids are reserved above the largest one moved. Run it while no other
+ * process writes to the store.
+ */
+public class TaskShardRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskShardRebalancer.class);
+
+    private final ShardedTaskRepository repository;
+    private final int batchSize;
+
+    public TaskShardRebalancer(ShardedTaskRepository repository, int batchSize) {
+        this.repository = repository;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Moves misplaced rows off every shard, and all rows off each of {@code drained} (databases that
+     * are not shards of the repository). Returns the number of rows moved.
+     */
+    public long rebalance(List<TaskShard> drained) {
+        long moved = 0;
+        long maxId = 0;
+        List<TaskShard> shards = repository.getShards();
+        for (int source = 0; source < shards.size(); source++) {
+            long[] result = moveMisplaced(shards.get(source), source);
+            moved += result[0];
+            maxId = Math.max(maxId, result[1]);
+        }
+        for (TaskShard source : drained) {
+            long[] result = moveMisplaced(source, -1);
+            moved += result[0];
+            maxId = Math.max(maxId, result[1]);
+        }
+        repository.reserveIdsAbove(maxId);
+        return moved;
+    }
+
+    /**
+     * Returns the number of rows moved off {@code source}, and the largest id moved.
+     */
+    private long[] moveMisplaced(TaskShard source, int sourceIndex) {
+        TaskShardRouter router = repository.getRouter();
+        List<TaskShard> shards = repository.getShards();
+        long started = System.nanoTime();
+        long moved = 0;
+        long maxId = 0;
+        long afterId = 0;
+        List<Task> batch;
+        do {
+            batch = source.findAfter(afterId, batchSize);
+            Map<Integer, List<Task>> byTarget = new LinkedHashMap<>();
+            for (Task row : batch) {
+                int target = router.shardOfId(row.getId());
+                if (target != sourceIndex) {
+                    byTarget.computeIfAbsent(target, shard -> new ArrayList<>()).add(row);
+                }
+            }
+            List<Long> movedIds = new ArrayList<>();
+            byTarget.forEach((target, rows) -> {
+                shards.get(target).replaceAll(rows);
+                rows.forEach(row -> movedIds.add(row.getId()));
+            });
+            if (!movedIds.isEmpty()) {
+                source.deleteByIds(movedIds);
+                moved += movedIds.size();
+                maxId = Math.max(maxId, movedIds.stream().mapToLong(Long::longValue).max().orElse(0));
+            }
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == batchSize);
+        log.info("Moved {} tasks off {} in {} ms", moved, source.getName(), (System.nanoTime() - started) / 1_000_000);
+        return new long[] {moved, maxId};
+    }
+}
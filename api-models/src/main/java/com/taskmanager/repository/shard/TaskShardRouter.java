@@ -0,0 +1,73 @@
+package com.taskmanager.repository.shard;
+
+/**
+ * Decides which shard a task lives on.
+ * <p>
+ * Every task id carries a bucket in its low {@link #BUCKET_BITS} bits, so a task is found from its
+ * id alone, without a lookup. Buckets are assigned to shards with jump consistent hashing: when a
+ * shard is added, only the buckets the new shard takes over change owner, about {@code 1/N} of
+ * the data, and no bucket moves between two existing shards. New tasks with an external key are
+ * placed in the bucket of the key's hash, so inserts of the same key always meet on one shard and
+ * its unique constraint.
+ */
+public final class TaskShardRouter {
+
+    public static final int BUCKET_BITS = 8;
+    public static final int BUCKETS = 1 << BUCKET_BITS;
+
+    private final int[] shardOfBucket = new int[BUCKETS];
+    private final int shardCount;
+
+    public TaskShardRouter(int shardCount) {
+        if (shardCount < 1 || shardCount > BUCKETS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + BUCKETS + ", got " + shardCount);
+        }
+        this.shardCount = shardCount;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            shardOfBucket[bucket] = jumpHash(bucket, shardCount);
+        }
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int shardOfBucket(int bucket) {
+        return shardOfBucket[bucket];
+    }
+
+    public int shardOfId(long id) {
+        return shardOfBucket[bucketOfId(id)];
+    }
+
+    public static int bucketOfId(long id) {
+        return (int) (id & (BUCKETS - 1));
+    }
+
+    public static int bucketOfKey(String externalKey) {
+        // String#hashCode is specified, so the bucket of a key is stable across JVMs and restarts
+        int hash = externalKey.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (BUCKETS - 1);
+    }
+
+    /**
+     * The id for sequence number {@code sequence} in {@code bucket}.
+     */
+    public static long idOf(long sequence, int bucket) {
+        return (sequence << BUCKET_BITS) | bucket;
+    }
+
+    /**
+     * Lamping and Veach, "A Fast, Minimal Memory, Consistent Hash Algorithm" (2014).
+     */
+    static int jumpHash(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
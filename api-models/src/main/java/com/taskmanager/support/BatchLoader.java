@@ -0,0 +1,142 @@
+package com.taskmanager.support;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Gathers concurrent single-key reads of different keys into one multi-key query, DataLoader style.
+ * The first caller to arrive opens a batch and waits up to the window for others to join it (less
+ * if the batch fills up first), then runs the batch loader on its own thread and hands every caller
+ * its value. A key the loader returns nothing for gets {@code null}; a failed load fails every
+ * caller in the batch. Failures are never cached.
+ * <p>
+ * The window is paid once per batch, by the caller that opened it; callers that join later wait
+ * less. Like {@link SingleFlight}, the query runs under the opening caller's workload class and every
+ * caller waits no longer than its own deadline. The query's own {@link Deadline} is the latest of
+ * the callers' (none if any caller has none), so a caller that gives up early cannot fail the
+ * load for the others.
+ */
+public class BatchLoader<K, V> {
+
+    private final Function<Collection<K>, Map<K, V>> loader;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Object lock = new Object();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder keys = new LongAdder();
+    private Batch<K, V> open;
+
+    /**
+     * @param loader       loads the given keys in one query; keys it has no value for may be absent
+     * @param windowMicros how long the first caller of a batch waits for others to join it
+     * @param maxBatchSize most keys in one query; a full batch is loaded without waiting further
+     */
+    public BatchLoader(Function<Collection<K>, Map<K, V>> loader, long windowMicros, int maxBatchSize) {
+        if (windowMicros < 0 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("windowMicros must be >= 0 and maxBatchSize >= 1");
+        }
+        this.loader = loader;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public V load(K key) {
+        Batch<K, V> batch;
+        CompletableFuture<V> future;
+        boolean opened = false;
+        synchronized (lock) {
+            if (open == null) {
+                open = new Batch<>(Thread.currentThread());
+                opened = true;
+            }
+            batch = open;
+            batch.join(Deadline.current());
+            future = batch.futures.computeIfAbsent(key, k -> new CompletableFuture<>());
+            if (batch.futures.size() >= maxBatchSize) {
+                open = null;
+                batch.full = true;
+            }
+        }
+        if (opened) {
+            dispatch(batch);
+        } else if (batch.full) {
+            LockSupport.unpark(batch.owner);
+        }
+        return SingleFlight.await(future);
+    }
+
+    /**
+     * Number of batch queries issued.
+     */
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    /**
+     * Number of distinct keys loaded over all batches; divided by {@link #getBatchCount()} it is
+     * the average batch size.
+     */
+    public long getKeyCount() {
+        return keys.sum();
+    }
+
+    private void dispatch(Batch<K, V> batch) {
+        long deadline = System.nanoTime() + windowNanos;
+        long remaining = windowNanos;
+        while (!batch.full && remaining > 0) {
+            LockSupport.parkNanos(this, remaining);
+            remaining = deadline - System.nanoTime();
+        }
+        Map<K, CompletableFuture<V>> futures;
+        Deadline loadDeadline;
+        synchronized (lock) {
+            if (open == batch) {
+                open = null;
+            }
+            futures = batch.futures;
+            loadDeadline = batch.latestDeadline();
+        }
+
+        batches.increment();
+        keys.add(futures.size());
+        Map<K, V> values;
+        try (Scope scope = Deadline.replace(loadDeadline)) {
+            values = loader.apply(Collections.unmodifiableSet(futures.keySet()));
+        } catch (RuntimeException | Error ex) {
+            futures.values().forEach(future -> future.completeExceptionally(ex));
+            return;
+        }
+        futures.forEach((key, future) -> future.complete(values.get(key)));
+    }
+
+    private static final class Batch<K, V> {
+        private final Thread owner;
+        private final Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        private volatile boolean full;
+        private boolean unbounded;
+        private Deadline latest;
+
+        private Batch(Thread owner) {
+            this.owner = owner;
+        }
+
+        private void join(Deadline deadline) {
+            if (deadline == null) {
+                unbounded = true;
+            } else if (latest == null || deadline.remainingNanos() > latest.remainingNanos()) {
+                latest = deadline;
+            }
+        }
+
+        private Deadline latestDeadline() {
+            return unbounded ? null : latest;
+        }
+    }
+}
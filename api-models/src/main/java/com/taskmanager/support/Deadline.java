@@ -0,0 +1,97 @@
+package com.taskmanager.support;
+
+import java.time.Duration;
+
+/**
+ * The point in time by which the current request has to be answered. The HTTP and MCP entry points
+ * open one per request with {@link #open(Deadline)}; code further down reads it with
+ * {@link #current()} instead of having it passed through every signature. The JDBC layer caps
+ * statement timeouts at the remaining time, and waits on other threads' work give up when it has
+ * passed, so a stalled database cannot hold a request thread longer than its deadline.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * The deadline of the work running on this thread, or {@code null} if it has none.
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes {@code deadline} current until the scope is closed. A nested deadline can only shorten
+     * the one already in effect, never extend it.
+     */
+    public static Scope open(Deadline deadline) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(previous != null && previous.expiresAtNanos - deadline.expiresAtNanos < 0 ? previous : deadline);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * Makes {@code deadline}, or no deadline if it is {@code null}, current until the scope is
+     * closed, even where that extends the one in effect. Only for work run on behalf of several
+     * requests, such as a {@link BatchLoader} batch.
+     */
+    static Scope replace(Deadline deadline) {
+        Deadline previous = CURRENT.get();
+        if (deadline != null) {
+            CURRENT.set(deadline);
+        } else {
+            CURRENT.remove();
+        }
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * Throws if the current deadline, if any, has passed.
+     */
+    public static void checkCurrent(String operation) {
+        Deadline deadline = CURRENT.get();
+        if (deadline != null) {
+            deadline.check(operation);
+        }
+    }
+
+    public long remainingNanos() {
+        return Math.max(0, expiresAtNanos - System.nanoTime());
+    }
+
+    public long remainingMillis() {
+        return Duration.ofNanos(remainingNanos()).toMillis();
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    public void check(String operation) {
+        if (isExpired()) {
+            throw new DeadlineExceededException("Request deadline exceeded before " + operation);
+        }
+    }
+}
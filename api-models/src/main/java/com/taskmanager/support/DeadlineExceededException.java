@@ -0,0 +1,12 @@
+package com.taskmanager.support;
+
+/**
+ * Thrown when work is about to start, or would have to keep waiting, after the caller's
+ * {@link Deadline} has passed.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,132 @@
+package com.taskmanager.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter of {@code long} values that is safe for concurrent adds and lookups without
+ * locking. {@link #mightContain} never returns {@code false} for a value that was added; for other
+ * values it returns {@code true} with about the configured false-positive rate, as long as no more
+ * than the expected number of values is added. Values cannot be removed: to forget values, build a
+ * new filter and swap it in.
+ * <p>
+ * The filter is sized with the usual formulas: {@code m = -n ln p / (ln 2)^2} bits and
+ * {@code k = m / n ln 2} probes, derived from one 64-bit hash by double hashing.
+ */
+public final class LongBloomFilter {
+
+    private static final double LN2 = Math.log(2);
+    private static final long MAX_BITS = (long) Integer.MAX_VALUE * Long.SIZE;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final long expectedInsertions;
+    private final AtomicLong setBits = new AtomicLong();
+    private final AtomicLong approximateCount = new AtomicLong();
+
+    /**
+     * @param expectedInsertions values the filter is sized for
+     * @param falsePositiveRate  false-positive rate once that many values have been added
+     */
+    public LongBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1 || !(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("expectedInsertions must be >= 1 and falsePositiveRate in (0, 1)");
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (LN2 * LN2));
+        bits = Math.min(MAX_BITS, Math.max(Long.SIZE, bits));
+        int words = (int) ((bits + Long.SIZE - 1) / Long.SIZE);
+        this.words = new AtomicLongArray(words);
+        this.bitCount = (long) words * Long.SIZE;
+        this.hashCount = (int) Math.max(1, Math.min(30, Math.round((double) bitCount / expectedInsertions * LN2)));
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    /**
+     * Adds {@code value}. Returns {@code true} if that set at least one bit, i.e. the value was
+     * definitely not in the filter before.
+     */
+    public boolean add(long value) {
+        long hash1 = mix(value);
+        long hash2 = mix(hash1) | 1;
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            changed |= setBit(Long.remainderUnsigned(hash1 + i * hash2, bitCount));
+        }
+        if (changed) {
+            approximateCount.incrementAndGet();
+        }
+        return changed;
+    }
+
+    public boolean mightContain(long value) {
+        long hash1 = mix(value);
+        long hash2 = mix(hash1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number of values added, not counting values whose bits were all set already; slightly low
+     * once the filter fills up.
+     */
+    public long approximateCount() {
+        return approximateCount.get();
+    }
+
+    public long expectedInsertions() {
+        return expectedInsertions;
+    }
+
+    /**
+     * The probability that {@link #mightContain} returns {@code true} for a value never added,
+     * given the bits set so far.
+     */
+    public double expectedFalsePositiveRate() {
+        return Math.pow((double) setBits.get() / bitCount, hashCount);
+    }
+
+    public long bitCount() {
+        return bitCount;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Size of the bit array.
+     */
+    public long sizeInBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    private boolean setBit(long bit) {
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long current;
+        do {
+            current = words.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(word, current, current | mask));
+        setBits.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * The SplitMix64 finalizer: sequential ids come out evenly spread over all 64 bits.
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,11 @@
+package com.taskmanager.support;
+
+/**
+ * A thread-bound setting opened for a block of work; {@link #close()} restores what was there
+ * before, so scopes nest.
+ */
+public interface Scope extends AutoCloseable {
+
+    @Override
+    void close();
+}
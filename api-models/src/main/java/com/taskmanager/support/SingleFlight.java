@@ -0,0 +1,143 @@
+package com.taskmanager.support;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical reads: the first caller for a key runs the loader on its own
+ * thread, every caller that arrives while it is running waits for and shares that result.
+ * Optionally the completed result is served for a short time-to-live afterwards.
+ * <p>
+ * The fast path (an in-flight or still fresh entry exists) is a lock-free map read; only the
+ * caller that starts a new computation writes to the map. Failures are never cached.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public SingleFlight(long ttlMillis) {
+        this(ttlMillis, System::nanoTime);
+    }
+
+    public SingleFlight(long ttlMillis, LongSupplier nanoClock) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMillis));
+        this.nanoClock = nanoClock;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        while (true) {
+            Flight<V> flight = flights.get(key);
+            if (flight != null) {
+                if (!flight.future.isDone() || isFresh(flight)) {
+                    coalesced.increment();
+                    return await(flight.future);
+                }
+                flights.remove(key, flight);
+            }
+
+            Flight<V> created = new Flight<>();
+            if (flights.putIfAbsent(key, created) == null) {
+                return load(key, created, loader);
+            }
+        }
+    }
+
+    /**
+     * Drops the entry for {@code key}; callers that already joined an in-flight load still
+     * receive its result.
+     */
+    public void invalidate(K key) {
+        flights.remove(key);
+    }
+
+    public void invalidateAll() {
+        flights.clear();
+    }
+
+    /**
+     * Number of loader invocations, i.e. queries actually issued.
+     */
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    /**
+     * Number of callers that were served by another caller's load or by a fresh cached result.
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    private V load(K key, Flight<V> flight, Supplier<V> loader) {
+        loads.increment();
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error ex) {
+            flights.remove(key, flight);
+            flight.future.completeExceptionally(ex);
+            throw ex;
+        }
+        flight.completedAt = nanoClock.getAsLong();
+        flight.future.complete(value);
+        if (ttlNanos == 0) {
+            flights.remove(key, flight);
+        }
+        return value;
+    }
+
+    private boolean isFresh(Flight<V> flight) {
+        return ttlNanos > 0 && nanoClock.getAsLong() - flight.completedAt < ttlNanos;
+    }
+
+    /**
+     * Waits for another caller's load, but no longer than the waiting caller's own {@link Deadline}:
+     * a stalled query must not also hold every thread that joined it.
+     */
+    static <V> V await(CompletableFuture<V> future) {
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            try {
+                return future.join();
+            } catch (CompletionException ex) {
+                throw rethrow(ex.getCause(), ex);
+            }
+        }
+        try {
+            return future.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException ex) {
+            throw rethrow(ex.getCause(), ex);
+        } catch (TimeoutException ex) {
+            throw new DeadlineExceededException("Request deadline exceeded while waiting for a shared load");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shared load", ex);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause, Exception wrapper) {
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return wrapper instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+    }
+
+    private static final class Flight<V> {
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        private volatile long completedAt;
+    }
+}
@@ -0,0 +1,64 @@
+package com.taskmanager.support;
+
+import java.util.Locale;
+
+/**
+ * The kind of work the current thread is doing, for sharing database connections between
+ * workloads. Entry points open a class with {@link #open()} (the REST filter by method and path,
+ * the MCP tool advice by tool, scheduled jobs around their run) and the connection bulkhead reads
+ * it with {@link #current()}. Constants are declared in priority order: when connections are
+ * scarce, waiting interactive reads are served first and bulk work last.
+ */
+public enum WorkloadClass {
+
+    /** Reads a user is waiting for: task lists, single tasks, board statistics. */
+    INTERACTIVE_READ,
+
+    /** Single-task writes, and any work that did not declare a class. */
+    INTERACTIVE_WRITE,
+
+    /** Long reads over many rows: exports and summaries computed for agents. */
+    ANALYTICS,
+
+    /** Batch writes: MCP batch and bulk tools, file imports, archival. */
+    BULK;
+
+    private static final ThreadLocal<WorkloadClass> CURRENT = new ThreadLocal<>();
+
+    /**
+     * The class of the work running on this thread; {@link #INTERACTIVE_WRITE} if none was opened.
+     */
+    public static WorkloadClass current() {
+        WorkloadClass current = CURRENT.get();
+        return current != null ? current : INTERACTIVE_WRITE;
+    }
+
+    /**
+     * Makes this class current until the scope is closed.
+     */
+    public Scope open() {
+        WorkloadClass previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * Whether work of this class may wait for connections rather than fail fast.
+     */
+    public boolean isBackground() {
+        return this == ANALYTICS || this == BULK;
+    }
+
+    /**
+     * The class as a metric tag value.
+     */
+    public String tag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
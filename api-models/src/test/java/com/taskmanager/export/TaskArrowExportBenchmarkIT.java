@@ -0,0 +1,111 @@
+package com.taskmanager.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.TaskFilter;
+import com.taskmanager.repository.memory.InMemoryTaskRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes the same tasks as an Arrow snapshot and as NDJSON (the shape {@code GET /api/tasks}
+ * returns) from the embedded store, and prints size and write time of each. Both paths are run once
+ * to warm up before they are timed.
+ * <p>
+ * Properties:
+ * <ul>
+ *   <li>{@code tasks.export.rows}: tasks written (default 100000).</li>
+ *   <li>{@code tasks.export.row-group-size}: Arrow rows per record batch (default 65536).</li>
+ * </ul>
+ */
+@EnabledIfSystemProperty(named = "tasks.export.benchmark", matches = "true")
+class TaskArrowExportBenchmarkIT {
+
+    private static final LocalDate START = LocalDate.of(2026, 1, 1);
+
+    private final int rows = Integer.getInteger("tasks.export.rows", 100_000);
+    private final int rowGroupSize = Integer.getInteger("tasks.export.row-group-size", 65_536);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void arrowVersusNdjson() throws Exception {
+        try (InMemoryTaskRepository repository = new InMemoryTaskRepository(directory.resolve("store"), false,
+                64L << 20)) {
+            insertTasks(repository);
+            Path arrow = directory.resolve("tasks.arrow");
+            Path ndjson = directory.resolve("tasks.ndjson");
+            TaskArrowExporter exporter = new TaskArrowExporter(repository, rowGroupSize);
+            ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                    .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+            exportArrow(exporter, arrow);
+            writeNdjson(repository, mapper, ndjson);
+
+            long arrowStarted = System.nanoTime();
+            exportArrow(exporter, arrow);
+            long arrowMillis = (System.nanoTime() - arrowStarted) / 1_000_000;
+            long ndjsonStarted = System.nanoTime();
+            writeNdjson(repository, mapper, ndjson);
+            long ndjsonMillis = (System.nanoTime() - ndjsonStarted) / 1_000_000;
+
+            long arrowBytes = Files.size(arrow);
+            long ndjsonBytes = Files.size(ndjson);
+            System.out.printf("%d tasks: arrow %,d bytes in %d ms, ndjson %,d bytes in %d ms%n",
+                    rows, arrowBytes, arrowMillis, ndjsonBytes, ndjsonMillis);
+            assertTrue(arrowBytes > 0 && ndjsonBytes > 0);
+        }
+    }
+
+    private void insertTasks(InMemoryTaskRepository repository) {
+        List<Task> tasks = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            TaskStatus status = TaskStatus.values()[i % 3];
+            Task task = new Task("Task " + i, i % 4 == 0 ? null : "Description of task " + i, status,
+                    i % 5 == 0 ? null : START.plusDays(i % 30));
+            task.setExternalKey(i % 2 == 0 ? "ext-" + i : null);
+            if (status == TaskStatus.DONE) {
+                task.setCompletedAt(LocalDateTime.of(2026, 2, 3, 4, 5, 6));
+            }
+            tasks.add(task);
+        }
+        repository.saveAll(tasks);
+    }
+
+    private static void exportArrow(TaskArrowExporter exporter, Path file) throws IOException {
+        TaskFilter all = new TaskFilter();
+        all.setIncludeArchived(true);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            exporter.export(all, channel);
+        }
+    }
+
+    private static void writeNdjson(InMemoryTaskRepository repository, ObjectMapper mapper, Path file)
+            throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (Task task : repository.findAll()) {
+                writer.write(mapper.writeValueAsString(task));
+                writer.newLine();
+            }
+        }
+    }
+}
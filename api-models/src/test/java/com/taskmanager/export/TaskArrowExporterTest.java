@@ -0,0 +1,201 @@
+package com.taskmanager.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.TaskFilter;
+import com.taskmanager.repository.memory.InMemoryTaskRepository;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.TimeStampMicroVector;
+import org.apache.arrow.vector.TinyIntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskArrowExporterTest {
+
+    private static final LocalDate START = LocalDate.of(2026, 1, 1);
+    private static final LocalDateTime COMPLETED = LocalDateTime.of(2026, 2, 3, 4, 5, 6, 789_000);
+
+    @TempDir
+    Path directory;
+
+    private InMemoryTaskRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryTaskRepository(directory.resolve("store"), false, 64L << 20);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        repository.close();
+    }
+
+    @Test
+    void export_isReadableByArrowInRowGroups() throws Exception {
+        insertTasks(2500);
+        Path file = directory.resolve("tasks.arrow");
+
+        TaskExportResult result = export(new TaskArrowExporter(repository, 1000), includingArchived(), file);
+
+        assertEquals(2500, result.getRows());
+        assertEquals(3, result.getRowGroups());
+        assertEquals(Files.size(file), result.getBytes());
+
+        try (BufferAllocator allocator = new RootAllocator();
+                FileChannel channel = FileChannel.open(file);
+                ArrowFileReader reader = new ArrowFileReader(channel, allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            Field status = root.getSchema().findField("status");
+            assertEquals(new ArrowType.Int(8, true), status.getDictionary().getIndexType());
+            assertEquals(3, reader.getRecordBlocks().size());
+
+            Dictionary statusNames = reader.getDictionaryVectors().get(status.getDictionary().getId());
+            VarCharVector names = (VarCharVector) statusNames.getVector();
+            List<Long> ids = new ArrayList<>();
+            int row = 0;
+            while (reader.loadNextBatch()) {
+                BigIntVector id = (BigIntVector) root.getVector("id");
+                VarCharVector title = (VarCharVector) root.getVector("title");
+                VarCharVector description = (VarCharVector) root.getVector("description");
+                TinyIntVector statusIndex = (TinyIntVector) root.getVector("status");
+                DateDayVector dueDate = (DateDayVector) root.getVector("dueDate");
+                BitVector archived = (BitVector) root.getVector("archived");
+                TimeStampMicroVector completedAt = (TimeStampMicroVector) root.getVector("completedAt");
+                assertTrue(root.getRowCount() <= 1000);
+                for (int i = 0; i < root.getRowCount(); i++, row++) {
+                    ids.add(id.get(i));
+                    assertEquals("Task " + row, title.getObject(i).toString());
+                    assertEquals(row % 4 == 0, description.isNull(i));
+                    TaskStatus expected = TaskStatus.values()[row % 3];
+                    assertEquals(expected.name(), names.getObject(statusIndex.get(i)).toString());
+                    if (row % 5 == 0) {
+                        assertTrue(dueDate.isNull(i));
+                    } else {
+                        assertEquals(START.plusDays(row % 30).toEpochDay(), dueDate.get(i));
+                    }
+                    assertEquals(expected == TaskStatus.DONE && row % 2 == 0, archived.get(i) == 1);
+                    if (expected == TaskStatus.DONE) {
+                        assertEquals(COMPLETED, completedAt.getObject(i));
+                    } else {
+                        assertTrue(completedAt.isNull(i));
+                    }
+                }
+            }
+            assertEquals(2500, ids.size());
+            assertEquals(ids.stream().sorted().toList(), ids);
+        }
+    }
+
+    @Test
+    void export_appliesFilterAndWritesValidEmptyFile() throws Exception {
+        insertTasks(30);
+        TaskFilter done = new TaskFilter();
+        done.setStatus(TaskStatus.DONE);
+        Path file = directory.resolve("done.arrow");
+        TaskExportResult doneResult = export(new TaskArrowExporter(repository, 100), done, file);
+        assertEquals(5, doneResult.getRows());
+
+        repository.deleteAll();
+        Path empty = directory.resolve("empty.arrow");
+        TaskExportResult emptyResult = export(new TaskArrowExporter(repository, 100), includingArchived(), empty);
+
+        assertEquals(0, emptyResult.getRows());
+        assertEquals(0, emptyResult.getRowGroups());
+        try (BufferAllocator allocator = new RootAllocator();
+                FileChannel channel = FileChannel.open(empty);
+                ArrowFileReader reader = new ArrowFileReader(channel, allocator)) {
+            assertEquals(8, reader.getVectorSchemaRoot().getSchema().getFields().size());
+            assertFalse(reader.loadNextBatch());
+        }
+    }
+
+    /**
+     * Writes the same tasks as Arrow and as NDJSON (the shape {@code GET /api/tasks} returns).
+     * Timings are in {@link TaskArrowExportBenchmarkIT}.
+     */
+    @Test
+    void export_isSmallerThanNdjson() throws Exception {
+        insertTasks(10_000);
+        Path arrow = directory.resolve("tasks.arrow");
+        Path ndjson = directory.resolve("tasks.ndjson");
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        export(new TaskArrowExporter(repository, 65_536), includingArchived(), arrow);
+        writeNdjson(mapper, ndjson);
+
+        long arrowBytes = Files.size(arrow);
+        long ndjsonBytes = Files.size(ndjson);
+        assertTrue(arrowBytes < ndjsonBytes * 3 / 4, "arrow " + arrowBytes + " vs ndjson " + ndjsonBytes);
+    }
+
+    private void insertTasks(int count) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TaskStatus status = TaskStatus.values()[i % 3];
+            Task task = new Task("Task " + i, i % 4 == 0 ? null : "Description of task " + i, status,
+                    i % 5 == 0 ? null : START.plusDays(i % 30));
+            task.setExternalKey(i % 2 == 0 ? "ext-" + i : null);
+            if (status == TaskStatus.DONE) {
+                task.setCompletedAt(COMPLETED);
+                task.setArchived(i % 2 == 0);
+            }
+            tasks.add(task);
+        }
+        repository.saveAll(tasks);
+    }
+
+    private void writeNdjson(ObjectMapper mapper, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (Task task : repository.findAll()) {
+                writer.write(mapper.writeValueAsString(task));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static TaskExportResult export(TaskArrowExporter exporter, TaskFilter filter, Path file)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return exporter.export(filter, channel);
+        }
+    }
+
+    private static TaskFilter includingArchived() {
+        TaskFilter filter = new TaskFilter();
+        filter.setIncludeArchived(true);
+        return filter;
+    }
+}
@@ -0,0 +1,435 @@
+package com.taskmanager.repository.memory;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.ChunkResult;
+import com.taskmanager.repository.TaskField;
+import com.taskmanager.repository.TaskFilter;
+import com.taskmanager.repository.UpsertResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryTaskRepositoryTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 10);
+
+    @TempDir
+    Path directory;
+
+    private InMemoryTaskRepository repository;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (repository != null) {
+            repository.close();
+        }
+    }
+
+    @Test
+    void save_assignsIdsAndAppliesCompletionRules() {
+        repository = open();
+        Task todo = repository.save(new Task("Write docs", "README", TaskStatus.TODO, TODAY));
+        Task done = repository.save(new Task("Ship", null, TaskStatus.DONE, null));
+
+        assertEquals(1L, todo.getId());
+        assertEquals(2L, done.getId());
+        assertNull(todo.getCompletedAt());
+        assertNotNull(done.getCompletedAt());
+
+        done.setArchived(true);
+        done.setStatus(TaskStatus.IN_PROGRESS);
+        repository.save(done);
+
+        Task reloaded = repository.findById(2L).orElseThrow();
+        assertEquals(TaskStatus.IN_PROGRESS, reloaded.getStatus());
+        assertNull(reloaded.getCompletedAt());
+        assertFalse(reloaded.isArchived());
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    void save_rejectsDuplicateExternalKeyAndMissingTitle() {
+        repository = open();
+        Task first = new Task("A", null, TaskStatus.TODO, null);
+        first.setExternalKey("ext-1");
+        repository.save(first);
+
+        Task duplicate = new Task("B", null, TaskStatus.TODO, null);
+        duplicate.setExternalKey("ext-1");
+        assertThrows(DataIntegrityViolationException.class, () -> repository.save(duplicate));
+        assertThrows(DataIntegrityViolationException.class,
+                () -> repository.save(new Task(null, null, TaskStatus.TODO, null)));
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    void saveAllAndDeleteAllById_writeNothingWhenAnyArgumentIsRejected() {
+        repository = open();
+        Task kept = repository.save(new Task("Kept", null, TaskStatus.TODO, null));
+        Task first = new Task("A", null, TaskStatus.TODO, null);
+        first.setExternalKey("ext-1");
+        Task second = new Task("B", null, TaskStatus.TODO, null);
+        second.setExternalKey("ext-1");
+
+        assertThrows(DataIntegrityViolationException.class, () -> repository.saveAll(List.of(first, second)));
+        assertThrows(DataIntegrityViolationException.class, () -> repository.saveAll(
+                List.of(new Task("C", null, TaskStatus.TODO, null), new Task(null, null, TaskStatus.TODO, null))));
+        assertThrows(NullPointerException.class, () -> repository.deleteAllById(Arrays.asList(kept.getId(), null)));
+        assertNull(first.getId());
+        assertEquals(List.of("Kept"), repository.findAll().stream().map(Task::getTitle).toList());
+    }
+
+    @Test
+    void returnedTasks_areDetachedCopies() {
+        repository = open();
+        Task saved = repository.save(new Task("Original", null, TaskStatus.TODO, null));
+
+        repository.findById(saved.getId()).orElseThrow().setTitle("Changed");
+
+        assertEquals("Original", repository.findById(saved.getId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    void filtersAndChunks_useIndexesAndKeysetOrder() {
+        repository = open();
+        for (int i = 1; i <= 10; i++) {
+            repository.save(new Task("Task " + i, null, i % 2 == 0 ? TaskStatus.DONE : TaskStatus.TODO,
+                    TODAY.plusDays(i - 5)));
+        }
+        TaskFilter overdueTodo = new TaskFilter();
+        overdueTodo.setStatus(TaskStatus.TODO);
+        overdueTodo.setDueTo(TODAY.minusDays(1));
+        assertEquals(2, repository.countByFilter(overdueTodo));
+
+        TaskFilter title = new TaskFilter();
+        title.setTitleContains("TASK 1");
+        assertEquals(2, repository.countByFilter(title));
+
+        TaskFilter all = new TaskFilter();
+        ChunkResult first = repository.updateStatusByFilter(all, TaskStatus.IN_PROGRESS, 0, 4);
+        assertEquals(4, first.getAffected());
+        assertEquals(4L, first.getLastId());
+        assertFalse(first.isLast());
+
+        TaskFilter done = new TaskFilter();
+        done.setStatus(TaskStatus.DONE);
+        ChunkResult deleted = repository.deleteByFilter(done, first.getLastId(), 100);
+        assertEquals(3, deleted.getAffected());
+        assertTrue(deleted.isLast());
+        assertEquals(7, repository.count());
+
+        List<Map<String, Object>> page;
+        try (Stream<Map<String, Object>> rows = repository.streamByFilter(all, Set.of(TaskField.STATUS), 4, 2)) {
+            page = rows.toList();
+        }
+        assertEquals(List.of(5L, 7L), page.stream().map(row -> row.get("id")).toList());
+        assertEquals(TaskStatus.TODO, page.get(0).get("status"));
+    }
+
+    @Test
+    void countTasksByStatusAndDueWindow_matchesJpqlRows() {
+        repository = open();
+        repository.save(new Task("Overdue", null, TaskStatus.TODO, TODAY.minusDays(3)));
+        repository.save(new Task("Today", null, TaskStatus.TODO, TODAY));
+        repository.save(new Task("This week", null, TaskStatus.TODO, TODAY.plusDays(2)));
+        repository.save(new Task("Undated", null, TaskStatus.TODO, null));
+        Task archived = repository.save(new Task("Old", null, TaskStatus.DONE, TODAY.minusDays(40)));
+        archived.setCompletedAt(LocalDateTime.now().minusDays(60));
+        repository.save(archived);
+        assertEquals(1, repository.archiveCompleted(LocalDateTime.now().minusDays(30), 100));
+
+        Map<TaskStatus, Object[]> hot = byStatus(repository.countTasksByStatusAndDueWindow(TODAY, TODAY.plusDays(5), false));
+        assertArrayEquals(new Object[] {TaskStatus.TODO, 4L, 1L, 1L, 1L, 1L}, hot.get(TaskStatus.TODO));
+        assertFalse(hot.containsKey(TaskStatus.DONE));
+
+        Map<TaskStatus, Object[]> all = byStatus(repository.countTasksByStatusAndDueWindow(TODAY, TODAY.plusDays(5), true));
+        assertArrayEquals(new Object[] {TaskStatus.DONE, 1L, 1L, 0L, 0L, 0L}, all.get(TaskStatus.DONE));
+        assertEquals(2, repository.countTasksByStatus().size());
+        assertEquals(4, repository.findByArchivedFalse().size());
+    }
+
+    @Test
+    void upsertByExternalKey_insertsUpdatesAndSkipsUnchanged() {
+        repository = open();
+        UpsertResult first = repository.upsertByExternalKey(List.of(keyed("k1", "One", TaskStatus.TODO),
+                keyed("k2", "Two", TaskStatus.DONE)));
+        UpsertResult second = repository.upsertByExternalKey(List.of(keyed("k1", "One", TaskStatus.TODO),
+                keyed("k2", "Two", TaskStatus.IN_PROGRESS), keyed("k3", "Three", TaskStatus.TODO)));
+
+        assertEquals(2, first.getInserted());
+        assertEquals(1, second.getInserted());
+        assertEquals(1, second.getUpdated());
+        assertEquals(1, second.getUnchanged());
+        assertEquals(3, repository.count());
+    }
+
+    @Test
+    void upsertByExternalKey_bringsBackArchivedTasksOnlyWhenChanged() {
+        repository = open();
+        repository.upsertByExternalKey(List.of(keyed("k1", "One", TaskStatus.DONE)));
+        assertEquals(1, repository.archiveCompleted(LocalDateTime.now().plusDays(1), 10));
+
+        UpsertResult replayed = repository.upsertByExternalKey(List.of(keyed("k1", "One", TaskStatus.DONE)));
+        assertEquals(1, replayed.getUnchanged());
+        assertTrue(repository.findAll().get(0).isArchived());
+
+        UpsertResult changed = repository.upsertByExternalKey(List.of(keyed("k1", "One", TaskStatus.TODO)));
+        assertEquals(1, changed.getUpdated());
+        assertFalse(repository.findAll().get(0).isArchived());
+    }
+
+    @Test
+    void findAll_sortsAndPages() {
+        repository = open();
+        repository.save(new Task("b", null, TaskStatus.TODO, null));
+        repository.save(new Task("c", null, TaskStatus.TODO, null));
+        repository.save(new Task("a", null, TaskStatus.TODO, null));
+
+        assertEquals(List.of("a", "b", "c"),
+                repository.findAll(Sort.by("title")).stream().map(Task::getTitle).toList());
+        assertEquals(List.of(2L),
+                repository.findAll(PageRequest.of(1, 1, Sort.by("id"))).map(Task::getId).getContent());
+        assertEquals(List.of(3L, 2L),
+                repository.findByArchivedFalseOrderByIdDesc(PageRequest.of(0, 2)).stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void queryByExample_matchesSetPropertiesOfTheProbe() {
+        repository = open();
+        repository.save(new Task("Write docs", null, TaskStatus.TODO, TODAY));
+        repository.save(new Task("Review docs", null, TaskStatus.DONE, TODAY));
+        repository.save(keyed("ext-1", "Ship release", TaskStatus.TODO));
+
+        Task probe = new Task(null, null, TaskStatus.TODO, null);
+        assertEquals(List.of("Ship release", "Write docs"), repository.findAll(Example.of(probe), Sort.by("title"))
+                .stream().map(Task::getTitle).toList());
+        assertEquals(2, repository.count(Example.of(probe)));
+
+        probe.setTitle("DOCS");
+        ExampleMatcher endingIgnoringCase = ExampleMatcher.matching()
+                .withStringMatcher(ExampleMatcher.StringMatcher.ENDING).withIgnoreCase();
+        assertEquals(1L, repository.findOne(Example.of(probe, endingIgnoringCase)).orElseThrow().getId());
+        assertEquals(List.of(1L, 2L, 3L), repository.findAll(Example.of(probe, ExampleMatcher.matchingAny()
+                .withIgnorePaths("archived").withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING)
+                .withIgnoreCase())).stream().map(Task::getId).sorted().toList());
+        assertThrows(IncorrectResultSizeDataAccessException.class,
+                () -> repository.findOne(Example.of(new Task(null, null, TaskStatus.TODO, null))));
+
+        Task byKey = new Task();
+        byKey.setStatus(null);
+        byKey.setExternalKey("ext-1");
+        assertTrue(repository.exists(Example.of(byKey)));
+        assertEquals(List.of(2L), repository.findAll(Example.of(new Task(null, null, TaskStatus.DONE, null)),
+                PageRequest.of(0, 1)).map(Task::getId).getContent());
+        assertEquals(List.of("Write docs"), repository.findBy(Example.of(new Task(null, null, TaskStatus.TODO, null)),
+                query -> query.sortBy(Sort.by(Sort.Direction.DESC, "title")).limit(1).as(Titled.class).all())
+                .stream().map(Titled::getTitle).toList());
+    }
+
+    @Test
+    void claim_takesEarliestDueTodoTasksUnderALease() {
+        repository = open();
+        Task later = repository.save(new Task("Later", null, TaskStatus.TODO, TODAY.plusDays(3)));
+        Task undated = repository.save(new Task("Undated", null, TaskStatus.TODO, null));
+        Task first = repository.save(new Task("First", null, TaskStatus.TODO, TODAY));
+        repository.save(new Task("Started", null, TaskStatus.IN_PROGRESS, TODAY.minusDays(1)));
+        Task second = repository.save(new Task("Second", null, TaskStatus.TODO, TODAY));
+        LocalDateTime leaseUntil = LocalDateTime.of(2026, 3, 10, 12, 0);
+
+        assertEquals(List.of(first.getId(), second.getId()), repository.claim("agent-1", leaseUntil, 2));
+        assertEquals(List.of(later.getId(), undated.getId()), repository.claim("agent-2", leaseUntil, 5));
+        assertEquals(List.of(), repository.claim("agent-3", leaseUntil, 5));
+
+        Task claimed = repository.findById(first.getId()).orElseThrow();
+        assertEquals(TaskStatus.IN_PROGRESS, claimed.getStatus());
+        assertEquals("agent-1", claimed.getLeaseOwner());
+        assertEquals(leaseUntil, claimed.getLeaseExpiresAt());
+
+        assertTrue(repository.renewLease(first.getId(), "agent-1", leaseUntil.plusMinutes(5)));
+        assertFalse(repository.renewLease(first.getId(), "agent-2", leaseUntil.plusMinutes(5)));
+        assertTrue(repository.releaseLease(first.getId(), "agent-1", TaskStatus.DONE));
+        assertFalse(repository.releaseLease(first.getId(), "agent-1", TaskStatus.TODO));
+        Task released = repository.findById(first.getId()).orElseThrow();
+        assertEquals(TaskStatus.DONE, released.getStatus());
+        assertNotNull(released.getCompletedAt());
+        assertNull(released.getLeaseOwner());
+
+        // Only the three leases still held at noon have expired; "Started" was never claimed
+        assertEquals(3, repository.reclaimExpiredLeases(leaseUntil.plusMinutes(1), 10));
+        Task reclaimed = repository.findById(second.getId()).orElseThrow();
+        assertEquals(TaskStatus.TODO, reclaimed.getStatus());
+        assertNull(reclaimed.getLeaseExpiresAt());
+        assertFalse(repository.renewLease(second.getId(), "agent-1", leaseUntil.plusMinutes(5)));
+        assertEquals(List.of(second.getId()), repository.claim("agent-3", leaseUntil.plusHours(1), 1));
+    }
+
+    @Test
+    void statusChangesOutsideTheLease_endTheLease() {
+        repository = open();
+        Task bulk = repository.save(new Task("Bulk", null, TaskStatus.TODO, TODAY));
+        Task edited = repository.save(new Task("Edited", null, TaskStatus.TODO, TODAY.plusDays(1)));
+        LocalDateTime leaseUntil = LocalDateTime.of(2026, 3, 10, 12, 0);
+        repository.claim("agent-1", leaseUntil, 2);
+
+        repository.updateStatusByIds(TaskStatus.IN_PROGRESS, List.of(bulk.getId()));
+        assertEquals("agent-1", repository.findById(bulk.getId()).orElseThrow().getLeaseOwner());
+        repository.updateStatusByIds(TaskStatus.DONE, List.of(bulk.getId()));
+        repository.updateStatusByIds(TaskStatus.IN_PROGRESS, List.of(bulk.getId()));
+        assertTrue(repository.clearLease(edited.getId()));
+        assertFalse(repository.clearLease(edited.getId()));
+
+        assertEquals(0, repository.reclaimExpiredLeases(leaseUntil.plusMinutes(1), 10));
+        assertNull(repository.findById(bulk.getId()).orElseThrow().getLeaseOwner());
+        assertFalse(repository.renewLease(bulk.getId(), "agent-1", leaseUntil.plusMinutes(5)));
+        assertFalse(repository.releaseLease(edited.getId(), "agent-1", TaskStatus.DONE));
+        assertEquals(TaskStatus.IN_PROGRESS, repository.findById(edited.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void reopen_recoversLeases() throws IOException {
+        repository = open();
+        Task task = repository.save(new Task("Leased", null, TaskStatus.TODO, TODAY));
+        LocalDateTime leaseUntil = LocalDateTime.of(2026, 3, 10, 12, 0, 0, 123_456_000);
+        repository.claim("agent-1", leaseUntil, 1);
+        // A save through the entity path keeps the lease
+        Task renamed = repository.findById(task.getId()).orElseThrow();
+        renamed.setTitle("Renamed");
+        repository.save(renamed);
+        repository.close();
+
+        repository = open();
+        Task recovered = repository.findById(task.getId()).orElseThrow();
+        assertEquals("Renamed", recovered.getTitle());
+        assertEquals("agent-1", recovered.getLeaseOwner());
+        assertEquals(leaseUntil, recovered.getLeaseExpiresAt());
+        assertTrue(repository.releaseLease(task.getId(), "agent-1", TaskStatus.TODO));
+    }
+
+    @Test
+    void reopen_recoversFromLog() throws IOException {
+        repository = open();
+        Task kept = repository.save(new Task("Kept", "desc", TaskStatus.DONE, TODAY));
+        Task removed = repository.save(new Task("Removed", null, TaskStatus.TODO, null));
+        Task removedInBatch = repository.save(new Task("Removed in batch", null, TaskStatus.TODO, null));
+        repository.deleteById(removed.getId());
+        assertEquals(1, repository.deleteByIds(List.of(removedInBatch.getId(), removed.getId())));
+        repository.updateStatusByIds(TaskStatus.IN_PROGRESS, List.of(kept.getId()));
+        repository.close();
+
+        repository = open();
+        assertEquals(1, repository.count());
+        Task recovered = repository.findById(kept.getId()).orElseThrow();
+        assertEquals("desc", recovered.getDescription());
+        assertEquals(TaskStatus.IN_PROGRESS, recovered.getStatus());
+        assertEquals(TODAY, recovered.getDueDate());
+        assertEquals(4L, repository.save(new Task("Next", null, TaskStatus.TODO, null)).getId());
+    }
+
+    @Test
+    void reopen_recoversFromSnapshotAndLaterLog() throws IOException {
+        repository = open();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            tasks.add(new Task("Task " + i, "Ünïcode " + i, TaskStatus.values()[i % 3], TODAY.plusDays(i % 7)));
+        }
+        repository.saveAll(tasks);
+        repository.checkpoint();
+        repository.deleteById(1L);
+        repository.save(new Task("After snapshot", null, TaskStatus.TODO, null));
+        long generation = repository.walGeneration();
+        repository.close();
+
+        assertTrue(Files.exists(directory.resolve(TaskWriteAheadLog.SNAPSHOT_FILE)));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.filter(path -> path.toString().endsWith(".wal")).count());
+        }
+
+        repository = open();
+        assertEquals(1000, repository.count());
+        assertEquals(generation, repository.walGeneration());
+        assertFalse(repository.existsById(1L));
+        assertEquals("Ünïcode 999", repository.findById(1000L).orElseThrow().getDescription());
+        assertEquals("After snapshot", repository.findById(1001L).orElseThrow().getTitle());
+    }
+
+    @Test
+    void reopen_dropsTornTailRecord() throws IOException {
+        repository = open();
+        repository.save(new Task("Complete", null, TaskStatus.TODO, null));
+        repository.save(new Task("Torn", null, TaskStatus.TODO, null));
+        repository.close();
+        repository = null;
+
+        // Corrupt one payload byte of the last record, as a crash in the middle of the write would
+        Path wal;
+        try (Stream<Path> files = Files.list(directory)) {
+            wal = files.filter(path -> path.toString().endsWith(".wal")).findFirst().orElseThrow();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(wal.toFile(), "rw")) {
+            int offset = 8;
+            file.seek(offset);
+            offset += 8 + file.readInt();
+            file.seek(offset + 8 + 4);
+            file.write(0x7f);
+        }
+
+        repository = open();
+        assertEquals(1, repository.count());
+        assertTrue(repository.existsById(1L));
+        Task next = repository.save(new Task("Next", null, TaskStatus.TODO, null));
+        assertEquals(2L, next.getId());
+        repository.close();
+
+        repository = open();
+        assertEquals(List.of("Complete", "Next"), repository.findAll().stream().map(Task::getTitle).toList());
+    }
+
+    interface Titled {
+        String getTitle();
+    }
+
+    private InMemoryTaskRepository open() {
+        return new InMemoryTaskRepository(directory, false, 64L << 20);
+    }
+
+    private static Task keyed(String key, String title, TaskStatus status) {
+        Task task = new Task(title, null, status, null);
+        task.setExternalKey(key);
+        return task;
+    }
+
+    private static Map<TaskStatus, Object[]> byStatus(List<Object[]> rows) {
+        Map<TaskStatus, Object[]> result = new HashMap<>();
+        rows.forEach(row -> result.put((TaskStatus) row[0], row));
+        return result;
+    }
+}
@@ -0,0 +1,78 @@
+package com.taskmanager.repository.resilience;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 3, 1000,
+            DatabaseResilienceConfiguration::isDatabaseUnavailable, clock::get);
+
+    @Test
+    void consecutiveFailures_openCircuitAndFailFast() {
+        fail(2);
+        assertEquals("ok", breaker.execute(() -> "ok"));
+        fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        fail(1);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        CircuitOpenException ex = assertThrows(CircuitOpenException.class, () -> breaker.execute(() -> "ok"));
+        assertEquals(1000, ex.getRetryAfterMillis());
+    }
+
+    @Test
+    void probeAfterOpenPeriod_closesOnSuccessAndReopensOnFailure() throws Exception {
+        fail(3);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+
+        fail(1);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertThrows(CircuitOpenException.class, () -> breaker.execute(() -> "ok"));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        breaker.acquirePermission();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            // Only the probing thread gets through while half-open
+            assertThrows(Exception.class, () -> other.submit(breaker::acquirePermission).get(10, TimeUnit.SECONDS));
+        } finally {
+            other.shutdownNow();
+        }
+        breaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals("ok", breaker.execute(() -> "ok"));
+    }
+
+    @Test
+    void errorsFromAHealthyDatabase_doNotCount() {
+        for (int i = 0; i < 5; i++) {
+            assertThrows(DataIntegrityViolationException.class, () -> breaker.execute(() -> {
+                throw new DataIntegrityViolationException("duplicate key");
+            }));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            assertThrows(QueryTimeoutException.class, () -> breaker.execute(() -> {
+                throw new QueryTimeoutException("canceling statement due to statement timeout");
+            }));
+        }
+    }
+}
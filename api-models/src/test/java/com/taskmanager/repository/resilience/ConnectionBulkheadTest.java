@@ -0,0 +1,206 @@
+package com.taskmanager.repository.resilience;
+
+import com.taskmanager.support.Scope;
+import com.taskmanager.support.WorkloadClass;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionBulkheadTest {
+
+    private static final Map<WorkloadClass, Double> SHARES = Map.of(
+            WorkloadClass.ANALYTICS, 0.25,
+            WorkloadClass.BULK, 0.25);
+
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+    private final List<Connection> open = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        threads.shutdownNow();
+        for (Connection connection : open) {
+            connection.close();
+        }
+    }
+
+    @Test
+    void bulkWork_isHeldToItsShareWhileInteractiveWorkUsesTheRest() throws Exception {
+        ConnectionBulkhead bulkhead = new ConnectionBulkhead("test", 4, SHARES, 50, 50);
+        DataSource dataSource = bulkhead.wrap(h2());
+
+        Connection bulk = connect(dataSource, WorkloadClass.BULK);
+        BulkheadFullException rejected = assertThrows(BulkheadFullException.class,
+                () -> connect(dataSource, WorkloadClass.BULK));
+        assertEquals(WorkloadClass.BULK, rejected.getWorkload());
+        for (int i = 0; i < 3; i++) {
+            connect(dataSource, WorkloadClass.INTERACTIVE_READ);
+        }
+        assertThrows(BulkheadFullException.class, () -> connect(dataSource, WorkloadClass.INTERACTIVE_READ));
+
+        bulk.close();
+        bulk.close();
+
+        assertEquals(0, bulkhead.getInUse(WorkloadClass.BULK));
+        connect(dataSource, WorkloadClass.INTERACTIVE_WRITE);
+        assertEquals(4, bulkhead.getInUse(WorkloadClass.INTERACTIVE_READ)
+                + bulkhead.getInUse(WorkloadClass.INTERACTIVE_WRITE));
+        assertEquals(2, bulkhead.getRejected(WorkloadClass.BULK) + bulkhead.getRejected(WorkloadClass.INTERACTIVE_READ));
+    }
+
+    @Test
+    void releasedConnections_goToWaitingInteractiveWorkFirst() throws Exception {
+        ConnectionBulkhead bulkhead = new ConnectionBulkhead("test", 1, SHARES, 5000, 5000);
+        DataSource dataSource = bulkhead.wrap(h2());
+        Connection held = connect(dataSource, WorkloadClass.INTERACTIVE_WRITE);
+        List<WorkloadClass> served = new CopyOnWriteArrayList<>();
+
+        Future<?> bulk = threads.submit(() -> useBriefly(dataSource, WorkloadClass.BULK, served));
+        awaitWaiting(bulkhead, WorkloadClass.BULK);
+        Future<?> read = threads.submit(() -> useBriefly(dataSource, WorkloadClass.INTERACTIVE_READ, served));
+        awaitWaiting(bulkhead, WorkloadClass.INTERACTIVE_READ);
+
+        held.close();
+        read.get(5, TimeUnit.SECONDS);
+        bulk.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(WorkloadClass.INTERACTIVE_READ, WorkloadClass.BULK), served);
+    }
+
+    @Test
+    void metrics_reportSaturationPerWorkloadClass() throws Exception {
+        ConnectionBulkhead bulkhead = new ConnectionBulkhead("test", 8, SHARES, 10, 10);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        bulkhead.bindTo(registry);
+        DataSource dataSource = bulkhead.wrap(h2());
+
+        connect(dataSource, WorkloadClass.ANALYTICS);
+        connect(dataSource, WorkloadClass.INTERACTIVE_READ);
+
+        assertEquals(2.0, gauge(registry, "db.bulkhead.limit", WorkloadClass.ANALYTICS));
+        assertEquals(0.5, gauge(registry, "db.bulkhead.saturation", WorkloadClass.ANALYTICS));
+        assertEquals(0.125, gauge(registry, "db.bulkhead.saturation", WorkloadClass.INTERACTIVE_READ));
+        assertEquals(0.0, gauge(registry, "db.bulkhead.waiting", WorkloadClass.BULK));
+        assertEquals(1, registry.get("db.bulkhead.wait").tag("workload", "analytics").functionTimer().count());
+    }
+
+    @Test
+    void bulkheadRejections_doNotCountAsDatabaseFailures() {
+        BulkheadFullException full = new BulkheadFullException("database", WorkloadClass.BULK, 100);
+
+        assertFalse(DatabaseResilienceConfiguration.isDatabaseUnavailable(
+                new CannotGetJdbcConnectionException("Failed to obtain JDBC Connection", full)));
+        assertFalse(DatabaseResilienceConfiguration.isDatabaseUnavailable(
+                new CannotCreateTransactionException("Could not open JPA EntityManager", full)));
+        assertTrue(DatabaseResilienceConfiguration.isDatabaseUnavailable(
+                new CannotGetJdbcConnectionException("Failed to obtain JDBC Connection", new SQLTimeoutException())));
+    }
+
+    @Test
+    void streamedQuery_returnsItsPermitWhenTheStreamIsClosed() {
+        ConnectionBulkhead bulkhead = new ConnectionBulkhead("test", 4, SHARES, 50, 50);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(bulkhead.wrap(h2()));
+
+        for (int i = 0; i < 3; i++) {
+            try (Scope scope = WorkloadClass.ANALYTICS.open();
+                    Stream<Integer> rows = jdbcTemplate.queryForStream("SELECT 1", (rs, rowNum) -> rs.getInt(1))) {
+                assertEquals(List.of(1), rows.toList());
+            }
+            assertEquals(0, bulkhead.getInUse(WorkloadClass.ANALYTICS));
+        }
+    }
+
+    @Test
+    void streamedQueriesOutsideATransaction_neverExhaustThePool() {
+        ConnectionBulkhead bulkhead = new ConnectionBulkhead("test", 2, SHARES, 50, 50);
+        DataSource dataSource = new StatementTimeoutDataSource(bulkhead.wrap(h2()), 5000, 5000, 5000);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // More queries than connections: one leaked permit per stream would fail the third
+        for (int i = 0; i < 5; i++) {
+            try (Stream<Integer> rows = jdbcTemplate.queryForStream("SELECT 1", (rs, rowNum) -> rs.getInt(1))) {
+                assertEquals(List.of(1), rows.toList());
+            }
+            assertEquals(0, bulkhead.getInUse(WorkloadClass.INTERACTIVE_READ));
+        }
+    }
+
+    @Test
+    void streamedQueryInATransaction_leavesTheTransactionsConnectionOpen() {
+        ConnectionBulkhead bulkhead = new ConnectionBulkhead("test", 4, SHARES, 50, 50);
+        DataSource dataSource = new StatementTimeoutDataSource(bulkhead.wrap(h2()), 5000, 5000, 5000);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        List<Integer> rows = transaction.execute(status -> {
+            try (Stream<Integer> first = jdbcTemplate.queryForStream("SELECT 1", (rs, rowNum) -> rs.getInt(1))) {
+                first.toList();
+            }
+            return jdbcTemplate.queryForList("SELECT 2", Integer.class);
+        });
+
+        assertEquals(List.of(2), rows);
+        assertEquals(0, bulkhead.getInUse(WorkloadClass.INTERACTIVE_READ));
+    }
+
+    private Connection connect(DataSource dataSource, WorkloadClass workload) throws SQLException {
+        try (Scope scope = workload.open()) {
+            Connection connection = dataSource.getConnection();
+            open.add(connection);
+            return connection;
+        }
+    }
+
+    private static Void useBriefly(DataSource dataSource, WorkloadClass workload, List<WorkloadClass> served)
+            throws SQLException {
+        try (Scope scope = workload.open(); Connection connection = dataSource.getConnection()) {
+            served.add(workload);
+            Thread.sleep(20);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private static void awaitWaiting(ConnectionBulkhead bulkhead, WorkloadClass workload) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkhead.getWaiting(workload) == 0) {
+            assertTrue(System.nanoTime() < deadline, workload + " never started waiting");
+            Thread.sleep(5);
+        }
+    }
+
+    private static double gauge(SimpleMeterRegistry registry, String name, WorkloadClass workload) {
+        return registry.get(name).tag("workload", workload.tag()).gauge().value();
+    }
+
+    private static DataSource h2() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:bulkhead;DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+}
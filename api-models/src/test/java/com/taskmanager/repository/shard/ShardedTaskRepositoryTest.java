@@ -0,0 +1,291 @@
+package com.taskmanager.repository.shard;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.ChunkResult;
+import com.taskmanager.repository.TaskFilter;
+import com.taskmanager.repository.UpsertResult;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedTaskRepositoryTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 10);
+
+    private final List<ShardedTaskRepository> repositories = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        repositories.forEach(ShardedTaskRepository::close);
+    }
+
+    @Test
+    void ids_areUniqueAndRouteToTheShardHoldingTheTask() {
+        ShardedTaskRepository repository = open(shards(3));
+
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 300; i++) {
+            ids.add(repository.save(new Task("Task " + i, null, TaskStatus.TODO, null)).getId());
+        }
+
+        assertEquals(300, ids.size());
+        for (int shard = 0; shard < 3; shard++) {
+            List<Task> rows = repository.getShards().get(shard).findAll(true);
+            assertTrue(rows.size() > 50, "shard " + shard + " holds " + rows.size() + " tasks");
+            for (Task row : rows) {
+                assertEquals(shard, repository.getRouter().shardOfId(row.getId()));
+            }
+        }
+        Long anyId = ids.iterator().next();
+        assertEquals(anyId, repository.findById(anyId).orElseThrow().getId());
+    }
+
+    @Test
+    void listsPagesAndCounts_areMergedAcrossShards() {
+        ShardedTaskRepository repository = open(shards(3));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            TaskStatus status = i % 4 == 0 ? TaskStatus.DONE : TaskStatus.TODO;
+            ids.add(repository.save(new Task("Task " + i, null, status, TODAY.plusDays(i % 3 - 1))).getId());
+        }
+        ids.sort(Comparator.reverseOrder());
+
+        List<Long> secondPage = repository.findByArchivedFalseOrderByIdDesc(PageRequest.of(1, 7)).stream()
+                .map(Task::getId).toList();
+        assertEquals(ids.subList(7, 14), secondPage);
+        List<Long> all = repository.findAll().stream().map(Task::getId).toList();
+        assertEquals(40, all.size());
+        assertTrue(all.get(0) < all.get(39));
+
+        Map<TaskStatus, Long> byStatus = repository.countTasksByStatus().stream()
+                .collect(Collectors.toMap(row -> (TaskStatus) row[0], row -> (Long) row[1]));
+        assertEquals(Map.of(TaskStatus.TODO, 30L, TaskStatus.DONE, 10L), byStatus);
+        long overdue = repository.countTasksByStatusAndDueWindow(TODAY, TODAY.plusDays(5), false).stream()
+                .mapToLong(row -> (Long) row[2]).sum();
+        assertEquals(14, overdue);
+
+        // Keyset chunks walk all shards in id order
+        TaskFilter todo = new TaskFilter();
+        todo.setStatus(TaskStatus.TODO);
+        long afterId = 0;
+        int updated = 0;
+        ChunkResult chunk;
+        do {
+            chunk = repository.updateStatusByFilter(todo, TaskStatus.IN_PROGRESS, afterId, 8);
+            assertTrue(chunk.getLastId() > afterId || chunk.getSelected() == 0);
+            afterId = chunk.getLastId();
+            updated += chunk.getAffected();
+        } while (!chunk.isLast());
+        assertEquals(30, updated);
+        assertEquals(0, repository.countByFilter(todo));
+    }
+
+    @Test
+    void externalKeys_stayUniqueAcrossShards() {
+        ShardedTaskRepository repository = open(shards(3));
+        List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            batch.add(keyed("key-" + i, "Imported " + i));
+        }
+
+        assertEquals(30, repository.upsertByExternalKey(batch).getInserted());
+        UpsertResult again = repository.upsertByExternalKey(
+                List.of(keyed("key-1", "Renamed"), keyed("key-2", "Imported 2")));
+        assertEquals(0, again.getInserted());
+        assertEquals(1, again.getUpdated());
+        assertEquals(30, repository.count());
+
+        Task renamed = repository.findAll().stream().filter(task -> "key-1".equals(task.getExternalKey()))
+                .findFirst().orElseThrow();
+        assertEquals("Renamed", renamed.getTitle());
+        assertEquals(TaskShardRouter.bucketOfKey("key-1"), TaskShardRouter.bucketOfId(renamed.getId()));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> repository.insertAll(List.of(keyed("key-new", "New"), keyed("key-3", "Again"))));
+        assertThrows(DataIntegrityViolationException.class, () -> repository.save(keyed("key-4", "Again")));
+        assertEquals(30, repository.count());
+    }
+
+    @Test
+    void upsertByExternalKey_bringsBackArchivedTasksOnlyWhenChanged() {
+        ShardedTaskRepository repository = open(shards(2));
+        Task done = keyed("key-done", "Shipped");
+        done.setStatus(TaskStatus.DONE);
+        Task open = keyed("key-open", "Open");
+        repository.upsertByExternalKey(List.of(done, open));
+        assertEquals(1, repository.archiveCompleted(LocalDateTime.now().plusDays(1), 10));
+
+        UpsertResult replayed = repository.upsertByExternalKey(List.of(done, open));
+        assertEquals(List.of(0, 0, 2), List.of(replayed.getInserted(), replayed.getUpdated(), replayed.getUnchanged()));
+        assertEquals(1, repository.findByArchivedFalse().size());
+
+        done.setTitle("Shipped, reopened");
+        UpsertResult changed = repository.upsertByExternalKey(List.of(done));
+        assertEquals(1, changed.getUpdated());
+        assertEquals(2, repository.findByArchivedFalse().size());
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    void queryByExample_matchesTasksFromEveryShard() {
+        ShardedTaskRepository repository = open(shards(3));
+        for (int i = 0; i < 12; i++) {
+            repository.save(new Task("Task " + i, null, i % 3 == 0 ? TaskStatus.DONE : TaskStatus.TODO, TODAY));
+        }
+        repository.save(keyed("key-1", "Imported"));
+
+        Task done = new Task(null, null, TaskStatus.DONE, null);
+        assertEquals(4, repository.count(Example.of(done)));
+        assertEquals(List.of("Task 9", "Task 6"), repository.findAll(Example.of(done),
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "title"))).map(Task::getTitle).getContent());
+
+        Task byKey = new Task();
+        byKey.setExternalKey("key-1");
+        assertEquals("Imported", repository.findOne(Example.of(byKey)).orElseThrow().getTitle());
+        Task titled = new Task("task 1", null, null, null);
+        titled.setStatus(null);
+        ExampleMatcher startingIgnoringCase = ExampleMatcher.matching()
+                .withStringMatcher(ExampleMatcher.StringMatcher.STARTING).withIgnoreCase();
+        assertEquals(List.of("Task 1", "Task 10", "Task 11"), repository.findBy(
+                Example.of(titled, startingIgnoringCase), query -> query.sortBy(Sort.by("title")).all())
+                .stream().map(Task::getTitle).toList());
+    }
+
+    @Test
+    void concurrentClaims_getDisjointTasksFromEveryShard() throws Exception {
+        ShardedTaskRepository repository = open(shards(3));
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            tasks.add(new Task("Task " + i, null, TaskStatus.TODO, TODAY.plusDays(i % 10)));
+        }
+        repository.saveAll(tasks);
+        LocalDateTime leaseUntil = LocalDateTime.of(2026, 3, 10, 12, 0);
+
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        List<Future<List<Long>>> claims = new ArrayList<>();
+        for (int worker = 0; worker < 4; worker++) {
+            String owner = "agent-" + worker;
+            claims.add(workers.submit(() -> {
+                List<Long> claimed = new ArrayList<>();
+                List<Long> batch;
+                while (!(batch = repository.claim(owner, leaseUntil, 7)).isEmpty()) {
+                    claimed.addAll(batch);
+                }
+                return claimed;
+            }));
+        }
+        Set<Long> claimed = new HashSet<>();
+        int total = 0;
+        for (Future<List<Long>> claim : claims) {
+            List<Long> ids = claim.get(30, TimeUnit.SECONDS);
+            claimed.addAll(ids);
+            total += ids.size();
+        }
+        workers.shutdown();
+
+        assertEquals(200, total);
+        assertEquals(200, claimed.size());
+        Task task = repository.findById(claimed.iterator().next()).orElseThrow();
+        assertEquals(TaskStatus.IN_PROGRESS, task.getStatus());
+        assertTrue(repository.renewLease(task.getId(), task.getLeaseOwner(), leaseUntil.plusMinutes(5)));
+        assertEquals(199, repository.reclaimExpiredLeases(leaseUntil.plusMinutes(1), 1000));
+        assertEquals(TaskStatus.TODO, repository.findById(claimed.stream()
+                .filter(id -> !id.equals(task.getId())).findFirst().orElseThrow()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void rebalance_backfillsFromALegacyDatabaseAndMovesOnlyWhatANewShardTakesOver() {
+        TaskShard legacy = shards(1).get(0);
+        for (long id = 1; id <= 500; id++) {
+            Task row = new Task("Legacy " + id, null, TaskStatus.TODO, null);
+            row.setId(id);
+            legacy.insert(row);
+        }
+        List<TaskShard> shards = shards(3);
+        ShardedTaskRepository two = open(shards.subList(0, 2));
+
+        assertEquals(500, new TaskShardRebalancer(two, 64).rebalance(List.of(legacy)));
+        assertEquals(0, legacy.count());
+        assertEquals(500, two.count());
+        Task added = two.save(new Task("After backfill", null, TaskStatus.TODO, null));
+        assertTrue(added.getId() > 500);
+
+        long onFirstTwo = shards.get(0).count() + shards.get(1).count();
+        ShardedTaskRepository three = open(shards);
+        long moved = new TaskShardRebalancer(three, 64).rebalance(List.of());
+
+        assertEquals(shards.get(2).count(), moved);
+        assertEquals(onFirstTwo - moved, shards.get(0).count() + shards.get(1).count());
+        for (int shard = 0; shard < 3; shard++) {
+            for (Task row : shards.get(shard).findAll(true)) {
+                assertEquals(shard, three.getRouter().shardOfId(row.getId()));
+            }
+        }
+        assertEquals("Legacy 42", three.findById(42L).orElseThrow().getTitle());
+    }
+
+    @Test
+    void addingAShard_onlyMovesBucketsToTheNewShard() {
+        for (int shards = 1; shards < 16; shards++) {
+            TaskShardRouter before = new TaskShardRouter(shards);
+            TaskShardRouter after = new TaskShardRouter(shards + 1);
+            int moved = 0;
+            for (int bucket = 0; bucket < TaskShardRouter.BUCKETS; bucket++) {
+                if (before.shardOfBucket(bucket) != after.shardOfBucket(bucket)) {
+                    assertEquals(shards, after.shardOfBucket(bucket));
+                    moved++;
+                }
+            }
+            assertTrue(moved > 0 && moved < TaskShardRouter.BUCKETS * 2 / (shards + 1), "moved " + moved);
+        }
+    }
+
+    private ShardedTaskRepository open(List<TaskShard> shards) {
+        ShardedTaskRepository repository = new ShardedTaskRepository(shards);
+        repositories.add(repository);
+        return repository;
+    }
+
+    private static List<TaskShard> shards(int count) {
+        List<TaskShard> shards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:shard-" + UUID.randomUUID() + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+            TaskShard shard = new TaskShard("shard-" + i, dataSource);
+            shard.createSchema();
+            shards.add(shard);
+        }
+        return shards;
+    }
+
+    private static Task keyed(String key, String title) {
+        Task task = new Task(title, null, TaskStatus.TODO, null);
+        task.setExternalKey(key);
+        return task;
+    }
+}
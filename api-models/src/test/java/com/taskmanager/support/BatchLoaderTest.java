@@ -0,0 +1,141 @@
+package com.taskmanager.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchLoaderTest {
+
+    private static final int CALLERS = 16;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    private final List<Set<Integer>> queries = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentLoads_shareOneQueryOnceTheBatchIsFull() throws Exception {
+        // A window far longer than the test: only a full batch can end it
+        BatchLoader<Integer, String> loader = new BatchLoader<>(this::evenKeysOnly, 60_000_000, CALLERS);
+
+        long started = System.nanoTime();
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            int key = i;
+            futures.add(executor.submit(() -> loader.load(key)));
+        }
+        for (int i = 0; i < CALLERS; i++) {
+            String value = futures.get(i).get(10, TimeUnit.SECONDS);
+            if (i % 2 == 0) {
+                assertEquals("v" + i, value);
+            } else {
+                assertNull(value);
+            }
+        }
+
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started) < 10);
+        assertEquals(1, queries.size());
+        assertEquals(CALLERS, queries.get(0).size());
+        assertEquals(1, loader.getBatchCount());
+        assertEquals(CALLERS, loader.getKeyCount());
+    }
+
+    @Test
+    void batchWindow_endsAPartialBatch() {
+        BatchLoader<Integer, String> loader = new BatchLoader<>(this::evenKeysOnly, 500, 100);
+
+        assertEquals("v2", loader.load(2));
+        assertNull(loader.load(3));
+
+        assertEquals(List.of(Set.of(2), Set.of(3)), queries);
+    }
+
+    @Test
+    void failure_failsEveryCallerInTheBatchButIsNotCached() throws Exception {
+        AtomicBoolean down = new AtomicBoolean(true);
+        BatchLoader<Integer, String> loader = new BatchLoader<>(keys -> {
+            if (down.get()) {
+                throw new IllegalStateException("db down");
+            }
+            return evenKeysOnly(keys);
+        }, 200_000, 4);
+
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            int key = i * 2;
+            futures.add(executor.submit(() -> loader.load(key)));
+        }
+        for (Future<String> future : futures) {
+            Exception ex = assertThrows(Exception.class, () -> future.get(10, TimeUnit.SECONDS));
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+
+        down.set(false);
+        assertEquals("v4", loader.load(4));
+    }
+
+    @Test
+    void openersDeadline_doesNotFailTheLoadForCallersWithMoreTime() throws Exception {
+        BatchLoader<Integer, String> loader = new BatchLoader<>(keys -> {
+            sleep(300);
+            Deadline.checkCurrent("the batch query");
+            return evenKeysOnly(keys);
+        }, 5_000_000, 2);
+
+        Future<String> opener = executor.submit(() -> {
+            try (Scope scope = Deadline.open(Deadline.after(Duration.ofMillis(100)))) {
+                return loader.load(2);
+            }
+        });
+        sleep(50);
+        Future<String> patient = executor.submit(() -> {
+            try (Scope scope = Deadline.open(Deadline.after(Duration.ofSeconds(10)))) {
+                return loader.load(4);
+            }
+        });
+
+        assertEquals("v4", patient.get(10, TimeUnit.SECONDS));
+        assertEquals("v2", opener.get(10, TimeUnit.SECONDS));
+        assertEquals(List.of(Set.of(2, 4)), queries);
+    }
+
+    private Map<Integer, String> evenKeysOnly(Collection<Integer> keys) {
+        queries.add(Set.copyOf(keys));
+        Map<Integer, String> values = new HashMap<>();
+        for (Integer key : keys) {
+            if (key % 2 == 0) {
+                values.put(key, "v" + key);
+            }
+        }
+        return values;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.taskmanager.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongBloomFilterTest {
+
+    @Test
+    void addedValues_areAlwaysFound_andOthersRarely() {
+        LongBloomFilter filter = new LongBloomFilter(100_000, 0.01);
+        for (long id = 1; id <= 100_000; id++) {
+            filter.add(id);
+        }
+
+        for (long id = 1; id <= 100_000; id++) {
+            assertTrue(filter.mightContain(id));
+        }
+        int falsePositives = 0;
+        for (long id = 100_001; id <= 200_000; id++) {
+            if (filter.mightContain(id)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 1_500, "false positives: " + falsePositives);
+        assertTrue(filter.expectedFalsePositiveRate() > 0.005 && filter.expectedFalsePositiveRate() < 0.015);
+        assertTrue(filter.approximateCount() > 99_000);
+        assertEquals(7, filter.hashCount());
+        assertEquals(filter.bitCount() / 8, filter.sizeInBytes());
+    }
+
+    @Test
+    void add_reportsWhetherTheValueWasNew() {
+        LongBloomFilter filter = new LongBloomFilter(1_000, 0.01);
+
+        assertFalse(filter.mightContain(42));
+        assertTrue(filter.add(42));
+        assertFalse(filter.add(42));
+        assertEquals(1, filter.approximateCount());
+        assertEquals(0.0, new LongBloomFilter(1_000, 0.01).expectedFalsePositiveRate());
+    }
+
+    @Test
+    void concurrentAdds_loseNoBits() throws Exception {
+        LongBloomFilter filter = new LongBloomFilter(400_000, 0.01);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] writers = new Future<?>[4];
+            for (int w = 0; w < 4; w++) {
+                long first = w * 100_000L;
+                writers[w] = executor.submit(() -> {
+                    for (long id = first; id < first + 100_000; id++) {
+                        filter.add(id);
+                    }
+                });
+            }
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (long id = 0; id < 400_000; id++) {
+            assertTrue(filter.mightContain(id));
+        }
+    }
+
+    @Test
+    void invalidSizing_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new LongBloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new LongBloomFilter(10, 1.0));
+    }
+}
@@ -0,0 +1,148 @@
+package com.taskmanager.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 32;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallers_shareOneLoad() throws Exception {
+        SingleFlight<String, List<String>> flight = new SingleFlight<>(0);
+        AtomicInteger loads = new AtomicInteger();
+        List<String> result = List.of("shared");
+
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            futures.add(executor.submit(() -> flight.execute("key", () -> {
+                loads.incrementAndGet();
+                awaitCoalesced(flight, CALLERS - 1);
+                return result;
+            })));
+        }
+
+        for (Future<List<String>> future : futures) {
+            assertSame(result, future.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, flight.getLoadCount());
+        assertEquals(CALLERS - 1, flight.getCoalescedCount());
+    }
+
+    @Test
+    void withoutTtl_sequentialCallsLoadAgain() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(0);
+        AtomicInteger loads = new AtomicInteger();
+
+        flight.execute("key", loads::incrementAndGet);
+        flight.execute("key", loads::incrementAndGet);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void withTtl_servesFreshResultThenReloads() {
+        AtomicLong clock = new AtomicLong();
+        SingleFlight<String, Integer> flight = new SingleFlight<>(50, clock::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(1, flight.execute("key", loads::incrementAndGet));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(49));
+        assertEquals(1, flight.execute("key", loads::incrementAndGet));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(2, flight.execute("key", loads::incrementAndGet));
+    }
+
+    @Test
+    void invalidate_forcesReloadWithinTtl() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        flight.execute("key", loads::incrementAndGet);
+        flight.invalidate("key");
+        flight.execute("key", loads::incrementAndGet);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void failure_isSharedWithWaitersButNotCached() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(60_000);
+
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(executor.submit(() -> flight.execute("key", () -> {
+                awaitCoalesced(flight, 3);
+                throw new IllegalStateException("db down");
+            })));
+        }
+        for (Future<Integer> future : futures) {
+            Exception ex = assertThrows(Exception.class, () -> future.get(10, TimeUnit.SECONDS));
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+
+        assertEquals(7, flight.execute("key", () -> 7));
+    }
+
+    @Test
+    void waiter_givesUpAtItsOwnDeadline() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>(0);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Integer> loader = executor.submit(() -> flight.execute("key", () -> {
+            await(release);
+            return 1;
+        }));
+        while (flight.getLoadCount() == 0) {
+            Thread.onSpinWait();
+        }
+
+        long started = System.nanoTime();
+        try (Scope scope = Deadline.open(Deadline.after(Duration.ofMillis(100)))) {
+            assertThrows(DeadlineExceededException.class, () -> flight.execute("key", () -> 2));
+        }
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        release.countDown();
+
+        assertTrue(waitedMillis >= 100 && waitedMillis < 5_000, "waited " + waitedMillis + " ms");
+        assertEquals(1, loader.get(10, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitCoalesced(SingleFlight<?, ?> flight, long expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (flight.getCoalescedCount() < expected && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+}
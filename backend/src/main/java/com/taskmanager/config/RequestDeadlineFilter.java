@@ -0,0 +1,47 @@
+package com.taskmanager.config;
+
+import com.taskmanager.support.Deadline;
+import com.taskmanager.support.Scope;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Gives every API request a {@link Deadline} of {@code app.db.request-deadline-ms}. Database
+ * statements issued while handling the request are cancelled when it passes, so a stalled
+ * database releases the request thread instead of holding it until the client gives up.
+ * Bulk import and export stream for as long as the body takes and are bounded by the bulk
+ * statement timeout instead.
+ */
+@Component
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    private final Duration requestDeadline;
+
+    public RequestDeadlineFilter(@Value("${app.db.request-deadline-ms:15000}") long requestDeadlineMillis) {
+        this.requestDeadline = Duration.ofMillis(requestDeadlineMillis);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return requestDeadline.isZero() || requestDeadline.isNegative()
+                || !path.startsWith(request.getContextPath() + "/api/")
+                || path.endsWith("/import") || path.endsWith("/export");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try (Scope scope = Deadline.open(Deadline.after(requestDeadline))) {
+            chain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.taskmanager.config;
+
+import com.taskmanager.support.Scope;
+import com.taskmanager.support.WorkloadClass;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Runs every API request in its {@link WorkloadClass}, which decides its share of the connection
+ * pool and its place in the queue for connections: bulk import is bulk work, export is analytics,
+ * and everything else is an interactive read or write by method. The export body is streamed on
+ * another thread and opens its class there.
+ */
+@Component
+public class WorkloadClassFilter extends OncePerRequestFilter {
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try (Scope scope = classify(request).open()) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    static WorkloadClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (path.endsWith("/import")) {
+            return WorkloadClass.BULK;
+        }
+        if (path.endsWith("/export")) {
+            return WorkloadClass.ANALYTICS;
+        }
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method) ? WorkloadClass.INTERACTIVE_READ
+                : WorkloadClass.INTERACTIVE_WRITE;
+    }
+}
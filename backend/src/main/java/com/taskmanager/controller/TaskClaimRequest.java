@@ -0,0 +1,38 @@
+package com.taskmanager.controller;
+
+import com.taskmanager.model.Task;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Body of {@code POST /api/tasks/claim}.
+ */
+public class TaskClaimRequest {
+
+    @NotBlank(message = "Owner is required")
+    @Size(max = Task.LEASE_OWNER_MAX_LENGTH, message = "Owner must not exceed " + Task.LEASE_OWNER_MAX_LENGTH
+            + " characters")
+    private String owner;
+
+    @Min(value = 1, message = "Limit must be at least 1")
+    @Max(value = 1000, message = "Limit must be at most 1000")
+    private int limit = 1;
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
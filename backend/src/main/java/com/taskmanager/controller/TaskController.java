@@ -1,13 +1,31 @@
 package com.taskmanager.controller;
 
+import com.taskmanager.export.TaskArrowExporter;
 import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStats;
+import com.taskmanager.service.TaskExportService;
+import com.taskmanager.service.TaskImportResult;
+import com.taskmanager.service.TaskImportService;
+import com.taskmanager.service.TaskLeaseService;
 import com.taskmanager.service.TaskService;
+import com.taskmanager.support.Scope;
+import com.taskmanager.support.WorkloadClass;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -15,15 +33,96 @@ import java.util.List;
 public class TaskController {
 
     private final TaskService taskService;
+    private final TaskExportService taskExportService;
+    private final TaskImportService taskImportService;
+    private final TaskLeaseService taskLeaseService;
+    private final int multiGetMaxIds;
 
     @Autowired
-    public TaskController(TaskService taskService) {
+    public TaskController(TaskService taskService, TaskExportService taskExportService,
+            TaskImportService taskImportService, TaskLeaseService taskLeaseService,
+            @Value("${app.tasks.multi-get.max-ids:1000}") int multiGetMaxIds) {
         this.taskService = taskService;
+        this.taskExportService = taskExportService;
+        this.taskImportService = taskImportService;
+        this.taskLeaseService = taskLeaseService;
+        this.multiGetMaxIds = multiGetMaxIds;
     }
 
     @GetMapping
-    public ResponseEntity<List<Task>> getAllTasks() {
-        return ResponseEntity.ok(taskService.getAllTasks());
+    public ResponseEntity<List<Task>> getAllTasks(@RequestParam(defaultValue = "false") boolean includeArchived) {
+        return ResponseEntity.ok(taskService.getAllTasks(includeArchived));
+    }
+
+    /**
+     * Multi-get, e.g. {@code ?ids=3,1,2}: the tasks that exist, in the order given, from one query.
+     * Unknown ids are left out; more than {@code app.tasks.multi-get.max-ids} ids is a bad request.
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<Task>> getTasksByIds(@RequestParam List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > multiGetMaxIds) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(taskService.getTasksByIds(ids));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<TaskStats> getTaskStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return ResponseEntity.ok(taskService.getTaskStats(asOf != null ? asOf : LocalDate.now(), includeArchived));
+    }
+
+    /**
+     * Streams all tasks as an Arrow IPC file; the body is written after this method returns, on
+     * another thread, so it opens its workload class itself.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTasks(
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename("tasks-" + LocalDate.now() + TaskArrowExporter.FILE_EXTENSION)
+                .build();
+        StreamingResponseBody body = out -> {
+            try (Scope scope = WorkloadClass.ANALYTICS.open()) {
+                taskExportService.exportArrow(includeArchived, Channels.newChannel(out));
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(TaskArrowExporter.CONTENT_TYPE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(body);
+    }
+
+    /**
+     * Imports an NDJSON or CSV body without buffering it; see {@link TaskImportService}.
+     */
+    @PostMapping(path = "/import", consumes = {TaskImportService.NDJSON, TaskImportService.CSV})
+    public ResponseEntity<TaskImportResult> importTasks(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream body) throws IOException {
+        TaskImportService.Format format = contentType.isCompatibleWith(MediaType.valueOf(TaskImportService.CSV))
+                ? TaskImportService.Format.CSV
+                : TaskImportService.Format.NDJSON;
+        return ResponseEntity.ok(taskImportService.importTasks(body, format));
+    }
+
+    /**
+     * Claims the earliest-due {@code TODO} tasks for a worker; see {@link TaskLeaseService}. An
+     * empty list means there is nothing left to claim.
+     */
+    @PostMapping("/claim")
+    public ResponseEntity<List<Task>> claimTasks(@Valid @RequestBody TaskClaimRequest request) {
+        return ResponseEntity.ok(taskLeaseService.claim(request.getOwner(), request.getLimit()));
+    }
+
+    @PostMapping("/{id}/heartbeat")
+    public ResponseEntity<Task> heartbeat(@PathVariable Long id, @Valid @RequestBody TaskLeaseRequest request) {
+        return ResponseEntity.ok(taskLeaseService.heartbeat(id, request.getOwner()));
+    }
+
+    @PostMapping("/{id}/release")
+    public ResponseEntity<Task> release(@PathVariable Long id, @Valid @RequestBody TaskLeaseRequest request) {
+        return ResponseEntity.ok(taskLeaseService.release(id, request.getOwner(), request.getStatus()));
     }
 
     @GetMapping("/{id}")
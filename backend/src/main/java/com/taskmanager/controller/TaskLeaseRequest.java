@@ -0,0 +1,44 @@
+package com.taskmanager.controller;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Body of the heartbeat and release endpoints; {@code status} applies to release only and is
+ * {@code TODO} (hand the task back, the default) or {@code DONE}.
+ */
+public class TaskLeaseRequest {
+
+    @NotBlank(message = "Owner is required")
+    @Size(max = Task.LEASE_OWNER_MAX_LENGTH, message = "Owner must not exceed " + Task.LEASE_OWNER_MAX_LENGTH
+            + " characters")
+    private String owner;
+
+    private TaskStatus status;
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public TaskStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(TaskStatus status) {
+        this.status = status;
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "Status must be TODO or DONE")
+    public boolean isStatusValid() {
+        return status != TaskStatus.IN_PROGRESS;
+    }
+}
@@ -0,0 +1,35 @@
+package com.taskmanager.controller;
+
+import com.taskmanager.reminder.SseReminderSink;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/tasks/reminders")
+public class TaskReminderController {
+
+    private final SseReminderSink sseReminderSink;
+
+    @Autowired
+    public TaskReminderController(SseReminderSink sseReminderSink) {
+        this.sseReminderSink = sseReminderSink;
+    }
+
+    /**
+     * Streams due-date reminders as server-sent events; 503 when too many streams are open.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamReminders() {
+        SseEmitter emitter = sseReminderSink.subscribe();
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+}
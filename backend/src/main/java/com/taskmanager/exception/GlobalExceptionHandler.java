@@ -1,8 +1,16 @@
 package com.taskmanager.exception;
 
+import com.taskmanager.repository.resilience.BulkheadFullException;
+import com.taskmanager.repository.resilience.CircuitOpenException;
+import com.taskmanager.support.DeadlineExceededException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -20,6 +28,11 @@ public class GlobalExceptionHandler {
         return buildError(HttpStatus.NOT_FOUND, ex.getMessage(), null);
     }
 
+    @ExceptionHandler(LeaseConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleLeaseConflict(LeaseConflictException ex) {
+        return buildError(HttpStatus.CONFLICT, ex.getMessage(), null);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationException(MethodArgumentNotValidException ex) {
         Map<String, String> fieldErrors = new LinkedHashMap<>();
@@ -35,6 +48,34 @@ public class GlobalExceptionHandler {
         return buildError(HttpStatus.BAD_REQUEST, "Invalid request payload", null);
     }
 
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Map<String, Object>> handleConflict(DataIntegrityViolationException ex) {
+        return buildError(HttpStatus.CONFLICT, "Request conflicts with existing data", null);
+    }
+
+    @ExceptionHandler(CircuitOpenException.class)
+    public ResponseEntity<Map<String, Object>> handleCircuitOpen(CircuitOpenException ex) {
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfterMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(buildError(HttpStatus.SERVICE_UNAVAILABLE, "Database temporarily unavailable", null).getBody());
+    }
+
+    @ExceptionHandler({DeadlineExceededException.class, QueryTimeoutException.class})
+    public ResponseEntity<Map<String, Object>> handleTimeout(RuntimeException ex) {
+        return buildError(HttpStatus.SERVICE_UNAVAILABLE, "Database did not respond in time", null);
+    }
+
+    @ExceptionHandler({DataAccessResourceFailureException.class, CannotCreateTransactionException.class})
+    public ResponseEntity<Map<String, Object>> handleDatabaseUnavailable(RuntimeException ex) {
+        if (BulkheadFullException.causedBy(ex)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(buildError(HttpStatus.SERVICE_UNAVAILABLE, "Server busy, retry later", null).getBody());
+        }
+        return buildError(HttpStatus.SERVICE_UNAVAILABLE, "Database unavailable", null);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleUnexpected(Exception ex) {
         return buildError(HttpStatus.INTERNAL_SERVER_ERROR, "Unexpected server error", null);
@@ -0,0 +1,16 @@
+package com.taskmanager.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The caller does not hold the lease on a task it tried to renew or release, because it expired and
+ * was reclaimed, or another worker claimed the task since.
+ */
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class LeaseConflictException extends RuntimeException {
+
+    public LeaseConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,22 @@
+package com.taskmanager.reminder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes each reminder to the log.
+ */
+@Component
+@ConditionalOnProperty(name = "app.tasks.reminders.log.enabled", havingValue = "true", matchIfMissing = true)
+public class LoggingReminderSink implements TaskReminderSink {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggingReminderSink.class);
+
+    @Override
+    public void deliver(TaskReminder reminder) {
+        log.info("Reminder: task {} '{}' is {} (due {})", reminder.getTaskId(), reminder.getTitle(),
+                reminder.getKind() == TaskReminder.Kind.OVERDUE ? "overdue" : "due soon", reminder.getDueDate());
+    }
+}
@@ -0,0 +1,65 @@
+package com.taskmanager.reminder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Streams reminders to clients of {@code GET /api/tasks/reminders} as server-sent events named
+ * {@code reminder}. At most {@code max-subscribers} streams are open at once; each ends after
+ * {@code timeout-ms}, after which {@code EventSource} clients reconnect on their own.
+ */
+@Component
+public class SseReminderSink implements TaskReminderSink {
+
+    private static final Logger log = LoggerFactory.getLogger(SseReminderSink.class);
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+
+    public SseReminderSink(
+            @Value("${app.tasks.reminders.sse.max-subscribers:100}") int maxSubscribers,
+            @Value("${app.tasks.reminders.sse.timeout-ms:1800000}") long timeoutMillis) {
+        this.maxSubscribers = Math.max(0, maxSubscribers);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Opens a stream, or returns {@code null} when {@code max-subscribers} streams are open.
+     */
+    public SseEmitter subscribe() {
+        if (emitters.size() >= maxSubscribers) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emitters.add(emitter);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(error -> emitters.remove(emitter));
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return emitters.size();
+    }
+
+    @Override
+    public void deliver(TaskReminder reminder) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name("reminder").data(reminder));
+            } catch (IOException | IllegalStateException ex) {
+                log.debug("Dropping reminder stream: {}", ex.getMessage());
+                emitters.remove(emitter);
+                emitter.completeWithError(ex);
+            }
+        }
+    }
+}
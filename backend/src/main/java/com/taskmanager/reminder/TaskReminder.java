@@ -0,0 +1,56 @@
+package com.taskmanager.reminder;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * A due-date reminder for one task, as delivered to {@link TaskReminderSink}s.
+ */
+public final class TaskReminder {
+
+    public enum Kind {
+        /** The task is due within the lead time. */
+        UPCOMING,
+        /** The task's due date has passed and it is not done. */
+        OVERDUE
+    }
+
+    private final Kind kind;
+    private final Long taskId;
+    private final String title;
+    private final LocalDate dueDate;
+    private final Instant fireAt;
+
+    public TaskReminder(Kind kind, Long taskId, String title, LocalDate dueDate, Instant fireAt) {
+        this.kind = kind;
+        this.taskId = taskId;
+        this.title = title;
+        this.dueDate = dueDate;
+        this.fireAt = fireAt;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    public Instant getFireAt() {
+        return fireAt;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " task " + taskId + " due " + dueDate;
+    }
+}
@@ -0,0 +1,400 @@
+package com.taskmanager.reminder;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.TaskField;
+import com.taskmanager.repository.TaskFilter;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.service.TaskService;
+import com.taskmanager.support.Scope;
+import com.taskmanager.support.WorkloadClass;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Fires due-date reminders without polling the task table. For a task that is not done,
+ * {@link TaskReminder.Kind#UPCOMING UPCOMING} fires at the start of the day {@code lead-days} before
+ * it is due and {@link TaskReminder.Kind#OVERDUE OVERDUE} at the start of the day after.
+ * <p>
+ * Only reminders firing within the next {@code look-ahead-days} are held, in a queue ordered by
+ * fire time, so memory is bounded by the tasks due in that window rather than by the table. The
+ * window is loaded with range queries on {@code due_date} (served by the {@code (due_date, status)}
+ * index): in full at start-up and every {@code refresh-ms}, which picks up writes by other
+ * services, and one day at a time as the window moves. Writes through {@link TaskService} update
+ * the queue at once. A single thread sleeps until the earliest of the next reminder, the next day
+ * and the next refresh; before firing, it re-reads the tasks and drops reminders for tasks that
+ * were deleted, done, archived or moved since they were queued.
+ * <p>
+ * Reminders whose time passed while the service was down, or before a task was created or moved,
+ * are not fired late.
+ */
+@Component
+@ConditionalOnProperty(name = "app.tasks.reminders.enabled", havingValue = "true", matchIfMissing = true)
+public class TaskReminderScheduler implements TaskService.WriteListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskReminderScheduler.class);
+
+    private static final Set<TaskField> FIELDS = EnumSet.of(TaskField.TITLE, TaskField.DUE_DATE);
+    private static final Comparator<TaskReminder> ORDER = Comparator.comparing(TaskReminder::getFireAt)
+            .thenComparing(TaskReminder::getTaskId)
+            .thenComparing(TaskReminder::getKind);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+
+    private final TaskRepository taskRepository;
+    private final ObjectProvider<TaskReminderSink> sinks;
+    private final Clock clock;
+    private final int leadDays;
+    private final int lookAheadDays;
+    private final Duration refreshInterval;
+    private final int pageSize;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-reminders");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this
+    private final TreeSet<TaskReminder> queue = new TreeSet<>(ORDER);
+    private final Map<Long, List<TaskReminder>> byTask = new HashMap<>();
+    /** First fire day not loaded yet; {@code null} until the first load. */
+    private LocalDate horizon;
+    private Instant nextRefresh = Instant.MIN;
+    /** Reminders set by writes while a load reads the database; they win over what it read. */
+    private Map<Long, List<TaskReminder>> writtenDuringLoad;
+    private ScheduledFuture<?> wakeUp;
+    private Instant wakeAt;
+
+    @Autowired
+    public TaskReminderScheduler(TaskRepository taskRepository, TaskService taskService,
+            ObjectProvider<TaskReminderSink> sinks,
+            @Value("${app.tasks.reminders.lead-days:1}") int leadDays,
+            @Value("${app.tasks.reminders.look-ahead-days:1}") int lookAheadDays,
+            @Value("${app.tasks.reminders.refresh-ms:300000}") long refreshMillis,
+            @Value("${app.tasks.reminders.page-size:1000}") int pageSize) {
+        this(taskRepository, sinks, Clock.systemDefaultZone(), leadDays, lookAheadDays, refreshMillis, pageSize);
+        taskService.addWriteListener(this);
+    }
+
+    TaskReminderScheduler(TaskRepository taskRepository, ObjectProvider<TaskReminderSink> sinks, Clock clock,
+            int leadDays, int lookAheadDays, long refreshMillis, int pageSize) {
+        this.taskRepository = taskRepository;
+        this.sinks = sinks;
+        this.clock = clock;
+        this.leadDays = Math.max(0, leadDays);
+        this.lookAheadDays = Math.max(0, lookAheadDays);
+        this.refreshInterval = Duration.ofMillis(Math.max(1000, refreshMillis));
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    @PostConstruct
+    void start() {
+        submit(Duration.ZERO);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Fires what is due, then loads or extends the window. Runs on the scheduler thread; tests
+     * call it directly.
+     */
+    void runOnce() {
+        Instant now = clock.instant();
+        LocalDate today = LocalDate.ofInstant(now, clock.getZone());
+        LocalDate end = today.plusDays(lookAheadDays + 1L);
+        try (Scope scope = WorkloadClass.ANALYTICS.open()) {
+            fire(now);
+            LocalDate loadedUntil;
+            Instant refreshAt;
+            synchronized (this) {
+                loadedUntil = horizon;
+                refreshAt = nextRefresh;
+            }
+            if (loadedUntil == null || !now.isBefore(refreshAt)) {
+                load(today, end, now, true);
+            } else if (loadedUntil.isBefore(end)) {
+                load(loadedUntil.isBefore(today) ? today : loadedUntil, end, now, false);
+            }
+        }
+    }
+
+    @Override
+    public void saved(Task task) {
+        Instant now = clock.instant();
+        synchronized (this) {
+            if (horizon == null) {
+                return;
+            }
+            List<TaskReminder> reminders = reminders(task.getId(), task.getTitle(), task.getDueDate(),
+                    task.getStatus(), task.isArchived(), fireDay(now), horizon, now);
+            replace(task.getId(), reminders);
+            if (writtenDuringLoad != null) {
+                writtenDuringLoad.put(task.getId(), reminders);
+            }
+            rearm(now);
+        }
+    }
+
+    @Override
+    public void deleted(Long id) {
+        synchronized (this) {
+            replace(id, List.of());
+            if (writtenDuringLoad != null) {
+                writtenDuringLoad.put(id, List.of());
+            }
+        }
+    }
+
+    synchronized int queuedCount() {
+        return queue.size();
+    }
+
+    synchronized Instant nextFireAt() {
+        return queue.isEmpty() ? null : queue.first().getFireAt();
+    }
+
+    private void run() {
+        try {
+            runOnce();
+            synchronized (this) {
+                rearm(clock.instant());
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Task reminder run failed, retrying in {} s: {}", RETRY_DELAY.toSeconds(), ex.getMessage());
+            synchronized (this) {
+                wakeAt = clock.instant().plus(RETRY_DELAY);
+                wakeUp = submit(RETRY_DELAY);
+            }
+        }
+    }
+
+    /**
+     * Takes the reminders that are due, checks them against the stored tasks and delivers the ones
+     * still valid. If the tasks cannot be read, the reminders go back into the queue.
+     */
+    private void fire(Instant now) {
+        List<TaskReminder> due = new ArrayList<>();
+        synchronized (this) {
+            while (!queue.isEmpty() && !queue.first().getFireAt().isAfter(now)) {
+                TaskReminder reminder = queue.pollFirst();
+                due.add(reminder);
+                List<TaskReminder> ofTask = byTask.get(reminder.getTaskId());
+                if (ofTask != null) {
+                    ofTask.remove(reminder);
+                    if (ofTask.isEmpty()) {
+                        byTask.remove(reminder.getTaskId());
+                    }
+                }
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Task> current;
+        try {
+            current = taskRepository.findAllById(due.stream().map(TaskReminder::getTaskId).distinct().toList())
+                    .stream()
+                    .collect(Collectors.toMap(Task::getId, task -> task));
+        } catch (RuntimeException ex) {
+            synchronized (this) {
+                due.forEach(this::add);
+            }
+            throw ex;
+        }
+        int delivered = 0;
+        for (TaskReminder reminder : due) {
+            Task task = current.get(reminder.getTaskId());
+            if (task == null || task.isArchived() || task.getStatus() == TaskStatus.DONE
+                    || !Objects.equals(task.getDueDate(), reminder.getDueDate())) {
+                continue;
+            }
+            deliver(new TaskReminder(reminder.getKind(), task.getId(), task.getTitle(), task.getDueDate(),
+                    reminder.getFireAt()));
+            delivered++;
+        }
+        log.debug("Fired {} of {} due task reminders", delivered, due.size());
+    }
+
+    private void deliver(TaskReminder reminder) {
+        sinks.orderedStream().forEach(sink -> {
+            try {
+                sink.deliver(reminder);
+            } catch (RuntimeException ex) {
+                log.warn("Reminder sink {} failed for {}: {}", sink.getClass().getSimpleName(), reminder,
+                        ex.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Loads the reminders firing on days {@code [from, to)} and after {@code now}. A full load
+     * replaces the queue; otherwise the reminders are added to it.
+     */
+    private void load(LocalDate from, LocalDate to, Instant now, boolean full) {
+        synchronized (this) {
+            writtenDuringLoad = new HashMap<>();
+        }
+        Map<Long, List<TaskReminder>> loaded = new HashMap<>();
+        try {
+            TaskFilter filter = new TaskFilter();
+            filter.setExcludedStatus(TaskStatus.DONE);
+            // OVERDUE fires the day after the due date, UPCOMING lead-days before it
+            filter.setDueFrom(from.minusDays(1));
+            filter.setDueTo(to.minusDays(1).plusDays(leadDays));
+            long afterId = 0;
+            int rows;
+            do {
+                rows = 0;
+                try (Stream<Map<String, Object>> page = taskRepository.streamByFilter(filter, FIELDS, afterId,
+                        pageSize)) {
+                    for (Map<String, Object> row : (Iterable<Map<String, Object>>) page::iterator) {
+                        Long id = (Long) row.get(TaskField.ID.getFieldName());
+                        List<TaskReminder> reminders = reminders(id, (String) row.get(TaskField.TITLE.getFieldName()),
+                                (LocalDate) row.get(TaskField.DUE_DATE.getFieldName()), null, false, from, to, now);
+                        if (!reminders.isEmpty()) {
+                            loaded.put(id, reminders);
+                        }
+                        afterId = id;
+                        rows++;
+                    }
+                }
+            } while (rows == pageSize);
+        } catch (RuntimeException ex) {
+            synchronized (this) {
+                writtenDuringLoad = null;
+            }
+            throw ex;
+        }
+
+        synchronized (this) {
+            if (full) {
+                queue.clear();
+                byTask.clear();
+                nextRefresh = now.plus(refreshInterval);
+            }
+            Map<Long, List<TaskReminder>> written = writtenDuringLoad;
+            writtenDuringLoad = null;
+            loaded.forEach((id, reminders) -> {
+                if (!written.containsKey(id)) {
+                    reminders.forEach(this::add);
+                }
+            });
+            if (full) {
+                written.forEach(this::replace);
+            }
+            horizon = to;
+        }
+        log.debug("Loaded {} tasks with reminders on {} to {}{}", loaded.size(), from, to.minusDays(1),
+                full ? " (full refresh)" : "");
+    }
+
+    /**
+     * The reminders of a task that fire on days {@code [from, to)} and after {@code now}.
+     */
+    private List<TaskReminder> reminders(Long id, String title, LocalDate dueDate, TaskStatus status,
+            boolean archived, LocalDate from, LocalDate to, Instant now) {
+        if (dueDate == null || status == TaskStatus.DONE || archived) {
+            return List.of();
+        }
+        List<TaskReminder> reminders = new ArrayList<>(2);
+        addIfWithin(reminders, TaskReminder.Kind.UPCOMING, id, title, dueDate, dueDate.minusDays(leadDays), from,
+                to, now);
+        addIfWithin(reminders, TaskReminder.Kind.OVERDUE, id, title, dueDate, dueDate.plusDays(1), from, to, now);
+        return reminders;
+    }
+
+    private void addIfWithin(List<TaskReminder> reminders, TaskReminder.Kind kind, Long id, String title,
+            LocalDate dueDate, LocalDate day, LocalDate from, LocalDate to, Instant now) {
+        if (day.isBefore(from) || !day.isBefore(to)) {
+            return;
+        }
+        Instant fireAt = day.atStartOfDay(clock.getZone()).toInstant();
+        if (fireAt.isAfter(now)) {
+            reminders.add(new TaskReminder(kind, id, title, dueDate, fireAt));
+        }
+    }
+
+    private LocalDate fireDay(Instant now) {
+        return LocalDate.ofInstant(now, clock.getZone());
+    }
+
+    // Callers hold the monitor
+
+    private void add(TaskReminder reminder) {
+        if (queue.add(reminder)) {
+            byTask.computeIfAbsent(reminder.getTaskId(), id -> new ArrayList<>(2)).add(reminder);
+        }
+    }
+
+    private void replace(Long id, List<TaskReminder> reminders) {
+        List<TaskReminder> previous = byTask.remove(id);
+        if (previous != null) {
+            previous.forEach(queue::remove);
+        }
+        reminders.forEach(this::add);
+    }
+
+    /**
+     * Schedules the next run for the earliest of the next reminder, the next day (to move the
+     * window) and the next full refresh, unless a run is already due by then.
+     */
+    private void rearm(Instant now) {
+        if (horizon == null) {
+            return;
+        }
+        Instant next = LocalDate.ofInstant(now, clock.getZone()).plusDays(1).atStartOfDay(clock.getZone()).toInstant();
+        if (nextRefresh.isBefore(next)) {
+            next = nextRefresh;
+        }
+        if (!queue.isEmpty() && queue.first().getFireAt().isBefore(next)) {
+            next = queue.first().getFireAt();
+        }
+        if (wakeUp != null && !wakeUp.isDone() && wakeAt != null && !wakeAt.isAfter(next)) {
+            return;
+        }
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+        }
+        wakeAt = next;
+        wakeUp = submit(Duration.between(now, next));
+    }
+
+    private ScheduledFuture<?> submit(Duration delay) {
+        try {
+            return executor.schedule(this::run, Math.max(0, delay.toMillis()), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException shuttingDown) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.taskmanager.reminder;
+
+/**
+ * Receives reminders from the {@link TaskReminderScheduler}. Every sink bean gets every reminder,
+ * on the scheduler's thread, so implementations must not block for long; an exception is logged
+ * and does not affect other sinks.
+ */
+public interface TaskReminderSink {
+
+    void deliver(TaskReminder reminder);
+}
@@ -0,0 +1,192 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.TaskRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Opt-in write-behind buffer for status-only task updates. Status changes are kept in memory per
+ * task id, so repeated flips of the same task collapse into its latest status, and are written
+ * every {@code app.tasks.write-behind.window-ms} as one {@code UPDATE} per target status.
+ * <p>
+ * Durability trade-off: a status change is acknowledged before it is written. On a graceful
+ * shutdown the buffer is flushed, but if the process dies, changes accepted during the last window
+ * are lost. While a change is pending, reads through {@link TaskService} see it, but other
+ * services reading the database (and the stats endpoint) see the old status until the flush.
+ */
+@Component
+public class StatusWriteBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(StatusWriteBuffer.class);
+
+    private final TaskRepository taskRepository;
+    private final boolean enabled;
+    private final int maxPending;
+    private final ConcurrentHashMap<Long, TaskStatus> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final List<Runnable> flushListeners = new ArrayList<>();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    @Autowired
+    public StatusWriteBuffer(TaskRepository taskRepository,
+            @Value("${app.tasks.write-behind.enabled:false}") boolean enabled,
+            @Value("${app.tasks.write-behind.max-pending:10000}") int maxPending) {
+        this.taskRepository = taskRepository;
+        this.enabled = enabled;
+        this.maxPending = Math.max(1, maxPending);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues {@code status} for {@code id}, replacing any status still pending for it. Returns
+     * false when write-behind is off or the buffer is full; the caller then writes synchronously.
+     */
+    public boolean submit(Long id, TaskStatus status) {
+        if (!enabled) {
+            return false;
+        }
+        if (pending.size() >= maxPending && !pending.containsKey(id)) {
+            return false;
+        }
+        pending.put(id, status);
+        accepted.increment();
+        return true;
+    }
+
+    /**
+     * Drops the pending status for {@code id} before a synchronous write of the same task. Waits
+     * for a flush in progress, so an older buffered status can never land after the caller's write.
+     */
+    public void discard(Long id) {
+        if (pending.isEmpty() && !flushLock.isLocked()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            pending.remove(id);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Returns {@code task} as readers should see it: a copy carrying the pending status if there is
+     * one, the same instance otherwise. Shared instances are never mutated.
+     */
+    public Task overlay(Task task) {
+        TaskStatus status = task != null ? pending.get(task.getId()) : null;
+        if (status == null || status == task.getStatus()) {
+            return task;
+        }
+        Task copy = new Task(task.getTitle(), task.getDescription(), status, task.getDueDate());
+        copy.setId(task.getId());
+        copy.setExternalKey(task.getExternalKey());
+        copy.setArchived(task.isArchived() && status == TaskStatus.DONE);
+        copy.setCompletedAt(status == TaskStatus.DONE ? task.getCompletedAt() : null);
+        return copy;
+    }
+
+    public List<Task> overlay(List<Task> tasks) {
+        if (pending.isEmpty()) {
+            return tasks;
+        }
+        List<Task> result = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            result.add(overlay(task));
+        }
+        return result;
+    }
+
+    void addFlushListener(Runnable listener) {
+        flushListeners.add(listener);
+    }
+
+    @Scheduled(fixedDelayString = "${app.tasks.write-behind.window-ms:200}")
+    public void flushScheduled() {
+        if (!pending.isEmpty()) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes every pending status. Entries superseded while the write ran stay pending for the next
+     * flush; on a database error everything stays pending and is retried.
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            Map<Long, TaskStatus> snapshot = new HashMap<>(pending);
+            if (snapshot.isEmpty()) {
+                return 0;
+            }
+            Map<TaskStatus, List<Long>> idsByStatus = new EnumMap<>(TaskStatus.class);
+            snapshot.forEach((id, status) -> idsByStatus.computeIfAbsent(status, s -> new ArrayList<>()).add(id));
+
+            int rows = 0;
+            try {
+                for (Map.Entry<TaskStatus, List<Long>> entry : idsByStatus.entrySet()) {
+                    rows += taskRepository.updateStatusByIds(entry.getKey(), entry.getValue());
+                }
+            } catch (DataAccessException ex) {
+                log.warn("Write-behind flush of {} status changes failed, will retry: {}", snapshot.size(),
+                        ex.getMostSpecificCause().getMessage());
+                return 0;
+            }
+            // Drop cached reads before the overlay goes away, so readers never see the old status again.
+            flushListeners.forEach(Runnable::run);
+            snapshot.forEach(pending::remove);
+            written.add(snapshot.size());
+            return rows;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        int remaining = pending.size();
+        if (remaining > 0) {
+            log.info("Flushing {} buffered status changes on shutdown", remaining);
+            flush();
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Status changes accepted into the buffer, including ones later superseded.
+     */
+    public long getAcceptedCount() {
+        return accepted.sum();
+    }
+
+    /**
+     * Coalesced status changes written to the database.
+     */
+    public long getWrittenCount() {
+        return written.sum();
+    }
+}
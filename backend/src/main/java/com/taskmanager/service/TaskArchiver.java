@@ -0,0 +1,80 @@
+package com.taskmanager.service;
+
+import com.taskmanager.support.Scope;
+import com.taskmanager.support.WorkloadClass;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+
+/**
+ * Periodically moves {@code DONE} tasks completed more than {@code app.tasks.archive.after-days}
+ * ago into the archive. Each batch is its own short statement, and a run stops after
+ * {@code max-batches-per-run} batches so one run never holds locks or I/O for long. Runs count as
+ * bulk work, limited to the bulk share of the connection pool.
+ */
+@Component
+public class TaskArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskArchiver.class);
+
+    private final TaskService taskService;
+    private final boolean enabled;
+    private final int afterDays;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Clock clock;
+
+    @Autowired
+    public TaskArchiver(TaskService taskService,
+            @Value("${app.tasks.archive.enabled:true}") boolean enabled,
+            @Value("${app.tasks.archive.after-days:30}") int afterDays,
+            @Value("${app.tasks.archive.batch-size:1000}") int batchSize,
+            @Value("${app.tasks.archive.max-batches-per-run:100}") int maxBatchesPerRun) {
+        this(taskService, enabled, afterDays, batchSize, maxBatchesPerRun, Clock.systemDefaultZone());
+    }
+
+    TaskArchiver(TaskService taskService, boolean enabled, int afterDays, int batchSize, int maxBatchesPerRun,
+            Clock clock) {
+        this.taskService = taskService;
+        this.enabled = enabled;
+        this.afterDays = Math.max(0, afterDays);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesPerRun = Math.max(1, maxBatchesPerRun);
+        this.clock = clock;
+    }
+
+    @Scheduled(initialDelayString = "${app.tasks.archive.initial-delay-ms:60000}",
+            fixedDelayString = "${app.tasks.archive.interval-ms:3600000}")
+    public void runScheduled() {
+        if (enabled) {
+            try (Scope scope = WorkloadClass.BULK.open()) {
+                archiveCompletedTasks();
+            }
+        }
+    }
+
+    /**
+     * Runs one archival pass and returns the number of tasks archived.
+     */
+    public int archiveCompletedTasks() {
+        LocalDateTime cutoff = LocalDateTime.now(clock).minusDays(afterDays);
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int archived = taskService.archiveCompleted(cutoff, batchSize);
+            total += archived;
+            if (archived < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Archived {} tasks completed before {}", total, cutoff);
+        }
+        return total;
+    }
+}
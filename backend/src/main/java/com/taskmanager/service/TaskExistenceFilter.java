@@ -0,0 +1,363 @@
+package com.taskmanager.service;
+
+import com.taskmanager.repository.TaskField;
+import com.taskmanager.repository.TaskFilter;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.support.LongBloomFilter;
+import com.taskmanager.support.Scope;
+import com.taskmanager.support.WorkloadClass;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Answers "does task {@code id} exist?" from memory when the answer is no, so lookups and deletes
+ * of deleted or never-created ids fail with 404 without a database round trip. Ids are held in a
+ * {@link LongBloomFilter} loaded from the id column at start-up, plus the ids known to be gone:
+ * deleted through {@link TaskService}, or found missing after the filter said they might exist.
+ * <p>
+ * Other services insert tasks too, and a transaction may commit after one that took a later id,
+ * so the filter only vouches for ids up to a watermark. Every {@code refresh-ms} it reads the ids
+ * above the watermark; an id is covered once a read that started {@code settle-ms} after it was
+ * seen to be the highest has passed it, which holds while insert transactions commit within
+ * {@code settle-ms}. Ids above the watermark always go to the database. Ids are never reused.
+ * <p>
+ * A Bloom filter cannot drop ids, so rows deleted by other services stay in it (and cost a query)
+ * until it is rebuilt: every {@code rebuild-interval-ms}, once {@code max-deleted} ids are
+ * remembered as gone, or when the table outgrows the filter. A rebuild reads all ids into a new
+ * filter, sized for twice the current row count, and swaps it in; writes made meanwhile go to
+ * both filters.
+ */
+@Component
+public class TaskExistenceFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskExistenceFilter.class);
+
+    /** Rough heap cost of one id in a concurrent set. */
+    private static final long DELETED_ID_BYTES = 64;
+
+    private final TaskRepository taskRepository;
+    private final boolean enabled;
+    private final double falsePositiveRate;
+    private final long minCapacity;
+    private final long refreshMillis;
+    private final long settleNanos;
+    private final long rebuildIntervalNanos;
+    private final int maxDeleted;
+    private final int pageSize;
+    private final LongSupplier nanoClock;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-existence-filter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Counter absent;
+    private final Counter maybe;
+    private final Counter uncovered;
+    private final Counter falsePositives;
+
+    /** {@code null} until the first load has finished. */
+    private volatile Generation current;
+    /** The filter a rebuild is loading, which writes also go to. */
+    private volatile Generation building;
+
+    @Autowired
+    public TaskExistenceFilter(TaskRepository taskRepository, MeterRegistry meterRegistry,
+            @Value("${app.tasks.existence-filter.enabled:true}") boolean enabled,
+            @Value("${app.tasks.existence-filter.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${app.tasks.existence-filter.min-capacity:1000000}") long minCapacity,
+            @Value("${app.tasks.existence-filter.refresh-ms:30000}") long refreshMillis,
+            @Value("${app.tasks.existence-filter.settle-ms:60000}") long settleMillis,
+            @Value("${app.tasks.existence-filter.rebuild-interval-ms:3600000}") long rebuildIntervalMillis,
+            @Value("${app.tasks.existence-filter.max-deleted:100000}") int maxDeleted,
+            @Value("${app.tasks.existence-filter.page-size:10000}") int pageSize) {
+        this(taskRepository, meterRegistry, enabled, falsePositiveRate, minCapacity, refreshMillis, settleMillis,
+                rebuildIntervalMillis, maxDeleted, pageSize, System::nanoTime);
+    }
+
+    TaskExistenceFilter(TaskRepository taskRepository, MeterRegistry meterRegistry, boolean enabled,
+            double falsePositiveRate, long minCapacity, long refreshMillis, long settleMillis,
+            long rebuildIntervalMillis, int maxDeleted, int pageSize, LongSupplier nanoClock) {
+        this.taskRepository = taskRepository;
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        this.minCapacity = Math.max(1, minCapacity);
+        this.refreshMillis = Math.max(1000, refreshMillis);
+        this.settleNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, settleMillis));
+        this.rebuildIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1000, rebuildIntervalMillis));
+        this.maxDeleted = Math.max(1, maxDeleted);
+        this.pageSize = Math.max(1, pageSize);
+        this.nanoClock = nanoClock;
+
+        this.absent = checks(meterRegistry, "absent");
+        this.maybe = checks(meterRegistry, "maybe");
+        this.uncovered = checks(meterRegistry, "uncovered");
+        this.falsePositives = Counter.builder("tasks.existence_filter.false_positives")
+                .description("Task ids the existence filter passed on that turned out not to exist")
+                .register(meterRegistry);
+        Gauge.builder("tasks.existence_filter.false_positive_rate", this,
+                        TaskExistenceFilter::observedFalsePositiveRate)
+                .description("Share of lookups of missing, covered task ids the existence filter did not catch")
+                .register(meterRegistry);
+        Gauge.builder("tasks.existence_filter.expected_false_positive_rate", this,
+                        TaskExistenceFilter::expectedFalsePositiveRate)
+                .description("False-positive rate of the existence filter predicted from its fill")
+                .register(meterRegistry);
+        Gauge.builder("tasks.existence_filter.memory", this, TaskExistenceFilter::memoryBytes)
+                .description("Approximate heap held by the existence filter, including a rebuild in progress")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("tasks.existence_filter.ids", this,
+                        filter -> filter.ofCurrent(generation -> generation.ids.approximateCount()))
+                .description("Task ids in the existence filter")
+                .register(meterRegistry);
+        Gauge.builder("tasks.existence_filter.deleted_ids", this,
+                        filter -> filter.ofCurrent(generation -> generation.deleted.size()))
+                .description("Task ids the existence filter knows to be gone")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Started once the application is ready, so the first load never races bean creation.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        if (enabled) {
+            executor.scheduleWithFixedDelay(this::run, 0, refreshMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns {@code false} only if task {@code id} certainly does not exist.
+     */
+    public boolean mightExist(long id) {
+        Generation generation = current;
+        if (!enabled || generation == null || id > generation.coveredThrough) {
+            if (enabled) {
+                uncovered.increment();
+            }
+            return true;
+        }
+        if (!generation.ids.mightContain(id) || generation.deleted.contains(id)) {
+            absent.increment();
+            return false;
+        }
+        maybe.increment();
+        return true;
+    }
+
+    /**
+     * Records a task created through {@link TaskService}.
+     */
+    public void added(long id) {
+        // Read the filter being built first: once it is null, current is the new filter
+        Generation next = building;
+        Generation generation = current;
+        if (next != null) {
+            next.ids.add(id);
+        }
+        if (generation != null && generation != next) {
+            generation.ids.add(id);
+        }
+    }
+
+    /**
+     * Records a task deleted through {@link TaskService}.
+     */
+    public void removed(long id) {
+        Generation next = building;
+        Generation generation = current;
+        if (next != null) {
+            next.deleted.add(id);
+        }
+        if (generation != null && generation != next) {
+            generation.deleted.add(id);
+        }
+    }
+
+    /**
+     * Records that task {@code id} was looked up and not found. If the filter would have let it
+     * through, that was a false positive, and the id is remembered as gone.
+     */
+    public void confirmedMissing(long id) {
+        Generation generation = current;
+        if (!enabled || generation == null || id > generation.coveredThrough
+                || !generation.ids.mightContain(id) || generation.deleted.contains(id)) {
+            return;
+        }
+        falsePositives.increment();
+        removed(id);
+    }
+
+    /**
+     * Loads the ids above the watermark, or rebuilds the filter when it is due. Runs on the filter
+     * thread; tests call it directly.
+     */
+    synchronized void runOnce() {
+        try (Scope scope = WorkloadClass.ANALYTICS.open()) {
+            Generation generation = current;
+            if (generation == null || rebuildDue(generation)) {
+                rebuild(generation);
+            } else {
+                load(generation, generation.coveredThrough);
+            }
+        }
+    }
+
+    // Visible for tests
+    long coveredThrough() {
+        Generation generation = current;
+        return generation == null ? 0 : generation.coveredThrough;
+    }
+
+    private void run() {
+        try {
+            runOnce();
+        } catch (RuntimeException ex) {
+            log.warn("Task existence filter refresh failed, retrying in {} ms: {}", refreshMillis, ex.getMessage());
+        }
+    }
+
+    private boolean rebuildDue(Generation generation) {
+        return nanoClock.getAsLong() - generation.builtAtNanos >= rebuildIntervalNanos
+                || generation.deleted.size() >= maxDeleted
+                || generation.ids.approximateCount() > generation.ids.expectedInsertions();
+    }
+
+    private void rebuild(Generation previous) {
+        long rows = taskRepository.count();
+        Generation next = new Generation(new LongBloomFilter(Math.max(minCapacity, 2 * rows), falsePositiveRate),
+                nanoClock.getAsLong(), previous);
+        building = next;
+        try {
+            load(next, 0);
+        } catch (RuntimeException ex) {
+            building = null;
+            throw ex;
+        }
+        current = next;
+        building = null;
+        log.info("Loaded task existence filter: {} ids, {} KiB, covers ids through {}", next.ids.approximateCount(),
+                next.ids.sizeInBytes() / 1024, next.coveredThrough);
+    }
+
+    /**
+     * Adds the ids above {@code afterId} to {@code generation}, then moves its watermark to the
+     * highest id seen by a load that started at least {@code settle-ms} before this one.
+     */
+    private void load(Generation generation, long afterId) {
+        long started = nanoClock.getAsLong();
+        TaskFilter all = new TaskFilter();
+        all.setIncludeArchived(true);
+        long maxSeen = generation.maxSeen;
+        int rows;
+        do {
+            rows = 0;
+            try (Stream<Map<String, Object>> page = taskRepository.streamByFilter(all, Set.of(), afterId, pageSize)) {
+                for (Map<String, Object> row : (Iterable<Map<String, Object>>) page::iterator) {
+                    afterId = (Long) row.get(TaskField.ID.getFieldName());
+                    generation.ids.add(afterId);
+                    rows++;
+                }
+            }
+            maxSeen = Math.max(maxSeen, afterId);
+        } while (rows == pageSize);
+
+        generation.maxSeen = maxSeen;
+        generation.checkpoints.addLast(new long[] {started, maxSeen});
+        long[] settled = null;
+        while (!generation.checkpoints.isEmpty() && generation.checkpoints.peekFirst()[0] <= started - settleNanos) {
+            settled = generation.checkpoints.pollFirst();
+        }
+        if (settled != null) {
+            generation.checkpoints.addFirst(settled);
+            generation.coveredThrough = Math.max(generation.coveredThrough, settled[1]);
+        }
+    }
+
+    private double observedFalsePositiveRate() {
+        double passed = falsePositives.count();
+        double caught = absent.count();
+        return passed + caught == 0 ? 0 : passed / (passed + caught);
+    }
+
+    private double expectedFalsePositiveRate() {
+        Generation generation = current;
+        return generation == null ? 0 : generation.ids.expectedFalsePositiveRate();
+    }
+
+    private double ofCurrent(ToLongFunction<Generation> value) {
+        Generation generation = current;
+        return generation == null ? 0 : value.applyAsLong(generation);
+    }
+
+    /**
+     * Heap of the current filter and of one being rebuilt.
+     */
+    private double memoryBytes() {
+        Generation next = building;
+        Generation generation = current;
+        long total = next == null ? 0 : next.sizeInBytes();
+        if (generation != null && generation != next) {
+            total += generation.sizeInBytes();
+        }
+        return total;
+    }
+
+    private static Counter checks(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("tasks.existence_filter.checks")
+                .description("Task id existence checks by answer; uncovered ids are above the watermark")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static final class Generation {
+        private final LongBloomFilter ids;
+        private final Set<Long> deleted = ConcurrentHashMap.newKeySet();
+        private final long builtAtNanos;
+        /** {start of a load, highest id it saw}, oldest first; used by the filter thread only. */
+        private final Deque<long[]> checkpoints;
+        private long maxSeen;
+        private volatile long coveredThrough;
+
+        /**
+         * A filter loaded after {@code previous}: everything {@code previous} covered was committed
+         * before this load started, so it covers the same ids.
+         */
+        private Generation(LongBloomFilter ids, long builtAtNanos, Generation previous) {
+            this.ids = ids;
+            this.builtAtNanos = builtAtNanos;
+            this.checkpoints = previous == null ? new ArrayDeque<>() : new ArrayDeque<>(previous.checkpoints);
+            this.coveredThrough = previous == null ? 0 : previous.coveredThrough;
+        }
+
+        private long sizeInBytes() {
+            return ids.sizeInBytes() + deleted.size() * DELETED_ID_BYTES;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.taskmanager.service;
+
+import java.util.List;
+
+public class TaskImportResult {
+
+    private final long received;
+    private final long imported;
+    private final long rejected;
+    private final int batches;
+    private final long durationMillis;
+    private final boolean complete;
+    private final List<String> errors;
+    private final boolean errorsTruncated;
+
+    public TaskImportResult(long received, long imported, long rejected, int batches, long durationMillis,
+            boolean complete, List<String> errors, boolean errorsTruncated) {
+        this.received = received;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.batches = batches;
+        this.durationMillis = durationMillis;
+        this.complete = complete;
+        this.errors = errors;
+        this.errorsTruncated = errorsTruncated;
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * False when the body could not be parsed to the end; rows before the malformed input are imported.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+}
@@ -0,0 +1,221 @@
+package com.taskmanager.service;
+
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.TaskRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk import of tasks from a streamed request body, for migrations that would otherwise create
+ * tasks one request at a time. The body is read record by record with Jackson's streaming parser,
+ * so heap use depends on the batch size and not on the size of the upload. Each record is
+ * validated with the same bean-validation rules as {@code POST /api/tasks}, and valid records are
+ * inserted in batches, one transaction per batch. A batch rejected by a constraint (usually a
+ * duplicate external key) is retried row by row so that only the offending rows are reported.
+ */
+@Service
+public class TaskImportService {
+
+    public static final String NDJSON = "application/x-ndjson";
+    public static final String CSV = "text/csv";
+
+    private static final Logger log = LoggerFactory.getLogger(TaskImportService.class);
+
+    /**
+     * CSV input needs a header row naming its columns ({@code title}, {@code description},
+     * {@code status}, {@code dueDate}, {@code externalKey}); unknown columns and JSON fields are ignored.
+     */
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    private final TaskRepository taskRepository;
+    private final TaskService taskService;
+    private final Validator validator;
+    private final TransactionOperations transactions;
+    private final ObjectReader ndjsonReader;
+    private final ObjectReader csvReader;
+    private final int batchSize;
+    private final int maxErrors;
+
+    public TaskImportService(TaskRepository taskRepository, TaskService taskService, Validator validator,
+            ObjectMapper objectMapper, ObjectProvider<PlatformTransactionManager> transactionManager,
+            @Value("${app.tasks.import.batch-size:1000}") int batchSize,
+            @Value("${app.tasks.import.max-errors:100}") int maxErrors) {
+        this.taskRepository = taskRepository;
+        this.taskService = taskService;
+        this.validator = validator;
+        // The memory profile has no transaction manager; each repository call is atomic there
+        PlatformTransactionManager manager = transactionManager.getIfAvailable();
+        this.transactions = manager != null
+                ? new TransactionTemplate(manager)
+                : TransactionOperations.withoutTransaction();
+        this.ndjsonReader = objectMapper.readerFor(Task.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        CsvMapper csvMapper = CsvMapper.builder()
+                .addModule(new JavaTimeModule())
+                .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+                .enable(CsvParser.Feature.TRIM_SPACES)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+        this.csvReader = csvMapper.readerFor(Task.class).with(CsvSchema.emptySchema().withHeader());
+        this.batchSize = Math.max(1, batchSize);
+        this.maxErrors = Math.max(0, maxErrors);
+    }
+
+    /**
+     * Imports every record of {@code body}. Invalid records are skipped and reported with their
+     * 1-based record number (the CSV header is not counted). Malformed input that the parser cannot
+     * skip ends the import; records before it are kept and the result is marked incomplete.
+     */
+    public TaskImportResult importTasks(InputStream body, Format format) throws IOException {
+        long started = System.nanoTime();
+        ImportRun run = new ImportRun();
+        ObjectReader reader = format == Format.CSV ? csvReader : ndjsonReader;
+        try (MappingIterator<Task> records = reader.readValues(body)) {
+            while (true) {
+                Task task;
+                try {
+                    if (!records.hasNextValue()) {
+                        break;
+                    }
+                    run.received++;
+                    task = records.nextValue();
+                } catch (DatabindException ex) {
+                    run.reject(run.received, ex.getOriginalMessage());
+                    continue;
+                } catch (StreamReadException ex) {
+                    run.complete = false;
+                    run.reject(run.received, "malformed input, import stopped: " + ex.getOriginalMessage());
+                    break;
+                }
+                String violation = validate(task);
+                if (violation != null) {
+                    run.reject(run.received, violation);
+                    continue;
+                }
+                run.add(task);
+                if (run.batch.size() == batchSize) {
+                    run.flush();
+                }
+            }
+            // Only on normal completion: after a failed flush the batch would be sent again
+            run.flush();
+        } finally {
+            if (run.imported > 0) {
+                taskService.invalidateAll();
+            }
+        }
+
+        long durationMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Imported {} of {} tasks ({}) in {} batches in {} ms, {} rejected", run.imported, run.received,
+                format, run.batches, durationMillis, run.rejected);
+        return new TaskImportResult(run.received, run.imported, run.rejected, run.batches, durationMillis,
+                run.complete, run.errors, run.rejected > run.errors.size());
+    }
+
+    private String validate(Task task) {
+        Set<ConstraintViolation<Task>> violations = validator.validate(task);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        StringBuilder message = new StringBuilder();
+        for (ConstraintViolation<Task> violation : violations) {
+            if (!message.isEmpty()) {
+                message.append("; ");
+            }
+            message.append(violation.getPropertyPath()).append(": ").append(violation.getMessage());
+        }
+        return message.toString();
+    }
+
+    /**
+     * Counters and the pending batch of one import. The batch list and its record numbers are reused
+     * across batches.
+     */
+    private final class ImportRun {
+
+        private final List<Task> batch = new ArrayList<>(batchSize);
+        private final long[] recordNumbers = new long[batchSize];
+        private final List<String> errors = new ArrayList<>();
+        private long received;
+        private long imported;
+        private long rejected;
+        private int batches;
+        private boolean complete = true;
+
+        void add(Task task) {
+            // Same defaults as TaskService#createTask; ids and archive state are never imported
+            task.setId(null);
+            if (task.getStatus() == null) {
+                task.setStatus(TaskStatus.TODO);
+            }
+            task.setArchived(false);
+            task.setCompletedAt(null);
+            recordNumbers[batch.size()] = received;
+            batch.add(task);
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            batches++;
+            try {
+                imported += insert(batch);
+            } catch (DataIntegrityViolationException ex) {
+                for (int i = 0; i < batch.size(); i++) {
+                    try {
+                        imported += insert(List.of(batch.get(i)));
+                    } catch (DuplicateKeyException rowEx) {
+                        reject(recordNumbers[i], "externalKey '" + batch.get(i).getExternalKey()
+                                + "' already exists");
+                    } catch (DataIntegrityViolationException rowEx) {
+                        reject(recordNumbers[i], rowEx.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+            batch.clear();
+        }
+
+        void reject(long recordNumber, String message) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add("record " + recordNumber + ": " + message);
+            }
+        }
+
+        private int insert(List<Task> tasks) {
+            Integer inserted = transactions.execute(status -> taskRepository.insertAll(tasks));
+            return inserted != null ? inserted : 0;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.support.Scope;
+import com.taskmanager.support.WorkloadClass;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Work-queue access to tasks for agents: a claim moves the earliest-due {@code TODO} tasks to
+ * {@code IN_PROGRESS} under a lease of {@code app.tasks.claim.lease-ms}, which the worker extends
+ * with heartbeats and ends by releasing the task. Leases that run out, because a worker crashed or
+ * stalled, are handed back to {@code TODO} by a periodic sweep, in batches like {@link TaskArchiver}.
+ */
+@Component
+public class TaskLeaseService {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskLeaseService.class);
+
+    private final TaskService taskService;
+    private final long leaseMillis;
+    private final int maxClaim;
+    private final boolean sweepEnabled;
+    private final int sweepBatchSize;
+    private final int maxBatchesPerSweep;
+    private final Clock clock;
+
+    @Autowired
+    public TaskLeaseService(TaskService taskService,
+            @Value("${app.tasks.claim.lease-ms:300000}") long leaseMillis,
+            @Value("${app.tasks.claim.max-batch:100}") int maxClaim,
+            @Value("${app.tasks.claim.sweep.enabled:true}") boolean sweepEnabled,
+            @Value("${app.tasks.claim.sweep.batch-size:1000}") int sweepBatchSize,
+            @Value("${app.tasks.claim.sweep.max-batches-per-run:100}") int maxBatchesPerSweep) {
+        this(taskService, leaseMillis, maxClaim, sweepEnabled, sweepBatchSize, maxBatchesPerSweep,
+                Clock.systemDefaultZone());
+    }
+
+    TaskLeaseService(TaskService taskService, long leaseMillis, int maxClaim, boolean sweepEnabled,
+            int sweepBatchSize, int maxBatchesPerSweep, Clock clock) {
+        this.taskService = taskService;
+        this.leaseMillis = Math.max(1, leaseMillis);
+        this.maxClaim = Math.max(1, maxClaim);
+        this.sweepEnabled = sweepEnabled;
+        this.sweepBatchSize = Math.max(1, sweepBatchSize);
+        this.maxBatchesPerSweep = Math.max(1, maxBatchesPerSweep);
+        this.clock = clock;
+    }
+
+    /**
+     * Claims up to {@code limit} tasks (capped at {@code max-batch}) for {@code owner}.
+     */
+    public List<Task> claim(String owner, int limit) {
+        return taskService.claimTasks(owner, Math.min(Math.max(1, limit), maxClaim), leaseUntil());
+    }
+
+    public Task heartbeat(Long id, String owner) {
+        return taskService.renewLease(id, owner, leaseUntil());
+    }
+
+    public Task release(Long id, String owner, TaskStatus status) {
+        return taskService.releaseLease(id, owner, status != null ? status : TaskStatus.TODO);
+    }
+
+    @Scheduled(initialDelayString = "${app.tasks.claim.sweep.interval-ms:30000}",
+            fixedDelayString = "${app.tasks.claim.sweep.interval-ms:30000}")
+    public void sweepScheduled() {
+        if (sweepEnabled) {
+            try (Scope scope = WorkloadClass.BULK.open()) {
+                reclaimExpiredLeases();
+            }
+        }
+    }
+
+    /**
+     * Runs one sweep and returns the number of tasks handed back to {@code TODO}.
+     */
+    public int reclaimExpiredLeases() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerSweep; batch++) {
+            int reclaimed = taskService.reclaimExpiredLeases(now, sweepBatchSize);
+            total += reclaimed;
+            if (reclaimed < sweepBatchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Reclaimed {} tasks with leases expired before {}", total, now);
+        }
+        return total;
+    }
+
+    private LocalDateTime leaseUntil() {
+        return LocalDateTime.now(clock).plusNanos(leaseMillis * 1_000_000);
+    }
+}
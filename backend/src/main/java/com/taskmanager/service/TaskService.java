@@ -1,53 +1,417 @@
 package com.taskmanager.service;
 
+import com.taskmanager.exception.LeaseConflictException;
 import com.taskmanager.exception.ResourceNotFoundException;
 import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStats;
 import com.taskmanager.model.TaskStatus;
 import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.support.BatchLoader;
+import com.taskmanager.support.SingleFlight;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @Service
 public class TaskService {
 
+    private static final String HOT_TASKS_KEY = "hot";
+    private static final String ALL_TASKS_KEY = "all";
+
     private final TaskRepository taskRepository;
+    private final SingleFlight<String, List<Task>> allTasksFlight;
+    private final SingleFlight<Long, Task> taskByIdFlight;
+    private final SingleFlight<String, TaskStats> statsFlight;
+    private final StatusWriteBuffer statusWriteBuffer;
+    private final BatchLoader<Long, Task> taskByIdBatches;
+    private final TaskExistenceFilter existenceFilter;
+    private final List<WriteListener> writeListeners = new CopyOnWriteArrayList<>();
 
+    /**
+     * With a positive {@code lookupBatchWindowMicros}, lookups of different ids that arrive within
+     * the window are loaded with one {@code WHERE id IN (...)} query of up to
+     * {@code lookupMaxBatchSize} ids; see {@link BatchLoader}. With an {@code existenceFilter},
+     * lookups and deletes of ids it rules out fail without a query.
+     */
     @Autowired
-    public TaskService(TaskRepository taskRepository) {
+    public TaskService(TaskRepository taskRepository,
+            @Value("${app.tasks.read-coalescing-ttl-ms:0}") long readCoalescingTtlMillis,
+            StatusWriteBuffer statusWriteBuffer,
+            @Value("${app.tasks.lookup-batching.window-us:0}") long lookupBatchWindowMicros,
+            @Value("${app.tasks.lookup-batching.max-batch-size:100}") int lookupMaxBatchSize,
+            TaskExistenceFilter existenceFilter) {
         this.taskRepository = taskRepository;
+        this.allTasksFlight = new SingleFlight<>(readCoalescingTtlMillis);
+        this.taskByIdFlight = new SingleFlight<>(readCoalescingTtlMillis);
+        this.statsFlight = new SingleFlight<>(readCoalescingTtlMillis);
+        this.statusWriteBuffer = statusWriteBuffer;
+        this.taskByIdBatches = lookupBatchWindowMicros > 0
+                ? new BatchLoader<>(this::findTasksById, lookupBatchWindowMicros, lookupMaxBatchSize)
+                : null;
+        this.existenceFilter = existenceFilter;
+        statusWriteBuffer.addFlushListener(this::invalidateAll);
+    }
+
+    /**
+     * Starts a service outside Spring, for tests and benchmarks. Unless set otherwise it has no
+     * read coalescing, write-behind, lookup batching or existence filter.
+     */
+    static Builder builder(TaskRepository taskRepository) {
+        return new Builder(taskRepository);
+    }
+
+    /**
+     * Registers {@code listener} for tasks created, updated or deleted through this service.
+     */
+    public void addWriteListener(WriteListener listener) {
+        writeListeners.add(listener);
     }
 
     public List<Task> getAllTasks() {
-        return taskRepository.findAll();
+        return getAllTasks(false);
     }
 
+    /**
+     * Archived tasks are left out unless asked for, which keeps the default listing on the hot partition.
+     */
+    public List<Task> getAllTasks(boolean includeArchived) {
+        List<Task> tasks = includeArchived
+                ? allTasksFlight.execute(ALL_TASKS_KEY, taskRepository::findAll)
+                : allTasksFlight.execute(HOT_TASKS_KEY, taskRepository::findByArchivedFalse);
+        return statusWriteBuffer.overlay(tasks);
+    }
+
+    /**
+     * Concurrent lookups of the same id share one query, and with lookup batching enabled so do
+     * concurrent lookups of different ids. Callers must treat the returned entity as read-only;
+     * write paths load their own copy through {@link #findTask(Long)}. Ids the existence filter rules
+     * out fail without a query.
+     */
     public Task getTaskById(Long id) {
-        return taskRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Task not found with id: " + id));
+        requireMightExist(id);
+        return statusWriteBuffer.overlay(taskByIdFlight.execute(id, () -> lookupTask(id)));
+    }
+
+    /**
+     * The tasks among {@code ids} that exist, in the order first asked for, loaded with one query.
+     */
+    public List<Task> getTasksByIds(Collection<Long> ids) {
+        List<Long> distinct = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .filter(id -> existenceFilter == null || existenceFilter.mightExist(id))
+                .toList();
+        Map<Long, Task> byId = findTasksById(distinct);
+        List<Task> tasks = new ArrayList<>(byId.size());
+        for (Long id : distinct) {
+            Task task = byId.get(id);
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        return statusWriteBuffer.overlay(tasks);
+    }
+
+    /**
+     * Counts by status and due-date window relative to {@code asOf}, computed in one aggregate
+     * query over the {@code (due_date, status)} index. Status changes still held by the
+     * write-behind buffer are counted once they are flushed. Only reads as of today are
+     * coalesced; the other dates a client may ask for are queried each time, so they cannot pile up
+     * as coalescing keys.
+     */
+    public TaskStats getTaskStats(LocalDate asOf, boolean includeArchived) {
+        if (!asOf.equals(LocalDate.now())) {
+            return loadTaskStats(asOf, includeArchived);
+        }
+        return statsFlight.execute(asOf + (includeArchived ? "/" + ALL_TASKS_KEY : "/" + HOT_TASKS_KEY),
+                () -> loadTaskStats(asOf, includeArchived));
     }
 
     public Task createTask(Task task) {
         if (task.getStatus() == null) {
             task.setStatus(TaskStatus.TODO);
         }
-        return taskRepository.save(task);
+        task.setArchived(false);
+        task.setCompletedAt(null);
+        task.setLeaseOwner(null);
+        task.setLeaseExpiresAt(null);
+        Task saved = taskRepository.save(task);
+        if (existenceFilter != null) {
+            existenceFilter.added(saved.getId());
+        }
+        allTasksFlight.invalidateAll();
+        statsFlight.invalidateAll();
+        writeListeners.forEach(listener -> listener.saved(saved));
+        return saved;
     }
 
+    /**
+     * With write-behind enabled, an update that only changes the status is queued in
+     * {@link StatusWriteBuffer} and the task is returned with the new status before it is written.
+     * Any other update drops a pending status for the task and is saved immediately. Either way a
+     * status change ends the task's lease, if it has one.
+     */
     public Task updateTask(Long id, Task taskDetails) {
-        Task task = getTaskById(id);
+        TaskStatus status = taskDetails.getStatus() != null ? taskDetails.getStatus() : TaskStatus.TODO;
+        if (statusWriteBuffer.isEnabled()) {
+            Task current = taskByIdFlight.execute(id, () -> findTask(id));
+            if (isStatusOnlyChange(current, taskDetails)) {
+                if (status == current.getStatus()) {
+                    statusWriteBuffer.discard(id);
+                    return current;
+                }
+                if (statusWriteBuffer.submit(id, status)) {
+                    Task updated = statusWriteBuffer.overlay(current);
+                    writeListeners.forEach(listener -> listener.saved(updated));
+                    return updated;
+                }
+            }
+        }
+        statusWriteBuffer.discard(id);
+        Task task = findTask(id);
+        boolean statusChanged = task.getStatus() != status;
 
         task.setTitle(taskDetails.getTitle());
         task.setDescription(taskDetails.getDescription());
-        task.setStatus(taskDetails.getStatus() != null ? taskDetails.getStatus() : TaskStatus.TODO);
+        task.setStatus(status);
         task.setDueDate(taskDetails.getDueDate());
 
-        return taskRepository.save(task);
+        Task saved = taskRepository.save(task);
+        if (statusChanged) {
+            // Saves never write the lease (see Task#leaseOwner); a claim may also have come in since the read
+            taskRepository.clearLease(id);
+            saved.setLeaseOwner(null);
+            saved.setLeaseExpiresAt(null);
+        }
+        invalidate(id);
+        writeListeners.forEach(listener -> listener.saved(saved));
+        return saved;
     }
 
     public void deleteTask(Long id) {
-        Task task = getTaskById(id);
+        requireMightExist(id);
+        statusWriteBuffer.discard(id);
+        Task task = findTask(id);
         taskRepository.delete(task);
+        if (existenceFilter != null) {
+            existenceFilter.removed(id);
+        }
+        invalidate(id);
+        writeListeners.forEach(listener -> listener.deleted(id));
+    }
+
+    /**
+     * Archives one batch of completed tasks; see {@link TaskRepository#archiveCompleted}.
+     */
+    public int archiveCompleted(LocalDateTime completedBefore, int batchSize) {
+        int archived = taskRepository.archiveCompleted(completedBefore, batchSize);
+        if (archived > 0) {
+            invalidateAll();
+        }
+        return archived;
+    }
+
+    /**
+     * Claims up to {@code limit} {@code TODO} tasks for {@code owner}; see {@link TaskRepository#claim}.
+     * Returns the claimed tasks in claim order.
+     */
+    public List<Task> claimTasks(String owner, int limit, LocalDateTime leaseUntil) {
+        List<Long> ids = taskRepository.claim(owner, leaseUntil, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        ids.forEach(statusWriteBuffer::discard);
+        invalidateAll();
+        Map<Long, Task> byId = findTasksById(ids);
+        List<Task> claimed = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Task task = byId.get(id);
+            if (task != null) {
+                claimed.add(task);
+                writeListeners.forEach(listener -> listener.saved(task));
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Extends {@code owner}'s lease on task {@code id}; fails with {@link LeaseConflictException}
+     * when the task exists but {@code owner} no longer holds it.
+     */
+    public Task renewLease(Long id, String owner, LocalDateTime leaseUntil) {
+        if (!taskRepository.renewLease(id, owner, leaseUntil)) {
+            throw leaseConflict(id, owner);
+        }
+        taskByIdFlight.invalidate(id);
+        return findTask(id);
+    }
+
+    /**
+     * Ends {@code owner}'s lease on task {@code id}, setting it to {@code status} ({@code TODO} or
+     * {@code DONE}); fails like {@link #renewLease}.
+     */
+    public Task releaseLease(Long id, String owner, TaskStatus status) {
+        statusWriteBuffer.discard(id);
+        if (!taskRepository.releaseLease(id, owner, status)) {
+            throw leaseConflict(id, owner);
+        }
+        invalidate(id);
+        Task released = findTask(id);
+        writeListeners.forEach(listener -> listener.saved(released));
+        return released;
+    }
+
+    /**
+     * Returns one batch of tasks with expired leases to {@code TODO}; see
+     * {@link TaskRepository#reclaimExpiredLeases}.
+     */
+    public int reclaimExpiredLeases(LocalDateTime now, int batchSize) {
+        int reclaimed = taskRepository.reclaimExpiredLeases(now, batchSize);
+        if (reclaimed > 0) {
+            invalidateAll();
+        }
+        return reclaimed;
+    }
+
+    // Visible for tests
+    SingleFlight<String, List<Task>> allTasksFlight() {
+        return allTasksFlight;
+    }
+
+    // Visible for tests
+    BatchLoader<Long, Task> taskByIdBatches() {
+        return taskByIdBatches;
+    }
+
+    private TaskStats loadTaskStats(LocalDate asOf, boolean includeArchived) {
+        return TaskStats.fromRows(asOf, taskRepository.countTasksByStatusAndDueWindow(asOf,
+                TaskStats.endOfWeek(asOf), includeArchived));
+    }
+
+    private Task lookupTask(Long id) {
+        if (taskByIdBatches == null) {
+            return findTask(id);
+        }
+        Task task = taskByIdBatches.load(id);
+        if (task == null) {
+            throw missing(id);
+        }
+        return task;
+    }
+
+    private Task findTask(Long id) {
+        return taskRepository.findById(id).orElseThrow(() -> missing(id));
+    }
+
+    private void requireMightExist(Long id) {
+        if (existenceFilter != null && id != null && !existenceFilter.mightExist(id)) {
+            throw notFound(id);
+        }
+    }
+
+    /**
+     * The not-found error for an id the database has no row for, which the existence filter learns.
+     */
+    private ResourceNotFoundException missing(Long id) {
+        if (existenceFilter != null) {
+            existenceFilter.confirmedMissing(id);
+        }
+        return notFound(id);
+    }
+
+    private Map<Long, Task> findTasksById(Collection<Long> ids) {
+        Map<Long, Task> byId = new HashMap<>();
+        taskRepository.findAllById(ids).forEach(task -> byId.put(task.getId(), task));
+        return byId;
+    }
+
+    private static ResourceNotFoundException notFound(Long id) {
+        return new ResourceNotFoundException("Task not found with id: " + id);
+    }
+
+    private LeaseConflictException leaseConflict(Long id, String owner) {
+        findTask(id);
+        return new LeaseConflictException("Task " + id + " is not leased by " + owner);
+    }
+
+    private static boolean isStatusOnlyChange(Task current, Task details) {
+        return Objects.equals(current.getTitle(), details.getTitle())
+                && Objects.equals(current.getDescription(), details.getDescription())
+                && Objects.equals(current.getDueDate(), details.getDueDate());
+    }
+
+    void invalidateAll() {
+        allTasksFlight.invalidateAll();
+        taskByIdFlight.invalidateAll();
+        statsFlight.invalidateAll();
+    }
+
+    private void invalidate(Long id) {
+        taskByIdFlight.invalidate(id);
+        allTasksFlight.invalidateAll();
+        statsFlight.invalidateAll();
+    }
+
+    /**
+     * Notified after a write through this service has been stored (or, for a buffered status
+     * change, accepted). Runs on the writing thread, so it must not block.
+     */
+    public interface WriteListener {
+
+        void saved(Task task);
+
+        void deleted(Long id);
+    }
+
+    static final class Builder {
+
+        private final TaskRepository taskRepository;
+        private long readCoalescingTtlMillis;
+        private StatusWriteBuffer statusWriteBuffer;
+        private long lookupBatchWindowMicros;
+        private int lookupMaxBatchSize = 1;
+        private TaskExistenceFilter existenceFilter;
+
+        private Builder(TaskRepository taskRepository) {
+            this.taskRepository = taskRepository;
+        }
+
+        Builder readCoalescingTtlMillis(long readCoalescingTtlMillis) {
+            this.readCoalescingTtlMillis = readCoalescingTtlMillis;
+            return this;
+        }
+
+        Builder statusWriteBuffer(StatusWriteBuffer statusWriteBuffer) {
+            this.statusWriteBuffer = statusWriteBuffer;
+            return this;
+        }
+
+        Builder lookupBatching(long windowMicros, int maxBatchSize) {
+            this.lookupBatchWindowMicros = windowMicros;
+            this.lookupMaxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        Builder existenceFilter(TaskExistenceFilter existenceFilter) {
+            this.existenceFilter = existenceFilter;
+            return this;
+        }
+
+        TaskService build() {
+            StatusWriteBuffer buffer = statusWriteBuffer != null
+                    ? statusWriteBuffer : new StatusWriteBuffer(taskRepository, false, 1);
+            return new TaskService(taskRepository, readCoalescingTtlMillis, buffer, lookupBatchWindowMicros,
+                    lookupMaxBatchSize, existenceFilter);
+        }
     }
 }
@@ -3,24 +3,44 @@ package com.taskmanager;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.taskmanager.model.Task;
 import com.taskmanager.model.TaskStatus;
+import com.taskmanager.reminder.SseReminderSink;
+import com.taskmanager.reminder.TaskReminder;
 import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.service.TaskArchiver;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.options;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -37,6 +57,15 @@ class BackendApplicationTests {
 	@Autowired
 	private TaskRepository taskRepository;
 
+	@Autowired
+	private TaskArchiver taskArchiver;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private SseReminderSink sseReminderSink;
+
 	@BeforeEach
 	void resetData() {
 		taskRepository.deleteAll();
@@ -75,6 +104,27 @@ class BackendApplicationTests {
 			.andExpect(jsonPath("$.status").value("TODO"));
 	}
 
+	@Test
+	void createTask_storesStatusAsSmallintCode() throws Exception {
+		Task payload = new Task("Stored compactly", null, TaskStatus.DONE, null);
+
+		MvcResult result = mockMvc.perform(post("/api/tasks")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(payload)))
+			.andExpect(status().isCreated())
+			.andReturn();
+		long id = objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+
+		assertEquals("SMALLINT", jdbcTemplate.queryForObject(
+			"SELECT data_type FROM information_schema.columns WHERE table_name = 'TASKS' AND column_name = 'STATUS'",
+			String.class));
+		assertEquals(2, jdbcTemplate.queryForObject("SELECT status FROM tasks WHERE id = ?", Integer.class, id));
+		assertEquals(1L, taskRepository.countTasksByStatus().stream()
+			.filter(row -> row[0] == TaskStatus.DONE)
+			.mapToLong(row -> (Long) row[1])
+			.sum());
+	}
+
 	@Test
 	void createTask_missingTitle_returnsBadRequest() throws Exception {
 		String payload = """
@@ -125,6 +175,22 @@ class BackendApplicationTests {
 			.andExpect(jsonPath("$.errors.description").exists());
 	}
 
+	@Test
+	void createTask_duplicateExternalKey_returnsConflict() throws Exception {
+		Task existing = new Task("Imported", null, TaskStatus.TODO, null);
+		existing.setExternalKey("import-1");
+		taskRepository.save(existing);
+
+		Task payload = new Task("Imported again", null, TaskStatus.TODO, null);
+		payload.setExternalKey("import-1");
+
+		mockMvc.perform(post("/api/tasks")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(payload)))
+			.andExpect(status().isConflict())
+			.andExpect(jsonPath("$.message").exists());
+	}
+
 	@Test
 	void getAllTasks_returnsSavedTasks() throws Exception {
 		taskRepository.save(new Task("Task A", "First", TaskStatus.TODO, null));
@@ -135,6 +201,291 @@ class BackendApplicationTests {
 			.andExpect(jsonPath("$", hasSize(2)));
 	}
 
+	@Test
+	void getTaskStats_bucketsByStatusAndDueWindow() throws Exception {
+		LocalDate wednesday = LocalDate.of(2026, 3, 4);
+		taskRepository.save(new Task("Overdue", null, TaskStatus.TODO, wednesday.minusDays(3)));
+		taskRepository.save(new Task("Done late", null, TaskStatus.DONE, wednesday.minusDays(2)));
+		taskRepository.save(new Task("Today", null, TaskStatus.IN_PROGRESS, wednesday));
+		taskRepository.save(new Task("Sunday", null, TaskStatus.TODO, wednesday.plusDays(4)));
+		taskRepository.save(new Task("Next Monday", null, TaskStatus.DONE, wednesday.plusDays(5)));
+		taskRepository.save(new Task("Someday", null, TaskStatus.TODO, null));
+
+		mockMvc.perform(get("/api/tasks/stats").param("asOf", "2026-03-04"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.asOf").value("2026-03-04"))
+			.andExpect(jsonPath("$.total").value(6))
+			.andExpect(jsonPath("$.byStatus.TODO").value(3))
+			.andExpect(jsonPath("$.byDueWindow.overdue.TODO").value(1))
+			.andExpect(jsonPath("$.byDueWindow.overdue.DONE").value(1))
+			.andExpect(jsonPath("$.byDueWindow.dueToday.IN_PROGRESS").value(1))
+			.andExpect(jsonPath("$.byDueWindow.dueThisWeek.TODO").value(1))
+			.andExpect(jsonPath("$.byDueWindow.later.DONE").value(1))
+			.andExpect(jsonPath("$.byDueWindow.later.TODO").value(0))
+			.andExpect(jsonPath("$.byDueWindow.noDueDate.TODO").value(1));
+	}
+
+	@Test
+	void exportTasks_streamsArrowFile() throws Exception {
+		taskRepository.save(new Task("Exported", null, TaskStatus.TODO, LocalDate.of(2026, 3, 4)));
+		taskRepository.save(new Task("Also exported", "with description", TaskStatus.DONE, null));
+
+		MvcResult started = mockMvc.perform(get("/api/tasks/export"))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		byte[] file = mockMvc.perform(asyncDispatch(started))
+			.andExpect(status().isOk())
+			.andExpect(content().contentType("application/vnd.apache.arrow.file"))
+			.andExpect(header().string("Content-Disposition", startsWith("attachment")))
+			.andReturn().getResponse().getContentAsByteArray();
+
+		String magic = "ARROW1";
+		assertEquals(magic, new String(file, 0, 6, StandardCharsets.US_ASCII));
+		assertEquals(magic, new String(file, file.length - 6, 6, StandardCharsets.US_ASCII));
+	}
+
+	@Test
+	void reminders_areStreamedAsServerSentEvents() throws Exception {
+		MvcResult stream = mockMvc.perform(get("/api/tasks/reminders").accept(MediaType.TEXT_EVENT_STREAM))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+
+		sseReminderSink.deliver(new TaskReminder(TaskReminder.Kind.OVERDUE, 42L, "File taxes",
+				LocalDate.of(2026, 4, 15), Instant.parse("2026-04-16T00:00:00Z")));
+
+		String body = stream.getResponse().getContentAsString();
+		assertEquals(MediaType.TEXT_EVENT_STREAM_VALUE, stream.getResponse().getContentType());
+		assertThat(body, containsString("event:reminder"));
+		assertThat(body, containsString("\"title\":\"File taxes\""));
+	}
+
+	@Test
+	void importTasks_ndjson_insertsValidRowsAndReportsErrors() throws Exception {
+		Task existing = new Task("Existing", null, TaskStatus.TODO, null);
+		existing.setExternalKey("ext-taken");
+		taskRepository.save(existing);
+		String body = """
+			{"title": "First", "status": "IN_PROGRESS", "dueDate": "2026-05-01", "externalKey": "ext-1"}
+			{"title": "", "status": "TODO"}
+			{"title": "Bad status", "status": "LATER"}
+			{"title": "Duplicate", "externalKey": "ext-taken"}
+			{"title": "Done", "status": "DONE", "id": 999, "archived": true}
+			""";
+
+		mockMvc.perform(post("/api/tasks/import")
+				.contentType("application/x-ndjson")
+				.content(body))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.received").value(5))
+			.andExpect(jsonPath("$.imported").value(2))
+			.andExpect(jsonPath("$.rejected").value(3))
+			.andExpect(jsonPath("$.complete").value(true))
+			.andExpect(jsonPath("$.errors", hasSize(3)))
+			.andExpect(jsonPath("$.errors[0]", startsWith("record 2: title")))
+			.andExpect(jsonPath("$.errors[1]", startsWith("record 3: ")))
+			.andExpect(jsonPath("$.errors[2]", startsWith("record 4: externalKey 'ext-taken'")));
+
+		mockMvc.perform(get("/api/tasks"))
+			.andExpect(jsonPath("$", hasSize(3)))
+			.andExpect(jsonPath("$[?(@.title == 'Done')].completedAt").isNotEmpty())
+			.andExpect(jsonPath("$[?(@.title == 'Done')].archived").value(false))
+			.andExpect(jsonPath("$[?(@.title == 'First')].dueDate").value("2026-05-01"));
+	}
+
+	@Test
+	void importTasks_csv_usesHeaderAndStopsAtMalformedInput() throws Exception {
+		String csv = """
+			title,description,status,dueDate,externalKey
+			Plan sprint,,TODO,2026-06-01,
+			"Review, then merge",Quoted comma,DONE,,ext-9
+			""";
+		mockMvc.perform(post("/api/tasks/import")
+				.contentType("text/csv")
+				.content(csv))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.imported").value(2))
+			.andExpect(jsonPath("$.rejected").value(0));
+
+		mockMvc.perform(post("/api/tasks/import")
+				.contentType("application/x-ndjson")
+				.content("{\"title\": \"Kept\"}\n{\"title\": \"Broken\""))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.imported").value(1))
+			.andExpect(jsonPath("$.complete").value(false));
+
+		mockMvc.perform(get("/api/tasks"))
+			.andExpect(jsonPath("$", hasSize(3)))
+			.andExpect(jsonPath("$[?(@.title == 'Review, then merge')].externalKey").value("ext-9"));
+	}
+
+	@Test
+	void getTaskStats_withoutAsOf_usesToday() throws Exception {
+		taskRepository.save(new Task("Today", null, TaskStatus.TODO, LocalDate.now()));
+
+		mockMvc.perform(get("/api/tasks/stats"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.byDueWindow.dueToday.TODO").value(1));
+	}
+
+	@Test
+	void archivedTasks_areHiddenUnlessRequested() throws Exception {
+		Task done = taskRepository.save(new Task("Old work", null, TaskStatus.DONE, null));
+		done.setCompletedAt(LocalDateTime.now().minusDays(90));
+		taskRepository.save(done);
+		taskRepository.save(new Task("Recent work", null, TaskStatus.DONE, null));
+		taskRepository.save(new Task("Open work", null, TaskStatus.TODO, null));
+
+		assertEquals(1, taskArchiver.archiveCompletedTasks());
+
+		mockMvc.perform(get("/api/tasks"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$", hasSize(2)));
+		mockMvc.perform(get("/api/tasks").param("includeArchived", "true"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$", hasSize(3)));
+		mockMvc.perform(get("/api/tasks/stats"))
+			.andExpect(jsonPath("$.byStatus.DONE").value(1));
+		mockMvc.perform(get("/api/tasks/stats").param("includeArchived", "true"))
+			.andExpect(jsonPath("$.byStatus.DONE").value(2));
+		mockMvc.perform(get("/api/tasks/{id}", done.getId()))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.archived").value(true));
+	}
+
+	@Test
+	void doneTasksWithoutACompletionStamp_ageFromTheirFirstArchivalRun() {
+		Task legacy = taskRepository.save(new Task("Done long ago", null, TaskStatus.DONE, null));
+		jdbcTemplate.update("UPDATE tasks SET completed_at = NULL WHERE id = ?", legacy.getId());
+
+		assertEquals(0, taskArchiver.archiveCompletedTasks());
+
+		Task stamped = taskRepository.findById(legacy.getId()).orElseThrow();
+		assertFalse(stamped.isArchived());
+		assertNotNull(stamped.getCompletedAt());
+	}
+
+	@Test
+	void insertAll_rejectsTheExternalKeyOfAnArchivedTask() {
+		Task done = new Task("Old work", null, TaskStatus.DONE, null);
+		done.setExternalKey("ext-archived");
+		done = taskRepository.save(done);
+		done.setCompletedAt(LocalDateTime.now().minusDays(90));
+		taskRepository.save(done);
+		assertEquals(1, taskArchiver.archiveCompletedTasks());
+
+		Task again = new Task("Old work, again", null, TaskStatus.TODO, null);
+		again.setExternalKey("ext-archived");
+		DuplicateKeyException rejected = assertThrows(DuplicateKeyException.class,
+				() -> taskRepository.insertAll(List.of(again)));
+		assertThat(rejected.getMessage(), containsString("ext-archived"));
+		assertEquals(1, taskRepository.count());
+	}
+
+	@Test
+	void reopeningArchivedTask_returnsItToDefaultList() throws Exception {
+		Task done = taskRepository.save(new Task("Old work", null, TaskStatus.DONE, null));
+		done.setCompletedAt(LocalDateTime.now().minusDays(90));
+		taskRepository.save(done);
+		taskArchiver.archiveCompletedTasks();
+
+		Task reopened = new Task("Old work", null, TaskStatus.IN_PROGRESS, null);
+		mockMvc.perform(put("/api/tasks/{id}", done.getId())
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(reopened)))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.archived").value(false))
+			.andExpect(jsonPath("$.completedAt").doesNotExist());
+
+		mockMvc.perform(get("/api/tasks"))
+			.andExpect(jsonPath("$", hasSize(1)));
+	}
+
+	@Test
+	void claimedTasks_areLeasedUntilReleased() throws Exception {
+		Task later = taskRepository.save(new Task("Later", null, TaskStatus.TODO, LocalDate.of(2026, 5, 1)));
+		Task first = taskRepository.save(new Task("First", null, TaskStatus.TODO, LocalDate.of(2026, 4, 1)));
+		taskRepository.save(new Task("Started", null, TaskStatus.IN_PROGRESS, LocalDate.of(2026, 3, 1)));
+
+		mockMvc.perform(post("/api/tasks/claim")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"owner\":\"agent-1\",\"limit\":1}"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$", hasSize(1)))
+			.andExpect(jsonPath("$[0].id").value(first.getId()))
+			.andExpect(jsonPath("$[0].status").value("IN_PROGRESS"))
+			.andExpect(jsonPath("$[0].leaseOwner").value("agent-1"));
+		mockMvc.perform(post("/api/tasks/claim")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"owner\":\"agent-2\",\"limit\":5}"))
+			.andExpect(jsonPath("$", hasSize(1)))
+			.andExpect(jsonPath("$[0].id").value(later.getId()));
+
+		mockMvc.perform(post("/api/tasks/{id}/heartbeat", first.getId())
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"owner\":\"agent-1\"}"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.leaseExpiresAt").exists());
+		mockMvc.perform(post("/api/tasks/{id}/release", first.getId())
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"owner\":\"agent-2\",\"status\":\"DONE\"}"))
+			.andExpect(status().isConflict());
+		mockMvc.perform(post("/api/tasks/{id}/release", first.getId())
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"owner\":\"agent-1\",\"status\":\"DONE\"}"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.status").value("DONE"))
+			.andExpect(jsonPath("$.leaseOwner").doesNotExist());
+		mockMvc.perform(post("/api/tasks/{id}/heartbeat", 999_999)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"owner\":\"agent-1\"}"))
+			.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void statusChangesOutsideTheLease_endTheLease() throws Exception {
+		Task byHand = taskRepository.save(new Task("By hand", null, TaskStatus.TODO, LocalDate.of(2026, 4, 1)));
+		Task inBulk = taskRepository.save(new Task("In bulk", null, TaskStatus.TODO, LocalDate.of(2026, 4, 2)));
+		mockMvc.perform(post("/api/tasks/claim")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"owner\":\"agent-1\",\"limit\":2}"))
+			.andExpect(jsonPath("$", hasSize(2)));
+
+		for (TaskStatus status : new TaskStatus[] {TaskStatus.DONE, TaskStatus.IN_PROGRESS}) {
+			mockMvc.perform(put("/api/tasks/{id}", byHand.getId())
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(objectMapper.writeValueAsString(new Task("By hand", null, status, null))))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.leaseOwner").doesNotExist());
+		}
+		taskRepository.updateStatusByIds(TaskStatus.DONE, List.of(inBulk.getId()));
+		taskRepository.updateStatusByIds(TaskStatus.IN_PROGRESS, List.of(inBulk.getId()));
+		assertEquals(0, taskRepository.reclaimExpiredLeases(LocalDateTime.now().plusDays(1), 100));
+
+		for (Task task : new Task[] {byHand, inBulk}) {
+			mockMvc.perform(get("/api/tasks/{id}", task.getId()))
+				.andExpect(jsonPath("$.status").value("IN_PROGRESS"))
+				.andExpect(jsonPath("$.leaseOwner").doesNotExist());
+			mockMvc.perform(post("/api/tasks/{id}/heartbeat", task.getId())
+					.contentType(MediaType.APPLICATION_JSON)
+					.content("{\"owner\":\"agent-1\"}"))
+				.andExpect(status().isConflict());
+		}
+	}
+
+	@Test
+	void claimTasks_invalidRequest_returnsBadRequest() throws Exception {
+		mockMvc.perform(post("/api/tasks/claim")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"owner\":\" \",\"limit\":0}"))
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.errors.owner").exists())
+			.andExpect(jsonPath("$.errors.limit").exists());
+		mockMvc.perform(post("/api/tasks/1/release")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"owner\":\"agent-1\",\"status\":\"IN_PROGRESS\"}"))
+			.andExpect(status().isBadRequest());
+	}
+
 	@Test
 	void getTaskById_existing_returnsTask() throws Exception {
 		Task task = taskRepository.save(new Task("Find me", "lookup", TaskStatus.TODO, null));
@@ -145,6 +496,18 @@ class BackendApplicationTests {
 			.andExpect(jsonPath("$.title").value("Find me"));
 	}
 
+	@Test
+	void getTasksByIds_returnsExistingTasksInRequestedOrder() throws Exception {
+		Task first = taskRepository.save(new Task("First", null, TaskStatus.TODO, null));
+		Task second = taskRepository.save(new Task("Second", null, TaskStatus.DONE, null));
+
+		mockMvc.perform(get("/api/tasks").param("ids", second.getId() + ",999999," + first.getId()))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$", hasSize(2)))
+			.andExpect(jsonPath("$[0].title").value("Second"))
+			.andExpect(jsonPath("$[1].title").value("First"));
+	}
+
 	@Test
 	void getTaskById_missing_returnsNotFound() throws Exception {
 		mockMvc.perform(get("/api/tasks/{id}", 999999))
@@ -0,0 +1,115 @@
+package com.taskmanager;
+
+import com.taskmanager.repository.resilience.JdbcFaultInjector;
+import com.taskmanager.support.Scope;
+import com.taskmanager.support.WorkloadClass;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:resiliencedb;DB_CLOSE_DELAY=-1",
+		"app.db.fault-injection.enabled=true",
+		"app.db.timeout.read-ms=5000",
+		"app.db.request-deadline-ms=1000",
+		"app.db.circuit-breaker.failure-threshold=2",
+		"app.db.circuit-breaker.open-ms=500",
+		"app.db.bulkhead.background-wait-ms=200"
+})
+@AutoConfigureMockMvc
+class DatabaseResilienceTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcFaultInjector faultInjector;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@AfterEach
+	void heal() throws Exception {
+		faultInjector.reset();
+		// Let an open circuit reach its probe, which closes it again for the next test
+		Thread.sleep(600);
+		mockMvc.perform(get("/api/tasks")).andExpect(status().isOk());
+	}
+
+	@Test
+	void slowQuery_isCancelledAtRequestDeadline() throws Exception {
+		faultInjector.delay("select", Duration.ofSeconds(10));
+
+		long started = System.nanoTime();
+		mockMvc.perform(get("/api/tasks/stats"))
+			.andExpect(status().isServiceUnavailable())
+			.andExpect(jsonPath("$.message").value("Database did not respond in time"));
+		long elapsedMillis = Duration.ofNanos(System.nanoTime() - started).toMillis();
+
+		// The 1 s deadline, not the 5 s read timeout or the 10 s stall, bounds the request
+		assertTrue(elapsedMillis < 3000, "request took " + elapsedMillis + " ms");
+	}
+
+	@Test
+	void failingDatabase_opensCircuitAndFailsFast() throws Exception {
+		faultInjector.fail("select");
+
+		for (int i = 0; i < 2; i++) {
+			mockMvc.perform(get("/api/tasks/1"))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(jsonPath("$.message").value("Database unavailable"));
+		}
+		faultInjector.reset();
+
+		mockMvc.perform(get("/api/tasks"))
+			.andExpect(status().isServiceUnavailable())
+			.andExpect(header().string("Retry-After", "1"))
+			.andExpect(jsonPath("$.message").value("Database temporarily unavailable"));
+
+		Thread.sleep(600);
+		mockMvc.perform(get("/api/tasks")).andExpect(status().isOk());
+	}
+
+	@Test
+	void bulkWorkAtItsShare_isRefusedWhileInteractiveRequestsGoThrough() throws Exception {
+		// Another bulk job holds the bulk share of the pool (a quarter of 10 connections)
+		List<Connection> held = new ArrayList<>();
+		try (Scope scope = WorkloadClass.BULK.open()) {
+			held.add(dataSource.getConnection());
+			held.add(dataSource.getConnection());
+		}
+		try {
+			for (int i = 0; i < 3; i++) {
+				mockMvc.perform(post("/api/tasks/import")
+						.contentType(MediaType.valueOf("application/x-ndjson"))
+						.content("{\"title\": \"Imported\"}\n"))
+					.andExpect(status().isServiceUnavailable())
+					.andExpect(header().string("Retry-After", "1"))
+					.andExpect(jsonPath("$.message").value("Server busy, retry later"));
+			}
+			// Refusals are not database failures, so the circuit stays closed
+			mockMvc.perform(get("/api/tasks")).andExpect(status().isOk());
+		} finally {
+			for (Connection connection : held) {
+				connection.close();
+			}
+		}
+	}
+}
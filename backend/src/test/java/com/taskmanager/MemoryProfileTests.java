@@ -0,0 +1,89 @@
+package com.taskmanager;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.memory.InMemoryTaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("memory")
+class MemoryProfileTests {
+
+	@TempDir
+	static Path dataDir;
+
+	@DynamicPropertySource
+	static void memoryStore(DynamicPropertyRegistry registry) {
+		registry.add("app.tasks.memory.dir", () -> dataDir.toString());
+	}
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TaskRepository taskRepository;
+
+	@Autowired
+	private ApplicationContext context;
+
+	@BeforeEach
+	void resetData() {
+		taskRepository.deleteAll();
+	}
+
+	@Test
+	void memoryProfile_replacesJpaRepository() {
+		assertInstanceOf(InMemoryTaskRepository.class, taskRepository);
+		assertEquals(0, context.getBeanNamesForType(DataSource.class).length);
+	}
+
+	@Test
+	void restApi_createsListsAndCountsTasks() throws Exception {
+		mockMvc.perform(post("/api/tasks")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("""
+					{
+					  "title": "Stored in memory",
+					  "status": "TODO",
+					  "dueDate": "2026-03-04"
+					}
+					"""))
+			.andExpect(status().isCreated())
+			.andExpect(jsonPath("$.id").isNumber());
+		taskRepository.save(new Task("Done", null, TaskStatus.DONE, LocalDate.of(2026, 3, 1)));
+
+		mockMvc.perform(get("/api/tasks"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$", hasSize(2)));
+		mockMvc.perform(get("/api/tasks/stats").param("asOf", "2026-03-04"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.total").value(2))
+			.andExpect(jsonPath("$.byDueWindow.dueToday.TODO").value(1))
+			.andExpect(jsonPath("$.byDueWindow.overdue.DONE").value(1));
+	}
+}
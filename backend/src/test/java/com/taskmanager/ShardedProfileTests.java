@@ -0,0 +1,90 @@
+package com.taskmanager;
+
+import com.taskmanager.repository.TaskFilter;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.shard.ShardedTaskRepository;
+import com.taskmanager.repository.shard.TaskShard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.tasks.shards.urls="
+		+ "jdbc:h2:mem:shard0;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1,"
+		+ "jdbc:h2:mem:shard1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1,"
+		+ "jdbc:h2:mem:shard2;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@ActiveProfiles("sharded")
+class ShardedProfileTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TaskRepository taskRepository;
+
+	@Autowired
+	private ApplicationContext context;
+
+	@BeforeEach
+	void resetData() {
+		taskRepository.deleteAll();
+	}
+
+	@Test
+	void shardedProfile_replacesJpaRepository() {
+		ShardedTaskRepository sharded = AopTestUtils.getUltimateTargetObject(taskRepository);
+		assertInstanceOf(ShardedTaskRepository.class, sharded);
+		assertEquals(3, sharded.getShards().size());
+		assertEquals(0, context.getBeanNamesForType(DataSource.class).length);
+	}
+
+	@Test
+	void restApi_spreadsTasksOverShardsAndMergesReads() throws Exception {
+		for (int i = 0; i < 30; i++) {
+			mockMvc.perform(post("/api/tasks")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content("{\"title\": \"Task " + i + "\", \"status\": \"" + (i < 10 ? "DONE" : "TODO")
+						+ "\", \"dueDate\": \"2026-03-04\"}"))
+				.andExpect(status().isCreated());
+		}
+		ShardedTaskRepository sharded = AopTestUtils.getUltimateTargetObject(taskRepository);
+		long firstId = taskRepository.findAll().get(0).getId();
+
+		long stored = 0;
+		for (TaskShard shard : sharded.getShards()) {
+			long onShard = shard.countByFilter(new TaskFilter());
+			assertTrue(onShard > 0, shard + " holds no tasks");
+			stored += onShard;
+		}
+		assertEquals(30, stored);
+		mockMvc.perform(get("/api/tasks"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$", hasSize(30)));
+		mockMvc.perform(get("/api/tasks/{id}", firstId))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.id").value(firstId));
+		mockMvc.perform(get("/api/tasks/stats").param("asOf", "2026-03-04"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.total").value(30))
+			.andExpect(jsonPath("$.byStatus.DONE").value(10))
+			.andExpect(jsonPath("$.byDueWindow.dueToday.TODO").value(20));
+	}
+}
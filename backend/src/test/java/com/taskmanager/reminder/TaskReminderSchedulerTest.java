@@ -0,0 +1,198 @@
+package com.taskmanager.reminder;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.memory.InMemoryTaskRepository;
+import com.taskmanager.service.StatusWriteBuffer;
+import com.taskmanager.service.TaskService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TaskReminderSchedulerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 6, 10);
+
+    @TempDir
+    Path directory;
+
+    private final MutableClock clock = new MutableClock(TODAY.atTime(9, 0).toInstant(ZoneOffset.UTC));
+    private final List<TaskReminder> delivered = new CopyOnWriteArrayList<>();
+    private InMemoryTaskRepository repository;
+    private TaskService taskService;
+    private TaskReminderScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryTaskRepository(directory, false, 64L << 20);
+        taskService = new TaskService(repository, 0, new StatusWriteBuffer(repository, false, 1), 0, 1, null);
+        TaskReminderSink sink = delivered::add;
+        scheduler = new TaskReminderScheduler(repository,
+                new StaticListableBeanFactory(Map.of("sink", sink)).getBeanProvider(TaskReminderSink.class),
+                clock, 1, 1, 3_600_000, 2);
+        taskService.addWriteListener(scheduler);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        scheduler.stop();
+        repository.close();
+    }
+
+    @Test
+    void load_holdsOnlyRemindersWithinTheLookAheadWindow() {
+        repository.save(new Task("Day after", null, TaskStatus.TODO, TODAY.plusDays(2)));
+        repository.save(new Task("Due today", null, TaskStatus.IN_PROGRESS, TODAY));
+        repository.save(new Task("Next week", null, TaskStatus.TODO, TODAY.plusDays(7)));
+        repository.save(new Task("Finished", null, TaskStatus.DONE, TODAY.plusDays(2)));
+        repository.save(new Task("No date", null, TaskStatus.TODO, null));
+
+        scheduler.runOnce();
+
+        // Both fire tomorrow; the OVERDUE reminder of "Day after" is beyond the window
+        assertEquals(2, scheduler.queuedCount());
+        assertEquals(startOf(TODAY.plusDays(1)), scheduler.nextFireAt());
+
+        clock.set(startOf(TODAY.plusDays(1)));
+        scheduler.runOnce();
+
+        assertEquals(List.of("UPCOMING Day after", "OVERDUE Due today"), fired());
+        assertEquals(0, scheduler.queuedCount());
+        delivered.clear();
+
+        clock.set(startOf(TODAY.plusDays(2)));
+        scheduler.runOnce();
+        assertEquals(1, scheduler.queuedCount());
+
+        clock.set(startOf(TODAY.plusDays(3)));
+        scheduler.runOnce();
+
+        assertEquals(List.of("OVERDUE Day after"), fired());
+    }
+
+    @Test
+    void writesThroughTheService_updateTheQueue() {
+        scheduler.runOnce();
+        Task task = taskService.createTask(new Task("Report", null, TaskStatus.TODO, TODAY.plusDays(2)));
+        Task other = taskService.createTask(new Task("Slides", null, TaskStatus.TODO, TODAY.plusDays(2)));
+        taskService.createTask(new Task("Later", null, TaskStatus.TODO, TODAY.plusDays(5)));
+        assertEquals(2, scheduler.queuedCount());
+
+        taskService.updateTask(task.getId(), new Task("Report", null, TaskStatus.DONE, TODAY.plusDays(2)));
+        taskService.deleteTask(other.getId());
+        assertEquals(0, scheduler.queuedCount());
+
+        Task moved = taskService.createTask(new Task("Review", null, TaskStatus.TODO, TODAY.plusDays(9)));
+        taskService.updateTask(moved.getId(), new Task("Review", null, TaskStatus.TODO, TODAY));
+        assertEquals(1, scheduler.queuedCount());
+
+        clock.set(startOf(TODAY.plusDays(1)));
+        scheduler.runOnce();
+
+        assertEquals(List.of("OVERDUE Review"), fired());
+    }
+
+    @Test
+    void fire_skipsTasksChangedBehindTheServicesBack() {
+        Task task = repository.save(new Task("Report", null, TaskStatus.TODO, TODAY.plusDays(2)));
+        Task moved = repository.save(new Task("Slides", null, TaskStatus.TODO, TODAY.plusDays(2)));
+        scheduler.runOnce();
+        assertEquals(2, scheduler.queuedCount());
+
+        task.setStatus(TaskStatus.DONE);
+        repository.save(task);
+        moved.setDueDate(TODAY.plusDays(3));
+        repository.save(moved);
+        clock.set(startOf(TODAY.plusDays(1)));
+        scheduler.runOnce();
+
+        assertEquals(List.of(), fired());
+    }
+
+    @Test
+    void refresh_picksUpTasksWrittenByOtherServices() {
+        scheduler.runOnce();
+        assertNull(scheduler.nextFireAt());
+
+        repository.save(new Task("From MCP", null, TaskStatus.TODO, TODAY.plusDays(2)));
+        clock.advance(Duration.ofMinutes(30));
+        scheduler.runOnce();
+        assertEquals(0, scheduler.queuedCount());
+
+        clock.advance(Duration.ofMinutes(31));
+        scheduler.runOnce();
+        assertEquals(1, scheduler.queuedCount());
+
+        clock.set(startOf(TODAY.plusDays(1)));
+        scheduler.runOnce();
+        assertEquals(List.of("UPCOMING From MCP"), fired());
+    }
+
+    @Test
+    void missedReminders_areNotFiredLate() {
+        repository.save(new Task("Yesterday", null, TaskStatus.TODO, TODAY.minusDays(1)));
+        repository.save(new Task("Today", null, TaskStatus.TODO, TODAY));
+
+        scheduler.runOnce();
+
+        assertEquals(List.of(), fired());
+        assertEquals(1, scheduler.queuedCount());
+    }
+
+    private List<String> fired() {
+        return delivered.stream().map(reminder -> reminder.getKind() + " " + reminder.getTitle()).toList();
+    }
+
+    private static Instant startOf(LocalDate day) {
+        return day.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void set(Instant instant) {
+            now = instant;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
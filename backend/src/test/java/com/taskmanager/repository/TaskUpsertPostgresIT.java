@@ -0,0 +1,169 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks the PostgreSQL form of {@link TaskRepositoryCustomImpl#upsertByExternalKey}, one
+ * multi-row {@code INSERT ... ON CONFLICT DO UPDATE ... RETURNING (xmax = 0)}, against a real
+ * server; the H2 tests only cover the portable fallback. Also checks that external keys stay
+ * unique across the partitions of {@code db/postgres/partition-tasks.sql}. Each run works in a
+ * schema of its own, dropped afterwards, so any database the user may create schemas in will do,
+ * e.g. the one {@code docker compose up -d} starts.
+ * <p>
+ * Properties:
+ * <ul>
+ *   <li>{@code tasks.postgres.url}: JDBC URL of the database; the test is skipped without it.</li>
+ *   <li>{@code tasks.postgres.username}: default {@code taskuser}.</li>
+ *   <li>{@code tasks.postgres.password}: default {@code taskpass}.</li>
+ * </ul>
+ */
+@EnabledIfSystemProperty(named = "tasks.postgres.url", matches = ".+")
+class TaskUpsertPostgresIT {
+
+    private final String schema = "upsert_it_" + UUID.randomUUID().toString().replace("-", "");
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TaskRepositoryCustomImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource(System.getProperty("tasks.postgres.url"),
+                System.getProperty("tasks.postgres.username", "taskuser"),
+                System.getProperty("tasks.postgres.password", "taskpass"), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE SCHEMA " + schema);
+        jdbcTemplate.execute("SET search_path TO " + schema);
+        // The table Hibernate creates for Task
+        jdbcTemplate.execute("CREATE TABLE tasks ("
+                + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,"
+                + " completed_at TIMESTAMP(6),"
+                + " lease_expires_at TIMESTAMP(6),"
+                + " due_date DATE,"
+                + " status SMALLINT NOT NULL CONSTRAINT ck_tasks_status CHECK (status BETWEEN 0 AND 2),"
+                + " archived BOOLEAN DEFAULT FALSE NOT NULL,"
+                + " title VARCHAR(" + Task.TITLE_MAX_LENGTH + ") NOT NULL,"
+                + " description VARCHAR(" + Task.DESCRIPTION_MAX_LENGTH + "),"
+                + " external_key VARCHAR(" + Task.EXTERNAL_KEY_MAX_LENGTH + "),"
+                + " lease_owner VARCHAR(" + Task.LEASE_OWNER_MAX_LENGTH + "),"
+                + " CONSTRAINT uk_tasks_external_key UNIQUE (external_key))");
+        repository = new TaskRepositoryCustomImpl(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP SCHEMA " + schema + " CASCADE");
+        dataSource.destroy();
+    }
+
+    @Test
+    void upsert_countsInsertedUpdatedAndUnchangedRows() {
+        UpsertResult first = repository.upsertByExternalKey(List.of(
+                keyed("k1", "One", TaskStatus.TODO), keyed("k2", "Two", TaskStatus.TODO),
+                keyed("k3", "Three", TaskStatus.TODO)));
+        assertCounts(3, 0, 0, first);
+
+        UpsertResult second = repository.upsertByExternalKey(List.of(
+                keyed("k1", "One", TaskStatus.TODO), keyed("k2", "Two, renamed", TaskStatus.TODO),
+                keyed("k3", "Three", TaskStatus.DONE), keyed("k4", "Four", TaskStatus.TODO)));
+        assertCounts(1, 2, 1, second);
+
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tasks", Integer.class));
+        assertEquals("Two, renamed",
+                jdbcTemplate.queryForObject("SELECT title FROM tasks WHERE external_key = 'k2'", String.class));
+        assertNotNull(completedAt("k3"));
+        assertNull(completedAt("k1"));
+
+        assertCounts(0, 0, 4, repository.upsertByExternalKey(List.of(
+                keyed("k1", "One", TaskStatus.TODO), keyed("k2", "Two, renamed", TaskStatus.TODO),
+                keyed("k3", "Three", TaskStatus.DONE), keyed("k4", "Four", TaskStatus.TODO))));
+    }
+
+    @Test
+    void upsert_countsEveryBatchOfALargeCall() {
+        int rows = TaskRepositoryCustomImpl.UPSERT_BATCH_SIZE * 2 + 7;
+        List<Task> tasks = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            tasks.add(keyed("key-" + i, "Task " + i, TaskStatus.TODO));
+        }
+        assertCounts(rows, 0, 0, repository.upsertByExternalKey(tasks));
+
+        List<Task> again = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            again.add(keyed("key-" + i, i % 3 == 0 ? "Changed " + i : "Task " + i, TaskStatus.TODO));
+        }
+        int changed = (rows + 2) / 3;
+        assertCounts(0, changed, rows - changed, repository.upsertByExternalKey(again));
+    }
+
+    @Test
+    void partitionedTable_rejectsAHotTaskWithTheKeyOfAnArchivedOne() throws IOException {
+        jdbcTemplate.execute(Files.readString(Path.of("../db/postgres/partition-tasks.sql")));
+        repository.upsertByExternalKey(List.of(
+                keyed("k1", "One", TaskStatus.DONE), keyed("k2", "Two", TaskStatus.DONE)));
+        assertEquals(1, archiveLongCompleted("k1"));
+
+        assertThrows(DuplicateKeyException.class, () -> jdbcTemplate.update(
+                "INSERT INTO tasks (external_key, title, status) VALUES ('k1', 'One, again', 0)"));
+        assertThrows(DuplicateKeyException.class,
+                () -> repository.insertAll(List.of(keyed("k1", "One, again", TaskStatus.DONE))));
+
+        // Archiving moves the row between partitions and keeps its key
+        assertEquals(1, archiveLongCompleted("k2"));
+        assertEquals(List.of("k1", "k2"), jdbcTemplate.queryForList(
+                "SELECT external_key FROM task_keys ORDER BY external_key", String.class));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tasks_archive", Integer.class));
+
+        // Replaying an unchanged task leaves it archived; a changed one is merged back into tasks_hot
+        assertCounts(0, 1, 1, repository.upsertByExternalKey(List.of(
+                keyed("k1", "One", TaskStatus.DONE), keyed("k2", "Two", TaskStatus.TODO))));
+        assertEquals(List.of("k1"), jdbcTemplate.queryForList("SELECT external_key FROM tasks_archive", String.class));
+
+        jdbcTemplate.update("DELETE FROM tasks WHERE external_key = 'k1'");
+        assertEquals(1, repository.insertAll(List.of(keyed("k1", "One, again", TaskStatus.TODO))));
+    }
+
+    private int archiveLongCompleted(String externalKey) {
+        jdbcTemplate.update("UPDATE tasks SET completed_at = completed_at - INTERVAL '90 days' WHERE external_key = ?",
+                externalKey);
+        return repository.archiveCompleted(LocalDateTime.now().minusDays(30), 10);
+    }
+
+    private Object completedAt(String externalKey) {
+        return jdbcTemplate.queryForObject("SELECT completed_at FROM tasks WHERE external_key = ?", Object.class,
+                externalKey);
+    }
+
+    private static void assertCounts(int inserted, int updated, int unchanged, UpsertResult result) {
+        assertEquals(List.of(inserted, updated, unchanged),
+                List.of(result.getInserted(), result.getUpdated(), result.getUnchanged()));
+    }
+
+    private static Task keyed(String key, String title, TaskStatus status) {
+        Task task = new Task(title, null, status, LocalDate.of(2026, 3, 10));
+        task.setExternalKey(key);
+        return task;
+    }
+}
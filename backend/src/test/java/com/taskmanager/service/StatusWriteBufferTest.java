@@ -0,0 +1,186 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs with write-behind enabled and a window long enough that nothing is flushed by the
+ * scheduler during a test; flushes are triggered explicitly.
+ */
+@SpringBootTest(properties = {
+        "app.tasks.write-behind.enabled=true",
+        "app.tasks.write-behind.window-ms=3600000"
+})
+@AutoConfigureMockMvc
+class StatusWriteBufferTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private StatusWriteBuffer statusWriteBuffer;
+
+    private Task task;
+
+    @BeforeEach
+    void resetData() {
+        statusWriteBuffer.flush();
+        taskRepository.deleteAll();
+        task = taskRepository.save(new Task("Drag me", "Board card", TaskStatus.TODO, LocalDate.of(2026, 4, 1)));
+    }
+
+    @Test
+    void rapidStatusFlips_areCoalescedIntoOneWrite() {
+        long acceptedBefore = statusWriteBuffer.getAcceptedCount();
+        long writtenBefore = statusWriteBuffer.getWrittenCount();
+
+        TaskStatus[] flips = {TaskStatus.IN_PROGRESS, TaskStatus.DONE, TaskStatus.TODO, TaskStatus.DONE,
+                TaskStatus.IN_PROGRESS};
+        for (TaskStatus status : flips) {
+            Task returned = taskService.updateTask(task.getId(), details(status));
+            assertEquals(status, returned.getStatus());
+        }
+
+        assertEquals(TaskStatus.TODO, reload().getStatus());
+        assertEquals(TaskStatus.IN_PROGRESS, taskService.getTaskById(task.getId()).getStatus());
+        assertEquals(1, statusWriteBuffer.getPendingCount());
+
+        assertEquals(1, statusWriteBuffer.flush());
+
+        assertEquals(TaskStatus.IN_PROGRESS, reload().getStatus());
+        assertEquals(TaskStatus.IN_PROGRESS, taskService.getTaskById(task.getId()).getStatus());
+        assertEquals(0, statusWriteBuffer.getPendingCount());
+        // The flip back to the stored TODO status cancels the pending change instead of queueing one.
+        assertEquals(flips.length - 1, statusWriteBuffer.getAcceptedCount() - acceptedBefore);
+        assertEquals(1, statusWriteBuffer.getWrittenCount() - writtenBefore);
+    }
+
+    @Test
+    void flush_appliesCompletionRulesInOneStatementPerStatus() {
+        Task other = taskRepository.save(new Task("Second", null, TaskStatus.TODO, null));
+
+        taskService.updateTask(task.getId(), details(TaskStatus.DONE));
+        taskService.updateTask(other.getId(), new Task("Second", null, TaskStatus.DONE, null));
+
+        assertEquals(2, statusWriteBuffer.flush());
+
+        assertEquals(TaskStatus.DONE, reload().getStatus());
+        assertNotNull(reload().getCompletedAt());
+        assertEquals(TaskStatus.DONE, taskRepository.findById(other.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void crashBeforeFlush_losesBufferedStatusAndRestartSeesStoredState() {
+        StatusWriteBuffer crashed = new StatusWriteBuffer(taskRepository, true, 100);
+        TaskService beforeCrash = TaskService.builder(taskRepository).statusWriteBuffer(crashed).build();
+
+        beforeCrash.updateTask(task.getId(), details(TaskStatus.DONE));
+        assertEquals(TaskStatus.DONE, beforeCrash.getTaskById(task.getId()).getStatus());
+
+        // The process dies without running shutdown(): the acknowledged change only existed in memory.
+        TaskService afterRestart = TaskService.builder(taskRepository)
+                .statusWriteBuffer(new StatusWriteBuffer(taskRepository, true, 100)).build();
+
+        assertEquals(TaskStatus.TODO, afterRestart.getTaskById(task.getId()).getStatus());
+        assertEquals(TaskStatus.TODO, reload().getStatus());
+    }
+
+    @Test
+    void gracefulShutdown_flushesBufferedStatusBeforeRestart() {
+        StatusWriteBuffer stopping = new StatusWriteBuffer(taskRepository, true, 100);
+        TaskService.builder(taskRepository).statusWriteBuffer(stopping).build().updateTask(task.getId(), details(TaskStatus.DONE));
+
+        stopping.shutdown();
+
+        TaskService afterRestart = TaskService.builder(taskRepository)
+                .statusWriteBuffer(new StatusWriteBuffer(taskRepository, true, 100)).build();
+        assertEquals(TaskStatus.DONE, afterRestart.getTaskById(task.getId()).getStatus());
+        assertEquals(0, stopping.getPendingCount());
+    }
+
+    @Test
+    void fullBuffer_fallsBackToSynchronousWrite() {
+        StatusWriteBuffer small = new StatusWriteBuffer(taskRepository, true, 1);
+        TaskService service = TaskService.builder(taskRepository).statusWriteBuffer(small).build();
+        Task other = taskRepository.save(new Task("Second", null, TaskStatus.TODO, null));
+
+        service.updateTask(task.getId(), details(TaskStatus.IN_PROGRESS));
+        service.updateTask(other.getId(), new Task("Second", null, TaskStatus.DONE, null));
+
+        assertEquals(1, small.getPendingCount());
+        assertEquals(TaskStatus.TODO, reload().getStatus());
+        assertEquals(TaskStatus.DONE, taskRepository.findById(other.getId()).orElseThrow().getStatus());
+        assertTrue(small.submit(task.getId(), TaskStatus.DONE), "a buffered task can still be updated");
+        assertFalse(small.submit(other.getId(), TaskStatus.TODO));
+    }
+
+    @Test
+    void fullUpdate_overridesPendingStatus() {
+        taskService.updateTask(task.getId(), details(TaskStatus.DONE));
+
+        Task edit = details(TaskStatus.IN_PROGRESS);
+        edit.setTitle("Renamed");
+        taskService.updateTask(task.getId(), edit);
+
+        assertEquals(0, statusWriteBuffer.getPendingCount());
+        assertEquals(0, statusWriteBuffer.flush());
+        assertEquals("Renamed", reload().getTitle());
+        assertEquals(TaskStatus.IN_PROGRESS, reload().getStatus());
+        assertNull(reload().getCompletedAt());
+    }
+
+    @Test
+    void putStatusOnly_isVisibleToReadsBeforeFlush() throws Exception {
+        String payload = """
+                {"title":"Drag me","description":"Board card","status":"DONE","dueDate":"2026-04-01"}
+                """;
+
+        mockMvc.perform(put("/api/tasks/{id}", task.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(payload))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("DONE"));
+
+        mockMvc.perform(get("/api/tasks/{id}", task.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("DONE"));
+        mockMvc.perform(get("/api/tasks"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("DONE"));
+        assertEquals(TaskStatus.TODO, reload().getStatus());
+    }
+
+    private Task details(TaskStatus status) {
+        return new Task(task.getTitle(), task.getDescription(), status, task.getDueDate());
+    }
+
+    private Task reload() {
+        return taskRepository.findById(task.getId()).orElseThrow();
+    }
+}
@@ -0,0 +1,56 @@
+package com.taskmanager.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskArchiverTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-03-31T12:00:00Z"), ZoneOffset.UTC);
+
+    @Mock
+    private TaskService taskService;
+
+    @Test
+    void archive_usesRetentionCutoffAndStopsAfterShortBatch() {
+        LocalDateTime cutoff = LocalDateTime.of(2026, 3, 1, 12, 0);
+        when(taskService.archiveCompleted(cutoff, 100)).thenReturn(100, 100, 37);
+
+        int archived = new TaskArchiver(taskService, true, 30, 100, 10, CLOCK).archiveCompletedTasks();
+
+        assertEquals(237, archived);
+        verify(taskService, times(3)).archiveCompleted(cutoff, 100);
+    }
+
+    @Test
+    void archive_isBoundedByMaxBatchesPerRun() {
+        when(taskService.archiveCompleted(any(), anyInt())).thenReturn(50);
+
+        int archived = new TaskArchiver(taskService, true, 30, 50, 4, CLOCK).archiveCompletedTasks();
+
+        assertEquals(200, archived);
+        verify(taskService, times(4)).archiveCompleted(any(), anyInt());
+    }
+
+    @Test
+    void scheduledRun_doesNothingWhenDisabled() {
+        new TaskArchiver(taskService, false, 30, 50, 4, CLOCK).runScheduled();
+
+        verify(taskService, never()).archiveCompleted(any(), anyInt());
+    }
+}
@@ -0,0 +1,167 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.memory.InMemoryTaskRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskExistenceFilterTest {
+
+    private static final long SETTLE_MS = 1_000;
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path directory;
+
+    private InMemoryTaskRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryTaskRepository(directory, false, 1L << 20);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        repository.close();
+    }
+
+    @Test
+    void idsAreCoveredOnlyOnceALoadStartedSettleMsLaterHasPassedThem() {
+        long first = save("a");
+        long deleted = save("b");
+        long last = save("c");
+        repository.deleteById(deleted);
+        TaskExistenceFilter filter = filter(10);
+
+        filter.runOnce();
+        assertEquals(0, filter.coveredThrough());
+        assertTrue(filter.mightExist(deleted));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(SETTLE_MS));
+        long later = save("d");
+        filter.runOnce();
+
+        assertEquals(last, filter.coveredThrough());
+        assertTrue(filter.mightExist(first));
+        assertTrue(filter.mightExist(last));
+        assertFalse(filter.mightExist(deleted));
+        // Above the watermark: may be committing right now
+        assertTrue(filter.mightExist(later));
+        assertTrue(filter.mightExist(later + 1));
+        assertEquals(1.0, checks("absent"));
+        assertEquals(2.0, checks("maybe"));
+        assertEquals(3.0, checks("uncovered"));
+        assertTrue(registry.get("tasks.existence_filter.memory").gauge().value() > 0);
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(SETTLE_MS));
+        filter.runOnce();
+        assertEquals(later, filter.coveredThrough());
+        assertTrue(filter.mightExist(later));
+        assertEquals(3.0, checks("maybe"));
+    }
+
+    @Test
+    void deletedIds_andFalsePositives_areRememberedAsGone() {
+        long deletedHere = save("a");
+        long deletedElsewhere = save("b");
+        TaskExistenceFilter filter = settledFilter();
+
+        filter.removed(deletedHere);
+        repository.deleteById(deletedElsewhere);
+
+        assertFalse(filter.mightExist(deletedHere));
+        assertTrue(filter.mightExist(deletedElsewhere));
+        filter.confirmedMissing(deletedElsewhere);
+        assertFalse(filter.mightExist(deletedElsewhere));
+
+        assertEquals(1.0, registry.get("tasks.existence_filter.false_positives").counter().count());
+        assertEquals(2.0, registry.get("tasks.existence_filter.deleted_ids").gauge().value());
+        assertEquals(1.0 / 3, registry.get("tasks.existence_filter.false_positive_rate").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void rebuild_dropsDeletedIds_andKeepsTheWatermark() {
+        long kept = save("a");
+        long deleted = save("b");
+        TaskExistenceFilter filter = settledFilter();
+        long covered = filter.coveredThrough();
+
+        repository.deleteById(deleted);
+        filter.removed(deleted);
+        assertEquals(1.0, registry.get("tasks.existence_filter.deleted_ids").gauge().value());
+
+        // max-deleted reached: the next run rebuilds instead of refreshing
+        filter.runOnce();
+
+        assertEquals(0.0, registry.get("tasks.existence_filter.deleted_ids").gauge().value());
+        assertEquals(1.0, registry.get("tasks.existence_filter.ids").gauge().value());
+        assertEquals(covered, filter.coveredThrough());
+        assertTrue(filter.mightExist(kept));
+        assertFalse(filter.mightExist(deleted));
+    }
+
+    @Test
+    void createdTasks_areAddedAtOnce() {
+        save("a");
+        TaskExistenceFilter filter = settledFilter();
+
+        long created = save("b");
+        filter.added(created);
+        assertEquals(2.0, registry.get("tasks.existence_filter.ids").gauge().value());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(SETTLE_MS));
+        filter.runOnce();
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(SETTLE_MS));
+        filter.runOnce();
+        assertTrue(filter.mightExist(created));
+    }
+
+    @Test
+    void disabledFilter_neverRulesOutAnId() {
+        save("a");
+        TaskExistenceFilter filter = new TaskExistenceFilter(repository, registry, false, 0.01, 1_000, 1_000,
+                0, 60_000, 1, 10, clock::get);
+        filter.runOnce();
+
+        assertTrue(filter.mightExist(12345));
+        assertEquals(0.0, checks("uncovered"));
+    }
+
+    /**
+     * A filter that covers every task saved so far, with {@code max-deleted} of 1.
+     */
+    private TaskExistenceFilter settledFilter() {
+        TaskExistenceFilter filter = filter(1);
+        filter.runOnce();
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(SETTLE_MS));
+        filter.runOnce();
+        return filter;
+    }
+
+    private TaskExistenceFilter filter(int maxDeleted) {
+        return new TaskExistenceFilter(repository, registry, true, 0.01, 1_000, 1_000, SETTLE_MS,
+                3_600_000, maxDeleted, 2, clock::get);
+    }
+
+    private long save(String title) {
+        return repository.save(new Task(title, null, TaskStatus.TODO, null)).getId();
+    }
+
+    private double checks(String result) {
+        return registry.get("tasks.existence_filter.checks").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,88 @@
+package com.taskmanager.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.memory.InMemoryTaskRepository;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Imports a generated NDJSON body into the embedded store through {@link TaskImportService} and
+ * prints the throughput. The body is generated while it is read, so only the import itself holds
+ * memory.
+ * <p>
+ * Properties:
+ * <ul>
+ *   <li>{@code tasks.import.rows}: records imported (default 200000).</li>
+ *   <li>{@code tasks.import.batch-size}: rows per insert (default 1000).</li>
+ * </ul>
+ */
+@EnabledIfSystemProperty(named = "tasks.import.benchmark", matches = "true")
+class TaskImportBenchmarkIT {
+
+    private final int rows = Integer.getInteger("tasks.import.rows", 200_000);
+    private final int batchSize = Integer.getInteger("tasks.import.batch-size", 1000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void ndjsonThroughput() throws Exception {
+        try (InMemoryTaskRepository repository = new InMemoryTaskRepository(directory, false, 64L << 20);
+                ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory()) {
+            TaskImportService service = new TaskImportService(repository, TaskService.builder(repository).build(),
+                    validatorFactory.getValidator(), new ObjectMapper().registerModule(new JavaTimeModule()),
+                    new StaticListableBeanFactory().getBeanProvider(PlatformTransactionManager.class), batchSize,
+                    10);
+
+            long started = System.nanoTime();
+            TaskImportResult result = service.importTasks(body(), TaskImportService.Format.NDJSON);
+            long millis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+
+            System.out.printf("Imported %d NDJSON rows in %d batches in %d ms (%,d rows/s)%n", result.getImported(),
+                    result.getBatches(), millis, result.getImported() * 1000L / millis);
+            assertEquals(rows, result.getImported());
+        }
+    }
+
+    private InputStream body() {
+        return new SequenceInputStream(new Enumeration<>() {
+            private int next;
+
+            @Override
+            public boolean hasMoreElements() {
+                return next < rows;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                if (!hasMoreElements()) {
+                    throw new NoSuchElementException();
+                }
+                StringBuilder chunk = new StringBuilder();
+                for (int end = Math.min(rows, next + 1000); next < end; next++) {
+                    chunk.append("{\"title\":\"Task ").append(next).append("\",\"status\":\"")
+                            .append(TaskStatus.values()[next % 3]).append("\",\"dueDate\":\"2026-07-")
+                            .append(10 + next % 20).append("\"}\n");
+                }
+                return new ByteArrayInputStream(chunk.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+}
@@ -0,0 +1,155 @@
+package com.taskmanager.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.memory.InMemoryTaskRepository;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TaskImportServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private InMemoryTaskRepository repository;
+    private ValidatorFactory validatorFactory;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryTaskRepository(directory, false, 64L << 20);
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        validatorFactory.close();
+        repository.close();
+    }
+
+    @Test
+    void importTasks_streamsLargeBodyInBatches() throws IOException {
+        int rows = 5_000;
+        TaskImportService service = service(1000, 10);
+
+        TaskImportResult result = service.importTasks(generated(rows, i -> "{\"title\":\"Task " + i
+                + "\",\"status\":\"" + TaskStatus.values()[i % 3] + "\",\"dueDate\":\"2026-07-"
+                + (10 + i % 20) + "\"}\n"), TaskImportService.Format.NDJSON);
+
+        assertEquals(rows, result.getReceived());
+        assertEquals(rows, result.getImported());
+        assertEquals(5, result.getBatches());
+        assertTrue(result.isComplete());
+        assertEquals(rows, repository.count());
+    }
+
+    @Test
+    void importTasks_boundsErrorListAndRejectsDuplicateKeysOnly() throws IOException {
+        TaskImportService service = service(4, 3);
+        String body = "title,externalKey\n" + "A,k1\n" + ",\n".repeat(5) + "B,k1\n" + "C,k2\n";
+
+        TaskImportResult result = service.importTasks(stream(body), TaskImportService.Format.CSV);
+
+        assertEquals(8, result.getReceived());
+        assertEquals(2, result.getImported());
+        assertEquals(6, result.getRejected());
+        assertEquals(3, result.getErrors().size());
+        assertTrue(result.isErrorsTruncated());
+        assertFalse(repository.findAll().stream().anyMatch(task -> "B".equals(task.getTitle())));
+    }
+
+    @Test
+    void rowsRejectedForOtherReasons_reportTheDatabaseMessage() throws IOException {
+        TaskRepository failing = mock(TaskRepository.class);
+        when(failing.insertAll(anyList())).thenThrow(new DataIntegrityViolationException("ck_tasks_status violated"));
+
+        TaskImportResult result = service(failing, 10, 10).importTasks(stream("title\nA\nB\n"),
+                TaskImportService.Format.CSV);
+
+        assertEquals(0, result.getImported());
+        assertEquals(List.of("record 1: ck_tasks_status violated", "record 2: ck_tasks_status violated"),
+                result.getErrors());
+    }
+
+    @Test
+    void failedFlush_isNotSentAgain() {
+        TaskRepository failing = mock(TaskRepository.class);
+        when(failing.insertAll(anyList())).thenThrow(new DataAccessResourceFailureException("connection lost"));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> service(failing, 1, 10)
+                .importTasks(stream("title\nA\nB\n"), TaskImportService.Format.CSV));
+        verify(failing, times(1)).insertAll(anyList());
+    }
+
+    private TaskImportService service(int batchSize, int maxErrors) {
+        return service(repository, batchSize, maxErrors);
+    }
+
+    private TaskImportService service(TaskRepository taskRepository, int batchSize, int maxErrors) {
+        TaskService taskService = TaskService.builder(taskRepository).build();
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        return new TaskImportService(taskRepository, taskService, validatorFactory.getValidator(), objectMapper,
+                new StaticListableBeanFactory().getBeanProvider(PlatformTransactionManager.class), batchSize,
+                maxErrors);
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A body of {@code rows} generated lines that is never held in memory as a whole.
+     */
+    private static InputStream generated(int rows, IntFunction<String> line) {
+        return new SequenceInputStream(new Enumeration<>() {
+            private int next;
+
+            @Override
+            public boolean hasMoreElements() {
+                return next < rows;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                if (!hasMoreElements()) {
+                    throw new NoSuchElementException();
+                }
+                StringBuilder chunk = new StringBuilder();
+                for (int end = Math.min(rows, next + 1000); next < end; next++) {
+                    chunk.append(line.apply(next));
+                }
+                return stream(chunk.toString());
+            }
+        });
+    }
+}
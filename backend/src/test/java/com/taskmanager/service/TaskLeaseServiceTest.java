@@ -0,0 +1,61 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.TaskStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskLeaseServiceTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-03-31T12:00:00Z"), ZoneOffset.UTC);
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 31, 12, 0);
+
+    @Mock
+    private TaskService taskService;
+
+    @Test
+    void claimAndHeartbeat_leaseFromNowAndCapTheBatch() {
+        when(taskService.claimTasks("agent-1", 25, NOW.plusMinutes(5))).thenReturn(List.of());
+        TaskLeaseService leases = new TaskLeaseService(taskService, 300_000, 25, true, 100, 10, CLOCK);
+
+        leases.claim("agent-1", 1_000);
+        leases.heartbeat(7L, "agent-1");
+        leases.release(7L, "agent-1", null);
+
+        verify(taskService).renewLease(7L, "agent-1", NOW.plusMinutes(5));
+        verify(taskService).releaseLease(7L, "agent-1", TaskStatus.TODO);
+    }
+
+    @Test
+    void sweep_reclaimsExpiredLeasesInBatchesUntilAShortOne() {
+        when(taskService.reclaimExpiredLeases(NOW, 100)).thenReturn(100, 12);
+
+        int reclaimed = new TaskLeaseService(taskService, 300_000, 25, true, 100, 10, CLOCK).reclaimExpiredLeases();
+
+        assertEquals(112, reclaimed);
+        verify(taskService, times(2)).reclaimExpiredLeases(NOW, 100);
+    }
+
+    @Test
+    void scheduledSweep_doesNothingWhenDisabled() {
+        new TaskLeaseService(taskService, 300_000, 25, false, 100, 10, CLOCK).sweepScheduled();
+
+        verify(taskService, never()).reclaimExpiredLeases(any(), anyInt());
+    }
+}
@@ -0,0 +1,177 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.memory.InMemoryTaskRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares {@code GET /api/tasks/{id}} lookups through {@link TaskService} with and without lookup
+ * batching, counting the queries that reach the repository. The repository is the embedded store
+ * behind a proxy that models a database: every query holds one of {@code pool-size} connections
+ * for {@code query-latency-us}, whether it loads one id or a hundred. Many concurrent callers look
+ * up random ids, so the read coalescing of identical ids hardly contributes.
+ * <p>
+ * Properties:
+ * <ul>
+ *   <li>{@code tasks.lookup.window-us}: batching window of the batched run (default 200).</li>
+ *   <li>{@code tasks.lookup.threads}: concurrent callers (default 64).</li>
+ *   <li>{@code tasks.lookup.seconds}: measured seconds per run, after one second of warm-up
+ *       (default 5).</li>
+ *   <li>{@code tasks.lookup.query-latency-us} / {@code tasks.lookup.pool-size}: modelled round trip
+ *       and connection pool (default 500 / 10).</li>
+ *   <li>{@code tasks.lookup.tasks}: stored tasks the ids are drawn from (default 10000).</li>
+ * </ul>
+ */
+@EnabledIfSystemProperty(named = "tasks.lookup.benchmark", matches = "true")
+class TaskLookupBatchingBenchmarkIT {
+
+    private final long windowMicros = Long.getLong("tasks.lookup.window-us", 200);
+    private final int threads = Integer.getInteger("tasks.lookup.threads", 64);
+    private final int seconds = Integer.getInteger("tasks.lookup.seconds", 5);
+    private final long queryLatencyMicros = Long.getLong("tasks.lookup.query-latency-us", 500);
+    private final int poolSize = Integer.getInteger("tasks.lookup.pool-size", 10);
+    private final int taskCount = Integer.getInteger("tasks.lookup.tasks", 10_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void batchedVersusUnbatched() throws Exception {
+        try (InMemoryTaskRepository store = new InMemoryTaskRepository(directory, false, 64L << 20)) {
+            long firstId = -1;
+            for (int i = 0; i < taskCount; i++) {
+                Task saved = store.save(new Task("Task " + i, null, TaskStatus.TODO, null));
+                firstId = firstId < 0 ? saved.getId() : firstId;
+            }
+
+            Result unbatched = measure(store, firstId, 0);
+            Result batched = measure(store, firstId, windowMicros);
+
+            report("unbatched", unbatched);
+            report("batched " + windowMicros + "us", batched);
+            assertTrue(unbatched.lookups > 0 && batched.lookups > 0);
+        }
+    }
+
+    private Result measure(TaskRepository store, long firstId, long window) throws Exception {
+        CountingRepository counting = new CountingRepository(store);
+        TaskService service = TaskService.builder(counting.proxy()).lookupBatching(window, 100).build();
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder lookups = new LongAdder();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> callers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                callers.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (!stop.get()) {
+                        service.getTaskById(firstId + random.nextInt(taskCount));
+                        if (measuring.get()) {
+                            lookups.increment();
+                        }
+                    }
+                }));
+            }
+            Thread.sleep(1_000);
+            long queriesBefore = counting.queries.sum();
+            measuring.set(true);
+            long started = System.nanoTime();
+            Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+            measuring.set(false);
+            double elapsed = (System.nanoTime() - started) / 1e9;
+            long queries = counting.queries.sum() - queriesBefore;
+            stop.set(true);
+            for (Future<?> caller : callers) {
+                caller.get(30, TimeUnit.SECONDS);
+            }
+            return new Result(lookups.sum(), queries, elapsed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void report(String mode, Result result) {
+        System.out.printf("%-16s %d threads, %d us/query, pool %d: %,.0f lookups/s, %,.0f queries/s, "
+                        + "%.1f lookups/query%n", mode, threads, queryLatencyMicros, poolSize,
+                result.lookups / result.seconds, result.queries / result.seconds,
+                result.queries == 0 ? 0 : (double) result.lookups / result.queries);
+    }
+
+    private static final class Result {
+        private final long lookups;
+        private final long queries;
+        private final double seconds;
+
+        private Result(long lookups, long queries, double seconds) {
+            this.lookups = lookups;
+            this.queries = queries;
+            this.seconds = seconds;
+        }
+    }
+
+    /**
+     * Counts {@code findById}/{@code findAllById} calls and makes each take a connection for the
+     * modelled round trip.
+     */
+    private final class CountingRepository implements InvocationHandler {
+
+        private final TaskRepository delegate;
+        private final Semaphore connections = new Semaphore(poolSize);
+        private final LongAdder queries = new LongAdder();
+
+        private CountingRepository(TaskRepository delegate) {
+            this.delegate = delegate;
+        }
+
+        TaskRepository proxy() {
+            return (TaskRepository) Proxy.newProxyInstance(TaskRepository.class.getClassLoader(),
+                    new Class<?>[] {TaskRepository.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            boolean query = method.getName().equals("findById") || method.getName().equals("findAllById");
+            if (query) {
+                queries.increment();
+                connections.acquire();
+            }
+            try {
+                if (query) {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(queryLatencyMicros));
+                }
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            } finally {
+                if (query) {
+                    connections.release();
+                }
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.taskmanager.service;
 
 import com.taskmanager.exception.ResourceNotFoundException;
 import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStats;
 import com.taskmanager.model.TaskStatus;
 import com.taskmanager.repository.TaskRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,11 +12,26 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -29,7 +45,7 @@ class TaskServiceTest {
 
     @BeforeEach
     void setUp() {
-        taskService = new TaskService(taskRepository);
+        taskService = TaskService.builder(taskRepository).build();
     }
 
     @Test
@@ -44,7 +60,7 @@ class TaskServiceTest {
         second.setTitle("Task B");
         second.setStatus(TaskStatus.DONE);
 
-        when(taskRepository.findAll()).thenReturn(List.of(first, second));
+        when(taskRepository.findByArchivedFalse()).thenReturn(List.of(first, second));
 
         List<Task> tasks = taskService.getAllTasks();
 
@@ -113,4 +129,154 @@ class TaskServiceTest {
         verify(taskRepository).delete(captor.capture());
         assertEquals(7L, captor.getValue().getId());
     }
+
+    @Test
+    void getAllTasks_concurrentCallers_issueExactlyOneQuery() throws Exception {
+        int callers = 16;
+        List<Task> stored = List.of(new Task("Shared", null, TaskStatus.TODO, null));
+        when(taskRepository.findByArchivedFalse()).thenAnswer(invocation -> {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (taskService.allTasksFlight().getCoalescedCount() < callers - 1 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            return stored;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<List<Task>>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> taskService.getAllTasks()));
+            }
+            for (Future<List<Task>> result : results) {
+                assertEquals(stored, result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(taskRepository, times(1)).findByArchivedFalse();
+    }
+
+    @Test
+    void getTaskById_concurrentLookupsOfDifferentIds_shareOneQuery() throws Exception {
+        int callers = 8;
+        TaskService batchingService = TaskService.builder(taskRepository)
+                .lookupBatching(60_000_000, callers).build();
+        when(taskRepository.findAllById(anyCollection())).thenAnswer(invocation -> {
+            List<Task> found = new ArrayList<>();
+            for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+                if (id != 99L) {
+                    found.add(task(id));
+                }
+            }
+            return found;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Task>> results = new ArrayList<>();
+            for (long id = 1; id < callers; id++) {
+                long taskId = id;
+                results.add(executor.submit(() -> batchingService.getTaskById(taskId)));
+            }
+            Future<Task> missing = executor.submit(() -> batchingService.getTaskById(99L));
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i + 1L, results.get(i).get(10, TimeUnit.SECONDS).getId());
+            }
+            Exception ex = assertThrows(Exception.class, () -> missing.get(10, TimeUnit.SECONDS));
+            assertTrue(ex.getCause() instanceof ResourceNotFoundException);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(taskRepository, times(1)).findAllById(anyCollection());
+        verify(taskRepository, never()).findById(anyLong());
+        assertEquals(1, batchingService.taskByIdBatches().getBatchCount());
+    }
+
+    @Test
+    void getTasksByIds_returnsExistingTasksInRequestedOrder() {
+        when(taskRepository.findAllById(List.of(3L, 1L, 5L))).thenReturn(List.of(task(1L), task(3L)));
+
+        List<Task> tasks = taskService.getTasksByIds(List.of(3L, 1L, 3L, 5L));
+
+        assertEquals(List.of(3L, 1L), tasks.stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void idsRuledOutByTheExistenceFilter_failWithoutAQuery() {
+        TaskExistenceFilter existenceFilter = mock(TaskExistenceFilter.class);
+        TaskService filteredService = TaskService.builder(taskRepository)
+                .existenceFilter(existenceFilter).build();
+        when(existenceFilter.mightExist(anyLong())).thenAnswer(invocation -> invocation.<Long>getArgument(0) != 9L);
+        when(taskRepository.findById(7L)).thenReturn(Optional.of(task(7L)));
+        when(taskRepository.findById(8L)).thenReturn(Optional.empty());
+        when(taskRepository.findAllById(List.of(7L))).thenReturn(List.of(task(7L)));
+
+        assertThrows(ResourceNotFoundException.class, () -> filteredService.getTaskById(9L));
+        assertThrows(ResourceNotFoundException.class, () -> filteredService.deleteTask(9L));
+        assertEquals(List.of(7L), filteredService.getTasksByIds(List.of(9L, 7L)).stream().map(Task::getId).toList());
+        verify(taskRepository, never()).findById(9L);
+
+        assertThrows(ResourceNotFoundException.class, () -> filteredService.getTaskById(8L));
+        verify(existenceFilter).confirmedMissing(8L);
+        filteredService.deleteTask(7L);
+        verify(existenceFilter).removed(7L);
+    }
+
+    @Test
+    void getAllTasks_afterCreate_seesFreshData() {
+        TaskService cachingService = TaskService.builder(taskRepository).readCoalescingTtlMillis(60_000).build();
+        Task created = new Task("New", null, TaskStatus.TODO, null);
+        when(taskRepository.findByArchivedFalse()).thenReturn(List.of()).thenReturn(List.of(created));
+        when(taskRepository.save(created)).thenReturn(created);
+
+        assertEquals(0, cachingService.getAllTasks().size());
+        assertEquals(0, cachingService.getAllTasks().size());
+        cachingService.createTask(created);
+
+        assertEquals(1, cachingService.getAllTasks().size());
+        verify(taskRepository, times(2)).findByArchivedFalse();
+    }
+
+    @Test
+    void getTaskStats_endsWeekWindowOnSunday() {
+        LocalDate sunday = LocalDate.of(2026, 3, 8);
+        LocalDate monday = LocalDate.of(2026, 3, 9);
+        when(taskRepository.countTasksByStatusAndDueWindow(sunday, sunday, false))
+                .thenReturn(List.<Object[]>of(new Object[] { TaskStatus.TODO, 4L, 1L, 1L, 0L, 1L }));
+        when(taskRepository.countTasksByStatusAndDueWindow(monday, LocalDate.of(2026, 3, 15), false))
+                .thenReturn(List.of());
+
+        TaskStats stats = taskService.getTaskStats(sunday, false);
+
+        assertEquals(4L, stats.getTotal());
+        assertEquals(1L, stats.getByDueWindow().get(TaskStats.LATER).get("TODO"));
+        assertEquals(0L, stats.getByDueWindow().get(TaskStats.DUE_THIS_WEEK).get("TODO"));
+        assertEquals(0L, taskService.getTaskStats(monday, false).getTotal());
+    }
+
+    @Test
+    void getTaskStats_coalescesOnlyReadsAsOfToday() {
+        TaskService cachingService = TaskService.builder(taskRepository).readCoalescingTtlMillis(60_000).build();
+        LocalDate today = LocalDate.now();
+        when(taskRepository.countTasksByStatusAndDueWindow(any(LocalDate.class), any(LocalDate.class), eq(false)))
+                .thenReturn(List.of());
+
+        cachingService.getTaskStats(today, false);
+        cachingService.getTaskStats(today, false);
+        cachingService.getTaskStats(today.minusDays(30), false);
+        cachingService.getTaskStats(today.minusDays(30), false);
+
+        verify(taskRepository, times(1)).countTasksByStatusAndDueWindow(eq(today), any(LocalDate.class), eq(false));
+        verify(taskRepository, times(2)).countTasksByStatusAndDueWindow(eq(today.minusDays(30)), any(LocalDate.class),
+                eq(false));
+    }
+
+    private static Task task(Long id) {
+        Task task = new Task("Task " + id, null, TaskStatus.TODO, null);
+        task.setId(id);
+        return task;
+    }
 }
@@ -0,0 +1,115 @@
+-- Converts tasks into a table partitioned by LIST (archived):
+--   tasks_hot      archived = false  (everything the default REST/MCP queries read)
+--   tasks_archive  archived = true   (DONE tasks moved there by the backend archival job)
+--
+-- Default queries filter on archived = false, so the planner prunes tasks_archive and the
+-- status aggregates, list queries and autovacuum only work on the hot partition. Archiving is an
+-- UPDATE of the partition key, which PostgreSQL executes as a row move into tasks_archive.
+--
+-- PostgreSQL requires every unique constraint of a partitioned table to contain the partition key,
+-- so the primary key becomes (id, archived) and uk_tasks_external_key becomes
+-- (external_key, archived). Ids stay unique because they come from one identity sequence. For the
+-- same reason tasks_archive is not sub-partitioned by completion month: that would force
+-- completed_at into both unique constraints.
+--
+-- External keys stay unique across both partitions through task_keys, a small unpartitioned table
+-- that a row trigger keeps in step with tasks: inserting a task whose key another task holds, hot
+-- or archived, fails with a unique violation on uk_task_keys_external_key. Archiving moves the row
+-- as a DELETE followed by an INSERT, which releases and takes back the same key. TRUNCATE skips
+-- the trigger, so truncate task_keys along with tasks.
+--
+-- Expects status as smallint codes (db/postgres/task-status-smallint-*.sql) and creates the columns
+-- in the padding-free order of db/postgres/reorder-task-columns.sql.
+--
+-- Run once with psql in a maintenance window while backend and mcp-server are stopped:
+--   psql "$DB_URL" -v ON_ERROR_STOP=1 -f db/postgres/partition-tasks.sql
+-- The original table is kept as tasks_unpartitioned until it is dropped by hand.
+
+BEGIN;
+
+LOCK TABLE tasks IN ACCESS EXCLUSIVE MODE;
+
+-- Present once the backend has started with the archival release; added here for older schemas.
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS archived boolean NOT NULL DEFAULT false;
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS completed_at timestamp(6);
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS lease_owner varchar(64);
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS lease_expires_at timestamp(6);
+
+ALTER TABLE tasks RENAME TO tasks_unpartitioned;
+ALTER TABLE tasks_unpartitioned RENAME CONSTRAINT tasks_pkey TO tasks_unpartitioned_pkey;
+ALTER TABLE tasks_unpartitioned RENAME CONSTRAINT uk_tasks_external_key TO uk_tasks_unpartitioned_external_key;
+ALTER INDEX IF EXISTS idx_tasks_due_date_status RENAME TO idx_tasks_unpartitioned_due_date_status;
+ALTER INDEX IF EXISTS idx_tasks_due_date_status_archived RENAME TO idx_tasks_unpartitioned_due_date_status_archived;
+
+CREATE TABLE tasks (
+    id           bigint       GENERATED BY DEFAULT AS IDENTITY,
+    completed_at timestamp(6),
+    lease_expires_at timestamp(6),
+    due_date     date,
+    status       smallint     NOT NULL,
+    archived     boolean      NOT NULL DEFAULT false,
+    title        varchar(100) NOT NULL,
+    description  varchar(500),
+    external_key varchar(64),
+    lease_owner  varchar(64),
+    CONSTRAINT tasks_pkey PRIMARY KEY (id, archived),
+    CONSTRAINT uk_tasks_external_key UNIQUE (external_key, archived),
+    CONSTRAINT ck_tasks_status CHECK (status BETWEEN 0 AND 2),
+    CONSTRAINT ck_tasks_archived_done CHECK (NOT archived OR status = 2)
+) PARTITION BY LIST (archived);
+
+CREATE TABLE tasks_hot PARTITION OF tasks FOR VALUES IN (false);
+
+-- Archived rows are written once and rarely touched again: pack pages fully.
+CREATE TABLE tasks_archive PARTITION OF tasks FOR VALUES IN (true)
+    WITH (fillfactor = 100);
+
+CREATE TABLE task_keys (
+    external_key varchar(64) NOT NULL,
+    task_id      bigint      NOT NULL,
+    CONSTRAINT uk_task_keys_external_key PRIMARY KEY (external_key)
+);
+
+CREATE OR REPLACE FUNCTION tasks_track_external_key() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP <> 'INSERT' AND OLD.external_key IS NOT NULL
+            AND (TG_OP = 'DELETE' OR NEW.external_key IS DISTINCT FROM OLD.external_key) THEN
+        DELETE FROM task_keys WHERE external_key = OLD.external_key AND task_id = OLD.id;
+    END IF;
+    IF TG_OP <> 'DELETE' AND NEW.external_key IS NOT NULL
+            AND (TG_OP = 'INSERT' OR NEW.external_key IS DISTINCT FROM OLD.external_key) THEN
+        INSERT INTO task_keys (external_key, task_id) VALUES (NEW.external_key, NEW.id);
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER tasks_track_external_key
+    AFTER INSERT OR UPDATE OF external_key OR DELETE ON tasks
+    FOR EACH ROW EXECUTE FUNCTION tasks_track_external_key();
+
+CREATE INDEX idx_tasks_due_date_status_archived ON tasks (due_date, status, archived);
+
+-- Lets the archival job find its next batch without scanning open work.
+CREATE INDEX idx_tasks_hot_done_completed_at ON tasks_hot (completed_at, id) WHERE status = 2;
+
+-- Task claiming and the lease sweeper; see db/postgres/task-leases.sql.
+CREATE INDEX idx_tasks_hot_claimable ON tasks_hot (due_date, id) WHERE status = 0;
+CREATE INDEX idx_tasks_hot_lease_expiry ON tasks_hot (lease_expires_at) WHERE status = 1;
+
+INSERT INTO tasks (id, completed_at, lease_expires_at, due_date, status, archived, title, description,
+                   external_key, lease_owner)
+SELECT id, completed_at, lease_expires_at, due_date, status, archived, title, description,
+       external_key, lease_owner
+FROM tasks_unpartitioned;
+
+SELECT setval(pg_get_serial_sequence('tasks', 'id'),
+              COALESCE((SELECT max(id) FROM tasks), 0) + 1, false);
+
+COMMIT;
+
+ANALYZE tasks;
+
+-- After verifying row counts:
+-- DROP TABLE tasks_unpartitioned;
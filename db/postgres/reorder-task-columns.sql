@@ -0,0 +1,70 @@
+-- Rewrites tasks with its columns in alignment order and without the bytes of dropped columns.
+--
+-- Hibernate creates columns in alphabetical order, so every row pays alignment padding: the 8-byte
+-- completed_at after the 1-byte archived starts 7 bytes later, and the 4-byte due_date and the
+-- 2-byte status sit between variable-width text columns. PostgreSQL never reorders columns, and
+-- rows written before task-status-smallint-2-cutover.sql still carry the dropped varchar status.
+-- The new table stores fixed-width columns from widest to narrowest alignment, then the text
+-- columns:
+--   id bigint, completed_at timestamp, lease_expires_at timestamp, due_date date,
+--   status smallint, archived boolean, title, description, external_key, lease_owner
+--
+-- Applications address columns by name, so nothing else changes. db/postgres/partition-tasks.sql
+-- creates partitions in this order already; this script is for unpartitioned tables.
+--
+-- Takes an ACCESS EXCLUSIVE lock for the duration of the copy. Run once in a maintenance window
+-- while backend and mcp-server are stopped:
+--   psql "$DB_URL" -v ON_ERROR_STOP=1 -f db/postgres/reorder-task-columns.sql
+-- The original table is kept as tasks_unaligned until it is dropped by hand.
+
+BEGIN;
+
+LOCK TABLE tasks IN ACCESS EXCLUSIVE MODE;
+
+-- Present once db/postgres/task-leases.sql has run; added here for older schemas.
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS lease_owner varchar(64);
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS lease_expires_at timestamp(6);
+
+ALTER TABLE tasks RENAME TO tasks_unaligned;
+ALTER TABLE tasks_unaligned RENAME CONSTRAINT tasks_pkey TO tasks_unaligned_pkey;
+ALTER TABLE tasks_unaligned RENAME CONSTRAINT uk_tasks_external_key TO uk_tasks_unaligned_external_key;
+ALTER INDEX IF EXISTS idx_tasks_due_date_status RENAME TO idx_tasks_unaligned_due_date_status;
+ALTER INDEX IF EXISTS idx_tasks_due_date_status_archived RENAME TO idx_tasks_unaligned_due_date_status_archived;
+
+CREATE TABLE tasks (
+    id           bigint       GENERATED BY DEFAULT AS IDENTITY,
+    completed_at timestamp(6),
+    lease_expires_at timestamp(6),
+    due_date     date,
+    status       smallint     NOT NULL,
+    archived     boolean      NOT NULL DEFAULT false,
+    title        varchar(100) NOT NULL,
+    description  varchar(500),
+    external_key varchar(64),
+    lease_owner  varchar(64),
+    CONSTRAINT tasks_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_tasks_external_key UNIQUE (external_key),
+    CONSTRAINT ck_tasks_status CHECK (status BETWEEN 0 AND 2)
+);
+
+INSERT INTO tasks (id, completed_at, lease_expires_at, due_date, status, archived, title, description,
+                   external_key, lease_owner)
+SELECT id, completed_at, lease_expires_at, due_date, status, archived, title, description,
+       external_key, lease_owner
+FROM tasks_unaligned
+ORDER BY id;
+
+CREATE INDEX idx_tasks_due_date_status_archived ON tasks (due_date, status, archived);
+CREATE INDEX idx_tasks_claimable ON tasks (due_date, id) WHERE status = 0 AND NOT archived;
+CREATE INDEX idx_tasks_lease_expiry ON tasks (lease_expires_at) WHERE status = 1;
+
+SELECT setval(pg_get_serial_sequence('tasks', 'id'),
+              COALESCE((SELECT max(id) FROM tasks), 0) + 1, false);
+
+COMMIT;
+
+ANALYZE tasks;
+
+-- Triggers are not copied; re-run db/postgres/task-change-notify.sql if it was installed.
+-- After verifying row counts:
+-- DROP TABLE tasks_unaligned;
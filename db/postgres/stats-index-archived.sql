@@ -0,0 +1,44 @@
+-- Replaces idx_tasks_due_date_status (due_date, status) with idx_tasks_due_date_status_archived
+-- (due_date, status, archived).
+--
+-- Since archival, the task stats aggregate (GET /api/tasks/stats, mcp-tasks-summary) filters on
+-- archived. Without the column in the index, the query can no longer be answered from the index
+-- alone and reads the heap row of every task. The due_date range queries of the reminder
+-- scheduler use the new index just as well, because due_date still leads.
+--
+-- The new index is built CONCURRENTLY before the old one is dropped, so reads and writes continue
+-- throughout. On a table converted by db/postgres/partition-tasks.sql the index is built per
+-- partition and attached. A partitioned index cannot be dropped CONCURRENTLY, so there the final
+-- DROP INDEX briefly takes an ACCESS EXCLUSIVE lock, bounded by lock_timeout.
+--
+-- Run once before starting the version that declares the new index; otherwise the backend's schema
+-- update builds it with a plain CREATE INDEX, which blocks writes while it runs:
+--   psql "$DB_URL" -v ON_ERROR_STOP=1 -f db/postgres/stats-index-archived.sql
+-- Safe to re-run after an interruption.
+
+SET lock_timeout = '5s';
+
+SELECT c.relkind = 'p' AS partitioned
+FROM pg_class c
+WHERE c.oid = 'tasks'::regclass
+\gset
+
+\if :partitioned
+-- CREATE INDEX CONCURRENTLY is not supported on a partitioned table: create the parent index
+-- without recursing, build each partition's index concurrently and attach it.
+CREATE INDEX IF NOT EXISTS idx_tasks_due_date_status_archived ON ONLY tasks (due_date, status, archived);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_hot_due_date_status_archived
+    ON tasks_hot (due_date, status, archived);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_archive_due_date_status_archived
+    ON tasks_archive (due_date, status, archived);
+ALTER INDEX idx_tasks_due_date_status_archived ATTACH PARTITION idx_tasks_hot_due_date_status_archived;
+ALTER INDEX idx_tasks_due_date_status_archived ATTACH PARTITION idx_tasks_archive_due_date_status_archived;
+
+DROP INDEX IF EXISTS idx_tasks_due_date_status;
+\else
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_due_date_status_archived ON tasks (due_date, status, archived);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_tasks_due_date_status;
+\endif
+
+ANALYZE tasks;
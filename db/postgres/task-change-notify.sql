@@ -0,0 +1,29 @@
+-- Publishes a NOTIFY on channel task_changes for every statement that writes to tasks, whichever
+-- service ran it. The mcp-server LISTENs on the channel and turns the events into MCP
+-- notifications/resources/updated for tasks://summary and tasks://recent.
+--
+-- The trigger is FOR EACH STATEMENT, so a multi-row INSERT or a set-based UPDATE/DELETE raises one
+-- event, not one per row. PostgreSQL also folds identical payloads on the same channel within a
+-- transaction into one delivery at commit, and nothing is delivered for rolled-back transactions.
+-- The payload is only the operation; listeners re-read what they need.
+--
+-- Safe to run repeatedly, also after db/postgres/partition-tasks.sql (statement triggers on the
+-- partitioned parent fire for writes routed to tasks_hot and tasks_archive):
+--   psql "$DB_URL" -v ON_ERROR_STOP=1 -f db/postgres/task-change-notify.sql
+
+BEGIN;
+
+CREATE OR REPLACE FUNCTION notify_task_changes() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    PERFORM pg_notify('task_changes', lower(TG_OP));
+    RETURN NULL;
+END;
+$$;
+
+CREATE OR REPLACE TRIGGER trg_tasks_notify_changes
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON tasks
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_task_changes();
+
+COMMIT;
@@ -0,0 +1,46 @@
+-- Adds the lease columns used by POST /api/tasks/claim and the mcp-tasks-claim tool, and the
+-- partial indexes that keep claiming and the lease sweeper cheap:
+--
+--   lease_owner       varchar(64)   worker holding an IN_PROGRESS task
+--   lease_expires_at  timestamp(6)  when the backend's sweeper hands the task back to TODO
+--
+--   idx_tasks_claimable    (due_date, id) WHERE status = 0 AND NOT archived
+--       The claim query reads TODO tasks in exactly this order and locks the first N it can. With
+--       the index, the scan stops after those rows, however many tasks are done or in progress.
+--   idx_tasks_lease_expiry (lease_expires_at) WHERE status = 1
+--       Lets the sweeper find expired leases without reading the rest of the table.
+--
+-- Both columns are nullable without a default, so adding them only changes the catalog. The
+-- indexes are built CONCURRENTLY, and nothing here blocks reads or writes for longer than a catalog
+-- update. Run once before starting the version with task claiming; the mcp-server fails schema
+-- validation without the columns (the backend adds them itself, but not the indexes):
+--   psql "$DB_URL" -v ON_ERROR_STOP=1 -f db/postgres/task-leases.sql
+-- Safe to re-run. New columns are appended to the row, so lease_expires_at is not in the aligned
+-- position until the table is rewritten by db/postgres/reorder-task-columns.sql or
+-- db/postgres/partition-tasks.sql, which both place it.
+
+SET lock_timeout = '5s';
+
+SELECT c.relkind = 'p' AS partitioned
+FROM pg_class c
+WHERE c.oid = 'tasks'::regclass
+\gset
+
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS lease_owner varchar(64);
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS lease_expires_at timestamp(6);
+
+\if :partitioned
+-- TODO and IN_PROGRESS tasks are never archived, so the hot partition holds every row these
+-- indexes cover.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_hot_claimable
+    ON tasks_hot (due_date, id) WHERE status = 0;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_hot_lease_expiry
+    ON tasks_hot (lease_expires_at) WHERE status = 1;
+\else
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_claimable
+    ON tasks (due_date, id) WHERE status = 0 AND NOT archived;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_lease_expiry
+    ON tasks (lease_expires_at) WHERE status = 1;
+\endif
+
+ANALYZE tasks;
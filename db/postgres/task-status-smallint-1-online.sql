@@ -0,0 +1,102 @@
+-- Step 1 of 2 of moving tasks.status from varchar(255) ('TODO', 'IN_PROGRESS', 'DONE') to the
+-- smallint codes of TaskStatus (0, 1, 2). Runs online while the previous backend and mcp-server
+-- versions keep serving traffic; no statement holds a lock that blocks reads or writes for longer
+-- than a catalog update.
+--
+--   1. Adds the nullable column status_code; a BEFORE trigger fills it for every row the running
+--      applications insert or whose status they change.
+--   2. Backfills existing rows in id ranges of 10,000, committing after each range, so row locks
+--      are short and autovacuum can reclaim the old row versions while the backfill runs.
+--   3. Adds a CHECK constraint NOT VALID and validates it separately: validation scans the table
+--      under SHARE UPDATE EXCLUSIVE, which does not block DML. In step 2 it lets SET NOT NULL skip
+--      its own full-table scan.
+--   4. Builds the replacement (due_date, status_code) index CONCURRENTLY. On a table converted by
+--      db/postgres/partition-tasks.sql the index is built per partition and attached, and the
+--      archival index and archived-implies-DONE check get status_code twins as well.
+--
+-- Safe to re-run after an interruption:
+--   psql "$DB_URL" -v ON_ERROR_STOP=1 -f db/postgres/task-status-smallint-1-online.sql
+-- Then stop both services and run task-status-smallint-2-cutover.sql before starting the new
+-- version. The new version maps status as smallint and must not start before the cutover: the
+-- mcp-server fails schema validation, and the backend would read the old varchar column.
+
+SET lock_timeout = '5s';
+
+SELECT c.relkind = 'p' AS partitioned
+FROM pg_class c
+WHERE c.oid = 'tasks'::regclass
+\gset
+
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS status_code smallint;
+
+CREATE OR REPLACE FUNCTION tasks_status_code() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    NEW.status_code := CASE NEW.status WHEN 'TODO' THEN 0 WHEN 'IN_PROGRESS' THEN 1 WHEN 'DONE' THEN 2 END;
+    RETURN NEW;
+END;
+$$;
+
+CREATE OR REPLACE TRIGGER trg_tasks_status_code
+    BEFORE INSERT OR UPDATE OF status ON tasks
+    FOR EACH ROW EXECUTE FUNCTION tasks_status_code();
+
+-- Rows written from here on are covered by the trigger; the backfill only has to reach max(id).
+DO
+$$
+DECLARE
+    batch_size CONSTANT bigint := 10000;
+    next_id    bigint;
+    last_id    bigint;
+BEGIN
+    SELECT min(id), max(id) INTO next_id, last_id FROM tasks;
+    WHILE next_id <= last_id LOOP
+        UPDATE tasks
+        SET status_code = CASE status WHEN 'TODO' THEN 0 WHEN 'IN_PROGRESS' THEN 1 WHEN 'DONE' THEN 2 END
+        WHERE id >= next_id AND id < next_id + batch_size AND status_code IS NULL;
+        COMMIT;
+        next_id := next_id + batch_size;
+    END LOOP;
+END;
+$$;
+
+SELECT NOT EXISTS (
+    SELECT 1 FROM pg_constraint WHERE conrelid = 'tasks'::regclass AND conname = 'ck_tasks_status_code'
+) AS add_status_check
+\gset
+
+\if :add_status_check
+ALTER TABLE tasks ADD CONSTRAINT ck_tasks_status_code
+    CHECK (status_code IS NOT NULL AND status_code BETWEEN 0 AND 2) NOT VALID;
+\endif
+ALTER TABLE tasks VALIDATE CONSTRAINT ck_tasks_status_code;
+
+\if :partitioned
+-- CREATE INDEX CONCURRENTLY is not supported on a partitioned table: create the parent index
+-- without recursing, build each partition's index concurrently and attach it.
+CREATE INDEX IF NOT EXISTS idx_tasks_due_date_status_code ON ONLY tasks (due_date, status_code);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_hot_due_date_status_code
+    ON tasks_hot (due_date, status_code);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_archive_due_date_status_code
+    ON tasks_archive (due_date, status_code);
+ALTER INDEX idx_tasks_due_date_status_code ATTACH PARTITION idx_tasks_hot_due_date_status_code;
+ALTER INDEX idx_tasks_due_date_status_code ATTACH PARTITION idx_tasks_archive_due_date_status_code;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_hot_done_completed_at_code
+    ON tasks_hot (completed_at, id) WHERE status_code = 2;
+
+SELECT NOT EXISTS (
+    SELECT 1 FROM pg_constraint WHERE conrelid = 'tasks'::regclass AND conname = 'ck_tasks_archived_done_code'
+) AS add_archived_check
+\gset
+
+\if :add_archived_check
+ALTER TABLE tasks ADD CONSTRAINT ck_tasks_archived_done_code CHECK (NOT archived OR status_code = 2) NOT VALID;
+\endif
+ALTER TABLE tasks VALIDATE CONSTRAINT ck_tasks_archived_done_code;
+\else
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_due_date_status_code ON tasks (due_date, status_code);
+\endif
+
+VACUUM (ANALYZE) tasks;
@@ -0,0 +1,46 @@
+-- Step 2 of 2 of moving tasks.status to smallint codes; run task-status-smallint-1-online.sql
+-- first. Stop backend and mcp-server, run
+--   psql "$DB_URL" -v ON_ERROR_STOP=1 -f db/postgres/task-status-smallint-2-cutover.sql
+-- and start the new version.
+--
+-- Every statement is a catalog change: the varchar column is dropped, status_code takes its name,
+-- and SET NOT NULL relies on the CHECK constraint validated in step 1 instead of scanning the
+-- table. The ACCESS EXCLUSIVE lock is therefore held for milliseconds whatever the table size.
+-- Dropping the column also drops its index, its Hibernate-generated CHECK constraint and, on a
+-- partitioned table, ck_tasks_archived_done and the archival index; their status_code twins are
+-- renamed into place.
+--
+-- PostgreSQL does not rewrite rows on DROP COLUMN: existing rows keep the old text bytes until they
+-- are next updated. db/postgres/reorder-task-columns.sql reclaims that space in one rewrite and
+-- removes the alignment padding of the Hibernate column order at the same time.
+
+BEGIN;
+
+SET LOCAL lock_timeout = '5s';
+
+LOCK TABLE tasks IN ACCESS EXCLUSIVE MODE;
+
+SELECT c.relkind = 'p' AS partitioned
+FROM pg_class c
+WHERE c.oid = 'tasks'::regclass
+\gset
+
+DROP TRIGGER trg_tasks_status_code ON tasks;
+DROP FUNCTION tasks_status_code();
+
+ALTER TABLE tasks DROP COLUMN status;
+ALTER TABLE tasks RENAME COLUMN status_code TO status;
+ALTER TABLE tasks ALTER COLUMN status SET NOT NULL;
+ALTER TABLE tasks RENAME CONSTRAINT ck_tasks_status_code TO ck_tasks_status;
+ALTER INDEX idx_tasks_due_date_status_code RENAME TO idx_tasks_due_date_status;
+
+\if :partitioned
+ALTER INDEX idx_tasks_hot_due_date_status_code RENAME TO tasks_hot_due_date_status_idx;
+ALTER INDEX idx_tasks_archive_due_date_status_code RENAME TO tasks_archive_due_date_status_idx;
+ALTER INDEX idx_tasks_hot_done_completed_at_code RENAME TO idx_tasks_hot_done_completed_at;
+ALTER TABLE tasks RENAME CONSTRAINT ck_tasks_archived_done_code TO ck_tasks_archived_done;
+\endif
+
+COMMIT;
+
+ANALYZE tasks;
@@ -1,13 +1,12 @@
 package com.taskmanager.mcp;
 
+import com.taskmanager.mcp.config.McpRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.boot.autoconfigure.domain.EntityScan;
-import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
-@EntityScan(basePackages = "com.taskmanager.model")
-@EnableJpaRepositories(basePackages = "com.taskmanager.repository")
+@ImportRuntimeHints(McpRuntimeHints.class)
 public class McpServerApplication {
 
     public static void main(String[] args) {
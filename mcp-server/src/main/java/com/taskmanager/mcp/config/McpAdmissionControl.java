@@ -0,0 +1,202 @@
+package com.taskmanager.mcp.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission control for MCP transport requests.
+ * <p>
+ * Each API key hash gets a token bucket implemented with the generic cell rate algorithm: the
+ * whole bucket state is one "theoretical arrival time" in an {@link AtomicLong}, updated by CAS,
+ * and buckets live in a {@link ConcurrentHashMap} whose lookups are lock-free. Calls to expensive
+ * tools additionally share a global concurrency limit so that a burst of large batches cannot
+ * occupy every request thread.
+ */
+@Component
+@ConditionalOnWebApplication
+public class McpAdmissionControl {
+
+    private static final Admission GRANTED_CHEAP = new Admission(null, 0, null);
+
+    private final boolean enabled;
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final Set<String> expensiveTools;
+    private final int maxConcurrentExpensive;
+    private final long concurrencyRetryAfterSeconds;
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger expensiveInFlight = new AtomicInteger();
+
+    private final Counter admitted;
+    private final Counter rejectedRateLimit;
+    private final Counter rejectedConcurrency;
+
+    @Autowired
+    public McpAdmissionControl(
+            @Value("${mcp.admission.enabled:true}") boolean enabled,
+            @Value("${mcp.admission.requests-per-second:20}") double requestsPerSecond,
+            @Value("${mcp.admission.burst:40}") int burst,
+            @Value("${mcp.admission.expensive-tools:mcp-tasks,mcp-tasks-upsert,mcp-tasks-bulk-update,mcp-tasks-bulk-delete,mcp-tasks-export,mcp-batch}") Set<String> expensiveTools,
+            @Value("${mcp.admission.expensive-max-concurrent:4}") int maxConcurrentExpensive,
+            @Value("${mcp.admission.concurrency-retry-after-seconds:1}") long concurrencyRetryAfterSeconds,
+            MeterRegistry meterRegistry) {
+        this(enabled, requestsPerSecond, burst, expensiveTools, maxConcurrentExpensive,
+                concurrencyRetryAfterSeconds, meterRegistry, System::nanoTime);
+    }
+
+    McpAdmissionControl(boolean enabled, double requestsPerSecond, int burst, Set<String> expensiveTools,
+            int maxConcurrentExpensive, long concurrencyRetryAfterSeconds, MeterRegistry meterRegistry,
+            LongSupplier nanoClock) {
+        if (requestsPerSecond <= 0 || burst < 1 || maxConcurrentExpensive < 1) {
+            throw new IllegalArgumentException(
+                    "mcp.admission requires requests-per-second > 0, burst >= 1 and expensive-max-concurrent >= 1");
+        }
+        this.enabled = enabled;
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.expensiveTools = Set.copyOf(expensiveTools);
+        this.maxConcurrentExpensive = maxConcurrentExpensive;
+        this.concurrencyRetryAfterSeconds = Math.max(1, concurrencyRetryAfterSeconds);
+        this.nanoClock = nanoClock;
+
+        this.admitted = Counter.builder("mcp.admission.admitted")
+                .description("MCP transport requests admitted by admission control")
+                .register(meterRegistry);
+        this.rejectedRateLimit = Counter.builder("mcp.admission.rejected")
+                .description("MCP transport requests rejected with 429")
+                .tag("reason", "rate_limit")
+                .register(meterRegistry);
+        this.rejectedConcurrency = Counter.builder("mcp.admission.rejected")
+                .description("MCP transport requests rejected with 429")
+                .tag("reason", "concurrency")
+                .register(meterRegistry);
+        Gauge.builder("mcp.admission.expensive.in_flight", expensiveInFlight, AtomicInteger::get)
+                .description("Expensive MCP tool calls currently executing")
+                .register(meterRegistry);
+        Gauge.builder("mcp.admission.buckets", buckets, ConcurrentHashMap::size)
+                .description("Per-key rate limit buckets")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether tool names need to be extracted from message bodies at all.
+     */
+    public boolean limitsExpensiveTools() {
+        return enabled && !expensiveTools.isEmpty();
+    }
+
+    /**
+     * Admits or rejects one request from the client identified by {@code keyHash}. {@code toolName}
+     * is the name of the tool being called, or {@code null} for any other request. A granted
+     * admission must be {@link Admission#release() released} once the request completes.
+     */
+    public Admission admit(String keyHash, String toolName) {
+        if (!enabled) {
+            return GRANTED_CHEAP;
+        }
+
+        long waitNanos = acquireToken(keyHash);
+        if (waitNanos > 0) {
+            rejectedRateLimit.increment();
+            long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            return new Admission(null, seconds, "rate limit exceeded");
+        }
+
+        if (toolName == null || !expensiveTools.contains(toolName)) {
+            admitted.increment();
+            return GRANTED_CHEAP;
+        }
+
+        int current;
+        do {
+            current = expensiveInFlight.get();
+            if (current >= maxConcurrentExpensive) {
+                rejectedConcurrency.increment();
+                return new Admission(null, concurrencyRetryAfterSeconds,
+                        "too many concurrent '" + toolName + "' calls");
+            }
+        } while (!expensiveInFlight.compareAndSet(current, current + 1));
+
+        admitted.increment();
+        return new Admission(expensiveInFlight, 0, null);
+    }
+
+    int expensiveInFlight() {
+        return expensiveInFlight.get();
+    }
+
+    /**
+     * GCRA step: returns 0 and advances the bucket when a token is available, otherwise the
+     * number of nanoseconds until the next token becomes available.
+     */
+    private long acquireToken(String keyHash) {
+        AtomicLong tat = buckets.get(keyHash);
+        if (tat == null) {
+            AtomicLong created = new AtomicLong(Long.MIN_VALUE);
+            tat = buckets.putIfAbsent(keyHash, created);
+            if (tat == null) {
+                tat = created;
+            }
+        }
+
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long stored = tat.get();
+            long arrival = stored == Long.MIN_VALUE || stored - now < 0 ? now : stored;
+            long ahead = arrival - now;
+            if (ahead > burstToleranceNanos) {
+                return ahead - burstToleranceNanos;
+            }
+            if (tat.compareAndSet(stored, arrival + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    public static final class Admission {
+
+        private final AtomicInteger permits;
+        private final long retryAfterSeconds;
+        private final String reason;
+        private boolean released;
+
+        private Admission(AtomicInteger permits, long retryAfterSeconds, String reason) {
+            this.permits = permits;
+            this.retryAfterSeconds = retryAfterSeconds;
+            this.reason = reason;
+        }
+
+        public boolean isGranted() {
+            return reason == null;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public void release() {
+            if (permits != null && !released) {
+                released = true;
+                permits.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.taskmanager.mcp.config;
+
+import org.slf4j.MDC;
+
+/**
+ * The client identity that tool logs report as {@code client=}. Over SSE it is put into the MDC
+ * per request by {@link SecurityConfig}; over stdio there is exactly one client, the parent
+ * process, so {@link StdioTransportConfig} sets it once for the whole process.
+ */
+public final class McpClientContext {
+
+    public static final String MDC_KEY = "mcp.client";
+    /** Hash of the API key alone, set next to {@link #MDC_KEY} for per-key limits. */
+    public static final String KEY_HASH_MDC_KEY = "mcp.keyHash";
+
+    private static volatile String processClient;
+
+    private McpClientContext() {
+    }
+
+    public static String current() {
+        String client = MDC.get(MDC_KEY);
+        return client != null ? client : processClient;
+    }
+
+    /**
+     * The API key hash of the current SSE request, or {@code null} outside one.
+     */
+    public static String currentKeyHash() {
+        return MDC.get(KEY_HASH_MDC_KEY);
+    }
+
+    static void setProcessClient(String client) {
+        processClient = client;
+    }
+}
@@ -0,0 +1,23 @@
+package com.taskmanager.mcp.config;
+
+import com.taskmanager.mcp.dto.BatchOperationInput;
+import com.taskmanager.mcp.dto.TaskFilterInput;
+import com.taskmanager.mcp.dto.TaskInput;
+import com.taskmanager.mcp.dto.TaskSummary;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection hints for the native image (see the {@code native} build profile). Tool arguments and
+ * results are bound by Jackson at runtime, which AOT processing cannot see; the tool methods
+ * themselves are registered by Spring AI's annotation scanner.
+ */
+public class McpRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                TaskInput.class, TaskFilterInput.class, TaskSummary.class, BatchOperationInput.class);
+    }
+}
@@ -0,0 +1,468 @@
+package com.taskmanager.mcp.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.modelcontextprotocol.json.TypeRef;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import io.modelcontextprotocol.spec.McpTransportException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounds what one MCP SSE session can cost the server. The SDK's SSE transport writes a message
+ * to the client's stream on the thread that produced it, and change notifications go to the
+ * sessions one after another, so a client that stops reading holds request threads and delays
+ * every other session. Here each session gets a bounded outbound queue, drained by one writer at
+ * a time; producers only enqueue.
+ * <ul>
+ * <li>A session whose queue is full is closed. Its client is {@code mcp.sessions.queue-capacity}
+ * messages behind, and dropping a message instead would leave a request unanswered.</li>
+ * <li>A write that takes longer than {@code mcp.sessions.write-timeout-ms} closes the session. The
+ * stuck writer thread is freed once the servlet container gives up on the socket.</li>
+ * <li>A session that has had nothing written to it, neither a response nor a notification, for
+ * {@code mcp.sessions.idle-timeout-ms} is closed.</li>
+ * <li>Each API key holds at most {@code mcp.sessions.max-per-key} sessions; {@link SecurityConfig}
+ * answers further handshakes with 429.</li>
+ * </ul>
+ * Closing a session ends its SSE stream; the client has to connect again.
+ */
+@Component
+@ConditionalOnWebApplication
+public class McpSessionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(McpSessionManager.class);
+    private static final String SLOT_ATTRIBUTE = McpSessionManager.class.getName() + ".slot";
+    private static final String UNKNOWN_KEY = "unknown";
+
+    enum CloseReason {
+        /** The client ended the stream. */
+        DISCONNECTED,
+        /** The MCP server closed the session, e.g. on shutdown. */
+        CLOSED,
+        IDLE,
+        WRITE_TIMEOUT,
+        WRITE_FAILED,
+        QUEUE_FULL
+    }
+
+    private final int maxSessionsPerKey;
+    private final int queueCapacity;
+    private final long writeTimeoutNanos;
+    private final long idleTimeoutNanos;
+    private final long retryAfterSeconds;
+    private final long checkIntervalMillis;
+    private final LongSupplier nanoClock;
+
+    private final Set<ManagedSession> sessions = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, Integer> sessionsPerKey = new ConcurrentHashMap<>();
+    private final AtomicInteger writerThreads = new AtomicInteger();
+    private final ExecutorService writers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "mcp-session-writer-" + writerThreads.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mcp-session-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Counter rejected;
+    private final Map<CloseReason, Counter> closed = new EnumMap<>(CloseReason.class);
+
+    @Autowired
+    public McpSessionManager(
+            @Value("${mcp.sessions.max-per-key:8}") int maxSessionsPerKey,
+            @Value("${mcp.sessions.queue-capacity:64}") int queueCapacity,
+            @Value("${mcp.sessions.write-timeout-ms:10000}") long writeTimeoutMillis,
+            @Value("${mcp.sessions.idle-timeout-ms:1800000}") long idleTimeoutMillis,
+            @Value("${mcp.sessions.retry-after-seconds:5}") long retryAfterSeconds,
+            MeterRegistry meterRegistry) {
+        this(maxSessionsPerKey, queueCapacity, writeTimeoutMillis, idleTimeoutMillis, retryAfterSeconds,
+                meterRegistry, System::nanoTime);
+    }
+
+    McpSessionManager(int maxSessionsPerKey, int queueCapacity, long writeTimeoutMillis, long idleTimeoutMillis,
+            long retryAfterSeconds, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        if (maxSessionsPerKey < 1 || queueCapacity < 1 || writeTimeoutMillis < 1) {
+            throw new IllegalArgumentException(
+                    "mcp.sessions requires max-per-key >= 1, queue-capacity >= 1 and write-timeout-ms >= 1");
+        }
+        this.maxSessionsPerKey = maxSessionsPerKey;
+        this.queueCapacity = queueCapacity;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, idleTimeoutMillis));
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+        this.checkIntervalMillis = Math.max(50, Math.min(writeTimeoutMillis,
+                idleTimeoutMillis > 0 ? idleTimeoutMillis : writeTimeoutMillis) / 4);
+        this.nanoClock = nanoClock;
+
+        this.rejected = Counter.builder("mcp.sessions.rejected")
+                .description("SSE handshakes rejected because the API key holds mcp.sessions.max-per-key sessions")
+                .register(meterRegistry);
+        for (CloseReason reason : CloseReason.values()) {
+            closed.put(reason, Counter.builder("mcp.sessions.closed")
+                    .description("MCP sessions closed")
+                    .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("mcp.sessions.open", sessions, Set::size)
+                .description("Open MCP SSE sessions")
+                .register(meterRegistry);
+        Gauge.builder("mcp.sessions.keys", sessionsPerKey, ConcurrentHashMap::size)
+                .description("API keys with at least one open MCP session")
+                .register(meterRegistry);
+        Gauge.builder("mcp.sessions.queue.depth", this, McpSessionManager::queuedMessages)
+                .description("Messages waiting to be written, summed over all sessions")
+                .register(meterRegistry);
+        Gauge.builder("mcp.sessions.queue.max_depth", this, McpSessionManager::deepestQueue)
+                .description("Messages waiting to be written to the session furthest behind")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        watchdog.scheduleWithFixedDelay(this::checkSessions, checkIntervalMillis, checkIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        watchdog.shutdownNow();
+        writers.shutdownNow();
+    }
+
+    /**
+     * Puts every session that {@code delegate} creates under this manager.
+     */
+    public McpServerTransportProvider manage(McpServerTransportProvider delegate) {
+        return new ManagedTransportProvider(delegate);
+    }
+
+    /**
+     * Takes one of {@code keyHash}'s session slots for the SSE handshake in {@code request}, or
+     * returns {@code false} when the key already holds {@code mcp.sessions.max-per-key} sessions. The
+     * session opened by the handshake keeps the slot; {@link #releaseUnusedSlot} returns it otherwise.
+     */
+    public boolean acquireSlot(HttpServletRequest request, String keyHash) {
+        if (sessionsPerKey.merge(keyHash, 1, Integer::sum) > maxSessionsPerKey) {
+            release(keyHash);
+            rejected.increment();
+            return false;
+        }
+        request.setAttribute(SLOT_ATTRIBUTE, keyHash);
+        return true;
+    }
+
+    public void releaseUnusedSlot(HttpServletRequest request) {
+        Object keyHash = request.getAttribute(SLOT_ATTRIBUTE);
+        if (keyHash != null) {
+            request.removeAttribute(SLOT_ATTRIBUTE);
+            release((String) keyHash);
+        }
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Closes sessions whose current write has exceeded the write timeout or that have been idle
+     * for longer than the idle timeout. Runs on the watchdog thread.
+     */
+    void checkSessions() {
+        long now = nanoClock.getAsLong();
+        for (ManagedSession session : sessions) {
+            if (session.writing && now - session.writeStartedNanos > writeTimeoutNanos) {
+                session.close(CloseReason.WRITE_TIMEOUT);
+            } else if (idleTimeoutNanos > 0 && !session.writing && session.queue.isEmpty()
+                    && now - session.lastWrittenNanos > idleTimeoutNanos) {
+                session.close(CloseReason.IDLE);
+            }
+        }
+    }
+
+    int openSessions() {
+        return sessions.size();
+    }
+
+    private int queuedMessages() {
+        int queued = 0;
+        for (ManagedSession session : sessions) {
+            queued += session.queue.size();
+        }
+        return queued;
+    }
+
+    private int deepestQueue() {
+        int deepest = 0;
+        for (ManagedSession session : sessions) {
+            deepest = Math.max(deepest, session.queue.size());
+        }
+        return deepest;
+    }
+
+    private McpServerSession open(McpServerTransport transport, McpServerSession.Factory sessionFactory) {
+        HttpServletRequest request = currentRequest();
+        Object slot = request != null ? request.getAttribute(SLOT_ATTRIBUTE) : null;
+        String keyHash;
+        if (slot != null) {
+            request.removeAttribute(SLOT_ATTRIBUTE);
+            keyHash = (String) slot;
+        } else {
+            keyHash = Objects.requireNonNullElse(McpClientContext.currentKeyHash(), UNKNOWN_KEY);
+            sessionsPerKey.merge(keyHash, 1, Integer::sum);
+        }
+
+        ManagedSession managed = new ManagedSession(transport, keyHash, McpClientContext.current());
+        McpServerSession session;
+        try {
+            session = sessionFactory.create(managed);
+        } catch (RuntimeException ex) {
+            release(keyHash);
+            throw ex;
+        }
+        managed.id = session.getId();
+        sessions.add(managed);
+        if (request != null && request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(new DisconnectListener(managed));
+        }
+        log.info("MCP session {} opened client={} open={}", managed.id, managed.client, sessions.size());
+        return session;
+    }
+
+    private void release(String keyHash) {
+        sessionsPerKey.computeIfPresent(keyHash, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servletAttributes
+                ? servletAttributes.getRequest() : null;
+    }
+
+    private final class ManagedTransportProvider implements McpServerTransportProvider {
+
+        private final McpServerTransportProvider delegate;
+
+        private ManagedTransportProvider(McpServerTransportProvider delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+            delegate.setSessionFactory(transport -> open(transport, sessionFactory));
+        }
+
+        @Override
+        public Mono<Void> notifyClients(String method, Object params) {
+            return delegate.notifyClients(method, params);
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return delegate.closeGracefully();
+        }
+
+        @Override
+        public List<String> protocolVersions() {
+            return delegate.protocolVersions();
+        }
+    }
+
+    final class ManagedSession implements McpServerTransport {
+
+        private final McpServerTransport delegate;
+        private final String keyHash;
+        private final String client;
+        private final BlockingQueue<McpSchema.JSONRPCMessage> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closing = new AtomicBoolean();
+        private volatile String id;
+        private volatile long lastWrittenNanos = nanoClock.getAsLong();
+        private volatile long writeStartedNanos;
+        private volatile boolean writing;
+
+        private ManagedSession(McpServerTransport delegate, String keyHash, String client) {
+            this.delegate = delegate;
+            this.keyHash = keyHash;
+            this.client = client;
+        }
+
+        /**
+         * Completes once the message is queued, not written; a full queue closes the session.
+         */
+        @Override
+        public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+            return Mono.defer(() -> {
+                if (closing.get()) {
+                    return Mono.error(new McpTransportException("MCP session " + id + " is closed"));
+                }
+                if (!queue.offer(message)) {
+                    close(CloseReason.QUEUE_FULL);
+                    return Mono.error(new McpTransportException(
+                            "MCP session " + id + " is " + queueCapacity + " messages behind and was closed"));
+                }
+                if (draining.compareAndSet(false, true)) {
+                    try {
+                        writers.execute(this::drain);
+                    } catch (RejectedExecutionException ex) {
+                        draining.set(false);
+                        close(CloseReason.CLOSED);
+                        return Mono.error(new McpTransportException("MCP server is shutting down", ex));
+                    }
+                }
+                return Mono.empty();
+            });
+        }
+
+        private void drain() {
+            do {
+                McpSchema.JSONRPCMessage message;
+                while (!closing.get() && (message = queue.poll()) != null) {
+                    writeStartedNanos = nanoClock.getAsLong();
+                    writing = true;
+                    try {
+                        delegate.sendMessage(message).block();
+                        lastWrittenNanos = nanoClock.getAsLong();
+                    } catch (RuntimeException ex) {
+                        log.warn("MCP session {} write failed client={}: {}", id, client, ex.getMessage());
+                        close(CloseReason.WRITE_FAILED);
+                        return;
+                    } finally {
+                        writing = false;
+                    }
+                }
+                draining.set(false);
+            } while (!closing.get() && !queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        /**
+         * Idempotent. Unless the client or the MCP server is already ending the stream, it is ended
+         * on a writer thread: the SDK transport's close waits for a write in progress.
+         */
+        void close(CloseReason reason) {
+            if (!closing.compareAndSet(false, true)) {
+                return;
+            }
+            if (sessions.remove(this)) {
+                release(keyHash);
+            }
+            int dropped = queue.size();
+            queue.clear();
+            closed.get(reason).increment();
+            if (reason == CloseReason.DISCONNECTED || reason == CloseReason.CLOSED) {
+                log.info("MCP session {} closed client={} reason={} open={}", id, client,
+                        reason.name().toLowerCase(Locale.ROOT), sessions.size());
+                return;
+            }
+            log.warn("MCP session {} closed client={} reason={} droppedMessages={} open={}", id, client,
+                    reason.name().toLowerCase(Locale.ROOT), dropped, sessions.size());
+            try {
+                writers.execute(delegate::close);
+            } catch (RejectedExecutionException ex) {
+                log.debug("MCP session {} not closed, server is shutting down", id);
+            }
+        }
+
+        boolean isClosed() {
+            return closing.get();
+        }
+
+        int queued() {
+            return queue.size();
+        }
+
+        @Override
+        public <T> T unmarshalFrom(Object data, TypeRef<T> typeRef) {
+            return delegate.unmarshalFrom(data, typeRef);
+        }
+
+        @Override
+        public void close() {
+            close(CloseReason.CLOSED);
+            delegate.close();
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return Mono.defer(() -> {
+                close(CloseReason.CLOSED);
+                return delegate.closeGracefully();
+            });
+        }
+
+        @Override
+        public List<String> protocolVersions() {
+            return delegate.protocolVersions();
+        }
+    }
+
+    private static final class DisconnectListener implements AsyncListener {
+
+        private final ManagedSession session;
+
+        private DisconnectListener(ManagedSession session) {
+            this.session = session;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            session.close(CloseReason.DISCONNECTED);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            session.close(CloseReason.DISCONNECTED);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            session.close(CloseReason.DISCONNECTED);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.taskmanager.mcp.config;
+
+import com.taskmanager.repository.resilience.BulkheadFullException;
+import com.taskmanager.repository.resilience.CircuitOpenException;
+import com.taskmanager.repository.resilience.StatementTimeoutDataSource;
+import com.taskmanager.support.Deadline;
+import com.taskmanager.support.DeadlineExceededException;
+import com.taskmanager.support.Scope;
+import com.taskmanager.support.WorkloadClass;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springaicommunity.mcp.annotation.McpTool;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Gives every MCP tool call a {@link Deadline} of {@code mcp.db.tool-deadline-ms}, the tool-side
+ * counterpart of the REST request deadline. The advice wraps the tool method itself rather than the
+ * transport request because the MCP server may run the tool on another thread. Expensive tools run
+ * under the bulk statement timeout instead, since they are admitted one by one and may
+ * legitimately take long. It runs outside the transaction advice, so a tool that gives up has
+ * already rolled back when the caller sees the error.
+ * <p>
+ * The advice also runs each tool in its {@link WorkloadClass}: batch and bulk tools as bulk work,
+ * export and summary as analytics, so they are held to their share of the connection pool, queue
+ * behind interactive work and are refused with an error result when no connection frees up.
+ */
+@Configuration(proxyBeanMethods = false)
+public class McpToolDeadlines {
+
+    private static final Logger log = LoggerFactory.getLogger(McpToolDeadlines.class);
+
+    @Bean
+    public static Advisor mcpToolDeadlineAdvisor(
+            @Value("${mcp.db.tool-deadline-ms:15000}") long toolDeadlineMillis,
+            @Value("${mcp.admission.expensive-tools:mcp-tasks,mcp-tasks-upsert,mcp-tasks-bulk-update,mcp-tasks-bulk-delete,mcp-tasks-export,mcp-batch}") Set<String> expensiveTools,
+            @Value("${mcp.workload.bulk-tools:mcp-tasks,mcp-tasks-upsert,mcp-tasks-bulk-update,mcp-tasks-bulk-delete,mcp-batch}") Set<String> bulkWorkloadTools,
+            @Value("${mcp.workload.analytics-tools:mcp-tasks-export,mcp-tasks-summary}") Set<String> analyticsTools,
+            @Value("${mcp.workload.read-tools:mcp-tasks-query,mcp-help,mcp-schema-tasks}") Set<String> readTools) {
+        Duration toolDeadline = Duration.ofMillis(toolDeadlineMillis);
+        Set<String> bulkTools = Set.copyOf(expensiveTools);
+        Map<String, WorkloadClass> workloads = new HashMap<>();
+        readTools.forEach(tool -> workloads.put(tool, WorkloadClass.INTERACTIVE_READ));
+        analyticsTools.forEach(tool -> workloads.put(tool, WorkloadClass.ANALYTICS));
+        bulkWorkloadTools.forEach(tool -> workloads.put(tool, WorkloadClass.BULK));
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(McpTool.class),
+                (MethodInterceptor) invocation -> {
+                    Method method = invocation.getMethod();
+                    String tool = method.getAnnotation(McpTool.class).name();
+                    boolean bulk = bulkTools.contains(tool);
+                    WorkloadClass workload = workloads.getOrDefault(tool, WorkloadClass.INTERACTIVE_WRITE);
+                    try (Scope classScope = workload.open();
+                            Scope scope = bulk ? StatementTimeoutDataSource.bulk()
+                                    : toolDeadlineMillis > 0 ? Deadline.open(Deadline.after(toolDeadline))
+                                    : () -> { }) {
+                        return invocation.proceed();
+                    } catch (CircuitOpenException | DeadlineExceededException | QueryTimeoutException ex) {
+                        if (!Map.class.isAssignableFrom(method.getReturnType())) {
+                            throw ex;
+                        }
+                        log.warn("MCP Tool '{}' failed client={}: {}", tool, McpClientContext.current(),
+                                ex.getMessage());
+                        return Map.of("error", ex instanceof CircuitOpenException
+                                ? "Database temporarily unavailable, retry later"
+                                : "Database did not respond in time");
+                    } catch (RuntimeException ex) {
+                        if (!BulkheadFullException.causedBy(ex) || !Map.class.isAssignableFrom(method.getReturnType())) {
+                            throw ex;
+                        }
+                        log.warn("MCP Tool '{}' found no free connection client={}: {}", tool,
+                                McpClientContext.current(), ex.getMessage());
+                        return Map.of("error", "Server busy with other work, retry later");
+                    }
+                });
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
@@ -0,0 +1,30 @@
+package com.taskmanager.mcp.config;
+
+import com.taskmanager.repository.memory.InMemoryRepositoryConfiguration;
+import com.taskmanager.repository.resilience.DatabaseResilienceConfiguration;
+import com.taskmanager.repository.shard.ShardedRepositoryConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Selects the task store: the JPA repositories on PostgreSQL by default, the embedded
+ * {@code InMemoryTaskRepository} with the {@code memory} profile, or the {@code ShardedTaskRepository}
+ * over several PostgreSQL databases with the {@code sharded} profile. The shared entities and
+ * repositories live outside this application's package, so both are registered explicitly, as are
+ * the statement timeouts and circuit breaker that wrap them.
+ */
+@Configuration(proxyBeanMethods = false)
+@Import({InMemoryRepositoryConfiguration.class, ShardedRepositoryConfiguration.class,
+        DatabaseResilienceConfiguration.class})
+public class PersistenceConfig {
+
+    @Configuration(proxyBeanMethods = false)
+    @Profile("!memory & !sharded")
+    @EntityScan(basePackages = "com.taskmanager.model")
+    @EnableJpaRepositories(basePackages = "com.taskmanager.repository")
+    static class JpaRepositoriesConfig {
+    }
+}
@@ -4,6 +4,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 
@@ -19,15 +20,18 @@ import java.io.IOException;
 import java.util.Base64;
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
 @Configuration
+@ConditionalOnWebApplication
 public class SecurityConfig implements Filter {
 
     private static final Logger log = LoggerFactory.getLogger(SecurityConfig.class);
     private static final String INSECURE_TEST_KEY = "test-api-key";
+    private static final int SC_TOO_MANY_REQUESTS = 429;
 
     @Value("${mcp.server.api-key}")
     private String expectedApiKey;
@@ -39,9 +43,15 @@ public class SecurityConfig implements Filter {
     private String sseMessageEndpoint;
 
     private final Environment environment;
+    private final McpAdmissionControl admissionControl;
+    private final McpSessionManager sessionManager;
+    private final ConcurrentHashMap<String, String> keyHashes = new ConcurrentHashMap<>();
 
-    public SecurityConfig(Environment environment) {
+    public SecurityConfig(Environment environment, McpAdmissionControl admissionControl,
+            McpSessionManager sessionManager) {
         this.environment = environment;
+        this.admissionControl = admissionControl;
+        this.sessionManager = sessionManager;
     }
 
     @PostConstruct
@@ -63,6 +73,8 @@ public class SecurityConfig implements Filter {
         HttpServletRequest req = (HttpServletRequest) request;
         HttpServletResponse res = (HttpServletResponse) response;
 
+        McpAdmissionControl.Admission admission = null;
+
         // Protect MCP transport endpoints (SSE handshake + message endpoint)
         if (isProtectedMcpEndpoint(req.getRequestURI())) {
             String header = req.getHeader("Authorization");
@@ -82,22 +94,76 @@ public class SecurityConfig implements Filter {
                 return;
             }
 
-            MDC.put("mcp.client", buildClientContext(req, providedKey));
+            String keyHash = keyHash(providedKey);
+            MDC.put(McpClientContext.MDC_KEY, buildClientContext(req, keyHash));
+            MDC.put(McpClientContext.KEY_HASH_MDC_KEY, keyHash);
+
+            // Throttle per key hash; expensive tool calls also take a global concurrency permit
+            String toolName = null;
+            if (admissionControl.limitsExpensiveTools() && isMessagePost(req)) {
+                CachedBodyRequest cached = new CachedBodyRequest(req);
+                toolName = cached.toolCallName();
+                request = cached;
+            }
+
+            admission = admissionControl.admit(keyHash, toolName);
+            if (!admission.isGranted()) {
+                log.warn("Throttled MCP request path={} client={} reason={}",
+                        req.getRequestURI(), MDC.get(McpClientContext.MDC_KEY), admission.getReason());
+                clearClientContext();
+                res.setStatus(SC_TOO_MANY_REQUESTS);
+                res.setHeader("Retry-After", String.valueOf(admission.getRetryAfterSeconds()));
+                res.getWriter().write("Too Many Requests: " + admission.getReason());
+                return;
+            }
+
+            // The session opened by an SSE handshake keeps the slot taken here until it closes
+            if (isSseHandshake(req) && !sessionManager.acquireSlot(req, keyHash)) {
+                log.warn("Rejected MCP session path={} client={} reason=too many open sessions",
+                        req.getRequestURI(), MDC.get(McpClientContext.MDC_KEY));
+                admission.release();
+                clearClientContext();
+                res.setStatus(SC_TOO_MANY_REQUESTS);
+                res.setHeader("Retry-After", String.valueOf(sessionManager.getRetryAfterSeconds()));
+                res.getWriter().write("Too Many Requests: too many open sessions");
+                return;
+            }
         }
 
         try {
             chain.doFilter(request, response);
         } finally {
-            MDC.remove("mcp.client");
+            if (admission != null) {
+                admission.release();
+                sessionManager.releaseUnusedSlot(req);
+            }
+            clearClientContext();
         }
     }
 
-    private String buildClientContext(HttpServletRequest req, String apiKey) {
-        String keyHash = shortSha256(apiKey);
+    private static void clearClientContext() {
+        MDC.remove(McpClientContext.MDC_KEY);
+        MDC.remove(McpClientContext.KEY_HASH_MDC_KEY);
+    }
+
+    private String buildClientContext(HttpServletRequest req, String keyHash) {
         String remote = Objects.toString(req.getRemoteAddr(), "unknown");
         return remote + "|keyHash=" + keyHash;
     }
 
+    /**
+     * Only keys that passed authentication reach this point, so the cache is bounded by the
+     * number of configured keys.
+     */
+    private String keyHash(String apiKey) {
+        String cached = keyHashes.get(apiKey);
+        if (cached == null) {
+            cached = shortSha256(apiKey);
+            keyHashes.putIfAbsent(apiKey, cached);
+        }
+        return cached;
+    }
+
     private String shortSha256(String value) {
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
@@ -108,6 +174,14 @@ public class SecurityConfig implements Filter {
         }
     }
 
+    private boolean isSseHandshake(HttpServletRequest req) {
+        return "GET".equals(req.getMethod()) && req.getRequestURI().startsWith(sseEndpoint);
+    }
+
+    private boolean isMessagePost(HttpServletRequest req) {
+        return "POST".equals(req.getMethod()) && req.getRequestURI().startsWith(sseMessageEndpoint);
+    }
+
     private boolean isProtectedMcpEndpoint(String requestUri) {
         return requestUri.startsWith(sseEndpoint) || requestUri.startsWith(sseMessageEndpoint);
     }
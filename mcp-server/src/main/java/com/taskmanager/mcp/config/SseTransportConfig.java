@@ -0,0 +1,50 @@
+package com.taskmanager.mcp.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.json.jackson.JacksonMcpJsonMapper;
+import io.modelcontextprotocol.server.transport.WebMvcSseServerTransportProvider;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import org.springframework.ai.mcp.server.common.autoconfigure.properties.McpServerSseProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.ServerResponse;
+
+/**
+ * The SSE transport and its routes, built like the auto-configured ones, which back off once a
+ * transport provider is defined. The MCP server is handed the provider wrapped by
+ * {@link McpSessionManager}, which bounds each session's outbound queue and closes slow and idle
+ * sessions.
+ */
+@Configuration
+@ConditionalOnWebApplication
+@EnableConfigurationProperties(McpServerSseProperties.class)
+public class SseTransportConfig {
+
+    @Bean
+    WebMvcSseServerTransportProvider webMvcSseServerTransportProvider(ObjectMapper objectMapper,
+            McpServerSseProperties properties) {
+        return WebMvcSseServerTransportProvider.builder()
+                .jsonMapper(new JacksonMcpJsonMapper(objectMapper))
+                .baseUrl(properties.getBaseUrl())
+                .sseEndpoint(properties.getSseEndpoint())
+                .messageEndpoint(properties.getSseMessageEndpoint())
+                .keepAliveInterval(properties.getKeepAliveInterval())
+                .build();
+    }
+
+    @Bean
+    RouterFunction<ServerResponse> mvcMcpRouterFunction(WebMvcSseServerTransportProvider transportProvider) {
+        return transportProvider.getRouterFunction();
+    }
+
+    @Bean
+    @Primary
+    McpServerTransportProvider managedSseServerTransport(WebMvcSseServerTransportProvider transportProvider,
+            McpSessionManager sessionManager) {
+        return sessionManager.manage(transportProvider);
+    }
+}
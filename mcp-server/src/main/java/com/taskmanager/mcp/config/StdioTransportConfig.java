@@ -0,0 +1,129 @@
+package com.taskmanager.mcp.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.json.TypeRef;
+import io.modelcontextprotocol.json.jackson.JacksonMcpJsonMapper;
+import io.modelcontextprotocol.server.transport.StdioServerTransportProvider;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Active with the {@code stdio} profile ({@code spring.ai.mcp.server.stdio=true}). The MCP session
+ * runs over stdin/stdout of this process, so there is no HTTP endpoint, API key or admission
+ * control: whoever can start the process is the client.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.ai.mcp.server", name = "stdio", havingValue = "true")
+public class StdioTransportConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(StdioTransportConfig.class);
+
+    @PostConstruct
+    void registerClientContext() {
+        String parent = ProcessHandle.current().parent()
+                .map(handle -> Long.toString(handle.pid()))
+                .orElse("unknown");
+        McpClientContext.setProcessClient("stdio|ppid=" + parent);
+        log.info("MCP stdio transport active client={}", McpClientContext.current());
+    }
+
+    /**
+     * Replaces the auto-configured stdio transport. The SDK's stdio session emits every outgoing
+     * message into a sink that rejects concurrent emitters, so a tool result (sent from a worker
+     * thread) racing with another response was dropped and the client waited until its timeout.
+     * Sends are serialized here instead.
+     */
+    @Bean
+    McpServerTransportProvider stdioServerTransport(ObjectMapper objectMapper) {
+        return new SerializedSendTransportProvider(
+                new StdioServerTransportProvider(new JacksonMcpJsonMapper(objectMapper)));
+    }
+
+    static final class SerializedSendTransportProvider implements McpServerTransportProvider {
+
+        private final McpServerTransportProvider delegate;
+
+        SerializedSendTransportProvider(McpServerTransportProvider delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+            delegate.setSessionFactory(transport -> sessionFactory.create(new SerializedSendTransport(transport)));
+        }
+
+        @Override
+        public Mono<Void> notifyClients(String method, Object params) {
+            return delegate.notifyClients(method, params);
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return delegate.closeGracefully();
+        }
+
+        @Override
+        public List<String> protocolVersions() {
+            return delegate.protocolVersions();
+        }
+    }
+
+    static final class SerializedSendTransport implements McpServerTransport {
+
+        private final McpServerTransport delegate;
+        private final Object sendLock = new Object();
+
+        SerializedSendTransport(McpServerTransport delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+            return Mono.defer(() -> {
+                // Subscribing emits synchronously once the transport is running; only that part is locked
+                CompletableFuture<Void> sent;
+                synchronized (sendLock) {
+                    sent = delegate.sendMessage(message).toFuture();
+                }
+                return Mono.fromFuture(sent);
+            });
+        }
+
+        @Override
+        public <T> T unmarshalFrom(Object data, TypeRef<T> typeRef) {
+            return delegate.unmarshalFrom(data, typeRef);
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return delegate.closeGracefully();
+        }
+
+        @Override
+        public List<String> protocolVersions() {
+            return delegate.protocolVersions();
+        }
+    }
+}
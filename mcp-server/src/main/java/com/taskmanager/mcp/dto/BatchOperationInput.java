@@ -0,0 +1,58 @@
+package com.taskmanager.mcp.dto;
+
+import java.util.List;
+
+/**
+ * One step of {@code mcp-batch}. {@code op} selects which of the other fields apply:
+ * {@code insert} takes {@code tasks}, {@code update-status} takes {@code ids} and {@code status},
+ * {@code delete} takes {@code ids}, {@code summary} takes {@code includeArchived} and
+ * {@code schema} takes nothing.
+ */
+public class BatchOperationInput {
+
+    private String op;
+    private List<TaskInput> tasks;
+    private List<Long> ids;
+    private String status;
+    private Boolean includeArchived;
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public List<TaskInput> getTasks() {
+        return tasks;
+    }
+
+    public void setTasks(List<TaskInput> tasks) {
+        this.tasks = tasks;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Boolean getIncludeArchived() {
+        return includeArchived;
+    }
+
+    public void setIncludeArchived(Boolean includeArchived) {
+        this.includeArchived = includeArchived;
+    }
+}
@@ -0,0 +1,61 @@
+package com.taskmanager.mcp.dto;
+
+import java.time.LocalDate;
+
+public class TaskFilterInput {
+
+    private String status;
+    private LocalDate dueFrom;
+    private LocalDate dueTo;
+    private Boolean overdue;
+    private String titleContains;
+    private Boolean includeArchived;
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public LocalDate getDueFrom() {
+        return dueFrom;
+    }
+
+    public void setDueFrom(LocalDate dueFrom) {
+        this.dueFrom = dueFrom;
+    }
+
+    public LocalDate getDueTo() {
+        return dueTo;
+    }
+
+    public void setDueTo(LocalDate dueTo) {
+        this.dueTo = dueTo;
+    }
+
+    public Boolean getOverdue() {
+        return overdue;
+    }
+
+    public void setOverdue(Boolean overdue) {
+        this.overdue = overdue;
+    }
+
+    public String getTitleContains() {
+        return titleContains;
+    }
+
+    public void setTitleContains(String titleContains) {
+        this.titleContains = titleContains;
+    }
+
+    public Boolean getIncludeArchived() {
+        return includeArchived;
+    }
+
+    public void setIncludeArchived(Boolean includeArchived) {
+        this.includeArchived = includeArchived;
+    }
+}
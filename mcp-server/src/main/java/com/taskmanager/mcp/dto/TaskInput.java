@@ -17,6 +17,10 @@ public class TaskInput {
     private String status;
     private LocalDate dueDate;
 
+    @Size(max = Task.EXTERNAL_KEY_MAX_LENGTH, message = "External key must not exceed "
+            + Task.EXTERNAL_KEY_MAX_LENGTH + " characters")
+    private String externalKey;
+
     public String getTitle() {
         return title;
     }
@@ -48,4 +52,12 @@ public class TaskInput {
     public void setDueDate(LocalDate dueDate) {
         this.dueDate = dueDate;
     }
+
+    public String getExternalKey() {
+        return externalKey;
+    }
+
+    public void setExternalKey(String externalKey) {
+        this.externalKey = externalKey;
+    }
 }
@@ -1,11 +1,14 @@
 package com.taskmanager.mcp.dto;
 
+import java.time.LocalDate;
 import java.util.Map;
 
 public class TaskSummary {
 
     private long total;
     private Map<String, Long> byStatus;
+    private LocalDate asOf;
+    private Map<String, Map<String, Long>> byDueWindow;
 
     public TaskSummary() {
     }
@@ -15,6 +18,14 @@ public class TaskSummary {
         this.byStatus = byStatus;
     }
 
+    public TaskSummary(long total, Map<String, Long> byStatus, LocalDate asOf,
+            Map<String, Map<String, Long>> byDueWindow) {
+        this.total = total;
+        this.byStatus = byStatus;
+        this.asOf = asOf;
+        this.byDueWindow = byDueWindow;
+    }
+
     public long getTotal() {
         return total;
     }
@@ -30,4 +41,20 @@ public class TaskSummary {
     public void setByStatus(Map<String, Long> byStatus) {
         this.byStatus = byStatus;
     }
+
+    public LocalDate getAsOf() {
+        return asOf;
+    }
+
+    public void setAsOf(LocalDate asOf) {
+        this.asOf = asOf;
+    }
+
+    public Map<String, Map<String, Long>> getByDueWindow() {
+        return byDueWindow;
+    }
+
+    public void setByDueWindow(Map<String, Map<String, Long>> byDueWindow) {
+        this.byDueWindow = byDueWindow;
+    }
 }
@@ -0,0 +1,22 @@
+package com.taskmanager.mcp.ingest;
+
+import java.util.List;
+
+public class IngestResult {
+
+    private final int accepted;
+    private final List<String> errors;
+
+    public IngestResult(int accepted, List<String> errors) {
+        this.accepted = accepted;
+        this.errors = errors;
+    }
+
+    public int getAccepted() {
+        return accepted;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+}
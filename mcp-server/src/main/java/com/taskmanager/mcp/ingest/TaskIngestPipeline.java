@@ -0,0 +1,188 @@
+package com.taskmanager.mcp.ingest;
+
+import com.taskmanager.mcp.dto.TaskInput;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Validates and normalizes incoming {@link TaskInput} batches into {@link Task} entities.
+ * <p>
+ * Batches smaller than the parallel threshold are processed on the calling thread. Larger
+ * batches are split into fixed-size chunks that are normalized on a bounded fork/join pool
+ * while the calling thread hands finished chunks to the writer in index order, so database
+ * writes overlap with validation of later chunks. Errors are always reported in input order,
+ * exactly as the sequential path would report them. By default the pool has half the available
+ * processors, so a large batch leaves CPU for interactive calls.
+ */
+@Component
+public class TaskIngestPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskIngestPipeline.class);
+
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+    private final int chunkSize;
+
+    public TaskIngestPipeline(
+            @Value("${mcp.ingest.parallelism:0}") int parallelism,
+            @Value("${mcp.ingest.parallel-threshold:2000}") int parallelThreshold,
+            @Value("${mcp.ingest.chunk-size:500}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("mcp.ingest.chunk-size must be positive");
+        }
+        int threads = parallelism > 0 ? parallelism : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.pool = new ForkJoinPool(threads, namedThreadFactory(), null, false);
+        this.parallelThreshold = parallelThreshold;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Normalizes {@code inputs} and passes every non-empty run of valid tasks to {@code writer}.
+     * The writer is always invoked on the calling thread so it can take part in the caller's
+     * transaction.
+     */
+    public IngestResult ingest(List<TaskInput> inputs, Consumer<List<Task>> writer) {
+        if (inputs.size() < parallelThreshold || inputs.size() <= chunkSize) {
+            Chunk chunk = normalizeRange(inputs, 0, inputs.size());
+            if (!chunk.tasks.isEmpty()) {
+                writer.accept(chunk.tasks);
+            }
+            return new IngestResult(chunk.tasks.size(), chunk.errors);
+        }
+
+        List<ForkJoinTask<Chunk>> pending = new ArrayList<>();
+        for (int from = 0; from < inputs.size(); from += chunkSize) {
+            int start = from;
+            int end = Math.min(inputs.size(), from + chunkSize);
+            pending.add(pool.submit(() -> normalizeRange(inputs, start, end)));
+        }
+        log.debug("Normalizing {} tasks in {} chunks on {} threads",
+                inputs.size(), pending.size(), pool.getParallelism());
+
+        int accepted = 0;
+        List<String> errors = new ArrayList<>();
+        try {
+            for (ForkJoinTask<Chunk> task : pending) {
+                Chunk chunk = task.join();
+                errors.addAll(chunk.errors);
+                if (!chunk.tasks.isEmpty()) {
+                    writer.accept(chunk.tasks);
+                    accepted += chunk.tasks.size();
+                }
+            }
+        } finally {
+            pending.forEach(task -> task.cancel(false));
+        }
+        return new IngestResult(accepted, errors);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    private Chunk normalizeRange(List<TaskInput> inputs, int from, int to) {
+        Chunk chunk = new Chunk(to - from);
+        for (int i = from; i < to; i++) {
+            TaskInput input = inputs.get(i);
+            String validationError = validate(input);
+            if (validationError != null) {
+                chunk.errors.add("index " + i + ": " + validationError);
+                continue;
+            }
+            chunk.tasks.add(toTask(input));
+        }
+        return chunk;
+    }
+
+    private Task toTask(TaskInput input) {
+        Task task = new Task();
+        task.setTitle(input.getTitle().trim());
+        task.setDescription(normalizeDescription(input.getDescription()));
+        task.setStatus(parseStatus(input.getStatus()));
+        task.setDueDate(input.getDueDate());
+        task.setExternalKey(normalizeExternalKey(input.getExternalKey()));
+        return task;
+    }
+
+    private String validate(TaskInput input) {
+        if (input == null) {
+            return "Task object is null";
+        }
+        if (input.getTitle() == null || input.getTitle().trim().isEmpty()) {
+            return "title is required";
+        }
+        if (input.getTitle().trim().length() > Task.TITLE_MAX_LENGTH) {
+            return "title exceeds " + Task.TITLE_MAX_LENGTH + " characters";
+        }
+        if (input.getDescription() != null && input.getDescription().trim().length() > Task.DESCRIPTION_MAX_LENGTH) {
+            return "description exceeds " + Task.DESCRIPTION_MAX_LENGTH + " characters";
+        }
+        if (input.getExternalKey() != null && input.getExternalKey().trim().length() > Task.EXTERNAL_KEY_MAX_LENGTH) {
+            return "externalKey exceeds " + Task.EXTERNAL_KEY_MAX_LENGTH + " characters";
+        }
+        try {
+            parseStatus(input.getStatus());
+        } catch (IllegalArgumentException ex) {
+            List<String> validStatuses = Arrays.stream(TaskStatus.values())
+                    .map(Enum::name)
+                    .toList();
+            return "status must be one of " + String.join(", ", validStatuses);
+        }
+        return null;
+    }
+
+    private TaskStatus parseStatus(String status) {
+        if (status == null || status.isBlank()) {
+            return TaskStatus.TODO;
+        }
+        return TaskStatus.valueOf(status.trim().toUpperCase(Locale.ROOT));
+    }
+
+    private String normalizeDescription(String description) {
+        if (description == null || description.trim().isEmpty()) {
+            return null;
+        }
+        return description.trim();
+    }
+
+    private String normalizeExternalKey(String externalKey) {
+        if (externalKey == null || externalKey.isBlank()) {
+            return null;
+        }
+        return externalKey.trim();
+    }
+
+    private static ForkJoinPool.ForkJoinWorkerThreadFactory namedThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("mcp-ingest-" + counter.incrementAndGet());
+            return thread;
+        };
+    }
+
+    private static final class Chunk {
+        private final List<Task> tasks;
+        private final List<String> errors = new ArrayList<>();
+
+        private Chunk(int capacity) {
+            this.tasks = new ArrayList<>(capacity);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.taskmanager.mcp.resources;
+
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Feeds {@link TaskChangeNotifier} from PostgreSQL {@code LISTEN task_changes}, so writes by the
+ * backend and other services are seen as well as this server's own. The channel is raised by the
+ * statement trigger from {@code db/postgres/task-change-notify.sql}; without it nothing arrives here
+ * and only changes made through this server are notified.
+ * <p>
+ * Holds one connection for the lifetime of the process, opened with the {@code spring.datasource}
+ * settings outside the pool, so it takes neither a pool slot nor a bulkhead permit from the tools.
+ * On other databases (H2 in tests) the listener exits after its first connection. After a lost
+ * connection it reconnects and reports one change, since notifications sent while disconnected
+ * are not replayed.
+ */
+@Component
+@ConditionalOnProperty(name = "mcp.resources.listen.enabled", havingValue = "true", matchIfMissing = true)
+public class TaskChangeListener {
+
+    static final String CHANNEL = "task_changes";
+
+    private static final Logger log = LoggerFactory.getLogger(TaskChangeListener.class);
+    private static final int POLL_TIMEOUT_MILLIS = 1000;
+
+    private final DataSourceProperties dataSource;
+    private final TaskChangeNotifier notifier;
+    private final long reconnectDelayMillis;
+    private volatile boolean running = true;
+    private Thread thread;
+
+    public TaskChangeListener(DataSourceProperties dataSource, TaskChangeNotifier notifier,
+            @Value("${mcp.resources.listen.reconnect-delay-ms:5000}") long reconnectDelayMillis) {
+        this.dataSource = dataSource;
+        this.notifier = notifier;
+        this.reconnectDelayMillis = Math.max(100, reconnectDelayMillis);
+    }
+
+    /**
+     * Started once the application is ready, so startup (and the AppCDS training run, which exits
+     * after refresh) never waits for a database connection.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        thread = new Thread(this::listenLoop, "task-change-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void listenLoop() {
+        boolean reconnect = false;
+        while (running) {
+            try (Connection listening = DriverManager.getConnection(dataSource.determineUrl(),
+                    dataSource.determineUsername(), dataSource.determinePassword())) {
+                if (!listening.isWrapperFor(PGConnection.class)) {
+                    log.info("Task change LISTEN disabled: database is not PostgreSQL");
+                    return;
+                }
+                try (Statement statement = listening.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                log.info("Listening for task changes on channel '{}'", CHANNEL);
+                if (reconnect) {
+                    notifier.taskChanged();
+                }
+                PGConnection pg = listening.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications != null && notifications.length > 0) {
+                        notifier.taskChanged();
+                    }
+                }
+            } catch (SQLException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Task change listener lost its connection, retrying in {} ms: {}",
+                        reconnectDelayMillis, ex.getMessage());
+                reconnect = true;
+                sleepBeforeReconnect();
+            }
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            Thread.sleep(reconnectDelayMillis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.taskmanager.mcp.resources;
+
+import io.modelcontextprotocol.server.McpSyncServer;
+import io.modelcontextprotocol.spec.McpSchema;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Turns task changes into MCP {@code notifications/resources/updated} for the task resources.
+ * Changes are debounced: one notification goes out once no change has arrived for
+ * {@code mcp.resources.debounce-ms}, or at the latest {@code mcp.resources.max-delay-ms} after the
+ * first pending change, so a bulk load committed in many chunks still produces a single event.
+ * <p>
+ * Change listeners (cache invalidation) run before the notification is sent, so a client that
+ * re-reads a resource in response never gets a stale cached copy.
+ */
+@Component
+public class TaskChangeNotifier {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskChangeNotifier.class);
+
+    private final ObjectProvider<McpSyncServer> mcpServer;
+    private final long debounceNanos;
+    private final long maxDelayNanos;
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-change-notifier");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final LongAdder published = new LongAdder();
+
+    // Guarded by this
+    private long pendingChanges;
+    private long firstChangeNanos;
+    private long lastChangeNanos;
+
+    public TaskChangeNotifier(ObjectProvider<McpSyncServer> mcpServer,
+            @Value("${mcp.resources.debounce-ms:250}") long debounceMillis,
+            @Value("${mcp.resources.max-delay-ms:5000}") long maxDelayMillis) {
+        this.mcpServer = mcpServer;
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, debounceMillis));
+        this.maxDelayNanos = Math.max(debounceNanos, TimeUnit.MILLISECONDS.toNanos(maxDelayMillis));
+    }
+
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Records a committed change to the tasks table. Cheap and non-blocking; callable from any thread.
+     */
+    public void taskChanged() {
+        long now = System.nanoTime();
+        synchronized (this) {
+            lastChangeNanos = now;
+            if (pendingChanges++ > 0) {
+                return;
+            }
+            firstChangeNanos = now;
+        }
+        schedule(debounceNanos);
+    }
+
+    private void schedule(long delayNanos) {
+        try {
+            scheduler.schedule(this::flushIfQuiet, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException shuttingDown) {
+            log.debug("Task change notification dropped during shutdown");
+        }
+    }
+
+    private void flushIfQuiet() {
+        long changes;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long quiet = now - lastChangeNanos;
+            long waited = now - firstChangeNanos;
+            if (quiet < debounceNanos && waited < maxDelayNanos) {
+                schedule(Math.min(debounceNanos - quiet, maxDelayNanos - waited));
+                return;
+            }
+            changes = pendingChanges;
+            pendingChanges = 0;
+        }
+        publish(changes);
+    }
+
+    private void publish(long changes) {
+        changeListeners.forEach(Runnable::run);
+        McpSyncServer server = mcpServer.getIfAvailable();
+        if (server == null) {
+            return;
+        }
+        try {
+            for (String uri : TaskResources.URIS) {
+                server.notifyResourcesUpdated(new McpSchema.ResourcesUpdatedNotification(uri));
+            }
+            published.increment();
+            log.debug("Published task resource update for {} coalesced changes", changes);
+        } catch (RuntimeException ex) {
+            log.warn("Publishing task resource update failed: {}", ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Resource update notifications sent, each covering every change coalesced into it.
+     */
+    public long getPublishedCount() {
+        return published.sum();
+    }
+}
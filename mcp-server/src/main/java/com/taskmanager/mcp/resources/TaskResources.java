@@ -0,0 +1,77 @@
+package com.taskmanager.mcp.resources;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.mcp.tools.TaskMcpTools;
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.TaskRepository;
+import org.springaicommunity.mcp.annotation.McpResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only MCP resources for agents that want to react to task changes instead of polling
+ * {@code mcp-tasks-summary}. {@link TaskChangeNotifier} sends {@code notifications/resources/updated}
+ * for both URIs after tasks change; clients re-read the resource they care about.
+ */
+@Component
+public class TaskResources {
+
+    public static final String SUMMARY_URI = "tasks://summary";
+    public static final String RECENT_URI = "tasks://recent";
+    public static final List<String> URIS = List.of(SUMMARY_URI, RECENT_URI);
+
+    static final int RECENT_LIMIT = 100;
+
+    private final TaskMcpTools taskMcpTools;
+    private final TaskRepository taskRepository;
+    private final ObjectMapper objectMapper;
+
+    public TaskResources(TaskMcpTools taskMcpTools, TaskRepository taskRepository, ObjectMapper objectMapper) {
+        this.taskMcpTools = taskMcpTools;
+        this.taskRepository = taskRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Same payload as {@code mcp-tasks-summary} for non-archived tasks, served from its cache.
+     */
+    @McpResource(uri = SUMMARY_URI, name = "tasks-summary", mimeType = "application/json",
+            description = "Task counts by status and due-date window (non-archived tasks). Updated notifications "
+                    + "are sent when tasks change")
+    public String summary() {
+        return toJson(taskMcpTools.tasksSummary(false));
+    }
+
+    @McpResource(uri = RECENT_URI, name = "tasks-recent", mimeType = "application/json",
+            description = "The 100 most recently created non-archived tasks (id, title, status, dueDate), newest "
+                    + "first. Updated notifications are sent when tasks change")
+    public String recentTasks() {
+        List<Map<String, Object>> rows = taskRepository
+                .findByArchivedFalseOrderByIdDesc(PageRequest.of(0, RECENT_LIMIT)).stream()
+                .map(TaskResources::toRow)
+                .toList();
+        return toJson(Map.of("tasks", rows, "count", rows.size()));
+    }
+
+    private static Map<String, Object> toRow(Task task) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", task.getId());
+        row.put("title", task.getTitle());
+        row.put("status", task.getStatus());
+        row.put("dueDate", task.getDueDate());
+        return row;
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize task resource", ex);
+        }
+    }
+}
@@ -1,35 +1,169 @@
 package com.taskmanager.mcp.tools;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.taskmanager.export.TaskArrowExporter;
+import com.taskmanager.export.TaskExportResult;
+import com.taskmanager.mcp.config.McpClientContext;
+import com.taskmanager.mcp.dto.BatchOperationInput;
+import com.taskmanager.mcp.dto.TaskFilterInput;
 import com.taskmanager.mcp.dto.TaskInput;
 import com.taskmanager.mcp.dto.TaskSummary;
+import com.taskmanager.mcp.ingest.IngestResult;
+import com.taskmanager.mcp.ingest.TaskIngestPipeline;
+import com.taskmanager.mcp.resources.TaskChangeNotifier;
 import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStats;
 import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.ChunkResult;
+import com.taskmanager.repository.TaskField;
+import com.taskmanager.repository.TaskFilter;
 import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.UpsertResult;
+import com.taskmanager.repository.resilience.BulkheadFullException;
+import com.taskmanager.support.DeadlineExceededException;
+import com.taskmanager.support.SingleFlight;
+import io.modelcontextprotocol.server.McpSyncServerExchange;
+import io.modelcontextprotocol.spec.McpSchema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
+import org.springaicommunity.mcp.annotation.McpProgressToken;
 import org.springaicommunity.mcp.annotation.McpTool;
 import org.springaicommunity.mcp.annotation.McpToolParam;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.datasource.ConnectionHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Component
 public class TaskMcpTools {
 
     private static final Logger log = LoggerFactory.getLogger(TaskMcpTools.class);
     private static final int MAX_BATCH_SIZE = 10_000;
+    private static final String CONTENT_KEY_PREFIX = "sha256:";
+    private static final int DEFAULT_QUERY_LIMIT = 100;
+    private static final Set<TaskField> DEFAULT_QUERY_FIELDS =
+            EnumSet.of(TaskField.ID, TaskField.TITLE, TaskField.STATUS, TaskField.DUE_DATE);
+    private static final String CURSOR_PREFIX = "id:";
+    private static final DateTimeFormatter EXPORT_FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final ObjectMapper ROW_SIZE_MAPPER = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
 
     private final TaskRepository taskRepository;
+    private final TaskIngestPipeline ingestPipeline;
+    private final TaskChangeNotifier changeNotifier;
+    private final SingleFlight<String, TaskSummary> summaryFlight;
+    private final int bulkChunkSize;
+    private final int bulkMaxChunkSize;
+    private final int queryMaxRows;
+    private final int queryMaxBytes;
+    private final Path exportDirectory;
+    private final TaskArrowExporter exporter;
+    private final long claimLeaseMillis;
+    private final int claimMaxBatch;
+    private final TransactionOperations batchTransactions;
+    private final DataSource batchDataSource;
+    private final boolean batchTransactional;
+    private final int batchMaxOperations;
 
-    public TaskMcpTools(TaskRepository taskRepository) {
+    @Autowired
+    public TaskMcpTools(TaskRepository taskRepository, TaskIngestPipeline ingestPipeline,
+            TaskChangeNotifier changeNotifier,
+            @Value("${mcp.coalescing.summary-ttl-ms:0}") long summaryTtlMillis,
+            @Value("${mcp.bulk.chunk-size:500}") int bulkChunkSize,
+            @Value("${mcp.bulk.max-chunk-size:5000}") int bulkMaxChunkSize,
+            @Value("${mcp.query.max-rows:1000}") int queryMaxRows,
+            @Value("${mcp.query.max-bytes:65536}") int queryMaxBytes,
+            @Value("${mcp.export.dir:exports}") String exportDirectory,
+            @Value("${mcp.export.row-group-size:65536}") int exportRowGroupSize,
+            @Value("${mcp.claim.lease-ms:300000}") long claimLeaseMillis,
+            @Value("${mcp.claim.max-batch:100}") int claimMaxBatch,
+            ObjectProvider<PlatformTransactionManager> transactionManager,
+            ObjectProvider<DataSource> dataSource,
+            @Value("${mcp.batch.max-operations:50}") int batchMaxOperations) {
+        this(taskRepository, ingestPipeline, changeNotifier, summaryTtlMillis, bulkChunkSize, bulkMaxChunkSize,
+                queryMaxRows, queryMaxBytes, exportDirectory, exportRowGroupSize, claimLeaseMillis, claimMaxBatch,
+                transactionManager.getIfAvailable(), dataSource.getIfAvailable(), batchMaxOperations);
+    }
+
+    /**
+     * {@code transactionManager} and {@code dataSource} are null in the memory and sharded profiles,
+     * where each repository call is atomic on its own.
+     */
+    public TaskMcpTools(TaskRepository taskRepository, TaskIngestPipeline ingestPipeline,
+            TaskChangeNotifier changeNotifier, long summaryTtlMillis, int bulkChunkSize, int bulkMaxChunkSize,
+            int queryMaxRows, int queryMaxBytes, String exportDirectory, int exportRowGroupSize,
+            long claimLeaseMillis, int claimMaxBatch, PlatformTransactionManager transactionManager,
+            DataSource dataSource, int batchMaxOperations) {
         this.taskRepository = taskRepository;
+        this.ingestPipeline = ingestPipeline;
+        this.changeNotifier = changeNotifier;
+        this.summaryFlight = new SingleFlight<>(summaryTtlMillis);
+        this.bulkMaxChunkSize = Math.max(1, bulkMaxChunkSize);
+        this.bulkChunkSize = Math.min(Math.max(1, bulkChunkSize), this.bulkMaxChunkSize);
+        this.queryMaxRows = Math.max(1, queryMaxRows);
+        this.queryMaxBytes = Math.max(1, queryMaxBytes);
+        this.exportDirectory = Path.of(exportDirectory);
+        this.exporter = new TaskArrowExporter(taskRepository, exportRowGroupSize);
+        this.claimLeaseMillis = Math.max(1, claimLeaseMillis);
+        this.claimMaxBatch = Math.max(1, claimMaxBatch);
+        this.batchTransactional = transactionManager != null;
+        this.batchTransactions = batchTransactional
+                ? new TransactionTemplate(transactionManager) : TransactionOperations.withoutTransaction();
+        this.batchDataSource = dataSource;
+        this.batchMaxOperations = Math.max(1, batchMaxOperations);
+        // Writes by other services only reach this server through the change feed
+        changeNotifier.addChangeListener(summaryFlight::invalidateAll);
     }
 
     @McpTool(name = "mcp-help", description = "Returns available MCP tools and how to use them")
@@ -38,7 +172,17 @@ public class TaskMcpTools {
         tools.put("mcp-help", "Returns available MCP tools and how to use them.");
         tools.put("mcp-schema-tasks", "Returns the schema for the tasks table.");
         tools.put("mcp-tasks", "Bulk inserts tasks into PostgreSQL.");
-        tools.put("mcp-tasks-summary", "Returns count of tasks grouped by status.");
+        tools.put("mcp-tasks-upsert", "Idempotently merges tasks by externalKey (or content hash when absent).");
+        tools.put("mcp-tasks-summary", "Returns count of tasks grouped by status and by due-date window.");
+        tools.put("mcp-tasks-query", "Reads tasks matching a filter, one page at a time, with selectable fields.");
+        tools.put("mcp-tasks-bulk-update", "Sets the status of all tasks matching a filter, in chunks (supports dryRun).");
+        tools.put("mcp-tasks-bulk-delete", "Deletes all tasks matching a filter, in chunks (supports dryRun).");
+        tools.put("mcp-tasks-export", "Writes tasks matching a filter to a columnar Arrow file on the server.");
+        tools.put("mcp-tasks-claim", "Claims the earliest-due TODO tasks for a worker under a time-limited lease.");
+        tools.put("mcp-tasks-heartbeat", "Extends the leases a worker holds; reports the tasks it has lost.");
+        tools.put("mcp-tasks-release", "Ends a lease, handing the task back (TODO) or completing it (DONE).");
+        tools.put("mcp-batch", "Runs insert, update-status, delete, summary and schema steps in one call and "
+                + "one transaction (atomic or best-effort).");
 
         return Map.of(
                 "module", "mcp-server",
@@ -57,6 +201,8 @@ public class TaskMcpTools {
                 .toList();
         properties.put("status", Map.of("type", "string", "enum", statusValues, "default", TaskStatus.TODO.name()));
         properties.put("dueDate", Map.of("type", "string", "format", "date", "nullable", true));
+        properties.put("externalKey",
+                Map.of("type", "string", "maxLength", Task.EXTERNAL_KEY_MAX_LENGTH, "nullable", true));
 
         return Map.of(
                 "table", "tasks",
@@ -80,101 +226,916 @@ public class TaskMcpTools {
             return Map.of("error", "Batch size " + tasks.size() + " exceeds limit of " + MAX_BATCH_SIZE);
         }
 
-        List<Task> validTasks = new ArrayList<>();
-        List<String> errors = new ArrayList<>();
+        IngestResult result = ingestPipeline.ingest(tasks, taskRepository::saveAll);
+        afterTasksChanged();
+        List<String> errors = result.getErrors();
 
-        for (int i = 0; i < tasks.size(); i++) {
-            TaskInput input = tasks.get(i);
-            String validationError = validate(input);
-            if (validationError != null) {
-                errors.add("index " + i + ": " + validationError);
-                continue;
-            }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("received", tasks.size());
+        response.put("inserted", result.getAccepted());
+        response.put("rejected", errors.size());
+        response.put("totalInDatabase", taskRepository.count());
+        if (!errors.isEmpty()) {
+            response.put("errors", errors);
+        }
+
+        log.info("MCP Tool 'mcp-tasks' completed client={}: inserted={}, rejected={}",
+                mcpClient(), result.getAccepted(), errors.size());
+        return response;
+    }
+
+    @Transactional
+    @McpTool(name = "mcp-tasks-upsert",
+            description = "Idempotently merges tasks by externalKey (or content hash when absent)")
+    public Map<String, Object> upsertTasks(
+            @McpToolParam(description = "A JSON array of task objects, optionally with an externalKey")
+            List<TaskInput> tasks) {
+        log.info("MCP Tool 'mcp-tasks-upsert' called client={} to merge {} tasks",
+                mcpClient(), tasks != null ? tasks.size() : 0);
 
-            Task task = new Task();
-            task.setTitle(input.getTitle().trim());
-            task.setDescription(normalizeDescription(input.getDescription()));
-            task.setStatus(parseStatus(input.getStatus()));
-            task.setDueDate(input.getDueDate());
-            validTasks.add(task);
+        if (tasks == null || tasks.isEmpty()) {
+            return Map.of("inserted", 0, "updated", 0, "unchanged", 0, "rejected", 0,
+                    "message", "No tasks received");
         }
 
-        if (!validTasks.isEmpty()) {
-            taskRepository.saveAll(validTasks);
+        if (tasks.size() > MAX_BATCH_SIZE) {
+            return Map.of("error", "Batch size " + tasks.size() + " exceeds limit of " + MAX_BATCH_SIZE);
         }
 
+        UpsertWriter writer = new UpsertWriter();
+        IngestResult result = ingestPipeline.ingest(tasks, writer);
+        afterTasksChanged();
+        List<String> errors = result.getErrors();
+
         Map<String, Object> response = new LinkedHashMap<>();
         response.put("received", tasks.size());
-        response.put("inserted", validTasks.size());
+        response.put("inserted", writer.merged.getInserted());
+        response.put("updated", writer.merged.getUpdated());
+        response.put("unchanged", writer.merged.getUnchanged());
+        response.put("duplicates", writer.duplicates);
         response.put("rejected", errors.size());
         response.put("totalInDatabase", taskRepository.count());
         if (!errors.isEmpty()) {
             response.put("errors", errors);
         }
 
-        log.info("MCP Tool 'mcp-tasks' completed client={}: inserted={}, rejected={}",
-                mcpClient(), validTasks.size(), errors.size());
+        log.info("MCP Tool 'mcp-tasks-upsert' completed client={}: inserted={}, updated={}, unchanged={}, "
+                + "duplicates={}, rejected={}", mcpClient(), writer.merged.getInserted(), writer.merged.getUpdated(),
+                writer.merged.getUnchanged(), writer.duplicates, errors.size());
+        return response;
+    }
+
+    /**
+     * Not transactional on purpose: concurrent callers are coalesced onto one
+     * {@code countTasksByStatusAndDueWindow()} query and must not each hold a connection while they wait.
+     * Due-date windows are relative to the server's current date, which is part of the coalescing key so
+     * a cached summary never crosses midnight.
+     */
+    @McpTool(name = "mcp-tasks-summary", description = "Returns count of tasks grouped by status and by due-date "
+            + "window (overdue, dueToday, dueThisWeek, later, noDueDate). Archived tasks are excluded by default")
+    public TaskSummary tasksSummary(
+            @McpToolParam(description = "Also count archived DONE tasks (default false)", required = false)
+            Boolean includeArchived) {
+        boolean archived = Boolean.TRUE.equals(includeArchived);
+        log.info("MCP Tool 'mcp-tasks-summary' called client={} includeArchived={}", mcpClient(), archived);
+        LocalDate today = LocalDate.now();
+        return summaryFlight.execute(today + (archived ? "/all" : "/hot"), () -> loadSummary(today, archived));
+    }
+
+    // Visible for tests
+    SingleFlight<String, TaskSummary> summaryFlight() {
+        return summaryFlight;
+    }
+
+    private TaskSummary loadSummary(LocalDate today, boolean includeArchived) {
+        TaskStats stats = TaskStats.fromRows(today, taskRepository.countTasksByStatusAndDueWindow(today,
+                TaskStats.endOfWeek(today), includeArchived));
+        return new TaskSummary(stats.getTotal(), stats.getByStatus(), stats.getAsOf(), stats.getByDueWindow());
+    }
+
+    /**
+     * Not transactional: each page is one keyset query ({@code id > cursor ORDER BY id LIMIT n}) over
+     * the primary key, reading only the selected columns. Rows are streamed and the page ends at
+     * whichever of {@code limit} and {@code maxBytes} is reached first; a page always holds at least
+     * one row so that paging makes progress.
+     */
+    @McpTool(name = "mcp-tasks-query", description = "Reads tasks matching a filter, one page at a time. Select "
+            + "only the fields you need and pass nextCursor back to read the next page")
+    public Map<String, Object> queryTasks(
+            @McpToolParam(description = "Filter: status, dueFrom, dueTo (inclusive, yyyy-MM-dd), overdue, "
+                    + "titleContains, includeArchived. Omit to read all non-archived tasks",
+                    required = false) TaskFilterInput filter,
+            @McpToolParam(description = "Comma-separated fields: id, title, description, status, dueDate, "
+                    + "externalKey, archived, completedAt (default id,title,status,dueDate; id is always "
+                    + "returned)", required = false) String fields,
+            @McpToolParam(description = "nextCursor of the previous page; omit for the first page",
+                    required = false) String cursor,
+            @McpToolParam(description = "Maximum rows per page (default 100); capped by the server",
+                    required = false) Integer limit,
+            @McpToolParam(description = "Maximum size of the returned rows in bytes of JSON; capped by the server",
+                    required = false) Integer maxBytes) {
+        log.info("MCP Tool 'mcp-tasks-query' called client={} fields={} cursor={} limit={}",
+                mcpClient(), fields, cursor, limit);
+
+        List<String> errors = new ArrayList<>();
+        TaskFilter taskFilter = filter != null ? toFilter(filter, errors, false) : new TaskFilter();
+        Set<TaskField> projection = parseFields(fields, errors);
+        long afterId = decodeCursor(cursor, errors);
+        if (!errors.isEmpty()) {
+            return Map.of("error", String.join("; ", errors));
+        }
+
+        int rowLimit = limit == null || limit <= 0 ? Math.min(DEFAULT_QUERY_LIMIT, queryMaxRows)
+                : Math.min(limit, queryMaxRows);
+        int byteLimit = maxBytes == null || maxBytes <= 0 ? queryMaxBytes : Math.min(maxBytes, queryMaxBytes);
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        long bytes = 0;
+        boolean hasMore = false;
+        // One extra row tells whether another page exists without a separate count
+        try (Stream<Map<String, Object>> stream =
+                     taskRepository.streamByFilter(taskFilter, projection, afterId, rowLimit + 1)) {
+            Iterator<Map<String, Object>> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                Map<String, Object> row = iterator.next();
+                int size = jsonSize(row);
+                if (rows.size() == rowLimit || (!rows.isEmpty() && bytes + size > byteLimit)) {
+                    hasMore = true;
+                    break;
+                }
+                rows.add(row);
+                bytes += size;
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("tasks", rows);
+        response.put("count", rows.size());
+        response.put("bytes", bytes);
+        response.put("hasMore", hasMore);
+        response.put("nextCursor", hasMore ? encodeCursor((Long) rows.get(rows.size() - 1).get("id")) : null);
+        log.info("MCP Tool 'mcp-tasks-query' completed client={}: count={}, bytes={}, hasMore={}",
+                mcpClient(), rows.size(), bytes, hasMore);
+        return response;
+    }
+
+    /**
+     * Writes an Arrow IPC file for analytics jobs instead of paging through {@code mcp-tasks-query}.
+     * The row groups are read in one repeatable-read transaction so the file is a consistent snapshot.
+     * The file is written under a temporary name and moved into place when complete, so readers never
+     * see a partial export.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    @McpTool(name = "mcp-tasks-export", description = "Writes all tasks matching a filter to a columnar Arrow "
+            + "IPC file (Feather v2) in the server's export directory and returns its path and size")
+    public Map<String, Object> exportTasks(
+            @McpToolParam(description = "Filter: status, dueFrom, dueTo (inclusive, yyyy-MM-dd), overdue, "
+                    + "titleContains, includeArchived. Omit to export all non-archived tasks",
+                    required = false) TaskFilterInput filter) {
+        log.info("MCP Tool 'mcp-tasks-export' called client={}", mcpClient());
+
+        List<String> errors = new ArrayList<>();
+        TaskFilter taskFilter = filter != null ? toFilter(filter, errors, false) : new TaskFilter();
+        if (!errors.isEmpty()) {
+            return Map.of("error", String.join("; ", errors));
+        }
+
+        Path target = exportDirectory.resolve("tasks-" + EXPORT_FILE_TIME.format(LocalDateTime.now())
+                + TaskArrowExporter.FILE_EXTENSION).toAbsolutePath();
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        TaskExportResult result;
+        try {
+            Files.createDirectories(exportDirectory);
+            try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                result = exporter.export(taskFilter, channel);
+            }
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            log.warn("MCP Tool 'mcp-tasks-export' failed client={}: {}", mcpClient(), ex.getMessage());
+            deleteQuietly(partial);
+            return Map.of("error", "Export failed: " + ex.getMessage());
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("file", target.toString());
+        response.put("contentType", TaskArrowExporter.CONTENT_TYPE);
+        response.put("rows", result.getRows());
+        response.put("rowGroups", result.getRowGroups());
+        response.put("bytes", result.getBytes());
+        response.put("durationMs", result.getDurationMillis());
+        log.info("MCP Tool 'mcp-tasks-export' completed client={}: rows={}, rowGroups={}, bytes={}, file={}",
+                mcpClient(), result.getRows(), result.getRowGroups(), result.getBytes(), target);
+        return response;
+    }
+
+    /**
+     * Not transactional on purpose: each chunk commits on its own so row locks are held for one
+     * chunk at a time. If a chunk fails the run stops and reports how far it got; earlier chunks stay applied.
+     */
+    @McpTool(name = "mcp-tasks-bulk-update",
+            description = "Sets the status of all tasks matching a filter, in chunks. Run with dryRun=true first "
+                    + "to see how many tasks match")
+    public Map<String, Object> bulkUpdateStatus(
+            @McpToolParam(description = "Filter: status, dueFrom, dueTo (inclusive, yyyy-MM-dd), overdue, "
+                    + "titleContains, includeArchived. At least one criterion is required") TaskFilterInput filter,
+            @McpToolParam(description = "New status: TODO, IN_PROGRESS or DONE") String status,
+            @McpToolParam(description = "Only count matching tasks, change nothing (default false)",
+                    required = false) Boolean dryRun,
+            @McpToolParam(description = "Rows per chunk; capped by the server", required = false) Integer chunkSize,
+            McpSyncServerExchange exchange,
+            @McpProgressToken String progressToken) {
+        log.info("MCP Tool 'mcp-tasks-bulk-update' called client={} status={} dryRun={}",
+                mcpClient(), status, dryRun);
+
+        List<String> errors = new ArrayList<>();
+        TaskFilter taskFilter = toFilter(filter, errors, true);
+        TaskStatus target = parseBulkStatus(status, errors);
+        if (!errors.isEmpty()) {
+            return Map.of("error", String.join("; ", errors));
+        }
+
+        TaskFilter effective = taskFilter.excludingStatus(target);
+        return runBulk("mcp-tasks-bulk-update", "updated", effective, dryRun, chunkSize, exchange, progressToken,
+                (afterId, limit) -> taskRepository.updateStatusByFilter(effective, target, afterId, limit));
+    }
+
+    /**
+     * Same chunking and failure semantics as {@link #bulkUpdateStatus}.
+     */
+    @McpTool(name = "mcp-tasks-bulk-delete",
+            description = "Deletes all tasks matching a filter, in chunks. Run with dryRun=true first "
+                    + "to see how many tasks match")
+    public Map<String, Object> bulkDelete(
+            @McpToolParam(description = "Filter: status, dueFrom, dueTo (inclusive, yyyy-MM-dd), overdue, "
+                    + "titleContains, includeArchived. At least one criterion is required") TaskFilterInput filter,
+            @McpToolParam(description = "Only count matching tasks, delete nothing (default false)",
+                    required = false) Boolean dryRun,
+            @McpToolParam(description = "Rows per chunk; capped by the server", required = false) Integer chunkSize,
+            McpSyncServerExchange exchange,
+            @McpProgressToken String progressToken) {
+        log.info("MCP Tool 'mcp-tasks-bulk-delete' called client={} dryRun={}", mcpClient(), dryRun);
+
+        List<String> errors = new ArrayList<>();
+        TaskFilter taskFilter = toFilter(filter, errors, true);
+        if (!errors.isEmpty()) {
+            return Map.of("error", String.join("; ", errors));
+        }
+
+        return runBulk("mcp-tasks-bulk-delete", "deleted", taskFilter, dryRun, chunkSize, exchange, progressToken,
+                (afterId, limit) -> taskRepository.deleteByFilter(taskFilter, afterId, limit));
+    }
+
+    /**
+     * Work-queue access for agents: concurrent claims get disjoint tasks without waiting on each
+     * other (rows locked by another claim are skipped). Tasks whose lease is neither renewed with
+     * {@code mcp-tasks-heartbeat} nor released go back to {@code TODO} when the backend's lease
+     * sweep finds them expired.
+     */
+    @McpTool(name = "mcp-tasks-claim", description = "Claims up to limit TODO tasks, earliest due first, and "
+            + "moves them to IN_PROGRESS under a lease owned by owner. Renew the lease with mcp-tasks-heartbeat "
+            + "and finish with mcp-tasks-release; an expired lease returns the task to TODO")
+    public Map<String, Object> claimTasks(
+            @McpToolParam(description = "Worker identity, at most 64 characters; needed to renew or release")
+                    String owner,
+            @McpToolParam(description = "Maximum tasks to claim (default 1); capped by the server",
+                    required = false) Integer limit) {
+        log.info("MCP Tool 'mcp-tasks-claim' called client={} owner={} limit={}", mcpClient(), owner, limit);
+
+        List<String> errors = new ArrayList<>();
+        validateOwner(owner, errors);
+        if (!errors.isEmpty()) {
+            return Map.of("error", String.join("; ", errors));
+        }
+
+        int claimLimit = limit == null || limit <= 0 ? 1 : Math.min(limit, claimMaxBatch);
+        LocalDateTime leaseUntil = leaseUntil();
+        List<Long> ids = taskRepository.claim(owner, leaseUntil, claimLimit);
+        List<Map<String, Object>> claimed = new ArrayList<>(ids.size());
+        if (!ids.isEmpty()) {
+            afterTasksChanged();
+            Map<Long, Task> byId = new HashMap<>();
+            taskRepository.findAllById(ids).forEach(task -> byId.put(task.getId(), task));
+            for (Long id : ids) {
+                Task task = byId.get(id);
+                if (task != null) {
+                    claimed.add(claimedRow(task));
+                }
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("tasks", claimed);
+        response.put("count", claimed.size());
+        response.put("leaseExpiresAt", leaseUntil.toString());
+        log.info("MCP Tool 'mcp-tasks-claim' completed client={} owner={}: claimed={}",
+                mcpClient(), owner, claimed.size());
+        return response;
+    }
+
+    @McpTool(name = "mcp-tasks-heartbeat", description = "Extends the leases owner holds on the given tasks. "
+            + "Tasks listed under lost are no longer held (the lease expired and was reclaimed) and must "
+            + "not be worked on further")
+    public Map<String, Object> heartbeat(
+            @McpToolParam(description = "Worker identity used to claim the tasks") String owner,
+            @McpToolParam(description = "Ids of the claimed tasks") List<Long> ids) {
+        log.info("MCP Tool 'mcp-tasks-heartbeat' called client={} owner={} ids={}",
+                mcpClient(), owner, ids == null ? 0 : ids.size());
+
+        List<String> errors = new ArrayList<>();
+        validateOwner(owner, errors);
+        if (ids == null || ids.isEmpty()) {
+            errors.add("ids is required");
+        } else if (ids.size() > claimMaxBatch) {
+            errors.add("At most " + claimMaxBatch + " ids per heartbeat");
+        }
+        if (!errors.isEmpty()) {
+            return Map.of("error", String.join("; ", errors));
+        }
+
+        LocalDateTime leaseUntil = leaseUntil();
+        List<Long> renewed = new ArrayList<>();
+        List<Long> lost = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            if (id != null && taskRepository.renewLease(id, owner, leaseUntil)) {
+                renewed.add(id);
+            } else {
+                lost.add(id);
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("renewed", renewed);
+        response.put("lost", lost);
+        response.put("leaseExpiresAt", leaseUntil.toString());
+        return response;
+    }
+
+    @McpTool(name = "mcp-tasks-release", description = "Ends owner's lease on a task: status DONE completes it, "
+            + "TODO (the default) hands it back for another worker")
+    public Map<String, Object> releaseTask(
+            @McpToolParam(description = "Worker identity used to claim the task") String owner,
+            @McpToolParam(description = "Task id") Long id,
+            @McpToolParam(description = "TODO or DONE (default TODO)", required = false) String status) {
+        log.info("MCP Tool 'mcp-tasks-release' called client={} owner={} id={} status={}",
+                mcpClient(), owner, id, status);
+
+        List<String> errors = new ArrayList<>();
+        validateOwner(owner, errors);
+        if (id == null) {
+            errors.add("id is required");
+        }
+        TaskStatus target = status == null || status.isBlank() ? TaskStatus.TODO : parseBulkStatus(status, errors);
+        if (target == TaskStatus.IN_PROGRESS) {
+            errors.add("status must be TODO or DONE");
+        }
+        if (!errors.isEmpty()) {
+            return Map.of("error", String.join("; ", errors));
+        }
+
+        if (!taskRepository.releaseLease(id, owner, target)) {
+            return Map.of("error", "Task " + id + " is not leased by " + owner);
+        }
+        afterTasksChanged();
+        return Map.of("released", id, "status", target.name());
+    }
+
+    /**
+     * Saves agents a round trip and a transaction per step. All steps run in one transaction when
+     * the server has a transaction manager. In {@code atomic} mode the first failing step rolls the
+     * whole batch back and the remaining steps are skipped; in {@code best-effort} mode each step
+     * runs under a savepoint, so a failure undoes only that step. Every step is a set-based statement
+     * or an aggregate query, never a managed entity, which is what makes rolling back to a savepoint
+     * safe under JPA. Without a transaction manager (memory and sharded profiles) each step commits
+     * on its own and atomic mode can only stop at the first failure; the response then has no
+     * {@code committed} flag, and the steps with status {@code ok} are the ones that persisted.
+     */
+    @McpTool(name = "mcp-batch", description = "Runs an ordered list of steps in one call and one transaction. "
+            + "Steps: insert (tasks), update-status (ids, status), delete (ids), summary (includeArchived), "
+            + "schema. Mode atomic (default) applies all steps or none; best-effort keeps the steps that "
+            + "succeed. Returns one result per step")
+    public Map<String, Object> batch(
+            @McpToolParam(description = "Steps in order, each an object with op and that op's fields")
+                    List<BatchOperationInput> operations,
+            @McpToolParam(description = "atomic (default) or best-effort", required = false) String mode) {
+        log.info("MCP Tool 'mcp-batch' called client={} operations={} mode={}",
+                mcpClient(), operations != null ? operations.size() : 0, mode);
+
+        List<String> errors = new ArrayList<>();
+        boolean atomic = mode == null || mode.isBlank() || "atomic".equalsIgnoreCase(mode.trim());
+        if (!atomic && !"best-effort".equalsIgnoreCase(mode.trim())) {
+            errors.add("Invalid mode '" + mode + "'. Allowed: atomic, best-effort");
+        }
+        if (operations == null || operations.isEmpty()) {
+            errors.add("operations is required");
+        } else if (operations.size() > batchMaxOperations) {
+            errors.add("At most " + batchMaxOperations + " operations per batch");
+        } else {
+            long rows = batchRows(operations);
+            if (rows > MAX_BATCH_SIZE) {
+                errors.add("Batch touches " + rows + " rows, limit is " + MAX_BATCH_SIZE);
+            }
+        }
+        if (!errors.isEmpty()) {
+            return Map.of("error", String.join("; ", errors));
+        }
+
+        List<BatchStep> steps = new ArrayList<>(operations.size());
+        for (BatchOperationInput operation : operations) {
+            steps.add(prepareStep(operation));
+        }
+        boolean invalid = steps.stream().anyMatch(step -> step.error != null);
+        BatchRun run;
+        if (atomic && invalid) {
+            run = new BatchRun();
+            for (BatchStep step : steps) {
+                if (step.error != null) {
+                    run.results.add(step.failed(step.error));
+                    run.failed++;
+                } else {
+                    run.results.add(step.skipped());
+                }
+            }
+        } else {
+            run = batchTransactions.execute(status -> runSteps(steps, atomic, status));
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("mode", atomic ? "atomic" : "best-effort");
+        response.put("transactional", batchTransactional);
+        if (batchTransactional) {
+            response.put("committed", run.failed == 0 || !atomic);
+        }
+        response.put("succeeded", run.succeeded);
+        response.put("failed", run.failed);
+        response.put("results", run.results);
+        log.info("MCP Tool 'mcp-batch' completed client={}: succeeded={}, failed={}",
+                mcpClient(), run.succeeded, run.failed);
         return response;
     }
 
-    @Transactional(readOnly = true)
-    @McpTool(name = "mcp-tasks-summary", description = "Returns count of tasks grouped by status")
-    public TaskSummary tasksSummary() {
-        log.info("MCP Tool 'mcp-tasks-summary' called client={}", mcpClient());
-        Map<String, Long> byStatus = new LinkedHashMap<>();
-        for (TaskStatus s : TaskStatus.values()) {
-            byStatus.put(s.name(), 0L);
+    private BatchRun runSteps(List<BatchStep> steps, boolean atomic, TransactionStatus transaction) {
+        BatchRun run = new BatchRun();
+        boolean aborted = false;
+        boolean wrote = false;
+        for (BatchStep step : steps) {
+            if (aborted) {
+                run.results.add(step.skipped());
+                continue;
+            }
+            if (step.error != null) {
+                run.results.add(step.failed(step.error));
+                run.failed++;
+                continue;
+            }
+            try {
+                Map<String, Object> outcome = atomic
+                        ? step.action.get()
+                        : underSavepoint(step.action);
+                run.results.add(step.succeeded(outcome));
+                run.succeeded++;
+                wrote |= step.writes;
+            } catch (RuntimeException ex) {
+                String failure = stepFailure(ex);
+                if (failure == null) {
+                    throw ex;
+                }
+                run.results.add(step.failed(failure));
+                run.failed++;
+                if (atomic) {
+                    transaction.setRollbackOnly();
+                    aborted = true;
+                }
+            }
+        }
+        if (aborted && batchTransactional) {
+            run.results.stream()
+                    .filter(result -> "ok".equals(result.get("status")))
+                    .forEach(result -> result.put("status", "rolledBack"));
+            run.succeeded = 0;
+        } else if (wrote) {
+            afterTasksChanged();
+        }
+        return run;
+    }
+
+    /**
+     * The message to report when {@code ex} fails one step, or {@code null} when it should fail the
+     * whole call. Database errors fail the step, and so does running out of the request's deadline
+     * or of pooled connections, which do not always surface as a {@link DataAccessException}.
+     */
+    private static String stepFailure(RuntimeException ex) {
+        if (ex instanceof DataAccessException dataAccess) {
+            return dataAccess.getMostSpecificCause().getMessage();
+        }
+        if (ex instanceof DeadlineExceededException) {
+            return ex.getMessage();
+        }
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BulkheadFullException) {
+                return cause.getMessage();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hibernate's JPA dialect offers no savepoints, so they are taken on the JDBC connection the
+     * transaction has bound for the data source, the one {@code JdbcTemplate} and the repository's
+     * queries run on. Outside a transaction the step simply runs.
+     */
+    private Map<String, Object> underSavepoint(Supplier<Map<String, Object>> action) {
+        ConnectionHolder holder = batchDataSource != null
+                ? (ConnectionHolder) TransactionSynchronizationManager.getResource(batchDataSource) : null;
+        if (holder == null) {
+            return action.get();
+        }
+        Savepoint savepoint;
+        try {
+            savepoint = holder.createSavepoint();
+        } catch (SQLException ex) {
+            throw new CannotCreateTransactionException("Could not create JDBC savepoint", ex);
+        }
+        Map<String, Object> outcome;
+        try {
+            outcome = action.get();
+        } catch (RuntimeException ex) {
+            try {
+                holder.getConnection().rollback(savepoint);
+            } catch (SQLException rollbackEx) {
+                TransactionSystemException failure =
+                        new TransactionSystemException("Could not roll back to JDBC savepoint", rollbackEx);
+                failure.addSuppressed(ex);
+                throw failure;
+            }
+            throw ex;
+        }
+        try {
+            holder.getConnection().releaseSavepoint(savepoint);
+        } catch (SQLException ex) {
+            log.debug("Could not release JDBC savepoint: {}", ex.getMessage());
+        }
+        return outcome;
+    }
+
+    private BatchStep prepareStep(BatchOperationInput operation) {
+        String op = operation != null && operation.getOp() != null
+                ? operation.getOp().trim().toLowerCase(Locale.ROOT) : "";
+        BatchStep step = new BatchStep(op);
+        switch (op) {
+            case "insert" -> {
+                List<TaskInput> inputs = operation.getTasks() != null ? operation.getTasks() : List.of();
+                List<Task> accepted = new ArrayList<>(inputs.size());
+                List<String> rejected = ingestPipeline.ingest(inputs, accepted::addAll).getErrors();
+                if (inputs.isEmpty()) {
+                    step.error = "tasks is required";
+                } else if (!rejected.isEmpty()) {
+                    step.error = String.join("; ", rejected);
+                }
+                step.writes = true;
+                step.action = () -> Map.of("inserted", taskRepository.insertAll(accepted));
+            }
+            case "update-status" -> {
+                List<String> errors = new ArrayList<>();
+                TaskStatus target = parseBulkStatus(operation.getStatus(), errors);
+                List<Long> ids = batchIds(operation, errors);
+                step.error = errors.isEmpty() ? null : String.join("; ", errors);
+                step.writes = true;
+                step.action = () -> Map.of("updated", taskRepository.updateStatusByIds(target, ids));
+            }
+            case "delete" -> {
+                List<String> errors = new ArrayList<>();
+                List<Long> ids = batchIds(operation, errors);
+                step.error = errors.isEmpty() ? null : String.join("; ", errors);
+                step.writes = true;
+                step.action = () -> Map.of("deleted", taskRepository.deleteByIds(ids));
+            }
+            // Read inside the transaction, not from the summary cache, so it sees the earlier steps
+            case "summary" -> step.action = () -> Map.of("summary",
+                    loadSummary(LocalDate.now(), Boolean.TRUE.equals(operation.getIncludeArchived())));
+            case "schema" -> step.action = () -> Map.of("schema", schemaTasks());
+            default -> step.error = "Invalid op '" + (operation != null ? operation.getOp() : null)
+                    + "'. Allowed: insert, update-status, delete, summary, schema";
+        }
+        return step;
+    }
+
+    private static List<Long> batchIds(BatchOperationInput operation, List<String> errors) {
+        List<Long> ids = operation.getIds() != null
+                ? operation.getIds().stream().filter(Objects::nonNull).toList() : List.of();
+        if (ids.isEmpty()) {
+            errors.add("ids is required");
         }
-        long total = 0;
-        List<Object[]> results = taskRepository.countTasksByStatus();
-        for (Object[] row : results) {
-            TaskStatus status = (TaskStatus) row[0];
-            Long count = (Long) row[1];
-            byStatus.put(status.name(), count);
-            total += count;
+        return ids;
+    }
+
+    private static long batchRows(List<BatchOperationInput> operations) {
+        long rows = 0;
+        for (BatchOperationInput operation : operations) {
+            if (operation != null) {
+                rows += operation.getTasks() != null ? operation.getTasks().size() : 0;
+                rows += operation.getIds() != null ? operation.getIds().size() : 0;
+            }
+        }
+        return rows;
+    }
+
+    private Map<String, Object> runBulk(String tool, String affectedKey, TaskFilter filter, Boolean dryRun,
+            Integer chunkSize, McpSyncServerExchange exchange, String progressToken, ChunkOperation operation) {
+        int limit = chunkSize == null || chunkSize <= 0 ? bulkChunkSize : Math.min(chunkSize, bulkMaxChunkSize);
+        long matched = taskRepository.countByFilter(filter);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("dryRun", Boolean.TRUE.equals(dryRun));
+        response.put("matched", matched);
+        if (Boolean.TRUE.equals(dryRun) || matched == 0) {
+            response.put(affectedKey, 0);
+            return response;
+        }
+
+        long afterId = 0;
+        long scanned = 0;
+        int affected = 0;
+        int chunks = 0;
+        try {
+            ChunkResult chunk;
+            do {
+                chunk = operation.apply(afterId, limit);
+                afterId = chunk.getLastId();
+                scanned += chunk.getSelected();
+                affected += chunk.getAffected();
+                chunks++;
+                reportProgress(exchange, progressToken, Math.min(scanned, matched), matched,
+                        affectedKey + " " + affected + " after " + chunks + " chunks");
+            } while (!chunk.isLast());
+        } catch (DataAccessException ex) {
+            log.warn("MCP Tool '{}' stopped client={} after {} chunks: {}", tool, mcpClient(), chunks,
+                    ex.getMostSpecificCause().getMessage());
+            response.put("error", "Stopped after " + chunks + " chunks: " + ex.getMostSpecificCause().getMessage());
+        } finally {
+            if (affected > 0) {
+                afterTasksChanged();
+            }
         }
-        return new TaskSummary(total, byStatus);
+
+        response.put(affectedKey, affected);
+        response.put("chunks", chunks);
+        response.put("chunkSize", limit);
+        log.info("MCP Tool '{}' completed client={}: matched={}, {}={}, chunks={}",
+                tool, mcpClient(), matched, affectedKey, affected, chunks);
+        return response;
     }
 
-    private String validate(TaskInput input) {
+    /**
+     * Bulk operations pass {@code requireCriterion} so that a call can never touch every task by accident.
+     */
+    private TaskFilter toFilter(TaskFilterInput input, List<String> errors, boolean requireCriterion) {
+        TaskFilter filter = new TaskFilter();
         if (input == null) {
-            return "Task object is null";
+            errors.add("filter is required");
+            return filter;
         }
-        if (input.getTitle() == null || input.getTitle().trim().isEmpty()) {
-            return "title is required";
+        if (input.getStatus() != null && !input.getStatus().isBlank()) {
+            filter.setStatus(parseBulkStatus(input.getStatus(), errors));
         }
-        if (input.getTitle().trim().length() > Task.TITLE_MAX_LENGTH) {
-            return "title exceeds " + Task.TITLE_MAX_LENGTH + " characters";
+        filter.setDueFrom(input.getDueFrom());
+        filter.setDueTo(input.getDueTo());
+        if (Boolean.TRUE.equals(input.getOverdue())) {
+            LocalDate yesterday = LocalDate.now().minusDays(1);
+            if (filter.getDueTo() == null || filter.getDueTo().isAfter(yesterday)) {
+                filter.setDueTo(yesterday);
+            }
+        }
+        if (filter.getDueFrom() != null && filter.getDueTo() != null && filter.getDueFrom().isAfter(filter.getDueTo())) {
+            errors.add("dueFrom must not be after dueTo");
         }
-        if (input.getDescription() != null && input.getDescription().trim().length() > Task.DESCRIPTION_MAX_LENGTH) {
-            return "description exceeds " + Task.DESCRIPTION_MAX_LENGTH + " characters";
+        filter.setTitleContains(input.getTitleContains() != null ? input.getTitleContains().trim() : null);
+        filter.setIncludeArchived(Boolean.TRUE.equals(input.getIncludeArchived()));
+        if (requireCriterion && filter.isUnrestricted()) {
+            errors.add("filter must set at least one of status, dueFrom, dueTo, overdue or titleContains");
+        }
+        return filter;
+    }
+
+    private Set<TaskField> parseFields(String fields, List<String> errors) {
+        if (fields == null || fields.isBlank()) {
+            return DEFAULT_QUERY_FIELDS;
+        }
+        Set<TaskField> projection = EnumSet.of(TaskField.ID);
+        for (String name : fields.split(",")) {
+            if (name.isBlank()) {
+                continue;
+            }
+            TaskField field = TaskField.fromFieldName(name);
+            if (field == null) {
+                errors.add("Unknown field '" + name.trim() + "'. Allowed: " + Arrays.stream(TaskField.values())
+                        .map(TaskField::getFieldName).toList());
+            } else {
+                projection.add(field);
+            }
+        }
+        return projection;
+    }
+
+    private static String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decodeCursor(String cursor, List<String> errors) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
         }
         try {
-            parseStatus(input.getStatus());
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            if (decoded.startsWith(CURSOR_PREFIX)) {
+                long afterId = Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+                if (afterId >= 0) {
+                    return afterId;
+                }
+            }
         } catch (IllegalArgumentException ex) {
-            List<String> validStatuses = Arrays.stream(TaskStatus.values())
-                    .map(Enum::name)
-                    .toList();
-            return "status must be one of " + String.join(", ", validStatuses);
+            // reported below
         }
-        return null;
+        errors.add("Invalid cursor; pass nextCursor from the previous page unchanged");
+        return 0;
     }
 
-    private TaskStatus parseStatus(String status) {
-        if (status == null || status.isBlank()) {
-            return TaskStatus.TODO;
+    private static int jsonSize(Map<String, Object> row) {
+        try {
+            return ROW_SIZE_MAPPER.writeValueAsBytes(row).length;
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize task row", ex);
         }
-        return TaskStatus.valueOf(status.trim().toUpperCase(Locale.ROOT));
     }
 
-    private String normalizeDescription(String description) {
-        if (description == null || description.trim().isEmpty()) {
+    private TaskStatus parseBulkStatus(String status, List<String> errors) {
+        if (status == null || status.isBlank()) {
+            errors.add("status is required");
             return null;
         }
-        return description.trim();
+        try {
+            return TaskStatus.valueOf(status.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            errors.add("Invalid status '" + status + "'. Allowed: " + Arrays.toString(TaskStatus.values()));
+            return null;
+        }
+    }
+
+    private static void validateOwner(String owner, List<String> errors) {
+        if (owner == null || owner.isBlank()) {
+            errors.add("owner is required");
+        } else if (owner.length() > Task.LEASE_OWNER_MAX_LENGTH) {
+            errors.add("owner must not exceed " + Task.LEASE_OWNER_MAX_LENGTH + " characters");
+        }
+    }
+
+    private LocalDateTime leaseUntil() {
+        return LocalDateTime.now().plusNanos(claimLeaseMillis * 1_000_000);
+    }
+
+    private static Map<String, Object> claimedRow(Task task) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", task.getId());
+        row.put("title", task.getTitle());
+        row.put("description", task.getDescription());
+        row.put("status", task.getStatus().name());
+        row.put("dueDate", task.getDueDate() != null ? task.getDueDate().toString() : null);
+        return row;
+    }
+
+    private void reportProgress(McpSyncServerExchange exchange, String progressToken, long progress, long total,
+            String message) {
+        if (exchange == null || progressToken == null) {
+            return;
+        }
+        exchange.progressNotification(new McpSchema.ProgressNotification(progressToken, (double) progress,
+                (double) total, message));
+    }
+
+    /**
+     * Cached summaries must not outlive the write, and must not be refreshed from data the
+     * write has not committed yet, so invalidation waits for the transaction to finish. Resource
+     * subscribers are told after a commit only.
+     */
+    private void afterTasksChanged() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            summaryFlight.invalidateAll();
+            changeNotifier.taskChanged();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                summaryFlight.invalidateAll();
+                if (status == STATUS_COMMITTED) {
+                    changeNotifier.taskChanged();
+                }
+            }
+        });
+    }
+
+    /**
+     * Derives a stable key from the normalized task content so that retried loads without
+     * client-supplied keys still collapse onto the rows written by the first attempt.
+     */
+    private String contentKey(Task task) {
+        String content = task.getTitle() + '\0' + Objects.toString(task.getDescription(), "")
+                + '\0' + task.getStatus().name() + '\0' + Objects.toString(task.getDueDate(), "");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(content.getBytes(StandardCharsets.UTF_8));
+            return CONTENT_KEY_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // Nothing more to do; the partial file carries a .part suffix
+        }
     }
 
     private String mcpClient() {
-        return String.valueOf(MDC.get("mcp.client"));
+        return String.valueOf(McpClientContext.current());
+    }
+
+    private static final class BatchStep {
+
+        private final String op;
+        private String error;
+        private boolean writes;
+        private Supplier<Map<String, Object>> action;
+
+        private BatchStep(String op) {
+            this.op = op;
+        }
+
+        Map<String, Object> succeeded(Map<String, Object> outcome) {
+            Map<String, Object> result = result("ok");
+            result.putAll(outcome);
+            return result;
+        }
+
+        Map<String, Object> failed(String message) {
+            Map<String, Object> result = result("failed");
+            result.put("error", message);
+            return result;
+        }
+
+        Map<String, Object> skipped() {
+            return result("skipped");
+        }
+
+        private Map<String, Object> result(String status) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("op", op);
+            result.put("status", status);
+            return result;
+        }
+    }
+
+    private static final class BatchRun {
+
+        private final List<Map<String, Object>> results = new ArrayList<>();
+        private int succeeded;
+        private int failed;
+    }
+
+    /**
+     * Assigns content keys, drops repeated keys within one call (first occurrence wins) and
+     * merges each chunk as it arrives from the ingest pipeline.
+     */
+    private final class UpsertWriter implements Consumer<List<Task>> {
+
+        private final Set<String> seenKeys = new HashSet<>();
+        private UpsertResult merged = new UpsertResult(0, 0, 0);
+        private int duplicates;
+
+        @Override
+        public void accept(List<Task> chunk) {
+            List<Task> unique = new ArrayList<>(chunk.size());
+            for (Task task : chunk) {
+                if (task.getExternalKey() == null) {
+                    task.setExternalKey(contentKey(task));
+                }
+                if (seenKeys.add(task.getExternalKey())) {
+                    unique.add(task);
+                } else {
+                    duplicates++;
+                }
+            }
+            if (!unique.isEmpty()) {
+                merged = merged.plus(taskRepository.upsertByExternalKey(unique));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkOperation {
+        ChunkResult apply(long afterId, int limit);
     }
 }
@@ -0,0 +1,61 @@
+package com.taskmanager.mcp;
+
+import com.taskmanager.mcp.dto.TaskInput;
+import com.taskmanager.mcp.tools.TaskMcpTools;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.memory.InMemoryTaskRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+@SpringBootTest
+@ActiveProfiles({"test", "memory"})
+class McpMemoryProfileTests {
+
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void memoryStore(DynamicPropertyRegistry registry) {
+        registry.add("app.tasks.memory.dir", () -> dataDir.toString());
+    }
+
+    @Autowired
+    private TaskMcpTools taskMcpTools;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Test
+    void toolsRunAgainstEmbeddedStore() {
+        assertInstanceOf(InMemoryTaskRepository.class, taskRepository);
+
+        Map<String, Object> inserted = taskMcpTools.insertTasks(List.of(input(null, "First", "TODO"),
+                input(null, "Second", "DONE")));
+        Map<String, Object> upserted = taskMcpTools.upsertTasks(List.of(input("ext-1", "Keyed", "IN_PROGRESS")));
+
+        assertEquals(2, inserted.get("inserted"));
+        assertEquals(1, upserted.get("inserted"));
+        assertEquals(3L, taskMcpTools.tasksSummary(false).getTotal());
+        assertEquals(1L, taskMcpTools.tasksSummary(false).getByStatus().get("DONE"));
+    }
+
+    private TaskInput input(String externalKey, String title, String status) {
+        TaskInput input = new TaskInput();
+        input.setExternalKey(externalKey);
+        input.setTitle(title);
+        input.setStatus(status);
+        return input;
+    }
+}
@@ -1,19 +1,26 @@
 package com.taskmanager.mcp;
 
+import com.taskmanager.repository.TaskRepository;
+import io.modelcontextprotocol.client.McpAsyncClient;
 import io.modelcontextprotocol.client.McpClient;
 import io.modelcontextprotocol.client.McpSyncClient;
 import io.modelcontextprotocol.client.transport.HttpClientSseClientTransport;
 import io.modelcontextprotocol.spec.McpSchema;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -26,6 +33,9 @@ class McpProtocolHandshakeIT {
     @LocalServerPort
     private int serverPort;
 
+    @Autowired
+    private TaskRepository taskRepository;
+
     @Value("${spring.ai.mcp.server.sse-endpoint:/sse}")
     private String sseEndpoint;
 
@@ -61,6 +71,15 @@ class McpProtocolHandshakeIT {
             assertTrue(names.contains("mcp-schema-tasks"));
             assertTrue(names.contains("mcp-tasks"));
             assertTrue(names.contains("mcp-tasks-summary"));
+            assertTrue(names.contains("mcp-tasks-upsert"));
+            assertTrue(names.contains("mcp-tasks-bulk-update"));
+            assertTrue(names.contains("mcp-tasks-bulk-delete"));
+            assertTrue(names.contains("mcp-tasks-query"));
+            assertTrue(names.contains("mcp-tasks-export"));
+            assertTrue(names.contains("mcp-tasks-claim"));
+            assertTrue(names.contains("mcp-tasks-heartbeat"));
+            assertTrue(names.contains("mcp-tasks-release"));
+            assertTrue(names.contains("mcp-batch"));
 
             McpSchema.CallToolResult schemaResult = client.callTool(
                     new McpSchema.CallToolRequest("mcp-schema-tasks", Map.of()));
@@ -74,6 +93,50 @@ class McpProtocolHandshakeIT {
         }
     }
 
+    @Test
+    void mcpResources_areReadableAndUpdatedOnceAfterBulkInsert() throws Exception {
+        List<String> updates = new CopyOnWriteArrayList<>();
+        HttpClientSseClientTransport transport = HttpClientSseClientTransport
+                .builder("http://localhost:" + serverPort)
+                .sseEndpoint(sseEndpoint)
+                .customizeRequest(req -> req.header("Authorization", "Bearer test-api-key"))
+                .build();
+        // The client re-reads an updated resource and hands its contents to the consumer
+        McpAsyncClient client = McpClient.async(transport)
+                .resourcesUpdateConsumer(contents -> {
+                    contents.forEach(c -> updates.add(c.uri()));
+                    return Mono.empty();
+                })
+                .build();
+        try {
+            client.initialize().block();
+            Set<String> uris = client.listResources().block().resources().stream()
+                    .map(McpSchema.Resource::uri).collect(Collectors.toSet());
+            assertTrue(uris.containsAll(Set.of("tasks://summary", "tasks://recent")));
+
+            var tasks = new ArrayList<Map<String, Object>>();
+            for (int i = 0; i < 1000; i++) {
+                tasks.add(Map.of("title", "Resource Task " + i));
+            }
+            client.callTool(new McpSchema.CallToolRequest("mcp-tasks", Map.of("tasks", tasks))).block();
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (updates.size() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            Thread.sleep(500);
+            assertEquals(2, updates.size(), "one update per resource: " + updates);
+
+            McpSchema.ReadResourceResult summary = client.readResource(
+                    new McpSchema.ReadResourceRequest("tasks://summary")).block();
+            String text = ((McpSchema.TextResourceContents) summary.contents().get(0)).text();
+            assertTrue(text.contains("byDueWindow"));
+        } finally {
+            client.closeGracefully().block();
+            taskRepository.deleteAll();
+        }
+    }
+
     @Test
     void mcpTasks_bulkInsertAndSummaryOverProtocol() {
         McpSyncClient client = createClient();
@@ -100,6 +163,8 @@ class McpProtocolHandshakeIT {
             assertTrue(Boolean.FALSE.equals(summaryResult.isError()));
             String summaryText = ((McpSchema.TextContent) summaryResult.content().get(0)).text();
             assertTrue(summaryText.contains("\"total\":1000") || summaryText.contains("\"total\": 1000"));
+            assertTrue(summaryText.contains("byDueWindow"));
+            assertTrue(summaryText.contains(LocalDate.now().toString()));
         } finally {
             client.close();
         }
@@ -1,6 +1,15 @@
 package com.taskmanager.mcp;
 
+import com.taskmanager.mcp.dto.BatchOperationInput;
+import com.taskmanager.mcp.dto.TaskFilterInput;
+import com.taskmanager.mcp.dto.TaskInput;
+import com.taskmanager.mcp.dto.TaskSummary;
+import com.taskmanager.mcp.resources.TaskChangeNotifier;
+import com.taskmanager.mcp.resources.TaskResources;
 import com.taskmanager.mcp.tools.TaskMcpTools;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.TaskRepository;
 import io.modelcontextprotocol.spec.McpSchema;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,11 +19,21 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -30,6 +49,15 @@ class McpServerIntegrationTests {
     @Autowired
     private TaskMcpTools taskMcpTools;
 
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskResources taskResources;
+
+    @Autowired
+    private TaskChangeNotifier taskChangeNotifier;
+
     @Value("${spring.ai.mcp.server.name}")
     private String configuredMcpServerName;
     @Value("${spring.ai.mcp.server.version}")
@@ -79,7 +107,247 @@ class McpServerIntegrationTests {
         Map<String, Object> helpResult = taskMcpTools.help();
         @SuppressWarnings("unchecked")
         Map<String, String> toolMap = (Map<String, String>) helpResult.get("tools");
-        assertEquals(4, toolMap.size(), "Expected 4 MCP tools");
+        assertEquals(13, toolMap.size(), "Expected 13 MCP tools");
+    }
+
+    @Test
+    void mcpBatch_atomic_rollsBackEveryStepWhenOneFails() {
+        taskRepository.deleteAll();
+        Task existing = taskRepository.save(new Task("Existing", null, TaskStatus.TODO, null));
+        existing.setExternalKey("ext-taken");
+        taskRepository.save(existing);
+
+        Map<String, Object> result = taskMcpTools.batch(List.of(
+                batchUpdate(existing.getId(), "DONE"),
+                batchInsert(upsertInput("ext-taken", "Clash", "TODO")),
+                batchSummary()), null);
+
+        assertEquals(true, result.get("transactional"));
+        assertEquals(false, result.get("committed"));
+        assertEquals(List.of("rolledBack", "failed", "skipped"), stepStatuses(result));
+        assertEquals(TaskStatus.TODO, taskRepository.findById(existing.getId()).orElseThrow().getStatus());
+        assertEquals(1, taskRepository.count());
+    }
+
+    @Test
+    void mcpBatch_bestEffort_keepsStepsAroundAFailedOne() {
+        taskRepository.deleteAll();
+        Task existing = taskRepository.save(new Task("Existing", null, TaskStatus.TODO, null));
+        existing.setExternalKey("ext-taken");
+        taskRepository.save(existing);
+
+        Map<String, Object> result = taskMcpTools.batch(List.of(
+                batchInsert(upsertInput("ext-new", "New", "TODO")),
+                batchInsert(upsertInput("ext-taken", "Clash", "TODO")),
+                batchUpdate(existing.getId(), "IN_PROGRESS"),
+                batchSummary()), "best-effort");
+
+        assertEquals(true, result.get("committed"));
+        assertEquals(List.of("ok", "failed", "ok", "ok"), stepStatuses(result));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> steps = (List<Map<String, Object>>) result.get("results");
+        // The summary step reads inside the batch transaction, after the earlier steps
+        TaskSummary summary = (TaskSummary) steps.get(3).get("summary");
+        assertEquals(2, summary.getTotal());
+        assertEquals(2, taskRepository.count());
+        assertEquals(TaskStatus.IN_PROGRESS, taskRepository.findById(existing.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void mcpTasksClaim_leasesTasksUntilReleased() {
+        taskRepository.deleteAll();
+        Task later = taskRepository.save(new Task("Later", null, TaskStatus.TODO, LocalDate.of(2026, 5, 1)));
+        Task first = taskRepository.save(new Task("First", null, TaskStatus.TODO, LocalDate.of(2026, 4, 1)));
+
+        Map<String, Object> claimed = taskMcpTools.claimTasks("agent-1", 1);
+        Map<String, Object> rest = taskMcpTools.claimTasks("agent-2", 5);
+
+        assertEquals(1, claimed.get("count"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) claimed.get("tasks");
+        assertEquals(first.getId(), rows.get(0).get("id"));
+        assertEquals("IN_PROGRESS", rows.get(0).get("status"));
+        assertEquals(1, rest.get("count"));
+        assertEquals(0, taskMcpTools.claimTasks("agent-3", 5).get("count"));
+
+        Map<String, Object> heartbeat = taskMcpTools.heartbeat("agent-1", List.of(first.getId(), later.getId()));
+        assertEquals(List.of(first.getId()), heartbeat.get("renewed"));
+        assertEquals(List.of(later.getId()), heartbeat.get("lost"));
+
+        assertTrue(taskMcpTools.releaseTask("agent-2", first.getId(), "DONE").containsKey("error"));
+        assertEquals("DONE", taskMcpTools.releaseTask("agent-1", first.getId(), "DONE").get("status"));
+        Task done = taskRepository.findById(first.getId()).orElseThrow();
+        assertEquals(TaskStatus.DONE, done.getStatus());
+        assertNull(done.getLeaseOwner());
+    }
+
+    @Test
+    void mcpTasksUpsert_retriedLoadIsIdempotent() {
+        taskRepository.deleteAll();
+        List<TaskInput> batch = List.of(
+                upsertInput("ext-1", "First", "TODO"),
+                upsertInput("ext-2", "Second", "IN_PROGRESS"),
+                upsertInput(null, "Keyless", "DONE"));
+
+        Map<String, Object> first = taskMcpTools.upsertTasks(batch);
+        Map<String, Object> retry = taskMcpTools.upsertTasks(batch);
+        Map<String, Object> changed = taskMcpTools.upsertTasks(List.of(upsertInput("ext-2", "Second", "DONE")));
+
+        assertEquals(3, first.get("inserted"));
+        assertEquals(0, retry.get("inserted"));
+        assertEquals(0, retry.get("updated"));
+        assertEquals(3, retry.get("unchanged"));
+        assertEquals(1, changed.get("updated"));
+        assertEquals(3L, taskRepository.count());
+        assertEquals(TaskStatus.DONE, taskRepository.findAll().stream()
+                .filter(t -> "ext-2".equals(t.getExternalKey()))
+                .findFirst().orElseThrow().getStatus());
+    }
+
+    @Test
+    void mcpTasksUpsert_archivedKeyIsRestoredNotDuplicated() {
+        taskRepository.deleteAll();
+        taskMcpTools.upsertTasks(List.of(upsertInput("ext-done", "Shipped", "DONE")));
+        Task done = taskRepository.findAll().get(0);
+        assertNotNull(done.getCompletedAt());
+        assertEquals(1, taskRepository.archiveCompleted(LocalDateTime.now().plusMinutes(1), 10));
+        assertEquals(0L, taskMcpTools.tasksSummary(false).getTotal());
+        assertEquals(1L, taskMcpTools.tasksSummary(true).getTotal());
+
+        Map<String, Object> reopened = taskMcpTools.upsertTasks(List.of(upsertInput("ext-done", "Shipped", "TODO")));
+
+        assertEquals(1, reopened.get("updated"));
+        Task task = taskRepository.findAll().get(0);
+        assertEquals(1L, taskRepository.count());
+        assertFalse(task.isArchived());
+        assertNull(task.getCompletedAt());
+        assertEquals(1L, taskMcpTools.tasksSummary(false).getByStatus().get("TODO"));
+    }
+
+    @Test
+    void mcpTasksBulkUpdate_closesOverdueInProgressTasksInChunks() {
+        taskRepository.deleteAll();
+        LocalDate lastWeek = LocalDate.now().minusDays(7);
+        for (int i = 0; i < 5; i++) {
+            taskRepository.save(new Task("Overdue " + i, null, TaskStatus.IN_PROGRESS, lastWeek));
+        }
+        taskRepository.save(new Task("Overdue todo", null, TaskStatus.TODO, lastWeek));
+        taskRepository.save(new Task("Due later", null, TaskStatus.IN_PROGRESS, LocalDate.now().plusDays(3)));
+        TaskFilterInput filter = new TaskFilterInput();
+        filter.setStatus("IN_PROGRESS");
+        filter.setOverdue(true);
+
+        Map<String, Object> preview = taskMcpTools.bulkUpdateStatus(filter, "DONE", true, null, null, null);
+        Map<String, Object> result = taskMcpTools.bulkUpdateStatus(filter, "DONE", false, 2, null, null);
+        Map<String, Object> again = taskMcpTools.bulkUpdateStatus(filter, "DONE", true, null, null, null);
+
+        assertEquals(5L, preview.get("matched"));
+        assertEquals(5, result.get("updated"));
+        assertEquals(3, result.get("chunks"));
+        assertEquals(0L, again.get("matched"));
+        assertEquals(5L, taskMcpTools.tasksSummary(false).getByStatus().get("DONE"));
+        assertTrue(taskRepository.findAll().stream()
+                .filter(t -> t.getStatus() == TaskStatus.DONE)
+                .allMatch(t -> t.getCompletedAt() != null));
+    }
+
+    @Test
+    void mcpTasksBulkDelete_matchesTitleLiterally() {
+        taskRepository.deleteAll();
+        taskRepository.save(new Task("Draft 100% done", null, TaskStatus.TODO, null));
+        taskRepository.save(new Task("Draft 1000 done", null, TaskStatus.TODO, null));
+        taskRepository.save(new Task("Keep me", null, TaskStatus.TODO, null));
+        TaskFilterInput filter = new TaskFilterInput();
+        filter.setTitleContains("100%");
+
+        Map<String, Object> result = taskMcpTools.bulkDelete(filter, false, null, null, null);
+
+        assertEquals(1, result.get("deleted"));
+        assertEquals(2L, taskRepository.count());
+    }
+
+    @Test
+    void mcpTasksQuery_pagesThroughMatchingRowsWithProjection() {
+        taskRepository.deleteAll();
+        for (int i = 0; i < 7; i++) {
+            taskRepository.save(new Task("Query " + i, "Long description " + i,
+                    i % 2 == 0 ? TaskStatus.TODO : TaskStatus.DONE, LocalDate.of(2026, 6, 1 + i)));
+        }
+        TaskFilterInput filter = new TaskFilterInput();
+        filter.setStatus("TODO");
+
+        List<Object> titles = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            Map<String, Object> page = taskMcpTools.queryTasks(filter, "title,dueDate", cursor, 3, null);
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> tasks = (List<Map<String, Object>>) page.get("tasks");
+            for (Map<String, Object> task : tasks) {
+                assertEquals(List.of("id", "title", "dueDate"), List.copyOf(task.keySet()));
+                titles.add(task.get("title"));
+            }
+            cursor = (String) page.get("nextCursor");
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(List.of("Query 0", "Query 2", "Query 4", "Query 6"), titles);
+        assertEquals(2, pages);
+    }
+
+    @Test
+    void mcpTasksExport_writesArrowFileInRowGroups() throws Exception {
+        taskRepository.deleteAll();
+        for (int i = 0; i < 5; i++) {
+            taskRepository.save(new Task("Export " + i, null, i < 3 ? TaskStatus.TODO : TaskStatus.DONE, null));
+        }
+        TaskFilterInput filter = new TaskFilterInput();
+        filter.setStatus("TODO");
+
+        Map<String, Object> result = taskMcpTools.exportTasks(filter);
+
+        assertEquals(3L, result.get("rows"));
+        assertEquals(2, result.get("rowGroups"));
+        Path file = Path.of((String) result.get("file"));
+        byte[] bytes = Files.readAllBytes(file);
+        assertEquals(result.get("bytes"), (long) bytes.length);
+        assertEquals("ARROW1", new String(Arrays.copyOfRange(bytes, 0, 6), StandardCharsets.US_ASCII));
+        assertEquals("ARROW1", new String(Arrays.copyOfRange(bytes, bytes.length - 6, bytes.length),
+                StandardCharsets.US_ASCII));
+        Files.delete(file);
+    }
+
+    @Test
+    void mcpResources_reflectInsertAndAreNotifiedOnce() throws Exception {
+        taskRepository.deleteAll();
+        // Let notifications from writes in earlier tests go out first
+        Thread.sleep(500);
+        long publishedBefore = taskChangeNotifier.getPublishedCount();
+        List<TaskInput> batch = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            batch.add(upsertInput(null, "Resource " + i, "TODO"));
+        }
+
+        taskMcpTools.insertTasks(batch);
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (taskChangeNotifier.getPublishedCount() == publishedBefore && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        Thread.sleep(500);
+        assertEquals(publishedBefore + 1, taskChangeNotifier.getPublishedCount());
+        assertTrue(taskResources.summary().contains("\"total\":2000"));
+        String recent = taskResources.recentTasks();
+        assertTrue(recent.contains("\"count\":100"));
+        assertTrue(recent.indexOf("Resource 1999") < recent.indexOf("Resource 1998"));
+    }
+
+    private TaskInput upsertInput(String externalKey, String title, String status) {
+        TaskInput input = new TaskInput();
+        input.setExternalKey(externalKey);
+        input.setTitle(title);
+        input.setStatus(status);
+        return input;
     }
 
     @SuppressWarnings("deprecation")
@@ -87,4 +355,30 @@ class McpServerIntegrationTests {
     void mcpProtocol_supportedVersionFromSdk() {
         assertEquals("2025-06-18", McpSchema.LATEST_PROTOCOL_VERSION);
     }
+
+    private static BatchOperationInput batchInsert(TaskInput... tasks) {
+        BatchOperationInput operation = new BatchOperationInput();
+        operation.setOp("insert");
+        operation.setTasks(List.of(tasks));
+        return operation;
+    }
+
+    private static BatchOperationInput batchUpdate(Long id, String status) {
+        BatchOperationInput operation = new BatchOperationInput();
+        operation.setOp("update-status");
+        operation.setIds(List.of(id));
+        operation.setStatus(status);
+        return operation;
+    }
+
+    private static BatchOperationInput batchSummary() {
+        BatchOperationInput operation = new BatchOperationInput();
+        operation.setOp("summary");
+        return operation;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> stepStatuses(Map<String, Object> result) {
+        return ((List<Map<String, Object>>) result.get("results")).stream().map(step -> step.get("status")).toList();
+    }
 }
@@ -0,0 +1,58 @@
+package com.taskmanager.mcp;
+
+import com.taskmanager.mcp.dto.TaskInput;
+import com.taskmanager.mcp.tools.TaskMcpTools;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.shard.ShardedTaskRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+@SpringBootTest(properties = "app.tasks.shards.urls="
+        + "jdbc:h2:mem:mcpshard0;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1,"
+        + "jdbc:h2:mem:mcpshard1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@ActiveProfiles({"test", "sharded"})
+class McpShardedProfileTests {
+
+    @Autowired
+    private TaskMcpTools taskMcpTools;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Test
+    void toolsRunAgainstShardedStore() {
+        assertInstanceOf(ShardedTaskRepository.class, AopTestUtils.getUltimateTargetObject(taskRepository));
+
+        List<TaskInput> batch = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            batch.add(input(null, "Task " + i, i < 5 ? "DONE" : "TODO"));
+        }
+        Map<String, Object> inserted = taskMcpTools.insertTasks(batch);
+        Map<String, Object> upserted = taskMcpTools.upsertTasks(List.of(input("ext-1", "Keyed", "IN_PROGRESS")));
+        Map<String, Object> again = taskMcpTools.upsertTasks(List.of(input("ext-1", "Renamed", "IN_PROGRESS")));
+
+        assertEquals(20, inserted.get("inserted"));
+        assertEquals(1, upserted.get("inserted"));
+        assertEquals(1, again.get("updated"));
+        assertEquals(21L, taskMcpTools.tasksSummary(false).getTotal());
+        assertEquals(5L, taskMcpTools.tasksSummary(false).getByStatus().get("DONE"));
+    }
+
+    private TaskInput input(String externalKey, String title, String status) {
+        TaskInput input = new TaskInput();
+        input.setExternalKey(externalKey);
+        input.setTitle(title);
+        input.setStatus(status);
+        return input;
+    }
+}
@@ -0,0 +1,148 @@
+package com.taskmanager.mcp;
+
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.HttpClientSseClientTransport;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Measures time from process start to the first successful {@code mcp-tasks-summary} call, which
+ * is what an agent waits for after starting a server on demand. The server needs a reachable
+ * database ({@code DB_URL}, {@code DB_USERNAME}, {@code DB_PASSWORD} are passed through).
+ * <p>
+ * Properties:
+ * <ul>
+ *   <li>{@code mcp.startup.command}: command that starts the server. {@code {port}} is replaced
+ *       with the port to use; without it {@code --server.port=<port>} is appended.
+ *       Default {@code java -jar target/mcp-server-0.0.1-SNAPSHOT.jar}.</li>
+ *   <li>{@code mcp.startup.runs}: cold starts to measure (default 3).</li>
+ *   <li>{@code mcp.startup.api-key}: API key sent by the client (default {@code MCP_SERVER_API_KEY}).</li>
+ *   <li>{@code mcp.startup.timeout-seconds}: give up on a run after this long (default 120).</li>
+ * </ul>
+ * Example, comparing the plain jar with the AppCDS + AOT image:
+ * <pre>
+ * mvn -pl mcp-server test -Dtest=McpStartupBenchmarkIT -Dsurefire.failIfNoSpecifiedTests=false \
+ *     -Dmcp.startup.benchmark=true \
+ *     -Dmcp.startup.command="docker run --rm -p {port}:8081 -e DB_URL -e DB_USERNAME -e DB_PASSWORD -e MCP_SERVER_API_KEY task-manager-mcp:fast"
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "mcp.startup.benchmark", matches = "true")
+class McpStartupBenchmarkIT {
+
+    private static final String DEFAULT_COMMAND = "java -jar target/mcp-server-0.0.1-SNAPSHOT.jar";
+
+    @Test
+    void timeToFirstSuccessfulSummary() throws Exception {
+        int runs = Integer.getInteger("mcp.startup.runs", 3);
+        long timeoutMillis = Duration.ofSeconds(Long.getLong("mcp.startup.timeout-seconds", 120)).toMillis();
+        String apiKey = System.getProperty("mcp.startup.api-key",
+                System.getenv().getOrDefault("MCP_SERVER_API_KEY", "test-api-key"));
+
+        List<Long> timings = new ArrayList<>();
+        for (int run = 1; run <= runs; run++) {
+            long millis = measureColdStart(run, apiKey, timeoutMillis);
+            timings.add(millis);
+            System.out.printf("mcp-server startup run %d: first mcp-tasks-summary after %d ms%n", run, millis);
+        }
+
+        List<Long> sorted = timings.stream().sorted().toList();
+        System.out.printf("mcp-server startup over %d runs: min %d ms, median %d ms, max %d ms%n",
+                runs, sorted.get(0), sorted.get(sorted.size() / 2), sorted.get(sorted.size() - 1));
+        assertEquals(runs, timings.size());
+    }
+
+    private long measureColdStart(int run, String apiKey, long timeoutMillis) throws Exception {
+        int port = freePort();
+        ProcessBuilder builder = new ProcessBuilder(command(port))
+                .redirectErrorStream(true)
+                .redirectOutput(new File("target/startup-benchmark-run-" + run + ".log"));
+
+        long start = System.nanoTime();
+        Process process = builder.start();
+        try {
+            while (elapsedMillis(start) < timeoutMillis) {
+                if (!process.isAlive()) {
+                    fail("Server exited with " + process.exitValue() + ", see target/startup-benchmark-run-" + run + ".log");
+                }
+                if (portOpen(port) && summarySucceeds(port, apiKey)) {
+                    return elapsedMillis(start);
+                }
+                Thread.sleep(50);
+            }
+            return fail("No successful mcp-tasks-summary within " + timeoutMillis + " ms");
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static boolean summarySucceeds(int port, String apiKey) {
+        HttpClientSseClientTransport transport = HttpClientSseClientTransport
+                .builder("http://localhost:" + port)
+                .customizeRequest(req -> req.header("Authorization", "Bearer " + apiKey))
+                .build();
+        McpSyncClient client = McpClient.sync(transport).requestTimeout(Duration.ofSeconds(10)).build();
+        try {
+            client.initialize();
+            McpSchema.CallToolResult result = client.callTool(
+                    new McpSchema.CallToolRequest("mcp-tasks-summary", Map.of()));
+            return Boolean.FALSE.equals(result.isError());
+        } catch (RuntimeException notReadyYet) {
+            return false;
+        } finally {
+            client.closeGracefully();
+        }
+    }
+
+    /**
+     * Cheap readiness probe: an MCP client against a closed port only fails after its request timeout.
+     */
+    private static boolean portOpen(int port) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", port), 200);
+            return true;
+        } catch (IOException notListening) {
+            return false;
+        }
+    }
+
+    private static List<String> command(int port) {
+        String command = System.getProperty("mcp.startup.command", DEFAULT_COMMAND);
+        List<String> args = new ArrayList<>(Arrays.asList(command.trim().split("\\s+")));
+        if (command.contains("{port}")) {
+            args.replaceAll(arg -> arg.replace("{port}", Integer.toString(port)));
+        } else {
+            args.add("--server.port=" + port);
+        }
+        return args;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
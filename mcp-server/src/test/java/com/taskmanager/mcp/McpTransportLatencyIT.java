@@ -0,0 +1,166 @@
+package com.taskmanager.mcp;
+
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.HttpClientSseClientTransport;
+import io.modelcontextprotocol.client.transport.ServerParameters;
+import io.modelcontextprotocol.client.transport.StdioClientTransport;
+import io.modelcontextprotocol.json.McpJsonMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Compares per-call latency of the same tool over the SSE transport (Tomcat, API key filter,
+ * admission control) and the stdio transport. Both servers are started from the same command as
+ * separate processes, so JVM and database settings are identical. The stdio run appends
+ * {@code --spring.profiles.active=stdio}, the SSE run {@code --server.port=<port>}.
+ * <p>
+ * Properties:
+ * <ul>
+ *   <li>{@code mcp.latency.command}: server command, default
+ *       {@code java -jar target/mcp-server-0.0.1-SNAPSHOT.jar}. Database settings come from the
+ *       environment as usual.</li>
+ *   <li>{@code mcp.latency.tool}: tool to call (default {@code mcp-help}, which does no database
+ *       work and so isolates transport overhead; {@code mcp-tasks-summary} for an end-to-end number).</li>
+ *   <li>{@code mcp.latency.calls} / {@code mcp.latency.warmup}: measured and warm-up calls
+ *       (default 1000 / 200).</li>
+ *   <li>{@code mcp.latency.api-key}: key for the SSE client (default {@code MCP_SERVER_API_KEY}).</li>
+ * </ul>
+ */
+@EnabledIfSystemProperty(named = "mcp.latency.benchmark", matches = "true")
+class McpTransportLatencyIT {
+
+    private static final String DEFAULT_COMMAND = "java -jar target/mcp-server-0.0.1-SNAPSHOT.jar";
+
+    private final String tool = System.getProperty("mcp.latency.tool", "mcp-help");
+    private final int calls = Integer.getInteger("mcp.latency.calls", 1000);
+    private final int warmup = Integer.getInteger("mcp.latency.warmup", 200);
+
+    @Test
+    void sseVersusStdio() throws Exception {
+        long[] sse = measureSse();
+        long[] stdio = measureStdio();
+
+        report("sse", sse);
+        report("stdio", stdio);
+        assertTrue(sse.length == calls && stdio.length == calls);
+    }
+
+    private long[] measureSse() throws Exception {
+        int port = freePort();
+        List<String> command = baseCommand();
+        command.add("--server.port=" + port);
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(new File("target/latency-sse.log"))
+                .start();
+        try {
+            awaitPort(process, port);
+            String apiKey = System.getProperty("mcp.latency.api-key",
+                    System.getenv().getOrDefault("MCP_SERVER_API_KEY", "test-api-key"));
+            HttpClientSseClientTransport transport = HttpClientSseClientTransport
+                    .builder("http://localhost:" + port)
+                    .customizeRequest(req -> req.header("Authorization", "Bearer " + apiKey))
+                    .build();
+            return measure(McpClient.sync(transport).requestTimeout(Duration.ofSeconds(30)).build());
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private long[] measureStdio() {
+        List<String> command = baseCommand();
+        command.add("--spring.profiles.active=stdio");
+        ServerParameters parameters = ServerParameters.builder(command.get(0))
+                .args(command.subList(1, command.size()))
+                .addEnvVar("MCP_STDIO_LOG_FILE", new File("target/latency-stdio.log").getAbsolutePath())
+                .build();
+        StdioClientTransport transport = new StdioClientTransport(parameters, McpJsonMapper.getDefault());
+        return measure(McpClient.sync(transport).requestTimeout(Duration.ofSeconds(120)).build());
+    }
+
+    private long[] measure(McpSyncClient client) {
+        try {
+            client.initialize();
+            McpSchema.CallToolRequest request = new McpSchema.CallToolRequest(tool, Map.of());
+            for (int i = 0; i < warmup; i++) {
+                call(client, request);
+            }
+            long[] nanos = new long[calls];
+            for (int i = 0; i < calls; i++) {
+                long start = System.nanoTime();
+                call(client, request);
+                nanos[i] = System.nanoTime() - start;
+            }
+            return nanos;
+        } finally {
+            client.closeGracefully();
+        }
+    }
+
+    private static void call(McpSyncClient client, McpSchema.CallToolRequest request) {
+        McpSchema.CallToolResult result = client.callTool(request);
+        if (!Boolean.FALSE.equals(result.isError())) {
+            fail("Tool call failed: " + result.content());
+        }
+    }
+
+    private void report(String transport, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double mean = Arrays.stream(sorted).average().orElse(0) / 1_000;
+        System.out.printf("%-5s %s x%d: mean %.0f us, p50 %d us, p95 %d us, p99 %d us%n", transport, tool, calls,
+                mean, percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99));
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000;
+    }
+
+    private static List<String> baseCommand() {
+        String command = System.getProperty("mcp.latency.command", DEFAULT_COMMAND);
+        return new ArrayList<>(Arrays.asList(command.trim().split("\\s+")));
+    }
+
+    private static void awaitPort(Process process, int port) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(120);
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                fail("SSE server exited with " + process.exitValue() + ", see target/latency-sse.log");
+            }
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("localhost", port), 200);
+                return;
+            } catch (IOException notListening) {
+                Thread.sleep(100);
+            }
+        }
+        fail("SSE server did not listen on port " + port + " within 120 s");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
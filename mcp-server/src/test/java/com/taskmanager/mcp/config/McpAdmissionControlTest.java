@@ -0,0 +1,127 @@
+package com.taskmanager.mcp.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class McpAdmissionControlTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private McpAdmissionControl control(double rps, int burst, int maxExpensive) {
+        return new McpAdmissionControl(true, rps, burst, Set.of("mcp-tasks"), maxExpensive, 2, registry, clock::get);
+    }
+
+    @Test
+    void tokenBucket_allowsBurstThenRejectsWithRetryAfter() {
+        McpAdmissionControl control = control(1, 3, 4);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(control.admit("key-a", null).isGranted());
+        }
+        McpAdmissionControl.Admission rejected = control.admit("key-a", null);
+
+        assertFalse(rejected.isGranted());
+        assertEquals(1, rejected.getRetryAfterSeconds());
+        assertEquals(1.0, registry.get("mcp.admission.rejected").tag("reason", "rate_limit").counter().count());
+    }
+
+    @Test
+    void tokenBucket_refillsOverTime() {
+        McpAdmissionControl control = control(2, 1, 4);
+
+        assertTrue(control.admit("key-a", null).isGranted());
+        assertFalse(control.admit("key-a", null).isGranted());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertTrue(control.admit("key-a", null).isGranted());
+    }
+
+    @Test
+    void tokenBucket_isTrackedPerKeyHash() {
+        McpAdmissionControl control = control(1, 1, 4);
+
+        assertTrue(control.admit("key-a", null).isGranted());
+        assertFalse(control.admit("key-a", null).isGranted());
+        assertTrue(control.admit("key-b", null).isGranted());
+    }
+
+    @Test
+    void expensiveTools_shareGlobalConcurrencyLimit() {
+        McpAdmissionControl control = control(1000, 1000, 2);
+
+        McpAdmissionControl.Admission first = control.admit("key-a", "mcp-tasks");
+        McpAdmissionControl.Admission second = control.admit("key-b", "mcp-tasks");
+        McpAdmissionControl.Admission third = control.admit("key-c", "mcp-tasks");
+        McpAdmissionControl.Admission cheap = control.admit("key-c", "mcp-tasks-summary");
+
+        assertTrue(first.isGranted());
+        assertTrue(second.isGranted());
+        assertFalse(third.isGranted());
+        assertEquals(2, third.getRetryAfterSeconds());
+        assertTrue(cheap.isGranted());
+
+        first.release();
+        first.release();
+        assertEquals(1, control.expensiveInFlight());
+        assertTrue(control.admit("key-c", "mcp-tasks").isGranted());
+    }
+
+    @Test
+    void concurrentCallers_neverExceedExpensiveLimit() throws Exception {
+        McpAdmissionControl control = new McpAdmissionControl(true, 1_000_000, 1_000_000, Set.of("mcp-tasks"), 3, 1,
+                registry, System::nanoTime);
+        AtomicInteger maxObserved = new AtomicInteger();
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 500; i++) {
+                        McpAdmissionControl.Admission admission = control.admit("key", "mcp-tasks");
+                        if (admission.isGranted()) {
+                            maxObserved.accumulateAndGet(control.expensiveInFlight(), Math::max);
+                            admission.release();
+                        }
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertTrue(maxObserved.get() <= 3);
+        assertEquals(0, control.expensiveInFlight());
+    }
+
+    @Test
+    void disabled_admitsEverything() {
+        McpAdmissionControl control = new McpAdmissionControl(false, 1, 1, Set.of("mcp-tasks"), 1, 1, registry,
+                clock::get);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(control.admit("key-a", "mcp-tasks").isGranted());
+        }
+        assertFalse(control.limitsExpensiveTools());
+    }
+}
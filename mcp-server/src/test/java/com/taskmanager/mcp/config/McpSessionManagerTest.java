@@ -0,0 +1,240 @@
+package com.taskmanager.mcp.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.modelcontextprotocol.json.TypeRef;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import io.modelcontextprotocol.spec.McpTransportException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class McpSessionManagerTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private McpSessionManager manager;
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+        if (manager != null) {
+            manager.stop();
+        }
+    }
+
+    @Test
+    void fullQueue_closesTheSessionInsteadOfBlockingTheSender() throws Exception {
+        manager = manager(8, 2, 60_000, 0);
+        FakeTransport client = new FakeTransport(true);
+        McpSessionManager.ManagedSession session = open(client);
+
+        session.sendMessage(notification(1)).block();
+        assertTrue(client.writing.await(5, TimeUnit.SECONDS));
+        session.sendMessage(notification(2)).block();
+        session.sendMessage(notification(3)).block();
+        assertEquals(2.0, registry.get("mcp.sessions.queue.depth").gauge().value());
+
+        assertThrows(McpTransportException.class, () -> session.sendMessage(notification(4)).block());
+
+        assertTrue(session.isClosed());
+        assertEquals(0, manager.openSessions());
+        assertEquals(0, session.queued());
+        assertEquals(1.0, closedCount("queue_full"));
+        client.unblock.countDown();
+        assertTrue(client.closed.await(5, TimeUnit.SECONDS));
+        assertThrows(McpTransportException.class, () -> session.sendMessage(notification(5)).block());
+    }
+
+    @Test
+    void stalledWrite_isClosedAfterTheWriteTimeout() throws Exception {
+        manager = manager(8, 16, 1_000, 0);
+        FakeTransport client = new FakeTransport(true);
+        McpSessionManager.ManagedSession session = open(client);
+
+        session.sendMessage(notification(1)).block();
+        assertTrue(client.writing.await(5, TimeUnit.SECONDS));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(900));
+        manager.checkSessions();
+        assertFalse(session.isClosed());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+        manager.checkSessions();
+        assertTrue(session.isClosed());
+        assertEquals(1.0, closedCount("write_timeout"));
+        client.unblock.countDown();
+        assertTrue(client.closed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void sessionWithNothingWritten_isClosedAfterTheIdleTimeout() throws Exception {
+        manager = manager(8, 16, 1_000, 1_000);
+        FakeTransport activeClient = new FakeTransport(false);
+        FakeTransport notifiedClient = new FakeTransport(false);
+        FakeTransport idleClient = new FakeTransport(false);
+        McpSessionManager.ManagedSession active = open(activeClient);
+        McpSessionManager.ManagedSession notified = open(notifiedClient);
+        McpSessionManager.ManagedSession idle = open(idleClient);
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        active.sendMessage(new McpSchema.JSONRPCResponse("2.0", 1, null, null)).block();
+        activeClient.awaitSent(1);
+        notified.sendMessage(notification(1)).block();
+        notifiedClient.awaitSent(1);
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        manager.checkSessions();
+
+        assertFalse(active.isClosed());
+        assertFalse(notified.isClosed());
+        assertTrue(idle.isClosed());
+        assertEquals(1.0, closedCount("idle"));
+        assertEquals(2.0, registry.get("mcp.sessions.open").gauge().value());
+        assertTrue(idleClient.closed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void sessionsPerKey_areCappedUntilOneCloses() {
+        manager = manager(2, 16, 1_000, 0);
+        MDC.put(McpClientContext.KEY_HASH_MDC_KEY, "key-a");
+        McpSessionManager.ManagedSession session = open(new FakeTransport(false));
+        MockHttpServletRequest handshake = new MockHttpServletRequest("GET", "/sse");
+
+        assertTrue(manager.acquireSlot(handshake, "key-a"));
+        assertFalse(manager.acquireSlot(new MockHttpServletRequest("GET", "/sse"), "key-a"));
+        assertTrue(manager.acquireSlot(new MockHttpServletRequest("GET", "/sse"), "key-b"));
+        assertEquals(1.0, registry.get("mcp.sessions.rejected").counter().count());
+        assertEquals(2.0, registry.get("mcp.sessions.keys").gauge().value());
+
+        manager.releaseUnusedSlot(handshake);
+        manager.releaseUnusedSlot(handshake);
+        assertTrue(manager.acquireSlot(new MockHttpServletRequest("GET", "/sse"), "key-a"));
+        assertFalse(manager.acquireSlot(new MockHttpServletRequest("GET", "/sse"), "key-a"));
+
+        session.close();
+        assertEquals(1.0, closedCount("closed"));
+        assertTrue(manager.acquireSlot(new MockHttpServletRequest("GET", "/sse"), "key-a"));
+    }
+
+    private McpSessionManager manager(int maxPerKey, int queueCapacity, long writeTimeoutMillis,
+            long idleTimeoutMillis) {
+        return new McpSessionManager(maxPerKey, queueCapacity, writeTimeoutMillis, idleTimeoutMillis, 5, registry,
+                clock::get);
+    }
+
+    private McpSessionManager.ManagedSession open(FakeTransport client) {
+        CapturingProvider provider = new CapturingProvider();
+        McpSessionManager.ManagedSession[] opened = new McpSessionManager.ManagedSession[1];
+        manager.manage(provider).setSessionFactory(transport -> {
+            opened[0] = (McpSessionManager.ManagedSession) transport;
+            return mock(McpServerSession.class);
+        });
+        provider.sessionFactory.create(client);
+        return opened[0];
+    }
+
+    private double closedCount(String reason) {
+        return registry.get("mcp.sessions.closed").tag("reason", reason).counter().count();
+    }
+
+    private static McpSchema.JSONRPCNotification notification(int sequence) {
+        return new McpSchema.JSONRPCNotification("2.0", "test/" + sequence, null);
+    }
+
+    private static final class CapturingProvider implements McpServerTransportProvider {
+
+        private McpServerSession.Factory sessionFactory;
+
+        @Override
+        public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+            this.sessionFactory = sessionFactory;
+        }
+
+        @Override
+        public Mono<Void> notifyClients(String method, Object params) {
+            return Mono.empty();
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return Mono.empty();
+        }
+
+        @Override
+        public List<String> protocolVersions() {
+            return List.of();
+        }
+    }
+
+    /**
+     * A client stream; with {@code stalls} every write hangs until {@link #unblock} is released,
+     * like a socket whose reader has stopped.
+     */
+    private static final class FakeTransport implements McpServerTransport {
+
+        private final boolean stalls;
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch unblock = new CountDownLatch(1);
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private final AtomicInteger sent = new AtomicInteger();
+
+        private FakeTransport(boolean stalls) {
+            this.stalls = stalls;
+        }
+
+        @Override
+        public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+            return Mono.fromRunnable(() -> {
+                writing.countDown();
+                if (stalls) {
+                    try {
+                        unblock.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                sent.incrementAndGet();
+            });
+        }
+
+        void awaitSent(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (sent.get() < count && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(count, sent.get());
+        }
+
+        @Override
+        public <T> T unmarshalFrom(Object data, TypeRef<T> typeRef) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return Mono.fromRunnable(this::close);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.taskmanager.mcp.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SecurityConfigTest {
+
+    private static final String TASKS_CALL = """
+            {"jsonrpc":"2.0","id":7,"method":"tools/call",
+             "params":{"arguments":{"tasks":[{"title":"a","name":"not-the-tool"}]},"name":"mcp-tasks"}}
+            """;
+
+    private McpAdmissionControl admissionControl;
+    private McpSessionManager sessionManager;
+    private SecurityConfig filter;
+
+    @BeforeEach
+    void setUp() {
+        admissionControl = new McpAdmissionControl(true, 1000, 1000, Set.of("mcp-tasks"), 1, 3,
+                new SimpleMeterRegistry(), System::nanoTime);
+        sessionManager = new McpSessionManager(1, 4, 1000, 0, 7, new SimpleMeterRegistry(), System::nanoTime);
+        filter = new SecurityConfig(new MockEnvironment(), admissionControl, sessionManager);
+        ReflectionTestUtils.setField(filter, "expectedApiKey", "secret");
+        ReflectionTestUtils.setField(filter, "sseEndpoint", "/sse");
+        ReflectionTestUtils.setField(filter, "sseMessageEndpoint", "/mcp/message");
+    }
+
+    @Test
+    void messagePost_bodyRemainsReadableDownstream() throws Exception {
+        List<String> seenBodies = new ArrayList<>();
+        List<String> seenClients = new ArrayList<>();
+        FilterChain chain = (req, res) -> {
+            seenBodies.add(new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+            seenClients.add(MDC.get("mcp.client"));
+        };
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(messagePost(), first, chain);
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        filter.doFilter(messagePost(), second, chain);
+
+        assertEquals(200, first.getStatus());
+        assertEquals(TASKS_CALL, seenBodies.get(0));
+        assertNotNull(seenClients.get(0));
+        assertEquals(seenClients.get(0), seenClients.get(1));
+        assertNull(MDC.get("mcp.client"));
+        assertEquals(0, admissionControl.expensiveInFlight());
+    }
+
+    @Test
+    void expensiveToolOverConcurrencyLimit_returns429WithRetryAfter() throws Exception {
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        FilterChain nested = (req, res) -> filter.doFilter(messagePost(), rejected, (r, s) -> {
+            throw new AssertionError("second expensive call must not reach the transport");
+        });
+
+        filter.doFilter(messagePost(), new MockHttpServletResponse(), nested);
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("3", rejected.getHeader("Retry-After"));
+        assertEquals(0, admissionControl.expensiveInFlight());
+    }
+
+    @Test
+    void sseHandshakeOverSessionLimit_returns429UntilTheSlotIsReturned() throws Exception {
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        FilterChain nested = (req, res) -> filter.doFilter(sseHandshake(), rejected, (r, s) -> {
+            throw new AssertionError("second session must not reach the transport");
+        });
+
+        filter.doFilter(sseHandshake(), new MockHttpServletResponse(), nested);
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("7", rejected.getHeader("Retry-After"));
+        assertNull(MDC.get("mcp.keyHash"));
+
+        // No session was opened by the first handshake, so its slot is free again
+        MockHttpServletResponse accepted = new MockHttpServletResponse();
+        filter.doFilter(sseHandshake(), accepted, (req, res) -> { });
+        assertEquals(200, accepted.getStatus());
+    }
+
+    @Test
+    void missingKey_isRejectedBeforeAdmission() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/mcp/message");
+        request.setContent(TASKS_CALL.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            throw new AssertionError("unauthorized request must not reach the transport");
+        });
+
+        assertEquals(401, response.getStatus());
+    }
+
+    private MockHttpServletRequest sseHandshake() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/sse");
+        request.addHeader("X-API-Key", "secret");
+        return request;
+    }
+
+    private MockHttpServletRequest messagePost() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/mcp/message");
+        request.addHeader("Authorization", "Bearer secret");
+        request.setContentType("application/json");
+        request.setContent(TASKS_CALL.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
@@ -0,0 +1,75 @@
+package com.taskmanager.mcp.config;
+
+import io.modelcontextprotocol.json.TypeRef;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StdioTransportConfigTest {
+
+    @Test
+    void concurrentSends_reachTheTransportOneAtATime() throws Exception {
+        NonSerializedTransport stdio = new NonSerializedTransport();
+        McpServerTransport transport = new StdioTransportConfig.SerializedSendTransport(stdio);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> sends = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                McpSchema.JSONRPCNotification message = new McpSchema.JSONRPCNotification("2.0", "test/" + i, null);
+                sends.add(executor.submit(() -> transport.sendMessage(message).block()));
+            }
+            for (Future<?> send : sends) {
+                send.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(400, stdio.sent.get());
+    }
+
+    /**
+     * Fails like the SDK's stdio session transport when two threads emit at the same time.
+     */
+    private static final class NonSerializedTransport implements McpServerTransport {
+
+        private final AtomicInteger emitting = new AtomicInteger();
+        private final AtomicInteger sent = new AtomicInteger();
+
+        @Override
+        public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+            return Mono.defer(() -> {
+                if (emitting.incrementAndGet() > 1) {
+                    emitting.decrementAndGet();
+                    return Mono.error(new RuntimeException("Failed to enqueue message"));
+                }
+                LockSupport.parkNanos(50_000);
+                sent.incrementAndGet();
+                emitting.decrementAndGet();
+                return Mono.empty();
+            });
+        }
+
+        @Override
+        public <T> T unmarshalFrom(Object data, TypeRef<T> typeRef) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return Mono.empty();
+        }
+    }
+}
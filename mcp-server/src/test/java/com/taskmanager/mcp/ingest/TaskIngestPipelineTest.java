@@ -0,0 +1,117 @@
+package com.taskmanager.mcp.ingest;
+
+import com.taskmanager.mcp.dto.TaskInput;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskIngestPipelineTest {
+
+    private final TaskIngestPipeline sequential = new TaskIngestPipeline(1, Integer.MAX_VALUE, 100);
+    private final TaskIngestPipeline parallel = new TaskIngestPipeline(4, 10, 100);
+
+    @AfterEach
+    void tearDown() {
+        sequential.shutdown();
+        parallel.shutdown();
+    }
+
+    @Test
+    void parallelPath_reportsSameErrorsInSameOrderAsSequentialPath() {
+        List<TaskInput> inputs = mixedBatch(1_050);
+
+        List<Task> sequentialWritten = new ArrayList<>();
+        IngestResult expected = sequential.ingest(inputs, sequentialWritten::addAll);
+        List<Task> parallelWritten = new ArrayList<>();
+        IngestResult actual = parallel.ingest(inputs, parallelWritten::addAll);
+
+        assertEquals(expected.getErrors(), actual.getErrors());
+        assertEquals(expected.getAccepted(), actual.getAccepted());
+        assertEquals(sequentialWritten.size(), parallelWritten.size());
+        for (int i = 0; i < sequentialWritten.size(); i++) {
+            assertEquals(sequentialWritten.get(i).getTitle(), parallelWritten.get(i).getTitle());
+        }
+        assertTrue(actual.getErrors().get(0).startsWith("index 0: "));
+    }
+
+    @Test
+    void parallelPath_writesChunksInOrderOnCallingThread() {
+        List<TaskInput> inputs = new ArrayList<>();
+        for (int i = 0; i < 350; i++) {
+            inputs.add(input("Task " + i, "IN_PROGRESS"));
+        }
+        Thread caller = Thread.currentThread();
+        List<Integer> chunkSizes = new ArrayList<>();
+        List<String> firstTitles = new ArrayList<>();
+
+        IngestResult result = parallel.ingest(inputs, chunk -> {
+            assertSame(caller, Thread.currentThread());
+            chunkSizes.add(chunk.size());
+            firstTitles.add(chunk.get(0).getTitle());
+        });
+
+        assertEquals(350, result.getAccepted());
+        assertEquals(List.of(100, 100, 100, 50), chunkSizes);
+        assertEquals(List.of("Task 0", "Task 100", "Task 200", "Task 300"), firstTitles);
+    }
+
+    @Test
+    void smallBatch_usesSingleWrite() {
+        List<TaskInput> inputs = List.of(input("  Padded  ", null), input("Second", "done"));
+        List<List<Task>> writes = new ArrayList<>();
+
+        IngestResult result = parallel.ingest(inputs, writes::add);
+
+        assertEquals(2, result.getAccepted());
+        assertEquals(1, writes.size());
+        assertEquals("Padded", writes.get(0).get(0).getTitle());
+        assertEquals(TaskStatus.TODO, writes.get(0).get(0).getStatus());
+        assertEquals(TaskStatus.DONE, writes.get(0).get(1).getStatus());
+    }
+
+    @Test
+    void writerFailure_propagatesToCaller() {
+        List<TaskInput> inputs = mixedBatch(500);
+
+        assertThrows(IllegalStateException.class, () -> parallel.ingest(inputs, chunk -> {
+            throw new IllegalStateException("db down");
+        }));
+    }
+
+    @Test
+    void nonPositiveChunkSize_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TaskIngestPipeline(1, 10, 0));
+    }
+
+    private List<TaskInput> mixedBatch(int size) {
+        List<TaskInput> inputs = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (i % 7 == 0) {
+                inputs.add(input("   ", "TODO"));
+            } else if (i % 11 == 0) {
+                inputs.add(input("Task " + i, "NOT_A_STATUS"));
+            } else if (i % 13 == 0) {
+                inputs.add(null);
+            } else {
+                inputs.add(input("Task " + i, i % 2 == 0 ? "TODO" : "DONE"));
+            }
+        }
+        return inputs;
+    }
+
+    private TaskInput input(String title, String status) {
+        TaskInput input = new TaskInput();
+        input.setTitle(title);
+        input.setStatus(status);
+        return input;
+    }
+}
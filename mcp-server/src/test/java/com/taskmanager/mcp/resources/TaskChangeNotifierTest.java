@@ -0,0 +1,100 @@
+package com.taskmanager.mcp.resources;
+
+import io.modelcontextprotocol.server.McpSyncServer;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskChangeNotifierTest {
+
+    @Mock
+    private ObjectProvider<McpSyncServer> serverProvider;
+
+    @Mock
+    private McpSyncServer server;
+
+    private TaskChangeNotifier notifier;
+
+    @BeforeEach
+    void setUp() {
+        when(serverProvider.getIfAvailable()).thenReturn(server);
+    }
+
+    @AfterEach
+    void tearDown() {
+        notifier.shutdown();
+    }
+
+    @Test
+    void burstOfChanges_isPublishedOnce() throws Exception {
+        notifier = new TaskChangeNotifier(serverProvider, 50, 5000);
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 10_000; i++) {
+            writers.submit(notifier::taskChanged);
+        }
+        writers.shutdown();
+        assertTrue(writers.awaitTermination(10, TimeUnit.SECONDS));
+
+        awaitPublished(1);
+        Thread.sleep(200);
+
+        assertEquals(1, notifier.getPublishedCount());
+        verify(server).notifyResourcesUpdated(new McpSchema.ResourcesUpdatedNotification(TaskResources.SUMMARY_URI));
+        verify(server).notifyResourcesUpdated(new McpSchema.ResourcesUpdatedNotification(TaskResources.RECENT_URI));
+    }
+
+    @Test
+    void steadyStreamOfChanges_isPublishedAtMaxDelay() throws Exception {
+        notifier = new TaskChangeNotifier(serverProvider, 100, 300);
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1000);
+        while (System.nanoTime() < end) {
+            notifier.taskChanged();
+            Thread.sleep(20);
+        }
+
+        // The debounce window never closes while changes keep arriving; max-delay bounds the wait
+        long published = notifier.getPublishedCount();
+        assertTrue(published >= 2 && published <= 4, "published " + published);
+    }
+
+    @Test
+    void changeListeners_runBeforeClientsAreNotified() throws Exception {
+        notifier = new TaskChangeNotifier(serverProvider, 10, 1000);
+        Runnable listener = mock(Runnable.class);
+        notifier.addChangeListener(listener);
+
+        notifier.taskChanged();
+        awaitPublished(1);
+
+        InOrder order = inOrder(listener, server);
+        order.verify(listener).run();
+        order.verify(server, times(2)).notifyResourcesUpdated(any());
+    }
+
+    private void awaitPublished(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (notifier.getPublishedCount() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
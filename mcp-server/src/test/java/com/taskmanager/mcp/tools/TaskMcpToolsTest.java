@@ -1,41 +1,76 @@
 package com.taskmanager.mcp.tools;
 
+import com.taskmanager.mcp.dto.BatchOperationInput;
+import com.taskmanager.mcp.dto.TaskFilterInput;
 import com.taskmanager.mcp.dto.TaskInput;
 import com.taskmanager.mcp.dto.TaskSummary;
+import com.taskmanager.mcp.ingest.TaskIngestPipeline;
+import com.taskmanager.mcp.resources.TaskChangeNotifier;
 import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskStats;
 import com.taskmanager.model.TaskStatus;
+import com.taskmanager.repository.ChunkResult;
+import com.taskmanager.repository.TaskField;
+import com.taskmanager.repository.TaskFilter;
 import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.UpsertResult;
+import com.taskmanager.support.DeadlineExceededException;
+import io.modelcontextprotocol.server.McpSyncServerExchange;
+import io.modelcontextprotocol.spec.McpSchema;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class TaskMcpToolsTest {
 
+    /** As in the memory profile: every repository call commits on its own. */
+    private static final PlatformTransactionManager NO_TRANSACTIONS = null;
+
     @Mock
     private TaskRepository taskRepository;
 
+    @Mock
+    private TaskChangeNotifier changeNotifier;
+
     private TaskMcpTools tools;
 
     @BeforeEach
     void setUp() {
-        tools = new TaskMcpTools(taskRepository);
+        tools = new TaskMcpTools(taskRepository, new TaskIngestPipeline(2, 2000, 500), changeNotifier, 0, 500, 5000, 1000, 65536, "exports", 65536, 300_000, 100, NO_TRANSACTIONS, null, 50);
     }
 
     @Test
@@ -46,16 +81,64 @@ class TaskMcpToolsTest {
         Map<String, String> toolMap = (Map<String, String>) result.get("tools");
 
         assertEquals("mcp-server", result.get("module"));
-        assertEquals(4, toolMap.size());
+        assertEquals(13, toolMap.size());
         assertTrue(toolMap.containsKey("mcp-help"));
         assertTrue(toolMap.containsKey("mcp-schema-tasks"));
         assertTrue(toolMap.containsKey("mcp-tasks"));
+        assertTrue(toolMap.containsKey("mcp-tasks-upsert"));
+        assertTrue(toolMap.containsKey("mcp-tasks-bulk-update"));
+        assertTrue(toolMap.containsKey("mcp-tasks-bulk-delete"));
         assertTrue(toolMap.containsKey("mcp-tasks-summary"));
+        assertTrue(toolMap.containsKey("mcp-tasks-query"));
+        assertTrue(toolMap.containsKey("mcp-tasks-export"));
+        assertTrue(toolMap.containsKey("mcp-tasks-claim"));
+        assertTrue(toolMap.containsKey("mcp-tasks-heartbeat"));
+        assertTrue(toolMap.containsKey("mcp-tasks-release"));
+        assertTrue(toolMap.containsKey("mcp-batch"));
         // Verify descriptions match @McpTool annotation descriptions
         assertEquals("Returns available MCP tools and how to use them.", toolMap.get("mcp-help"));
         assertEquals("Returns the schema for the tasks table.", toolMap.get("mcp-schema-tasks"));
         assertEquals("Bulk inserts tasks into PostgreSQL.", toolMap.get("mcp-tasks"));
-        assertEquals("Returns count of tasks grouped by status.", toolMap.get("mcp-tasks-summary"));
+        assertEquals("Idempotently merges tasks by externalKey (or content hash when absent).",
+                toolMap.get("mcp-tasks-upsert"));
+        assertEquals("Returns count of tasks grouped by status and by due-date window.",
+                toolMap.get("mcp-tasks-summary"));
+    }
+
+    @Test
+    void claimTasks_capsTheBatchAndReturnsTasksInClaimOrder() {
+        Task first = new Task("First", null, TaskStatus.IN_PROGRESS, LocalDate.of(2026, 4, 1));
+        first.setId(4L);
+        Task second = new Task("Second", null, TaskStatus.IN_PROGRESS, null);
+        second.setId(2L);
+        when(taskRepository.claim(eq("agent-1"), any(), eq(100))).thenReturn(List.of(4L, 2L));
+        when(taskRepository.findAllById(List.of(4L, 2L))).thenReturn(List.of(second, first));
+
+        Map<String, Object> result = tools.claimTasks("agent-1", 10_000);
+
+        assertEquals(2, result.get("count"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) result.get("tasks");
+        assertEquals(List.of(4L, 2L), rows.stream().map(row -> row.get("id")).toList());
+        assertEquals("2026-04-01", rows.get(0).get("dueDate"));
+        verify(changeNotifier).taskChanged();
+    }
+
+    @Test
+    void claimTasks_withoutOwner_returnsError() {
+        Map<String, Object> result = tools.claimTasks(" ", 1);
+
+        assertEquals("owner is required", result.get("error"));
+        verify(taskRepository, never()).claim(any(), any(), anyInt());
+    }
+
+    @Test
+    void releaseTask_rejectsInProgressAndReportsLostLeases() {
+        assertEquals("status must be TODO or DONE", tools.releaseTask("agent-1", 3L, "IN_PROGRESS").get("error"));
+        when(taskRepository.releaseLease(3L, "agent-1", TaskStatus.TODO)).thenReturn(false);
+
+        assertEquals("Task 3 is not leased by agent-1", tools.releaseTask("agent-1", 3L, null).get("error"));
+        verify(changeNotifier, never()).taskChanged();
     }
 
     @Test
@@ -77,6 +160,7 @@ class TaskMcpToolsTest {
         assertTrue(properties.containsKey("description"));
         assertTrue(properties.containsKey("status"));
         assertTrue(properties.containsKey("dueDate"));
+        assertTrue(properties.containsKey("externalKey"));
         assertEquals(Task.TITLE_MAX_LENGTH, title.get("maxLength"));
         assertEquals(Task.DESCRIPTION_MAX_LENGTH, description.get("maxLength"));
         List<String> expectedStatuses = Arrays.stream(TaskStatus.values())
@@ -110,6 +194,7 @@ class TaskMcpToolsTest {
         assertEquals(1, result.get("received"));
         assertEquals(1, result.get("inserted"));
         assertEquals(0, result.get("rejected"));
+        verify(changeNotifier).taskChanged();
     }
 
     @Test
@@ -172,12 +257,12 @@ class TaskMcpToolsTest {
 
     @Test
     void tasksSummary_returnsCountsFromRepository() {
-        when(taskRepository.countTasksByStatus()).thenReturn(List.of(
-                new Object[] { TaskStatus.TODO, 2L },
-                new Object[] { TaskStatus.IN_PROGRESS, 3L },
-                new Object[] { TaskStatus.DONE, 1L }));
+        when(taskRepository.countTasksByStatusAndDueWindow(any(), any(), eq(false))).thenReturn(List.of(
+                new Object[] { TaskStatus.TODO, 2L, 1L, 0L, 0L, 1L },
+                new Object[] { TaskStatus.IN_PROGRESS, 3L, 0L, 1L, 1L, 0L },
+                new Object[] { TaskStatus.DONE, 1L, 0L, 0L, 0L, 0L }));
 
-        TaskSummary summary = tools.tasksSummary();
+        TaskSummary summary = tools.tasksSummary(null);
 
         assertEquals(6L, summary.getTotal());
         assertEquals(2L, summary.getByStatus().get("TODO"));
@@ -185,11 +270,35 @@ class TaskMcpToolsTest {
         assertEquals(1L, summary.getByStatus().get("DONE"));
     }
 
+    @Test
+    void tasksSummary_bucketsByDueWindowRelativeToToday() {
+        LocalDate today = LocalDate.now();
+        when(taskRepository.countTasksByStatusAndDueWindow(eq(today), eq(TaskStats.endOfWeek(today)), eq(false)))
+                .thenReturn(List.of(
+                        new Object[] { TaskStatus.TODO, 2L, 1L, 0L, 0L, 1L },
+                        new Object[] { TaskStatus.IN_PROGRESS, 3L, 0L, 1L, 1L, 0L },
+                        new Object[] { TaskStatus.DONE, 1L, 0L, 0L, 0L, 0L }));
+
+        TaskSummary summary = tools.tasksSummary(null);
+
+        Map<String, Map<String, Long>> windows = summary.getByDueWindow();
+        assertEquals(today, summary.getAsOf());
+        assertEquals(List.of("overdue", "dueToday", "dueThisWeek", "later", "noDueDate"),
+                new ArrayList<>(windows.keySet()));
+        assertEquals(1L, windows.get("overdue").get("TODO"));
+        assertEquals(1L, windows.get("noDueDate").get("TODO"));
+        assertEquals(1L, windows.get("dueToday").get("IN_PROGRESS"));
+        assertEquals(1L, windows.get("dueThisWeek").get("IN_PROGRESS"));
+        assertEquals(1L, windows.get("later").get("IN_PROGRESS"));
+        assertEquals(1L, windows.get("later").get("DONE"));
+        assertEquals(0L, windows.get("overdue").get("DONE"));
+    }
+
     @Test
     void tasksSummary_emptyDatabase_returnsZeroCounts() {
-        when(taskRepository.countTasksByStatus()).thenReturn(List.of());
+        when(taskRepository.countTasksByStatusAndDueWindow(any(), any(), eq(false))).thenReturn(List.of());
 
-        TaskSummary summary = tools.tasksSummary();
+        TaskSummary summary = tools.tasksSummary(null);
 
         assertEquals(0L, summary.getTotal());
         assertEquals(0L, summary.getByStatus().get("TODO"));
@@ -301,4 +410,381 @@ class TaskMcpToolsTest {
         assertTrue(result.containsKey("error"));
         assertTrue(result.get("error").toString().contains("exceeds limit of 10000"));
     }
+
+    @Test
+    void upsertTasks_reportsRepositoryCountsAndKeepsClientKeys() {
+        when(taskRepository.upsertByExternalKey(anyList())).thenReturn(new UpsertResult(1, 1, 0));
+        when(taskRepository.count()).thenReturn(2L);
+
+        TaskInput first = new TaskInput();
+        first.setTitle("First");
+        first.setExternalKey("  ext-1 ");
+        TaskInput second = new TaskInput();
+        second.setTitle("Second");
+        second.setExternalKey("ext-2");
+
+        Map<String, Object> result = tools.upsertTasks(List.of(first, second));
+
+        ArgumentCaptor<List<Task>> captor = ArgumentCaptor.forClass(List.class);
+        verify(taskRepository).upsertByExternalKey(captor.capture());
+        assertEquals(List.of("ext-1", "ext-2"), captor.getValue().stream().map(Task::getExternalKey).toList());
+        assertEquals(1, result.get("inserted"));
+        assertEquals(1, result.get("updated"));
+        assertEquals(0, result.get("unchanged"));
+        assertEquals(0, result.get("duplicates"));
+        verify(taskRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void upsertTasks_withoutKey_usesStableContentHashAndDropsRepeats() {
+        when(taskRepository.upsertByExternalKey(anyList())).thenReturn(new UpsertResult(1, 0, 0));
+
+        TaskInput original = new TaskInput();
+        original.setTitle("Same");
+        original.setDescription("content");
+        original.setDueDate(LocalDate.of(2026, 5, 1));
+        TaskInput retried = new TaskInput();
+        retried.setTitle("  Same ");
+        retried.setDescription("content");
+        retried.setStatus("todo");
+        retried.setDueDate(LocalDate.of(2026, 5, 1));
+
+        Map<String, Object> result = tools.upsertTasks(List.of(original, retried));
+
+        ArgumentCaptor<List<Task>> captor = ArgumentCaptor.forClass(List.class);
+        verify(taskRepository).upsertByExternalKey(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        String key = captor.getValue().get(0).getExternalKey();
+        assertTrue(key.startsWith("sha256:"));
+        assertTrue(key.length() <= Task.EXTERNAL_KEY_MAX_LENGTH);
+        assertEquals(1, result.get("duplicates"));
+    }
+
+    @Test
+    void upsertTasks_withExternalKeyTooLong_rejects() {
+        TaskInput input = new TaskInput();
+        input.setTitle("Valid");
+        input.setExternalKey("k".repeat(Task.EXTERNAL_KEY_MAX_LENGTH + 1));
+
+        Map<String, Object> result = tools.upsertTasks(List.of(input));
+
+        verify(taskRepository, never()).upsertByExternalKey(anyList());
+        assertEquals(1, result.get("rejected"));
+    }
+
+    @Test
+    void tasksSummary_concurrentCallers_issueExactlyOneQuery() throws Exception {
+        int callers = 24;
+        when(taskRepository.countTasksByStatusAndDueWindow(any(), any(), eq(false))).thenAnswer(invocation -> {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (tools.summaryFlight().getCoalescedCount() < callers - 1 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            return List.<Object[]>of(new Object[] { TaskStatus.TODO, 5L, 0L, 0L, 0L, 5L });
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<TaskSummary>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> tools.tasksSummary(null)));
+            }
+            for (Future<TaskSummary> result : results) {
+                assertEquals(5L, result.get(10, TimeUnit.SECONDS).getTotal());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(taskRepository, times(1)).countTasksByStatusAndDueWindow(any(), any(), eq(false));
+    }
+
+    @Test
+    void tasksSummary_withTtl_isRefreshedAfterInsert() {
+        TaskMcpTools cachingTools = new TaskMcpTools(taskRepository, new TaskIngestPipeline(1, 2000, 500), changeNotifier, 60_000, 500, 5000, 1000, 65536, "exports", 65536, 300_000, 100, NO_TRANSACTIONS, null, 50);
+        when(taskRepository.countTasksByStatusAndDueWindow(any(), any(), eq(false)))
+                .thenReturn(List.of())
+                .thenReturn(List.<Object[]>of(new Object[] { TaskStatus.TODO, 1L, 0L, 0L, 0L, 1L }));
+
+        TaskInput input = new TaskInput();
+        input.setTitle("New");
+
+        assertEquals(0L, cachingTools.tasksSummary(null).getTotal());
+        assertEquals(0L, cachingTools.tasksSummary(null).getTotal());
+        cachingTools.insertTasks(List.of(input));
+
+        assertEquals(1L, cachingTools.tasksSummary(null).getTotal());
+        verify(taskRepository, times(2)).countTasksByStatusAndDueWindow(any(), any(), eq(false));
+    }
+
+    @Test
+    void tasksSummary_withTtl_isRefreshedAfterExternalChange() {
+        ArgumentCaptor<Runnable> listener = ArgumentCaptor.forClass(Runnable.class);
+        TaskMcpTools cachingTools = new TaskMcpTools(taskRepository, new TaskIngestPipeline(1, 2000, 500), changeNotifier, 60_000, 500, 5000, 1000, 65536, "exports", 65536, 300_000, 100, NO_TRANSACTIONS, null, 50);
+        verify(changeNotifier, times(2)).addChangeListener(listener.capture());
+        when(taskRepository.countTasksByStatusAndDueWindow(any(), any(), eq(false))).thenReturn(List.of());
+
+        cachingTools.tasksSummary(null);
+        cachingTools.tasksSummary(null);
+        listener.getValue().run();
+        cachingTools.tasksSummary(null);
+
+        verify(taskRepository, times(2)).countTasksByStatusAndDueWindow(any(), any(), eq(false));
+    }
+
+    @Test
+    void bulkUpdate_dryRun_countsWithoutChanging() {
+        TaskFilterInput filter = new TaskFilterInput();
+        filter.setStatus("IN_PROGRESS");
+        filter.setOverdue(true);
+        when(taskRepository.countByFilter(any())).thenReturn(12L);
+
+        Map<String, Object> result = tools.bulkUpdateStatus(filter, "DONE", true, null, null, null);
+
+        assertEquals(12L, result.get("matched"));
+        assertEquals(0, result.get("updated"));
+        assertEquals(true, result.get("dryRun"));
+        ArgumentCaptor<TaskFilter> captor = ArgumentCaptor.forClass(TaskFilter.class);
+        verify(taskRepository).countByFilter(captor.capture());
+        assertEquals(TaskStatus.IN_PROGRESS, captor.getValue().getStatus());
+        assertEquals(TaskStatus.DONE, captor.getValue().getExcludedStatus());
+        assertEquals(LocalDate.now().minusDays(1), captor.getValue().getDueTo());
+        verify(taskRepository, never()).updateStatusByFilter(any(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void bulkUpdate_walksChunksAndReportsProgress() {
+        TaskFilterInput filter = new TaskFilterInput();
+        filter.setTitleContains("release");
+        McpSyncServerExchange exchange = mock(McpSyncServerExchange.class);
+        when(taskRepository.countByFilter(any())).thenReturn(5L);
+        when(taskRepository.updateStatusByFilter(any(), eq(TaskStatus.DONE), eq(0L), eq(2)))
+                .thenReturn(new ChunkResult(2, 2, 11L, false));
+        when(taskRepository.updateStatusByFilter(any(), eq(TaskStatus.DONE), eq(11L), eq(2)))
+                .thenReturn(new ChunkResult(2, 1, 14L, false));
+        when(taskRepository.updateStatusByFilter(any(), eq(TaskStatus.DONE), eq(14L), eq(2)))
+                .thenReturn(new ChunkResult(1, 1, 20L, true));
+
+        Map<String, Object> result = tools.bulkUpdateStatus(filter, "done", false, 2, exchange, "token-1");
+
+        assertEquals(4, result.get("updated"));
+        assertEquals(3, result.get("chunks"));
+        ArgumentCaptor<McpSchema.ProgressNotification> progress =
+                ArgumentCaptor.forClass(McpSchema.ProgressNotification.class);
+        verify(exchange, times(3)).progressNotification(progress.capture());
+        assertEquals("token-1", progress.getValue().progressToken());
+        assertEquals(5.0, progress.getValue().progress());
+        assertEquals(5.0, progress.getValue().total());
+    }
+
+    @Test
+    void bulkUpdate_chunkSizeIsCappedByServer() {
+        TaskMcpTools capped = new TaskMcpTools(taskRepository, new TaskIngestPipeline(1, 2000, 500), changeNotifier, 0, 100, 250, 1000, 65536, "exports", 65536, 300_000, 100, NO_TRANSACTIONS, null, 50);
+        TaskFilterInput filter = new TaskFilterInput();
+        filter.setStatus("TODO");
+        when(taskRepository.countByFilter(any())).thenReturn(1L);
+        when(taskRepository.updateStatusByFilter(any(), any(), anyLong(), eq(250)))
+                .thenReturn(new ChunkResult(1, 1, 3L, true));
+
+        Map<String, Object> result = capped.bulkUpdateStatus(filter, "IN_PROGRESS", null, 1_000_000, null, null);
+
+        assertEquals(250, result.get("chunkSize"));
+    }
+
+    @Test
+    void bulkUpdate_failureReportsPartialProgress() {
+        TaskFilterInput filter = new TaskFilterInput();
+        filter.setStatus("TODO");
+        when(taskRepository.countByFilter(any())).thenReturn(10L);
+        when(taskRepository.updateStatusByFilter(any(), any(), eq(0L), anyInt()))
+                .thenReturn(new ChunkResult(5, 5, 9L, false));
+        when(taskRepository.updateStatusByFilter(any(), any(), eq(9L), anyInt()))
+                .thenThrow(new QueryTimeoutException("canceling statement due to lock timeout"));
+
+        Map<String, Object> result = tools.bulkUpdateStatus(filter, "DONE", false, 5, null, null);
+
+        assertEquals(5, result.get("updated"));
+        assertEquals(1, result.get("chunks"));
+        assertTrue(String.valueOf(result.get("error")).contains("lock timeout"));
+    }
+
+    @Test
+    void bulkDelete_requiresRestrictiveFilter() {
+        TaskFilterInput filter = new TaskFilterInput();
+        filter.setIncludeArchived(true);
+
+        Map<String, Object> result = tools.bulkDelete(filter, false, null, null, null);
+
+        assertTrue(String.valueOf(result.get("error")).contains("at least one"));
+        verify(taskRepository, never()).deleteByFilter(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void bulkDelete_rejectsInvalidFilterValues() {
+        TaskFilterInput filter = new TaskFilterInput();
+        filter.setStatus("BLOCKED");
+        filter.setDueFrom(LocalDate.of(2026, 3, 10));
+        filter.setDueTo(LocalDate.of(2026, 3, 1));
+
+        Map<String, Object> result = tools.bulkDelete(filter, true, null, null, null);
+
+        String error = String.valueOf(result.get("error"));
+        assertTrue(error.contains("Invalid status 'BLOCKED'"));
+        assertTrue(error.contains("dueFrom must not be after dueTo"));
+    }
+
+    @Test
+    void queryTasks_projectsRequestedFieldsAndReturnsCursor() {
+        when(taskRepository.streamByFilter(any(), eq(EnumSet.of(TaskField.ID, TaskField.STATUS)), eq(0L), eq(3)))
+                .thenReturn(Stream.of(row(1L), row(2L), row(3L)));
+
+        Map<String, Object> page = tools.queryTasks(null, "status", null, 2, null);
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> tasks = (List<Map<String, Object>>) page.get("tasks");
+        assertEquals(2, page.get("count"));
+        assertEquals(List.of(1L, 2L), tasks.stream().map(t -> t.get("id")).toList());
+        assertEquals(true, page.get("hasMore"));
+
+        when(taskRepository.streamByFilter(any(), any(), eq(2L), eq(3))).thenReturn(Stream.of(row(3L)));
+        Map<String, Object> next = tools.queryTasks(null, "status", (String) page.get("nextCursor"), 2, null);
+
+        assertEquals(1, next.get("count"));
+        assertEquals(false, next.get("hasMore"));
+        assertNull(next.get("nextCursor"));
+    }
+
+    @Test
+    void queryTasks_stopsAtByteBudgetButReturnsAtLeastOneRow() {
+        when(taskRepository.streamByFilter(any(), any(), eq(0L), anyInt()))
+                .thenReturn(Stream.of(row(1L), row(2L)), Stream.of(row(1L), row(2L)));
+
+        Map<String, Object> tight = tools.queryTasks(null, null, null, null, 1);
+        Map<String, Object> roomy = tools.queryTasks(null, null, null, null, 10_000);
+
+        assertEquals(1, tight.get("count"));
+        assertEquals(true, tight.get("hasMore"));
+        assertTrue((Long) tight.get("bytes") > 1);
+        assertEquals(2, roomy.get("count"));
+        assertEquals(false, roomy.get("hasMore"));
+    }
+
+    @Test
+    void queryTasks_rowLimitIsCappedByServer() {
+        TaskMcpTools capped = new TaskMcpTools(taskRepository, new TaskIngestPipeline(1, 2000, 500), changeNotifier, 0, 500, 5000, 50, 65536, "exports", 65536, 300_000, 100, NO_TRANSACTIONS, null, 50);
+        when(taskRepository.streamByFilter(any(), any(), anyLong(), eq(51))).thenReturn(Stream.empty());
+
+        Map<String, Object> page = capped.queryTasks(null, null, null, 10_000, null);
+
+        assertEquals(0, page.get("count"));
+        assertFalse((Boolean) page.get("hasMore"));
+    }
+
+    @Test
+    void queryTasks_rejectsUnknownFieldsAndInvalidCursor() {
+        TaskFilterInput filter = new TaskFilterInput();
+        filter.setStatus("BLOCKED");
+
+        Map<String, Object> result = tools.queryTasks(filter, "title,owner", "not-a-cursor", null, null);
+
+        String error = String.valueOf(result.get("error"));
+        assertTrue(error.contains("Invalid status 'BLOCKED'"));
+        assertTrue(error.contains("Unknown field 'owner'"));
+        assertTrue(error.contains("Invalid cursor"));
+        verify(taskRepository, never()).streamByFilter(any(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void batch_rejectsBadModeAndTooManyOperations() {
+        List<BatchOperationInput> operations = new ArrayList<>();
+        for (int i = 0; i < 51; i++) {
+            operations.add(operation("summary"));
+        }
+
+        Map<String, Object> result = tools.batch(operations, "sometimes");
+
+        String error = String.valueOf(result.get("error"));
+        assertTrue(error.contains("Invalid mode 'sometimes'"));
+        assertTrue(error.contains("At most 50 operations"));
+    }
+
+    @Test
+    void batch_atomicWithInvalidStep_runsNothing() {
+        BatchOperationInput update = operation("update-status");
+        update.setIds(List.of(1L, 2L));
+        update.setStatus("DONE");
+        BatchOperationInput delete = operation("delete");
+
+        Map<String, Object> result = tools.batch(List.of(update, delete, operation("archive")), null);
+
+        assertEquals(false, result.get("transactional"));
+        assertFalse(result.containsKey("committed"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> steps = (List<Map<String, Object>>) result.get("results");
+        assertEquals("skipped", steps.get(0).get("status"));
+        assertEquals("ids is required", steps.get(1).get("error"));
+        assertTrue(String.valueOf(steps.get(2).get("error")).contains("Invalid op 'archive'"));
+        verify(taskRepository, never()).updateStatusByIds(any(), anyList());
+    }
+
+    @Test
+    void batch_bestEffort_continuesPastFailedStep() {
+        BatchOperationInput update = operation("update-status");
+        update.setIds(List.of(1L, 2L));
+        update.setStatus("done");
+        BatchOperationInput delete = operation("delete");
+        delete.setIds(List.of(3L));
+        when(taskRepository.updateStatusByIds(TaskStatus.DONE, List.of(1L, 2L)))
+                .thenThrow(new QueryTimeoutException("canceling statement due to lock timeout"));
+        when(taskRepository.deleteByIds(List.of(3L))).thenReturn(1);
+
+        Map<String, Object> result = tools.batch(List.of(update, delete), "best-effort");
+
+        assertFalse(result.containsKey("committed"));
+        assertEquals(1, result.get("succeeded"));
+        assertEquals(1, result.get("failed"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> steps = (List<Map<String, Object>>) result.get("results");
+        assertTrue(String.valueOf(steps.get(0).get("error")).contains("lock timeout"));
+        assertEquals(1, steps.get(1).get("deleted"));
+        verify(changeNotifier).taskChanged();
+    }
+
+    @Test
+    void batch_withoutTransactions_reportsTheStepsThatPersistedUpToADeadline() {
+        BatchOperationInput delete = operation("delete");
+        delete.setIds(List.of(3L));
+        BatchOperationInput update = operation("update-status");
+        update.setIds(List.of(1L));
+        update.setStatus("DONE");
+        when(taskRepository.deleteByIds(List.of(3L))).thenReturn(1);
+        when(taskRepository.updateStatusByIds(TaskStatus.DONE, List.of(1L)))
+                .thenThrow(new DeadlineExceededException("Request deadline passed 12 ms ago"));
+
+        Map<String, Object> result = tools.batch(List.of(delete, update, operation("summary")), null);
+
+        assertFalse(result.containsKey("committed"));
+        assertEquals(1, result.get("succeeded"));
+        assertEquals(1, result.get("failed"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> steps = (List<Map<String, Object>>) result.get("results");
+        assertEquals("ok", steps.get(0).get("status"));
+        assertEquals("Request deadline passed 12 ms ago", steps.get(1).get("error"));
+        assertEquals("skipped", steps.get(2).get("status"));
+    }
+
+    private static BatchOperationInput operation(String op) {
+        BatchOperationInput operation = new BatchOperationInput();
+        operation.setOp(op);
+        return operation;
+    }
+
+    private static Map<String, Object> row(long id) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", id);
+        row.put("title", "Task " + id);
+        row.put("status", TaskStatus.TODO);
+        row.put("dueDate", LocalDate.of(2026, 5, 1));
+        return row;
+    }
 }